@@ -0,0 +1,25 @@
+package org.example.proyectoauth.WebSockets.dto;
+
+import lombok.Builder;
+
+/**
+ * DTO de los comandos que los clientes envían por el canal WebSocket.
+ *
+ * Ejemplos:
+ * - {@code {"action": "subscribe", "topic": "sala-general"}}
+ * - {@code {"action": "message", "topic": "sala-general", "content": "Hola", "clientId": "c-17"}}
+ * - {@code {"action": "typing", "topic": "sala-general", "content": "start"}}
+ *
+ * @param action   Acción solicitada ("subscribe", "unsubscribe", "message", "typing" o "read").
+ * @param topic    Sala o tema sobre el que se aplica la acción.
+ * @param content  Texto del mensaje de chat, o estado de "typing" ("start"/"stop") y "read" (último seq leído).
+ * @param clientId Identificador que asigna el cliente y que se devuelve en el ack (opcional).
+ */
+@Builder
+public record WebSocketCommandDto(
+        String action,
+        String topic,
+        String content,
+        String clientId
+) {
+}
@@ -0,0 +1,237 @@
+package org.example.proyectoauth.WebSockets.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.WebSockets.dto.NotificacionResponseDto;
+import org.example.proyectoauth.WebSockets.model.Notificacion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Codificador del subprotocolo binario compacto de notificaciones.
+ *
+ * Cada trama va precedida de su longitud, por lo que varias tramas pueden concatenarse en un mismo
+ * {@code BinaryMessage}:
+ * <pre>
+ * varint  longitud del cuerpo
+ * byte    tipo de trama
+ *         0 = DEFINICION  varint idEntidad, string nombre
+ *         1 = DTO         varint idEntidad, string data                  ({@link NotificacionResponseDto})
+ *         2 = EVENTO      varint idEntidad, byte tipo, valor data, string createdAt  ({@link Notificacion})
+ *         3 = COMPRIMIDA  varint longitudOriginal, bytes deflate (sin cabecera zlib) de una o varias tramas
+ * </pre>
+ * - La trama COMPRIMIDA solo se envía a las sesiones que no negociaron permessage-deflate, y solo si
+ *   el payload supera websocket.compression.min-size; todo cliente binario debe saber descomprimirla.
+ * - Los enteros son varint (LEB128); los de signo usan codificación zigzag.
+ * - Los string son varint (longitud + 1) seguido de UTF-8; la longitud 0 representa {@code null}.
+ * - El tipo del evento es el ordinal de {@link Notificacion.Tipo} (0xFF = nulo).
+ * - El valor data es un byte de etiqueta: 0 = nulo, 1 = entero zigzag, 2 = string, 3 = JSON.
+ * - Los nombres de entidad se internan: cada nombre se define una vez con una trama DEFINICION
+ *   y después se referencia por su id. Ninguna trama usa un id antes de que su DEFINICION esté encolada;
+ *   un cliente puede recibir la misma DEFINICION dos veces (diccionario y difusión) y debe ignorar la repetida.
+ */
+@Component
+public class NotificacionBinaryCodec {
+
+    public static final byte FRAME_DEFINITION = 0;
+    public static final byte FRAME_DTO = 1;
+    public static final byte FRAME_EVENT = 2;
+    public static final byte FRAME_COMPRESSED = 3;
+
+    private static final byte DATA_NULL = 0;
+    private static final byte DATA_INTEGER = 1;
+    private static final byte DATA_STRING = 2;
+    private static final byte DATA_JSON = 3;
+    private static final int TIPO_NULL = 0xFF;
+
+    private final ObjectMapper objectMapper;
+
+    // Diccionario de nombres de entidad internados, incluidos los que aún se están definiendo
+    private final Map<String, Entity> entities = new ConcurrentHashMap<>();
+    private final AtomicInteger nextEntityId = new AtomicInteger();
+
+    /**
+     * Constructor del codificador.
+     *
+     * @param objectMapper Serializador JSON para los datos que no son enteros ni texto.
+     */
+    @Autowired
+    public NotificacionBinaryCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Codifica un {@link NotificacionResponseDto}.
+     *
+     * @param dto      Notificación a codificar.
+     * @param onDefine Recibe la trama DEFINICION si el nombre de la entidad es nuevo.
+     * @return Trama binaria.
+     */
+    public byte[] encode(NotificacionResponseDto dto, Consumer<byte[]> onDefine) {
+        Buffer body = new Buffer();
+        body.write(FRAME_DTO);
+        body.writeVarint(intern(dto.entity(), onDefine));
+        body.writeString(dto.data());
+        return frame(body);
+    }
+
+    /**
+     * Codifica un evento {@link Notificacion}.
+     *
+     * @param notificacion Evento a codificar.
+     * @param onDefine     Recibe la trama DEFINICION si el nombre de la entidad es nuevo.
+     * @return Trama binaria.
+     * @throws JsonProcessingException Si el dato del evento no se puede serializar.
+     */
+    public byte[] encode(Notificacion<?> notificacion, Consumer<byte[]> onDefine) throws JsonProcessingException {
+        Buffer body = new Buffer();
+        body.write(FRAME_EVENT);
+        body.writeVarint(intern(notificacion.entity(), onDefine));
+        body.write(notificacion.tipo() == null ? TIPO_NULL : notificacion.tipo().ordinal());
+        writeData(body, notificacion.data());
+        body.writeString(notificacion.createdAt());
+        return frame(body);
+    }
+
+    /**
+     * Envuelve tramas ya comprimidas con deflate en una trama COMPRIMIDA.
+     *
+     * @param originalLength Longitud de las tramas antes de comprimir.
+     * @param deflated       Tramas comprimidas.
+     * @return Trama binaria.
+     */
+    public byte[] encodeCompressed(int originalLength, byte[] deflated) {
+        Buffer body = new Buffer();
+        body.write(FRAME_COMPRESSED);
+        body.writeVarint(originalLength);
+        body.writeBytes(deflated);
+        return frame(body);
+    }
+
+    /**
+     * Codifica todas las entidades internadas hasta ahora; se envía a cada cliente binario al conectar.
+     *
+     * @return Tramas DEFINICION concatenadas (vacío si no hay entidades).
+     */
+    public byte[] encodeDictionary() {
+        Buffer frames = new Buffer();
+        entities.forEach((name, entity) -> frames.writeBytes(definition(entity.id(), name)));
+        return frames.toByteArray();
+    }
+
+    /**
+     * Devuelve el id de la entidad, internándola si es la primera vez que aparece.
+     *
+     * Quien interna el nombre encola la DEFINICION antes de usar el id; los demás hilos que codifican
+     * la misma entidad mientras tanto esperan a que termine, para no encolar un EVENTO con un id que
+     * los clientes binarios aún no pueden resolver.
+     */
+    private int intern(String entityName, Consumer<byte[]> onDefine) {
+        String name = entityName == null ? "" : entityName;
+        Entity entity = entities.get(name);
+        if (entity != null && entity.defined().isDone()) {
+            return entity.id();
+        }
+        boolean[] created = new boolean[1];
+        entity = entities.computeIfAbsent(name, key -> {
+            created[0] = true;
+            return new Entity(nextEntityId.getAndIncrement(), new CompletableFuture<>());
+        });
+        if (!created[0]) {
+            entity.defined().join();
+            return entity.id();
+        }
+        try {
+            onDefine.accept(definition(entity.id(), name));
+            entity.defined().complete(null);
+        } catch (RuntimeException e) {
+            // Sin DEFINICION no se puede usar el id: el siguiente intento vuelve a internar el nombre
+            entities.remove(name, entity);
+            entity.defined().completeExceptionally(e);
+            throw e;
+        }
+        return entity.id();
+    }
+
+    /**
+     * Trama DEFINICION de una entidad.
+     */
+    private byte[] definition(int id, String name) {
+        Buffer body = new Buffer();
+        body.write(FRAME_DEFINITION);
+        body.writeVarint(id);
+        body.writeString(name);
+        return frame(body);
+    }
+
+    /**
+     * Escribe el dato de un evento con su etiqueta de tipo.
+     */
+    private void writeData(Buffer body, Object data) throws JsonProcessingException {
+        if (data == null) {
+            body.write(DATA_NULL);
+        } else if (data instanceof Long || data instanceof Integer || data instanceof Short || data instanceof Byte) {
+            body.write(DATA_INTEGER);
+            long value = ((Number) data).longValue();
+            body.writeVarint((value << 1) ^ (value >> 63));
+        } else if (data instanceof CharSequence text) {
+            body.write(DATA_STRING);
+            body.writeString(text.toString());
+        } else {
+            body.write(DATA_JSON);
+            body.writeString(objectMapper.writeValueAsString(data));
+        }
+    }
+
+    /**
+     * Antepone la longitud del cuerpo.
+     */
+    private byte[] frame(Buffer body) {
+        Buffer framed = new Buffer();
+        framed.writeVarint(body.size());
+        framed.writeBytes(body.toByteArray());
+        return framed.toByteArray();
+    }
+
+    /**
+     * Entidad internada; {@code defined} se completa cuando su DEFINICION ya está encolada.
+     */
+    private record Entity(int id, CompletableFuture<Void> defined) {
+    }
+
+    /**
+     * Buffer de escritura con soporte de varint y string.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer() {
+            super(64);
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1L);
+            writeBytes(utf8);
+        }
+    }
+}
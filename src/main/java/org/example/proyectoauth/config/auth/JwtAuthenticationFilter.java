@@ -6,7 +6,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.example.proyectoauth.rest.auth.services.jwt.JwtService;
+import org.example.proyectoauth.rest.auth.services.jwt.VerifiedToken;
 import org.example.proyectoauth.rest.auth.services.users.AuthUserService;
+import org.example.proyectoauth.rest.users.model.Role;
+import org.example.proyectoauth.rest.users.model.User;
+import org.example.proyectoauth.rest.users.services.UserSecurityVersions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,6 +23,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Filtro de autenticación JWT que intercepta cada solicitud HTTP entrante.
@@ -26,11 +32,18 @@ import java.io.IOException;
  * Se encarga de:
  * <ul>
  *     <li>Extraer el token JWT del encabezado Authorization.</li>
- *     <li>Validar el token y extraer el nombre de usuario.</li>
+ *     <li>Verificar firma y vigencia del token y extraer sus claims en una sola pasada
+ *     (con caché de tokens ya verificados, ver {@link JwtService#verify}).</li>
  *     <li>Autenticar al usuario si el token es válido.</li>
  *     <li>Establecer el contexto de seguridad para futuras operaciones.</li>
  * </ul>
  *
+ * Con {@code jwt.principal.mode=claims} el principal se construye directamente con los claims verificados
+ * del token (id, username y roles), sin consultar la tabla de usuarios; las desactivaciones y cambios de
+ * roles o credenciales se aplican con las versiones de seguridad ({@link UserSecurityVersions}),
+ * guardadas en la fila del usuario y cacheadas en memoria.
+ * Con {@code database} (por defecto) se carga el usuario en cada petición.
+ *
  * Este filtro se ejecuta una sola vez por solicitud, gracias a que extiende {@link OncePerRequestFilter}.
  */
 @Component
@@ -39,21 +52,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final AuthUserService authUserService;
+    private final UserSecurityVersions securityVersions;
 
     @Value("${api.version}")
     private String apiVersion;
 
+    /**
+     * Origen del principal autenticado: database (carga el usuario) o claims (solo el token):
+     * jwt.principal.mode=database
+     */
+    @Value("${jwt.principal.mode:database}")
+    private String principalMode;
+
     /**
      * Constructor que inyecta los servicios necesarios para manejar la lógica JWT y
      * cargar información de los usuarios autenticados.
      *
      * @param jwtService      Servicio encargado de operaciones sobre tokens JWT.
      * @param authUserService Servicio para recuperar detalles de los usuarios.
+     * @param securityVersions Versiones de seguridad de los usuarios (modo claims).
      */
     @Autowired
-    public JwtAuthenticationFilter(JwtService jwtService, AuthUserService authUserService) {
+    public JwtAuthenticationFilter(JwtService jwtService, AuthUserService authUserService,
+                                   UserSecurityVersions securityVersions) {
         this.jwtService = jwtService;
         this.authUserService = authUserService;
+        this.securityVersions = securityVersions;
     }
 
     /**
@@ -88,12 +112,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         log.debug("[JWT Filter] → Token JWT recibido: {}", jwt);
 
+        VerifiedToken verified;
         try {
-            // Extrae el nombre de usuario del token
-            username = jwtService.extractUserName(jwt);
+            // Verifica firma y expiración y extrae los claims en una sola pasada
+            verified = jwtService.verify(jwt);
+            username = verified.username();
             log.debug("[JWT Filter] → Nombre de usuario extraído del token: {}", username);
         } catch (Exception e) {
-            log.warn("[JWT Filter] → Token inválido o malformado.");
+            log.warn("[JWT Filter] → Token inválido, expirado o malformado.");
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token JWT inválido");
             return;
         }
@@ -101,7 +127,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Si no hay un usuario autenticado en el contexto actual
         if (StringUtils.hasText(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                userDetails = authUserService.loadUserByUsername(username);
+                userDetails = "claims".equalsIgnoreCase(principalMode) && verified.userId() != null
+                        ? principalFromClaims(verified)
+                        : authUserService.loadUserByUsername(username);
                 log.debug("[JWT Filter] → Usuario encontrado en sistema: {}", username);
             } catch (Exception e) {
                 log.warn("[JWT Filter] → Usuario no autorizado o no existe: {}", username);
@@ -109,8 +137,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
 
-            // Valida el token con los datos del usuario
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            // El token ya está verificado: solo falta comprobar que corresponde al usuario cargado
+            if (username.equals(userDetails.getUsername())) {
                 log.info("[JWT Filter] → Token válido. Autenticando usuario: {}", username);
 
                 // Crea un contexto de seguridad limpio
@@ -139,6 +167,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Construye el principal con los claims del token, sin consultar la base de datos. Es un {@link User}
+     * parcial (id, username y roles) para que {@code @AuthenticationPrincipal User} siga funcionando.
+     *
+     * @param verified Token verificado.
+     * @return Principal autenticado.
+     * @throws IllegalStateException Si el token es anterior al último cambio de seguridad del usuario.
+     */
+    private UserDetails principalFromClaims(VerifiedToken verified) {
+        if (!securityVersions.isCurrent(verified.userId(), verified.securityVersion())) {
+            throw new IllegalStateException("Token revocado para el usuario " + verified.username());
+        }
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        verified.roles().forEach(role -> roles.add(Role.valueOf(role)));
+        return User.builder()
+                .id(verified.userId())
+                .username(verified.username())
+                .roles(roles)
+                .isActive(true)
+                .build();
+    }
+
     /**
      * Determina si este filtro debe o no ejecutarse para la solicitud actual.
      *
@@ -0,0 +1,208 @@
+package org.example.proyectoauth.config.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.rest.auth.exceptions.PasswordHashingUnavailable;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Codificador de contraseñas BCrypt que ejecuta el cifrado y la comprobación en un pool propio y acotado.
+ *
+ * BCrypt consume decenas de milisegundos de CPU por operación; hacerlo en los hilos de Tomcat deja sin
+ * servicio al resto de endpoints durante una avalancha de inicios de sesión. Aquí:
+ *
+ * - Como mucho {@code threads} operaciones se ejecutan a la vez y {@code queue-capacity} esperan; si la
+ *   cola está llena la petición falla al momento con {@link PasswordHashingUnavailable} (503).
+ * - El coste se calibra al arrancar: el mayor que no supere {@code target-ms} por operación, sin bajar de
+ *   {@code min-strength}. Los hashes guardados con un coste menor se marcan para recifrar
+ *   ({@link #upgradeEncoding}) y {@code DaoAuthenticationProvider} los actualiza tras un inicio de sesión correcto.
+ */
+@Slf4j
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    // Cifrados de prueba por coste durante la calibración (se usa la mediana)
+    private static final int CALIBRATION_ROUNDS = 3;
+    private static final String CALIBRATION_PASSWORD = "calibracion-bcrypt";
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMillis;
+    private final int queueCapacity;
+    private final int strength;
+
+    /**
+     * Calibra el coste y arranca el pool.
+     *
+     * @param minStrength       Coste mínimo de BCrypt.
+     * @param maxStrength       Coste máximo de BCrypt.
+     * @param targetMillis      Tiempo objetivo por operación usado en la calibración.
+     * @param threads           Hilos del pool.
+     * @param queueCapacity     Operaciones en espera máximas.
+     * @param waitTimeoutMillis Tiempo máximo que una petición espera su resultado.
+     */
+    public OffloadingPasswordEncoder(int minStrength, int maxStrength, long targetMillis, int threads,
+                                     int queueCapacity, long waitTimeoutMillis) {
+        this.strength = calibrate(minStrength, maxStrength, targetMillis);
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.queueCapacity = queueCapacity;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        log.info("Cifrado de contraseñas: BCrypt coste {} en {} hilos (cola {})", strength, threads, queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Cifra varias contraseñas en paralelo para cargas masivas.
+     *
+     * Mantiene como mucho {@code threads - 1} operaciones en el pool a la vez, de modo que siempre queda
+     * un hilo libre para los inicios de sesión, y nunca más que {@code queue-capacity}: un hilo que acaba de
+     * completar una tarea puede no haber recogido aún la siguiente de la cola, y la importación no debe llenarla.
+     *
+     * @param rawPasswords Contraseñas en claro.
+     * @return Hashes, en el mismo orden.
+     * @throws PasswordHashingUnavailable Si el pool está saturado.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int window = Math.max(1, Math.min(executor.getMaximumPoolSize() - 1, queueCapacity));
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        Deque<Future<String>> inFlight = new ArrayDeque<>(window);
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                if (inFlight.size() == window) {
+                    encoded.add(await(inFlight.poll()));
+                }
+                inFlight.add(submit(() -> delegate.encode(rawPassword)));
+            }
+            while (!inFlight.isEmpty()) {
+                encoded.add(await(inFlight.poll()));
+            }
+            return encoded;
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Indica si el hash guardado usa un coste menor que el calibrado. No consume CPU: solo lee el prefijo.
+     *
+     * @param encodedPassword Hash guardado.
+     * @return {@code true} si conviene recifrarlo.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Coste de BCrypt elegido en la calibración.
+     *
+     * @return Coste (log2 de las rondas).
+     */
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Operaciones en espera en la cola del pool.
+     *
+     * @return Tamaño de la cola.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Detiene el pool.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Ejecuta la operación en el pool y espera su resultado, rechazándola si el pool está saturado.
+     */
+    private <T> T run(Callable<T> operation) {
+        return await(submit(operation));
+    }
+
+    private <T> Future<T> submit(Callable<T> operation) {
+        try {
+            return executor.submit(operation);
+        } catch (RejectedExecutionException e) {
+            log.warn("Pool de cifrado de contraseñas saturado ({} en cola): petición rechazada", executor.getQueue().size());
+            throw new PasswordHashingUnavailable("Servicio ocupado, inténtalo de nuevo en unos segundos");
+        }
+    }
+
+    /**
+     * Espera el resultado de una operación ya enviada al pool.
+     */
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingUnavailable("Servicio ocupado, inténtalo de nuevo en unos segundos");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailable("Operación interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Mide el coste mínimo y extrapola: cada punto de coste duplica el tiempo de BCrypt.
+     */
+    private static int calibrate(int minStrength, int maxStrength, long targetMillis) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(CALIBRATION_PASSWORD); // calentamiento
+        long[] samples = new long[CALIBRATION_ROUNDS];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        double millis = Math.max(samples[samples.length / 2] / 1_000_000.0, 0.01);
+        int extra = (int) Math.floor(Math.log(targetMillis / millis) / Math.log(2));
+        int chosen = Math.max(minStrength, Math.min(maxStrength, minStrength + extra));
+        log.info("Calibración BCrypt: coste {} tarda {} ms; objetivo {} ms -> coste {}",
+                minStrength, String.format("%.1f", millis), targetMillis, chosen);
+        return chosen;
+    }
+}
@@ -13,9 +13,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
@@ -44,6 +43,22 @@ public class SecurityConfig {
     @Value("${api.version}")
     private String apiVersion;
 
+    // Cifrado de contraseñas: auth.password.min-strength=10, max-strength=14, target-ms=100
+    @Value("${auth.password.min-strength:10}")
+    private int passwordMinStrength;
+    @Value("${auth.password.max-strength:14}")
+    private int passwordMaxStrength;
+    @Value("${auth.password.target-ms:100}")
+    private long passwordTargetMillis;
+
+    // Pool de cifrado: auth.password.threads=0 (nucleos), queue-capacity=64, wait-timeout-ms=5000
+    @Value("${auth.password.threads:0}")
+    private int passwordThreads;
+    @Value("${auth.password.queue-capacity:64}")
+    private int passwordQueueCapacity;
+    @Value("${auth.password.wait-timeout-ms:5000}")
+    private long passwordWaitTimeoutMillis;
+
     /**
      * Constructor para inyectar dependencias requeridas por la configuración de seguridad.
      *
@@ -110,20 +125,24 @@ public class SecurityConfig {
     /**
      * Define el encoder que se usará para encriptar las contraseñas de los usuarios.
      *
-     * BCrypt es una de las opciones más seguras, ya que incluye salt y es adaptable.
+     * BCrypt es una de las opciones más seguras, ya que incluye salt y es adaptable. Se ejecuta en un
+     * pool propio y acotado para no ocupar los hilos de Tomcat, con el coste calibrado al arrancar.
      *
      * @return Bean PasswordEncoder configurado.
      */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public OffloadingPasswordEncoder passwordEncoder() {
+        int threads = passwordThreads > 0 ? passwordThreads : Runtime.getRuntime().availableProcessors();
+        return new OffloadingPasswordEncoder(passwordMinStrength, passwordMaxStrength, passwordTargetMillis,
+                threads, passwordQueueCapacity, passwordWaitTimeoutMillis);
     }
 
     /**
      * Define el AuthenticationProvider personalizado que usa nuestro UserDetailsService.
      *
      * El DaoAuthenticationProvider compara el usuario y la contraseña usando el
-     * UserDetailsService y el PasswordEncoder definidos.
+     * UserDetailsService y el PasswordEncoder definidos. Si el servicio de usuarios puede actualizar
+     * contraseñas, los hashes con un coste menor que el calibrado se recifran tras un inicio de sesión correcto.
      *
      * @return Bean AuthenticationProvider configurado.
      */
@@ -132,6 +151,9 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        if (userService instanceof UserDetailsPasswordService passwordService) {
+            authProvider.setUserDetailsPasswordService(passwordService);
+        }
         return authProvider;
     }
 
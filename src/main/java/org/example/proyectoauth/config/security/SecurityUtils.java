@@ -1,5 +1,6 @@
 package org.example.proyectoauth.config.security;
 
+import org.example.proyectoauth.rest.users.model.User;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -25,4 +26,19 @@ public class SecurityUtils {
 
         return "ANÓNIMO";
     }
+
+    /**
+     * Obtiene el id del usuario actualmente autenticado.
+     *
+     * @return El id del usuario si está autenticado; en caso contrario, {@code null}.
+     */
+    public static Long getCurrentUserId() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        if (principal instanceof User user) {
+            return user.getId();
+        }
+
+        return null;
+    }
 }
@@ -0,0 +1,94 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Trama de difusión inmutable que se codifica una única vez y se comparte entre todas las sesiones.
+ *
+ * El payload se codifica a UTF-8 en el constructor y el mismo {@link TextMessage} se entrega
+ * a todas las colas de salida, por lo que el coste por destinatario no depende del tamaño del mensaje.
+ *
+ * Opcionalmente incluye una variante binaria (subprotocolo compacto), también codificada una vez,
+ * que reciben las sesiones que negociaron dicho subprotocolo, y su versión COMPRIMIDA para las sesiones
+ * binarias sin permessage-deflate (a las que lo negociaron ya las comprime el contenedor).
+ */
+public final class BroadcastFrame {
+
+    private final TextMessage text;
+    private final BinaryMessage binary;
+    private final BinaryMessage compressed;
+    private final int encodedLength;
+
+    private BroadcastFrame(TextMessage text, BinaryMessage binary, BinaryMessage compressed, int encodedLength) {
+        this.text = text;
+        this.binary = binary;
+        this.compressed = compressed;
+        this.encodedLength = encodedLength;
+    }
+
+    /**
+     * Codifica el texto una sola vez.
+     *
+     * @param payload Texto ya serializado.
+     * @return Trama lista para compartir.
+     */
+    public static BroadcastFrame of(String payload) {
+        byte[] utf8 = payload.getBytes(StandardCharsets.UTF_8);
+        return new BroadcastFrame(new TextMessage(utf8), null, null, utf8.length);
+    }
+
+    /**
+     * Crea una trama con variante de texto y variantes binarias.
+     *
+     * @param payload    Texto ya serializado para los clientes de texto.
+     * @param binary     Trama binaria ya codificada para los clientes binarios.
+     * @param compressed Trama COMPRIMIDA para los clientes binarios sin permessage-deflate, o {@code null}.
+     * @return Trama lista para compartir.
+     */
+    public static BroadcastFrame of(String payload, byte[] binary, byte[] compressed) {
+        byte[] utf8 = payload.getBytes(StandardCharsets.UTF_8);
+        return new BroadcastFrame(new TextMessage(utf8), new BinaryMessage(binary),
+                compressed != null ? new BinaryMessage(compressed) : null,
+                utf8.length + binary.length + (compressed != null ? compressed.length : 0));
+    }
+
+    /**
+     * Crea una trama solo binaria (por ejemplo, definiciones del diccionario de entidades).
+     * Las sesiones de texto no la reciben.
+     *
+     * @param binary Trama binaria ya codificada.
+     * @return Trama lista para compartir.
+     */
+    public static BroadcastFrame binaryOnly(byte[] binary) {
+        return new BroadcastFrame(null, new BinaryMessage(binary), null, binary.length);
+    }
+
+    /**
+     * Mensaje que corresponde a una sesión según el subprotocolo negociado.
+     * Las sesiones binarias reciben la variante de texto si la trama no tiene variante binaria, y la
+     * COMPRIMIDA solo si no negociaron permessage-deflate.
+     *
+     * @param binaryProtocol    Si la sesión negoció el subprotocolo binario.
+     * @param deflateNegotiated Si la sesión negoció permessage-deflate.
+     * @return Mensaje a encolar, o {@code null} si la trama no aplica a la sesión.
+     */
+    public WebSocketMessage<?> messageFor(boolean binaryProtocol, boolean deflateNegotiated) {
+        if (!binaryProtocol || binary == null) {
+            return text;
+        }
+        return compressed != null && !deflateNegotiated ? compressed : binary;
+    }
+
+    /**
+     * Tamaño en bytes de las variantes codificadas.
+     *
+     * @return Longitud codificada del payload.
+     */
+    public int getEncodedLength() {
+        return encodedLength;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.proyectoauth.config.websockets;
+
+/**
+ * Contadores acumulados de las difusiones WebSocket.
+ *
+ * Permiten comprobar que el coste por destinatario es constante: se codifica una trama
+ * por difusión ({@code framesEncoded == broadcasts}) y los bytes reservados durante el reparto
+ * por destinatario no crecen con el tamaño del payload.
+ *
+ * @param broadcasts          Difusiones realizadas.
+ * @param framesEncoded       Tramas codificadas: una por difusión, sea cual sea el número de destinatarios,
+ *                            más las definiciones del diccionario binario.
+ * @param encodedBytes        Bytes UTF-8 codificados en total.
+ * @param recipients          Entregas encoladas en total.
+ * @param fanOutAllocatedBytes Bytes de heap reservados por el hilo emisor durante los repartos
+ *                            (-1 si la JVM no permite medirlo).
+ */
+public record BroadcastStats(
+        long broadcasts,
+        long framesEncoded,
+        long encodedBytes,
+        long recipients,
+        long fanOutAllocatedBytes
+) {
+
+    /**
+     * Bytes de heap reservados de media por cada destinatario durante el reparto.
+     *
+     * @return Media de bytes por destinatario, o -1 si no hay datos.
+     */
+    public double allocatedBytesPerRecipient() {
+        if (recipients == 0 || fanOutAllocatedBytes < 0) {
+            return -1;
+        }
+        return (double) fanOutAllocatedBytes / recipients;
+    }
+}
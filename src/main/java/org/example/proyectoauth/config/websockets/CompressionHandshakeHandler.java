@@ -0,0 +1,199 @@
+package org.example.proyectoauth.config.websockets;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeFailureException;
+import org.springframework.web.socket.server.RequestUpgradeStrategy;
+import org.springframework.web.socket.server.standard.TomcatRequestUpgradeStrategy;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Manejador del handshake WebSocket que controla la negociación de la extensión permessage-deflate.
+ *
+ * - Si la compresión está desactivada, la oferta del cliente se elimina y el canal va sin comprimir.
+ * - Si está activada, se añaden a la oferta los parámetros de context takeover de la configuración,
+ *   de modo que el contenedor acepte la extensión con el comportamiento deseado.
+ *
+ * Tomcat negocia las extensiones a partir de la cabecera {@code Sec-WebSocket-Extensions} de la petición
+ * y de las extensiones que tiene instaladas, no de la lista que selecciona Spring. Por eso la política se
+ * aplica en la estrategia de upgrade, reescribiendo esa cabecera justo antes de pasar la petición a Tomcat.
+ *
+ * Sin context takeover cada mensaje se comprime de forma independiente: menos memoria por sesión
+ * (no se guarda una ventana de 32 KB por conexión) a cambio de un ratio algo peor.
+ */
+@Slf4j
+public class CompressionHandshakeHandler extends DefaultHandshakeHandler {
+
+    public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final DeflatePolicyUpgradeStrategy upgradeStrategy;
+
+    /**
+     * Crea el manejador del handshake.
+     *
+     * @param enabled               Si se negocia permessage-deflate.
+     * @param serverContextTakeover Si el servidor conserva el contexto de compresión entre mensajes.
+     * @param clientContextTakeover Si el cliente conserva el contexto de compresión entre mensajes.
+     */
+    public CompressionHandshakeHandler(boolean enabled, boolean serverContextTakeover, boolean clientContextTakeover) {
+        this(new DeflatePolicyUpgradeStrategy(new TomcatRequestUpgradeStrategy(),
+                enabled, serverContextTakeover, clientContextTakeover));
+    }
+
+    private CompressionHandshakeHandler(DeflatePolicyUpgradeStrategy upgradeStrategy) {
+        super(upgradeStrategy);
+        this.upgradeStrategy = upgradeStrategy;
+    }
+
+    /**
+     * Aplica la política a la cabecera de extensiones ofrecidas por el cliente.
+     *
+     * @param offered Valor de {@code Sec-WebSocket-Extensions}.
+     * @return Ofertas resultantes, o {@code null} si no queda ninguna.
+     */
+    String rewriteExtensions(String offered) {
+        return upgradeStrategy.rewriteExtensions(offered);
+    }
+
+    /**
+     * Estrategia de upgrade que entrega al contenedor una petición cuya cabecera de extensiones
+     * ya aplica la política de compresión.
+     */
+    private static final class DeflatePolicyUpgradeStrategy implements RequestUpgradeStrategy {
+
+        private final RequestUpgradeStrategy delegate;
+        private final boolean enabled;
+        private final boolean serverContextTakeover;
+        private final boolean clientContextTakeover;
+
+        private DeflatePolicyUpgradeStrategy(RequestUpgradeStrategy delegate, boolean enabled,
+                                             boolean serverContextTakeover, boolean clientContextTakeover) {
+            this.delegate = delegate;
+            this.enabled = enabled;
+            this.serverContextTakeover = serverContextTakeover;
+            this.clientContextTakeover = clientContextTakeover;
+        }
+
+        @Override
+        public String[] getSupportedVersions() {
+            return delegate.getSupportedVersions();
+        }
+
+        @Override
+        public List<WebSocketExtension> getSupportedExtensions(ServerHttpRequest request) {
+            return delegate.getSupportedExtensions(request);
+        }
+
+        @Override
+        public void upgrade(ServerHttpRequest request, ServerHttpResponse response, String selectedProtocol,
+                            List<WebSocketExtension> selectedExtensions, Principal user,
+                            WebSocketHandler wsHandler, Map<String, Object> attributes)
+                throws HandshakeFailureException {
+            if (request instanceof ServletServerHttpRequest servletRequest) {
+                HttpServletRequest original = servletRequest.getServletRequest();
+                String offered = join(original.getHeaders(EXTENSIONS_HEADER));
+                if (offered != null) {
+                    String rewritten = rewriteExtensions(offered);
+                    log.debug("[WS] Extensiones del handshake: '{}' -> '{}'", offered, rewritten);
+                    request = new ServletServerHttpRequest(new ExtensionsRequest(original, rewritten));
+                }
+            }
+            delegate.upgrade(request, response, selectedProtocol, selectedExtensions, user, wsHandler, attributes);
+        }
+
+        private String rewriteExtensions(String offered) {
+            List<String> offers = new ArrayList<>();
+            for (String offer : offered.split(",")) {
+                String trimmed = offer.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (!PERMESSAGE_DEFLATE.equalsIgnoreCase(nameOf(trimmed))) {
+                    offers.add(trimmed);
+                } else if (enabled) {
+                    offers.add(withContextTakeover(trimmed));
+                }
+            }
+            return offers.isEmpty() ? null : String.join(", ", offers);
+        }
+
+        /**
+         * Añade a la oferta los parámetros de context takeover configurados que no traiga ya.
+         */
+        private String withContextTakeover(String offer) {
+            String lower = offer.toLowerCase(Locale.ROOT);
+            StringBuilder result = new StringBuilder(offer);
+            if (!serverContextTakeover && !lower.contains(SERVER_NO_CONTEXT_TAKEOVER)) {
+                result.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+            }
+            if (!clientContextTakeover && !lower.contains(CLIENT_NO_CONTEXT_TAKEOVER)) {
+                result.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+            }
+            return result.toString();
+        }
+
+        private static String nameOf(String offer) {
+            int parameters = offer.indexOf(';');
+            return (parameters < 0 ? offer : offer.substring(0, parameters)).trim();
+        }
+
+        private static String join(Enumeration<String> values) {
+            if (values == null || !values.hasMoreElements()) {
+                return null;
+            }
+            return String.join(", ", Collections.list(values));
+        }
+    }
+
+    /**
+     * Petición que devuelve la cabecera de extensiones reescrita y delega todo lo demás (incluido el upgrade).
+     */
+    private static final class ExtensionsRequest extends HttpServletRequestWrapper {
+
+        private final String extensions;
+
+        private ExtensionsRequest(HttpServletRequest request, String extensions) {
+            super(request);
+            this.extensions = extensions;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return EXTENSIONS_HEADER.equalsIgnoreCase(name) ? extensions : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return super.getHeaders(name);
+            }
+            return extensions == null ? Collections.emptyEnumeration() : Collections.enumeration(List.of(extensions));
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            if (extensions == null) {
+                names.removeIf(EXTENSIONS_HEADER::equalsIgnoreCase);
+            }
+            return Collections.enumeration(names);
+        }
+    }
+}
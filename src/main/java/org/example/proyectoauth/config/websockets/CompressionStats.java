@@ -0,0 +1,35 @@
+package org.example.proyectoauth.config.websockets;
+
+/**
+ * Métricas de compresión del canal WebSocket.
+ *
+ * Los bytes y el tiempo de CPU corresponden a las tramas COMPRIMIDA que genera la aplicación
+ * (una vez por difusión) para las sesiones binarias sin permessage-deflate. La compresión
+ * permessage-deflate la realiza el contenedor sobre todas las tramas de las sesiones que la
+ * negociaron, sin umbral de tamaño, y aquí solo se refleja cuántas sesiones la negociaron.
+ *
+ * @param negotiatedSessions Sesiones que negociaron permessage-deflate.
+ * @param compressedFrames   Tramas comprimidas.
+ * @param skippedFrames      Tramas no comprimidas (por debajo del umbral o sin ganancia).
+ * @param inputBytes         Bytes antes de comprimir (solo tramas comprimidas).
+ * @param outputBytes        Bytes tras comprimir.
+ * @param cpuMillis          Tiempo de CPU empleado en comprimir, en milisegundos.
+ */
+public record CompressionStats(
+        long negotiatedSessions,
+        long compressedFrames,
+        long skippedFrames,
+        long inputBytes,
+        long outputBytes,
+        double cpuMillis
+) {
+
+    /**
+     * Ratio de compresión (bytes de salida / bytes de entrada).
+     *
+     * @return Ratio entre 0 y 1, o 1 si aún no se ha comprimido nada.
+     */
+    public double ratio() {
+        return inputBytes == 0 ? 1 : (double) outputBytes / inputBytes;
+    }
+}
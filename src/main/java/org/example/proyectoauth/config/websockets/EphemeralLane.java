@@ -0,0 +1,236 @@
+package org.example.proyectoauth.config.websockets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Carril de mejor esfuerzo para eventos efímeros: "escribiendo..." y confirmaciones de lectura.
+ *
+ * Estos eventos no se guardan, no pasan por la bandeja de entrada ni por la caché de mensajes y
+ * pueden perderse sin consecuencias:
+ *
+ * - Antirrebote por (sala, usuario, tipo): solo se guarda el último estado recibido y se publica en
+ *   el siguiente tick; los cambios intermedios se pierden.
+ * - Colapso: un estado igual al último publicado no se vuelve a publicar (el de "escribiendo" se
+ *   repite como mucho cada {@code typing-ttl}); una lectura solo se publica si avanza.
+ * - Límite de reparto: cada sala recibe como mucho una trama cada {@code room-interval}, con todos
+ *   sus eventos pendientes agrupados.
+ * - Presión: el reparto ({@link WebSocketHandler}) descarta el evento en las sesiones cuya cola de
+ *   salida ya tiene mensajes pendientes, para no desplazar nunca a los mensajes reales.
+ */
+@Slf4j
+public class EphemeralLane {
+
+    /**
+     * Tipos de evento efímero.
+     */
+    public enum Kind {
+        TYPING, READ
+    }
+
+    // Ticks entre barridos de los últimos estados publicados caducados
+    private static final int SWEEP_EVERY_TICKS = 100;
+
+    private final ObjectMapper objectMapper;
+    private final long roomIntervalNanos;
+    private final long typingTtlNanos;
+    private final int maxPending;
+    private final ScheduledExecutorService ticker;
+
+    // Último estado recibido de cada (sala, usuario, tipo), pendiente de publicar
+    private final Map<Key, Event> pending = new ConcurrentHashMap<>();
+    // Último estado publicado, para colapsar repeticiones
+    private final Map<Key, Event> published = new ConcurrentHashMap<>();
+    // Instante a partir del cual cada sala puede recibir otra trama
+    private final Map<String, Long> roomNextAllowed = new ConcurrentHashMap<>();
+
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile BiConsumer<String, String> publisher;
+    private int ticks;
+
+    /**
+     * Crea el carril y arranca su tick.
+     *
+     * @param objectMapper     Serializador JSON de las tramas.
+     * @param tickMillis       Ventana de antirrebote.
+     * @param roomIntervalMillis Tiempo mínimo entre tramas a una misma sala.
+     * @param typingTtlMillis  Tiempo tras el que un "escribiendo" repetido se vuelve a publicar.
+     * @param maxPending       Eventos pendientes máximos; por encima se descartan los nuevos.
+     */
+    public EphemeralLane(ObjectMapper objectMapper, long tickMillis, long roomIntervalMillis, long typingTtlMillis,
+                         int maxPending) {
+        this.objectMapper = objectMapper;
+        this.roomIntervalNanos = TimeUnit.MILLISECONDS.toNanos(roomIntervalMillis);
+        this.typingTtlNanos = TimeUnit.MILLISECONDS.toNanos(typingTtlMillis);
+        this.maxPending = maxPending;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(WebSocketConfig.namedThreadFactory("ws-ephemeral-"));
+        this.ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fija el destino de las tramas: recibe la sala y la trama JSON ya serializada.
+     *
+     * @param publisher Reparto a los miembros de la sala.
+     */
+    public void setPublisher(BiConsumer<String, String> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Registra el estado de un usuario en una sala. Nunca bloquea ni hace E/S.
+     *
+     * @param room     Sala.
+     * @param userId   Usuario.
+     * @param username Nombre del usuario.
+     * @param kind     Tipo de evento.
+     * @param state    Estado: "start"/"stop" para {@link Kind#TYPING}, número de secuencia para {@link Kind#READ}.
+     * @return {@code false} si el evento se colapsó o se descartó.
+     */
+    public boolean submit(String room, Long userId, String username, Kind kind, String state) {
+        Key key = new Key(room, userId, kind);
+        Event event = new Event(username, state, System.nanoTime());
+        Event last = published.get(key);
+        if (last != null && isRedundant(kind, last, event)) {
+            pending.remove(key);
+            collapsed.increment();
+            return false;
+        }
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            dropped.increment();
+            return false;
+        }
+        pending.put(key, event);
+        return true;
+    }
+
+    /**
+     * Eventos colapsados por repetir el último estado publicado.
+     *
+     * @return Total acumulado.
+     */
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    /**
+     * Eventos descartados por exceso de pendientes o por presión en las colas de salida.
+     *
+     * @return Total acumulado.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Anota eventos descartados en el reparto.
+     *
+     * @param count Número de descartes.
+     */
+    void recordDropped(long count) {
+        dropped.add(count);
+    }
+
+    /**
+     * Detiene el tick.
+     */
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Indica si el evento no aporta nada respecto al último publicado.
+     */
+    private boolean isRedundant(Kind kind, Event last, Event event) {
+        if (kind == Kind.READ) {
+            return parseSeq(event.state()) <= parseSeq(last.state());
+        }
+        return last.state().equals(event.state()) && event.at() - last.at() < typingTtlNanos;
+    }
+
+    /**
+     * Publica, agrupados por sala, los eventos pendientes de las salas que no están limitadas.
+     * Lo invoca el tick periódico; es visible en el paquete para poder forzarlo en los tests.
+     */
+    void tick() {
+        try {
+            long now = System.nanoTime();
+            Map<String, List<Map<String, Object>>> frames = new HashMap<>();
+            for (Map.Entry<Key, Event> entry : pending.entrySet()) {
+                Key key = entry.getKey();
+                Long allowed = roomNextAllowed.get(key.room());
+                if (allowed != null && now - allowed < 0) {
+                    // Sala limitada: el evento espera (y puede ser sustituido) hasta su turno
+                    continue;
+                }
+                if (!pending.remove(key, entry.getValue())) {
+                    continue;
+                }
+                published.put(key, entry.getValue());
+                Map<String, Object> event = new LinkedHashMap<>();
+                event.put("kind", key.kind().name().toLowerCase());
+                event.put("userId", key.userId());
+                event.put("username", entry.getValue().username());
+                event.put("state", entry.getValue().state());
+                frames.computeIfAbsent(key.room(), room -> new ArrayList<>()).add(event);
+            }
+            BiConsumer<String, String> target = publisher;
+            for (Map.Entry<String, List<Map<String, Object>>> frame : frames.entrySet()) {
+                roomNextAllowed.put(frame.getKey(), now + roomIntervalNanos);
+                if (target != null) {
+                    target.accept(frame.getKey(), serialize(frame.getKey(), frame.getValue()));
+                }
+            }
+            if (++ticks % SWEEP_EVERY_TICKS == 0) {
+                sweep(now);
+            }
+        } catch (RuntimeException | IOException e) {
+            log.error("[WS] Error en el tick de eventos efímeros: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Olvida los estados publicados antiguos y los límites de sala vencidos, para acotar la memoria.
+     * Una lectura olvidada solo puede volver a publicarse una vez más.
+     */
+    private void sweep(long now) {
+        published.entrySet().removeIf(entry -> now - entry.getValue().at() > typingTtlNanos * 2);
+        roomNextAllowed.entrySet().removeIf(entry -> now - entry.getValue() > 0);
+    }
+
+    private String serialize(String room, List<Map<String, Object>> events) throws IOException {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", "ephemeral");
+        frame.put("topic", room);
+        frame.put("events", events);
+        return objectMapper.writeValueAsString(frame);
+    }
+
+    private static long parseSeq(String state) {
+        try {
+            return Long.parseLong(state);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record Key(String room, Long userId, Kind kind) {
+    }
+
+    private record Event(String username, String state, long at) {
+    }
+}
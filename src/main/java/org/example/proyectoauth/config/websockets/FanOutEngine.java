@@ -0,0 +1,165 @@
+package org.example.proyectoauth.config.websockets;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Motor de reparto paralelo para difusiones grandes.
+ *
+ * Divide el {@link ShardedSessionRegistry} en porciones y las reparte a la vez en un pool
+ * dedicado y acotado, de modo que el último destinatario no espera a que un único hilo
+ * recorra decenas de miles de sesiones. Por debajo del umbral configurado el reparto se
+ * hace en el hilo que llama, ya que paralelizar no compensa.
+ *
+ * {@link #dispatch} no vuelve hasta que todas las porciones han encolado la trama: así dos difusiones
+ * consecutivas llegan a cada sesión en el mismo orden en que se emitieron (un DELETE nunca adelanta
+ * al CREATE previo). La espera es corta porque las porciones solo encolan, no escriben en la red.
+ *
+ * Registra el tiempo de finalización de cada difusión (ver {@link FanOutStats}).
+ */
+@Slf4j
+public class FanOutEngine {
+
+    // Cubetas del histograma: la cubeta i cuenta tiempos < 2^i microsegundos
+    private static final int BUCKETS = 40;
+
+    private final Executor executor;
+    private final int slices;
+    private final int parallelThreshold;
+
+    // Métricas de tiempo de finalización
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder parallelBroadcasts = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong lastNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Crea el motor de reparto.
+     *
+     * @param executor          Pool dedicado y acotado para las porciones.
+     * @param slices            Número de porciones en que se divide cada difusión.
+     * @param parallelThreshold Sesiones mínimas para repartir en paralelo.
+     */
+    public FanOutEngine(Executor executor, int slices, int parallelThreshold) {
+        this.executor = executor;
+        this.slices = Math.max(1, slices);
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Reparte una difusión entre todas las sesiones del registro.
+     * El hilo que llama reparte la primera porción y espera a que terminen las demás, de modo que
+     * las difusiones emitidas una tras otra se encolan en cada sesión en ese mismo orden.
+     *
+     * @param registry    Registro de sesiones destino.
+     * @param sliceWriter Entrega el mensaje a cada sesión de una porción.
+     */
+    public void dispatch(ShardedSessionRegistry registry, Consumer<Iterable<WebSocketSession>> sliceWriter) {
+        long start = System.nanoTime();
+        int parallelism = Math.min(slices, registry.shardCount());
+        if (parallelism <= 1 || registry.size() < parallelThreshold) {
+            sliceWriter.accept(registry);
+            record(System.nanoTime() - start, false);
+            return;
+        }
+
+        CountDownLatch pending = new CountDownLatch(parallelism - 1);
+        for (int i = 1; i < parallelism; i++) {
+            Iterable<WebSocketSession> slice = registry.slice(i, parallelism);
+            Runnable task = () -> {
+                try {
+                    writeSlice(sliceWriter, slice);
+                } finally {
+                    pending.countDown();
+                }
+            };
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Pool saturado: la porción se reparte en el hilo que llama
+                task.run();
+            }
+        }
+        writeSlice(sliceWriter, registry.slice(0, parallelism));
+        try {
+            pending.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("[WS] Interrumpida la espera del reparto; el orden con la siguiente difusión no está garantizado");
+            return;
+        }
+        record(System.nanoTime() - start, true);
+    }
+
+    /**
+     * Reparte una porción; un fallo en ella no impide el resto del reparto.
+     */
+    private static void writeSlice(Consumer<Iterable<WebSocketSession>> sliceWriter, Iterable<WebSocketSession> slice) {
+        try {
+            sliceWriter.accept(slice);
+        } catch (RuntimeException e) {
+            log.error("[WS] Error en una porción del reparto: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve una instantánea de los tiempos de finalización.
+     *
+     * @return Estadísticas de reparto.
+     */
+    public FanOutStats getStats() {
+        long count = broadcasts.sum();
+        double avg = count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+        return new FanOutStats(count, parallelBroadcasts.sum(), avg, percentileMillis(0.99),
+                maxNanos.get() / 1e6, lastNanos.get() / 1e6);
+    }
+
+    /**
+     * Registra el tiempo de una difusión.
+     */
+    private void record(long nanos, boolean parallel) {
+        broadcasts.increment();
+        if (parallel) {
+            parallelBroadcasts.increment();
+        }
+        totalNanos.add(nanos);
+        lastNanos.set(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        long micros = Math.max(1, nanos / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        histogram.incrementAndGet(bucket);
+        log.debug("[WS] Difusión completada en {} µs (paralela: {})", nanos / 1_000, parallel);
+    }
+
+    /**
+     * Calcula la cota superior del percentil indicado a partir del histograma.
+     */
+    private double percentileMillis(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += histogram.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= target) {
+                return (1L << i) / 1e3;
+            }
+        }
+        return maxNanos.get() / 1e6;
+    }
+}
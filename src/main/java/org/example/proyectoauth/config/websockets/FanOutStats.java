@@ -0,0 +1,25 @@
+package org.example.proyectoauth.config.websockets;
+
+/**
+ * Tiempos de finalización de las difusiones realizadas por el {@link FanOutEngine}.
+ *
+ * El tiempo de una difusión se mide desde que empieza el reparto hasta que el último
+ * destinatario tiene el mensaje en su cola de salida. El percentil 99 se calcula sobre
+ * un histograma de cubetas en potencias de dos, por lo que es una cota superior aproximada.
+ *
+ * @param broadcasts  Difusiones medidas.
+ * @param parallel    Difusiones repartidas en paralelo entre varios hilos.
+ * @param avgMillis   Tiempo medio de finalización en milisegundos.
+ * @param p99Millis   Percentil 99 aproximado en milisegundos.
+ * @param maxMillis   Tiempo máximo observado en milisegundos.
+ * @param lastMillis  Tiempo de la última difusión en milisegundos.
+ */
+public record FanOutStats(
+        long broadcasts,
+        long parallel,
+        double avgMillis,
+        double p99Millis,
+        double maxMillis,
+        double lastMillis
+) {
+}
@@ -0,0 +1,109 @@
+package org.example.proyectoauth.config.websockets;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * Compresor deflate (sin cabecera zlib, como permessage-deflate) para las tramas binarias difundidas.
+ *
+ * Genera la trama COMPRIMIDA del subprotocolo binario, que solo reciben las sesiones que no negociaron
+ * permessage-deflate; las que lo negociaron reciben la trama sin comprimir y la comprime el contenedor,
+ * así ninguna trama se comprime dos veces.
+ *
+ * Solo comprime payloads a partir del tamaño mínimo configurado y descarta el resultado si no
+ * reduce el tamaño. Cada trama se comprime de forma independiente (sin context takeover), por lo
+ * que el resultado se calcula una vez y se comparte entre todas las sesiones.
+ */
+public class FrameCompressor {
+
+    private final boolean enabled;
+    private final int minSize;
+
+    // Un Deflater por hilo, reutilizado entre tramas
+    private final ThreadLocal<Deflater> deflaters;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // Métricas
+    private final LongAdder negotiatedSessions = new LongAdder();
+    private final LongAdder compressedFrames = new LongAdder();
+    private final LongAdder skippedFrames = new LongAdder();
+    private final LongAdder inputBytes = new LongAdder();
+    private final LongAdder outputBytes = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+
+    /**
+     * Crea el compresor.
+     *
+     * @param enabled Si la compresión está activada.
+     * @param minSize Tamaño mínimo en bytes para comprimir.
+     * @param level   Nivel de compresión deflate (1-9).
+     */
+    public FrameCompressor(boolean enabled, int minSize, int level) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level, true));
+    }
+
+    /**
+     * Comprime el payload si supera el umbral y la compresión resulta rentable.
+     *
+     * @param payload Bytes a comprimir.
+     * @return Bytes comprimidos, o {@code null} si no se comprime.
+     */
+    public byte[] compress(byte[] payload) {
+        if (!enabled || payload.length < minSize) {
+            skippedFrames.increment();
+            return null;
+        }
+        long cpuStart = cpuTime();
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(payload);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2 + 16);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            int written = deflater.deflate(buffer);
+            out.write(buffer, 0, written);
+        }
+        byte[] compressed = out.toByteArray();
+        cpuNanos.add(cpuTime() - cpuStart);
+
+        if (compressed.length >= payload.length) {
+            skippedFrames.increment();
+            return null;
+        }
+        compressedFrames.increment();
+        inputBytes.add(payload.length);
+        outputBytes.add(compressed.length);
+        return compressed;
+    }
+
+    /**
+     * Registra una sesión que negoció permessage-deflate con el contenedor.
+     */
+    public void sessionNegotiated() {
+        negotiatedSessions.increment();
+    }
+
+    /**
+     * Devuelve una instantánea de las métricas de compresión.
+     *
+     * @return Estadísticas de compresión.
+     */
+    public CompressionStats getStats() {
+        return new CompressionStats(negotiatedSessions.sum(), compressedFrames.sum(), skippedFrames.sum(),
+                inputBytes.sum(), outputBytes.sum(), cpuNanos.sum() / 1e6);
+    }
+
+    /**
+     * Tiempo de CPU del hilo actual (o tiempo de reloj si la JVM no lo soporta).
+     */
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
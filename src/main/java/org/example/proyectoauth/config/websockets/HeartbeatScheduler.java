@@ -0,0 +1,230 @@
+package org.example.proyectoauth.config.websockets;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de keepalive WebSocket basado en una rueda de tiempo con hash (hashed timing wheel).
+ *
+ * Cada sesión se asigna a una ranura de la rueda según el hash de su id. En cada tick se procesa
+ * una sola ranura, de modo que los pings de control (frames PING del protocolo, no mensajes de texto)
+ * se reparten uniformemente a lo largo del intervalo y un tick solo toca ~sesiones/ranuras entradas.
+ *
+ * El ping lleva como payload el instante de envío; el PONG lo devuelve y así se mide el tiempo de ida
+ * y vuelta de cada sesión. Las sesiones que no responden a varios pings seguidos se consideran
+ * medio muertas: se cierran y se limpian aunque el contenedor nunca llegue a invocar
+ * {@code afterConnectionClosed}.
+ *
+ * Si la espera de PONG es menor que el intervalo, la sesión se apunta además en la ranura donde vence
+ * esa espera, de modo que el PONG perdido se cuenta a su tiempo y no al enviar el siguiente ping.
+ */
+@Slf4j
+public class HeartbeatScheduler {
+
+    private final long pongTimeoutNanos;
+    private final int maxMissedPongs;
+
+    // Rueda de tiempo: cada ranura contiene las sesiones que se revisan en ese tick
+    private final Set<HeartbeatState>[] wheel;
+    // Sesiones cuya espera de PONG vence en cada tick (solo si la espera es menor que el intervalo)
+    private final Set<HeartbeatState>[] pongDeadlines;
+    private final int pongTimeoutTicks;
+    private final Map<String, HeartbeatState> states = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+    private int cursor;
+
+    /**
+     * Crea el motor y arranca el tick de la rueda.
+     *
+     * @param intervalMillis    Intervalo entre pings a una misma sesión.
+     * @param tickMillis        Duración de un tick de la rueda.
+     * @param pongTimeoutMillis Tiempo máximo de espera de un PONG.
+     * @param maxMissedPongs    PONGs perdidos consecutivos antes de cerrar la sesión.
+     */
+    @SuppressWarnings("unchecked")
+    public HeartbeatScheduler(long intervalMillis, long tickMillis, long pongTimeoutMillis, int maxMissedPongs) {
+        this.pongTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(pongTimeoutMillis);
+        this.maxMissedPongs = Math.max(1, maxMissedPongs);
+        int slots = (int) Math.max(1, intervalMillis / tickMillis);
+        this.wheel = new Set[slots];
+        this.pongDeadlines = new Set[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+            pongDeadlines[i] = ConcurrentHashMap.newKeySet();
+        }
+        // Ticks hasta que vence la espera de PONG, redondeando hacia arriba
+        this.pongTimeoutTicks = (int) Math.min(slots, Math.max(1, (pongTimeoutMillis + tickMillis - 1) / tickMillis));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(WebSocketConfig.namedThreadFactory("ws-heartbeat-"));
+        this.ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Da de alta una sesión en la rueda.
+     *
+     * @param queue  Cola de salida por la que se envían los pings.
+     * @param onDead Limpieza a ejecutar si la sesión se declara muerta.
+     */
+    public void register(SessionOutboundQueue queue, Runnable onDead) {
+        WebSocketSession session = queue.getSession();
+        HeartbeatState state = new HeartbeatState(queue, onDead, Math.floorMod(session.getId().hashCode(), wheel.length));
+        states.put(session.getId(), state);
+        wheel[state.slot].add(state);
+    }
+
+    /**
+     * Da de baja una sesión de la rueda.
+     *
+     * @param session Sesión cerrada.
+     */
+    public void unregister(WebSocketSession session) {
+        HeartbeatState state = states.remove(session.getId());
+        if (state != null) {
+            wheel[state.slot].remove(state);
+            int deadline = state.deadlineSlot;
+            if (deadline >= 0) {
+                pongDeadlines[deadline].remove(state);
+            }
+        }
+    }
+
+    /**
+     * Procesa un PONG recibido y actualiza el tiempo de ida y vuelta de la sesión.
+     *
+     * @param session Sesión que respondió.
+     * @param payload Payload del PONG (eco del instante de envío del ping).
+     */
+    public void pong(WebSocketSession session, ByteBuffer payload) {
+        HeartbeatState state = states.get(session.getId());
+        if (state == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long sentAt = payload.remaining() >= Long.BYTES ? payload.getLong(payload.position()) : state.pingSentNanos;
+        state.rttNanos = now - sentAt;
+        state.lastPongNanos = now;
+        state.missedPongs = 0;
+    }
+
+    /**
+     * Último tiempo de ida y vuelta ping/pong medido para una sesión.
+     *
+     * @param sessionId Id de la sesión.
+     * @return Milisegundos de ida y vuelta, o -1 si aún no hay medida.
+     */
+    public double roundTripMillis(String sessionId) {
+        HeartbeatState state = states.get(sessionId);
+        return state == null || state.rttNanos < 0 ? -1 : state.rttNanos / 1e6;
+    }
+
+    /**
+     * Detiene el tick de la rueda.
+     */
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Procesa la ranura actual de la rueda: revisa las esperas de PONG que vencen y envía nuevos pings.
+     */
+    private void tick() {
+        try {
+            int current = cursor;
+            cursor = (cursor + 1) % wheel.length;
+            long now = System.nanoTime();
+            Set<HeartbeatState> deadlines = pongDeadlines[current];
+            for (HeartbeatState state : deadlines) {
+                deadlines.remove(state);
+                state.deadlineSlot = -1;
+                checkPong(state, now, true);
+            }
+            for (HeartbeatState state : wheel[current]) {
+                WebSocketSession session = state.queue.getSession();
+                if (!session.isOpen()) {
+                    expire(state, "sesión cerrada sin notificar");
+                    continue;
+                }
+                if (checkPong(state, now, false)) {
+                    continue;
+                }
+                state.pingSentNanos = now;
+                state.awaitingPong = true;
+                state.queue.offer(new PingMessage(ByteBuffer.allocate(Long.BYTES).putLong(0, now)));
+                if (pongTimeoutTicks < wheel.length) {
+                    state.deadlineSlot = (current + pongTimeoutTicks) % wheel.length;
+                    pongDeadlines[state.deadlineSlot].add(state);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("[WS] Error en el tick de heartbeat: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Comprueba si llegó el PONG del último ping y cuenta el fallo si su espera ya venció.
+     *
+     * @param deadlineReached Si se llama desde la ranura en la que vence la espera.
+     * @return {@code true} si la sesión se ha cerrado por acumular PONG perdidos.
+     */
+    private boolean checkPong(HeartbeatState state, long now, boolean deadlineReached) {
+        if (!state.awaitingPong) {
+            return false;
+        }
+        if (state.lastPongNanos >= state.pingSentNanos) {
+            state.awaitingPong = false;
+            return false;
+        }
+        if (!deadlineReached && now - state.pingSentNanos <= pongTimeoutNanos) {
+            return false;
+        }
+        state.awaitingPong = false;
+        if (++state.missedPongs >= maxMissedPongs) {
+            expire(state, state.missedPongs + " PONG sin respuesta");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Cierra una sesión medio muerta y ejecuta su limpieza.
+     */
+    private void expire(HeartbeatState state, String reason) {
+        WebSocketSession session = state.queue.getSession();
+        log.warn("[WS] Sesión {} sin respuesta ({}), cerrando", session.getId(), reason);
+        unregister(session);
+        state.queue.requestClose(CloseStatus.SESSION_NOT_RELIABLE);
+        state.onDead.run();
+    }
+
+    /**
+     * Estado de keepalive de una sesión. Solo el hilo del tick escribe los campos de ping;
+     * los de PONG los escribe el hilo del contenedor que recibe la trama.
+     */
+    private static final class HeartbeatState {
+        private final SessionOutboundQueue queue;
+        private final Runnable onDead;
+        private final int slot;
+        private volatile long pingSentNanos = Long.MIN_VALUE;
+        private volatile long lastPongNanos = Long.MIN_VALUE;
+        private volatile long rttNanos = -1;
+        private volatile int missedPongs;
+        // Ping enviado cuyo PONG aún no se ha comprobado, y ranura donde vence su espera (-1 si ninguna)
+        private volatile boolean awaitingPong;
+        private volatile int deadlineSlot = -1;
+
+        private HeartbeatState(SessionOutboundQueue queue, Runnable onDead, int slot) {
+            this.queue = queue;
+            this.onDead = onDead;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.proyectoauth.config.websockets;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.rest.auth.services.jwt.JwtService;
+import org.example.proyectoauth.rest.auth.services.jwt.VerifiedToken;
+import org.example.proyectoauth.rest.auth.services.users.AuthUserService;
+import org.example.proyectoauth.rest.users.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Interceptor del handshake WebSocket que valida el token JWT una única vez, al hacer el upgrade.
+ *
+ * El token se toma de la cabecera {@code Authorization: Bearer ...} o, como los navegadores no
+ * permiten cabeceras en el upgrade, del parámetro de consulta {@code ?token=...}. Si es válido,
+ * el usuario y su id quedan fijados en los atributos de la sesión y ya no se vuelve a validar
+ * en cada mensaje.
+ *
+ * - Token inválido: el handshake se rechaza con 401.
+ * - Sin token: se rechaza con 401 si {@code websocket.auth.required=true}; si no, la sesión es
+ *   anónima y solo recibe difusiones globales y de topics.
+ *
+ * Un cliente autenticado que reconecta puede indicar {@code ?resumeFrom=N} con el último número de
+ * secuencia recibido de su bandeja de entrada, y {@code ?resumeBroadcastFrom=M} con el último de las
+ * difusiones globales, para que se le reenvíe solo lo que se perdió.
+ */
+@Component
+@Slf4j
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    // Atributos de sesión con el usuario autenticado
+    public static final String USER_ATTRIBUTE = "ws.user";
+    public static final String USER_ID_ATTRIBUTE = "ws.userId";
+    public static final String RESUME_FROM_ATTRIBUTE = "ws.resumeFrom";
+    public static final String RESUME_BROADCAST_FROM_ATTRIBUTE = "ws.resumeBroadcastFrom";
+
+    private static final String TOKEN_PARAMETER = "token";
+    private static final String RESUME_FROM_PARAMETER = "resumeFrom";
+    private static final String RESUME_BROADCAST_FROM_PARAMETER = "resumeBroadcastFrom";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtService jwtService;
+    private final AuthUserService authUserService;
+
+    /**
+     * Si se exige token para abrir el canal:
+     * websocket.auth.required=false
+     */
+    @Value("${websocket.auth.required:false}")
+    private boolean authRequired;
+
+    /**
+     * Constructor que inyecta los servicios de tokens y de usuarios.
+     *
+     * @param jwtService      Servicio encargado de operaciones sobre tokens JWT.
+     * @param authUserService Servicio para recuperar detalles de los usuarios.
+     */
+    @Autowired
+    public JwtHandshakeInterceptor(JwtService jwtService, AuthUserService authUserService) {
+        this.jwtService = jwtService;
+        this.authUserService = authUserService;
+    }
+
+    /**
+     * Valida el token del handshake y fija el usuario en los atributos de la sesión.
+     *
+     * @return {@code true} si el handshake puede continuar.
+     */
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = extractToken(request);
+        if (token == null) {
+            if (authRequired) {
+                log.warn("[WS] Handshake rechazado: falta el token JWT ({})", request.getRemoteAddress());
+                response.setStatusCode(HttpStatus.UNAUTHORIZED);
+                return false;
+            }
+            return true;
+        }
+
+        try {
+            VerifiedToken verified = jwtService.verify(token);
+            String username = verified.username();
+            UserDetails userDetails = authUserService.loadUserByUsername(username);
+            if (!username.equals(userDetails.getUsername()) || !userDetails.isEnabled()) {
+                throw new IllegalArgumentException("Token no válido para el usuario " + username);
+            }
+            attributes.put(USER_ATTRIBUTE, userDetails);
+            if (userDetails instanceof User user) {
+                attributes.put(USER_ID_ATTRIBUTE, user.getId());
+                Long resumeFrom = extractResumeFrom(request, RESUME_FROM_PARAMETER);
+                if (resumeFrom != null) {
+                    attributes.put(RESUME_FROM_ATTRIBUTE, resumeFrom);
+                }
+                Long resumeBroadcastFrom = extractResumeFrom(request, RESUME_BROADCAST_FROM_PARAMETER);
+                if (resumeBroadcastFrom != null) {
+                    attributes.put(RESUME_BROADCAST_FROM_ATTRIBUTE, resumeBroadcastFrom);
+                }
+            }
+            log.debug("[WS] Handshake autenticado para el usuario: {}", username);
+            return true;
+        } catch (Exception e) {
+            log.warn("[WS] Handshake rechazado: token JWT inválido ({})", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+        // Nada que hacer tras el upgrade
+    }
+
+    /**
+     * Devuelve el id del usuario autenticado en el handshake de la sesión.
+     *
+     * @param session Sesión WebSocket.
+     * @return Id del usuario, o {@code null} si la sesión es anónima.
+     */
+    public static Long userId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(USER_ID_ATTRIBUTE);
+    }
+
+    /**
+     * Devuelve el usuario autenticado en el handshake de la sesión.
+     *
+     * @param session Sesión WebSocket.
+     * @return Usuario, o {@code null} si la sesión es anónima.
+     */
+    public static UserDetails user(WebSocketSession session) {
+        return (UserDetails) session.getAttributes().get(USER_ATTRIBUTE);
+    }
+
+    /**
+     * Devuelve la secuencia desde la que el cliente pidió reanudar su bandeja de entrada.
+     *
+     * @param session Sesión WebSocket.
+     * @return Último número de secuencia recibido por el cliente, o {@code null} si no pidió reanudar.
+     */
+    public static Long resumeFrom(WebSocketSession session) {
+        return (Long) session.getAttributes().get(RESUME_FROM_ATTRIBUTE);
+    }
+
+    /**
+     * Devuelve la secuencia desde la que el cliente pidió reanudar las difusiones globales.
+     *
+     * @param session Sesión WebSocket.
+     * @return Último número de secuencia de difusión recibido por el cliente, o {@code null} si no pidió reanudar.
+     */
+    public static Long resumeBroadcastFrom(WebSocketSession session) {
+        return (Long) session.getAttributes().get(RESUME_BROADCAST_FROM_ATTRIBUTE);
+    }
+
+    /**
+     * Lee un parámetro de reanudación; se ignora si no es un número no negativo.
+     */
+    private Long extractResumeFrom(ServerHttpRequest request, String parameter) {
+        String value = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst(parameter);
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        try {
+            long seq = Long.parseLong(value.trim());
+            return seq >= 0 ? seq : null;
+        } catch (NumberFormatException e) {
+            log.debug("[WS] Parámetro {} no válido: {}", parameter, value);
+            return null;
+        }
+    }
+
+    /**
+     * Extrae el token de la cabecera Authorization o del parámetro de consulta.
+     */
+    private String extractToken(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.startsWithIgnoreCase(header, BEARER_PREFIX)) {
+            return header.substring(BEARER_PREFIX.length()).trim();
+        }
+        String token = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst(TOKEN_PARAMETER);
+        return StringUtils.hasText(token) ? token : null;
+    }
+}
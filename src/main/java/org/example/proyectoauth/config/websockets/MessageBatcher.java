@@ -0,0 +1,116 @@
+package org.example.proyectoauth.config.websockets;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupación (micro-batching) de los mensajes pendientes de una sesión en una única trama.
+ *
+ * Cuando una cola de salida recibe un mensaje estando ociosa, su vaciado se retrasa como mucho
+ * {@code maxDelayMillis}; si antes se acumulan {@code maxBatchSize} mensajes, se vacía de inmediato.
+ * Así, una ráfaga de eventos (por ejemplo, una edición masiva de usuarios) llega en pocas tramas
+ * en lugar de una por evento, con una latencia adicional acotada.
+ *
+ * Formato de las tramas agrupadas:
+ * - Texto: {@code {"type":"batch","events":["evento1","evento2",...]}}. Cada evento es un string JSON con el
+ *   texto original de su trama, no JSON incrustado: por el canal también viajan tramas que no son JSON
+ *   (la bienvenida, {@code sendMessage}), así que el cliente debe parsear cada elemento como lo haría
+ *   con una trama suelta.
+ * - Binario: concatenación de las tramas, que ya llevan su longitud como prefijo.
+ * Un mensaje que queda solo en su lote se envía tal cual, sin envoltorio.
+ */
+public class MessageBatcher {
+
+    private final long maxDelayMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Crea el agrupador y su temporizador.
+     *
+     * @param maxDelayMillis Retraso máximo que se añade a un mensaje para agruparlo.
+     * @param maxBatchSize   Mensajes máximos por trama agrupada.
+     */
+    public MessageBatcher(long maxDelayMillis, int maxBatchSize) {
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timer = Executors.newSingleThreadScheduledExecutor(WebSocketConfig.namedThreadFactory("ws-batch-"));
+    }
+
+    /**
+     * Mensajes máximos por trama agrupada.
+     *
+     * @return Tamaño máximo del lote.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Programa una tarea tras la ventana de agrupación.
+     *
+     * @param task Tarea a ejecutar (normalmente, lanzar el vaciado de una cola).
+     * @return Tarea programada, que puede cancelarse para vaciar antes.
+     */
+    public ScheduledFuture<?> schedule(Runnable task) {
+        return timer.schedule(task, maxDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Indica si un mensaje puede agruparse (los PING y demás tramas de control se envían solos).
+     *
+     * @param message Mensaje pendiente.
+     * @return {@code true} si es de texto o binario.
+     */
+    public boolean isBatchable(WebSocketMessage<?> message) {
+        return message instanceof TextMessage || message instanceof BinaryMessage;
+    }
+
+    /**
+     * Empaqueta varios mensajes del mismo tipo en una única trama. Los textos se escapan como strings JSON
+     * (ver el formato en la descripción de la clase) y los binarios se concatenan.
+     *
+     * @param batch Mensajes a empaquetar (todos de texto o todos binarios).
+     * @return Trama agrupada.
+     */
+    public WebSocketMessage<?> pack(List<WebSocketMessage<?>> batch) {
+        if (batch.get(0) instanceof BinaryMessage) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (WebSocketMessage<?> message : batch) {
+                ByteBuffer payload = ((BinaryMessage) message).getPayload().duplicate();
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                out.writeBytes(bytes);
+            }
+            return new BinaryMessage(out.toByteArray());
+        }
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        StringBuilder json = new StringBuilder("{\"type\":\"batch\",\"events\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"');
+            encoder.quoteAsString(((TextMessage) batch.get(i)).getPayload(), json);
+            json.append('"');
+        }
+        return new TextMessage(json.append("]}"));
+    }
+
+    /**
+     * Detiene el temporizador.
+     */
+    public void stop() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.springframework.web.socket.CloseStatus;
+
+/**
+ * Política aplicada cuando la cola de salida de una sesión WebSocket está llena.
+ *
+ * - DROP_OLDEST: se descarta el mensaje más antiguo pendiente y se encola el nuevo.
+ * - COALESCE: el nuevo mensaje sustituye al pendiente con la misma clave de fusión (el estado más reciente
+ *   de esa clave); los de otras claves se conservan. Sin clave, o si no hay pendiente con ella, como DROP_OLDEST.
+ * - CLOSE_POLICY_VIOLATION: se cierra la sesión con el código 1008.
+ * - CLOSE_TRY_AGAIN_LATER: se cierra la sesión con el código 1013 para que el cliente reconecte más tarde.
+ *
+ * Se configura en application.properties como:
+ * websocket.outbound.overflow-policy=DROP_OLDEST
+ */
+public enum OverflowPolicy {
+    DROP_OLDEST(null),
+    COALESCE(null),
+    CLOSE_POLICY_VIOLATION(CloseStatus.POLICY_VIOLATION),
+    CLOSE_TRY_AGAIN_LATER(CloseStatus.SERVICE_OVERLOAD);
+
+    // Estado de cierre asociado (solo para las políticas que cierran la sesión)
+    private final CloseStatus closeStatus;
+
+    OverflowPolicy(CloseStatus closeStatus) {
+        this.closeStatus = closeStatus;
+    }
+
+    /**
+     * Devuelve el estado de cierre que se envía al cliente, o {@code null} si la política no cierra la sesión.
+     *
+     * @return Estado de cierre WebSocket.
+     */
+    public CloseStatus getCloseStatus() {
+        return closeStatus;
+    }
+}
@@ -0,0 +1,364 @@
+package org.example.proyectoauth.config.websockets;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de salida acotada asociada a una única sesión WebSocket.
+ *
+ * Los productores (por ejemplo, un hilo REST que emite una notificación) solo encolan el mensaje
+ * y vuelven inmediatamente. Un escritor del pool compartido vacía la cola y es el único que
+ * llama a {@link WebSocketSession#sendMessage}, de modo que un cliente lento no bloquea al resto.
+ *
+ * Cuando la cola está llena se aplica la {@link OverflowPolicy} configurada.
+ *
+ * Si se indica un {@link MessageBatcher}, el vaciado se retrasa hasta la ventana de agrupación
+ * (o hasta alcanzar el tamaño máximo de lote) y los mensajes consecutivos del mismo tipo se envían
+ * en una única trama.
+ */
+@Slf4j
+public class SessionOutboundQueue {
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor writer;
+    private final boolean binaryProtocol;
+    private final boolean deflateNegotiated;
+    private final MessageBatcher batcher;
+
+    // Mensajes pendientes de envío y su tamaño (el deque no tiene tamaño O(1))
+    private final ConcurrentLinkedDeque<Pending> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Garantiza que como mucho un escritor vacía la cola en cada momento
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // Vaciado retrasado por la ventana de agrupación, si hay uno pendiente
+    private volatile ScheduledFuture<?> delayedDrain;
+
+    // Cierre solicitado (desbordamiento o heartbeat); lo ejecuta el propio escritor
+    private volatile CloseStatus pendingClose;
+    private final AtomicBoolean closeSent = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * Crea la cola de salida de una sesión.
+     *
+     * @param session        Sesión WebSocket destino.
+     * @param capacity       Número máximo de mensajes pendientes.
+     * @param overflowPolicy Política a aplicar cuando la cola está llena.
+     * @param writer         Pool de escritores que vacía las colas.
+     * @param binaryProtocol Si la sesión negoció el subprotocolo binario de notificaciones.
+     * @param deflateNegotiated Si la sesión negoció permessage-deflate con el contenedor.
+     * @param batcher        Agrupador de mensajes, o {@code null} para enviar cada mensaje por separado.
+     */
+    public SessionOutboundQueue(WebSocketSession session, int capacity, OverflowPolicy overflowPolicy, Executor writer,
+                                boolean binaryProtocol, boolean deflateNegotiated, MessageBatcher batcher) {
+        this.session = session;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = writer;
+        this.binaryProtocol = binaryProtocol;
+        this.deflateNegotiated = deflateNegotiated;
+        this.batcher = batcher;
+    }
+
+    /**
+     * Encola un mensaje para su envío asíncrono. Nunca espera por E/S de red.
+     *
+     * @param message Mensaje a enviar.
+     * @return {@code true} si el mensaje quedó encolado, {@code false} si se descartó.
+     */
+    public boolean offer(WebSocketMessage<?> message) {
+        return offer(message, null);
+    }
+
+    /**
+     * Encola un mensaje que representa el último estado de {@code coalesceKey}. Con la política
+     * {@link OverflowPolicy#COALESCE}, si la cola está llena sustituye al pendiente con la misma clave.
+     *
+     * @param message     Mensaje a enviar.
+     * @param coalesceKey Clave del estado que transporta, o {@code null} si no se puede fusionar.
+     * @return {@code true} si el mensaje quedó encolado, {@code false} si se descartó.
+     */
+    public boolean offer(WebSocketMessage<?> message, Object coalesceKey) {
+        if (closed || pendingClose != null) {
+            return false;
+        }
+        Pending pending = new Pending(message, coalesceKey);
+        if (size.incrementAndGet() <= capacity) {
+            queue.offerLast(pending);
+        } else {
+            size.decrementAndGet();
+            if (!handleOverflow(pending)) {
+                return false;
+            }
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Encola un mensaje prescindible solo si la cola tiene menos de {@code maxPending} mensajes.
+     * A diferencia de {@link #offer}, nunca aplica la política de desbordamiento: no desplaza
+     * otros mensajes ni cierra la sesión.
+     *
+     * @param message    Mensaje a enviar.
+     * @param maxPending Mensajes pendientes a partir de los cuales se descarta.
+     * @return {@code true} si el mensaje quedó encolado.
+     */
+    public boolean offerIfIdle(WebSocketMessage<?> message, int maxPending) {
+        if (closed || pendingClose != null) {
+            return false;
+        }
+        if (size.incrementAndGet() > Math.min(maxPending, capacity)) {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.offerLast(new Pending(message, null));
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Número aproximado de mensajes pendientes de envío.
+     *
+     * @return Mensajes en cola.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Sesión asociada a esta cola.
+     *
+     * @return Sesión WebSocket.
+     */
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Indica si la sesión negoció el subprotocolo binario de notificaciones.
+     *
+     * @return {@code true} si la sesión recibe tramas binarias.
+     */
+    public boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+
+    /**
+     * Indica si la sesión negoció permessage-deflate: el contenedor ya comprime todas sus tramas.
+     *
+     * @return {@code true} si la sesión no debe recibir tramas COMPRIMIDA de la aplicación.
+     */
+    public boolean isDeflateNegotiated() {
+        return deflateNegotiated;
+    }
+
+    /**
+     * Solicita el cierre de la sesión con el estado indicado. Los mensajes pendientes se descartan
+     * y el cierre lo ejecuta el escritor, sin competir con un envío en curso.
+     *
+     * @param status Estado de cierre a enviar al cliente.
+     */
+    public void requestClose(CloseStatus status) {
+        pendingClose = status;
+        clear();
+        scheduleDrain();
+    }
+
+    /**
+     * Descarta los mensajes pendientes; se invoca cuando la sesión ya se ha cerrado.
+     */
+    public void close() {
+        closed = true;
+        clear();
+    }
+
+    /**
+     * Aplica la política de desbordamiento.
+     *
+     * @param pending Mensaje que no cabe en la cola.
+     * @return {@code true} si el mensaje acabó encolado.
+     */
+    private boolean handleOverflow(Pending pending) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                dropOldest(pending);
+                return true;
+            }
+            case COALESCE -> {
+                if (replaceSameKey(pending)) {
+                    log.debug("[WS] Cola llena en la sesión {}: fusionado con el pendiente de la clave {}",
+                            session.getId(), pending.coalesceKey());
+                } else {
+                    // Ningún pendiente con la misma clave: no se puede fusionar sin perder otro estado
+                    dropOldest(pending);
+                }
+                return true;
+            }
+            default -> {
+                log.warn("[WS] Cola llena en la sesión {}: cerrando con {}", session.getId(), overflowPolicy.getCloseStatus());
+                requestClose(overflowPolicy.getCloseStatus());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Descarta el mensaje más antiguo y encola el nuevo al final.
+     */
+    private void dropOldest(Pending pending) {
+        if (queue.pollFirst() == null) {
+            size.incrementAndGet();
+        }
+        queue.offerLast(pending);
+        log.debug("[WS] Cola llena en la sesión {}: descartado el mensaje más antiguo", session.getId());
+    }
+
+    /**
+     * Sustituye el pendiente con la misma clave por el nuevo, que pasa al final de la cola para no
+     * adelantarse a los mensajes encolados después del sustituido. Recorre la cola, pero solo con la cola llena.
+     *
+     * @return {@code true} si había un pendiente con esa clave y el escritor no lo había recogido aún.
+     */
+    private boolean replaceSameKey(Pending pending) {
+        if (pending.coalesceKey() == null) {
+            return false;
+        }
+        for (Pending queued : queue) {
+            if (pending.coalesceKey().equals(queued.coalesceKey())) {
+                if (!queue.removeFirstOccurrence(queued)) {
+                    return false;
+                }
+                queue.offerLast(pending);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vacía la cola ajustando el contador de tamaño.
+     */
+    private void clear() {
+        while (queue.pollFirst() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Programa un escritor si no hay ninguno activo para esta sesión. Con agrupación, el escritor
+     * se retrasa hasta la ventana configurada salvo que ya haya un lote completo o un cierre pendiente.
+     */
+    private void scheduleDrain() {
+        boolean delay = batcher != null && pendingClose == null && size.get() < batcher.getMaxBatchSize();
+        if (draining.compareAndSet(false, true)) {
+            if (delay) {
+                delayedDrain = batcher.schedule(this::submitDrain);
+            } else {
+                submitDrain();
+            }
+        } else if (!delay) {
+            // Lote completo o cierre: se adelanta el vaciado retrasado, si lo hay
+            ScheduledFuture<?> delayed = delayedDrain;
+            if (delayed != null && delayed.cancel(false)) {
+                submitDrain();
+            }
+        }
+    }
+
+    /**
+     * Entrega el vaciado al pool de escritores.
+     */
+    private void submitDrain() {
+        try {
+            writer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            log.error("[WS] Pool de escritores saturado, no se pudo vaciar la sesión {}", session.getId());
+        }
+    }
+
+    /**
+     * Envía los mensajes pendientes en orden. Solo un hilo lo ejecuta a la vez por sesión.
+     */
+    private void drain() {
+        delayedDrain = null;
+        try {
+            Pending pending;
+            while (pendingClose == null && !closed && (pending = queue.pollFirst()) != null) {
+                size.decrementAndGet();
+                WebSocketMessage<?> message = pending.message();
+                if (!session.isOpen()) {
+                    close();
+                    return;
+                }
+                if (batcher != null && batcher.isBatchable(message)) {
+                    message = nextBatch(message);
+                }
+                try {
+                    session.sendMessage(message);
+                } catch (IOException | IllegalStateException e) {
+                    log.warn("[WS] Error al enviar a la sesión {}: {}", session.getId(), e.getMessage());
+                }
+            }
+            if (pendingClose != null && closeSent.compareAndSet(false, true)) {
+                closed = true;
+                try {
+                    session.close(pendingClose);
+                } catch (IOException e) {
+                    log.warn("[WS] Error al cerrar la sesión {}: {}", session.getId(), e.getMessage());
+                }
+            }
+        } finally {
+            draining.set(false);
+            if ((pendingClose != null && !closeSent.get()) || (!closed && !queue.isEmpty())) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    /**
+     * Extrae los mensajes consecutivos del mismo tipo que {@code first} (hasta el tamaño máximo
+     * de lote) y los empaqueta en una única trama.
+     */
+    private WebSocketMessage<?> nextBatch(WebSocketMessage<?> first) {
+        List<WebSocketMessage<?>> batch = null;
+        Pending next;
+        while ((batch == null || batch.size() < batcher.getMaxBatchSize()) && (next = queue.pollFirst()) != null) {
+            if (next.message().getClass() != first.getClass()) {
+                // Distinto tipo (o trama de control): vuelve a la cabeza para el siguiente envío
+                queue.offerFirst(next);
+                break;
+            }
+            size.decrementAndGet();
+            if (batch == null) {
+                batch = new ArrayList<>();
+                batch.add(first);
+            }
+            batch.add(next.message());
+        }
+        return batch == null ? first : batcher.pack(batch);
+    }
+
+    /**
+     * Mensaje pendiente junto a su clave de fusión ({@code null} si no se fusiona).
+     */
+    private record Pending(WebSocketMessage<?> message, Object coalesceKey) {
+    }
+}
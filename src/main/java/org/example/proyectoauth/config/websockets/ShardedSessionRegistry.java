@@ -0,0 +1,161 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de sesiones WebSocket repartido en fragmentos (shards) independientes.
+ *
+ * Sustituye al {@code CopyOnWriteArraySet}: altas y bajas cuestan O(1) y no copian el registro,
+ * por lo que una tormenta de reconexiones tras un despliegue no bloquea los hilos del contenedor.
+ * La iteración es débilmente consistente: no lanza {@code ConcurrentModificationException} y puede
+ * reflejar o no las altas y bajas concurrentes.
+ */
+public class ShardedSessionRegistry implements Iterable<WebSocketSession> {
+
+    private final Map<String, WebSocketSession>[] shards;
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Crea el registro con el número de fragmentos indicado (se redondea a potencia de dos).
+     *
+     * @param shardCount Número de fragmentos deseado.
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedSessionRegistry(int shardCount) {
+        int count = shardCount <= 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1;
+        this.shards = new Map[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Registra una sesión.
+     *
+     * @param session Sesión a registrar.
+     * @return {@code true} si la sesión no estaba registrada.
+     */
+    public boolean add(WebSocketSession session) {
+        if (shardFor(session.getId()).putIfAbsent(session.getId(), session) == null) {
+            size.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Elimina una sesión.
+     *
+     * @param session Sesión a eliminar.
+     * @return {@code true} si la sesión estaba registrada.
+     */
+    public boolean remove(WebSocketSession session) {
+        if (shardFor(session.getId()).remove(session.getId(), session)) {
+            size.decrement();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Busca una sesión por su id.
+     *
+     * @param sessionId Id de la sesión.
+     * @return La sesión o {@code null} si no está registrada.
+     */
+    public WebSocketSession get(String sessionId) {
+        return shardFor(sessionId).get(sessionId);
+    }
+
+    /**
+     * Número de sesiones registradas (aproximado bajo concurrencia).
+     *
+     * @return Sesiones registradas.
+     */
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Número de fragmentos del registro.
+     *
+     * @return Fragmentos.
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Vista de solo lectura de las sesiones de un fragmento.
+     *
+     * @param index Índice del fragmento, entre 0 y {@link #shardCount()} - 1.
+     * @return Sesiones del fragmento (vista débilmente consistente).
+     */
+    public Collection<WebSocketSession> shard(int index) {
+        return Collections.unmodifiableCollection(shards[index].values());
+    }
+
+    /**
+     * Agrupa los fragmentos en {@code sliceCount} porciones disjuntas y devuelve una de ellas.
+     * La porción {@code i} contiene los fragmentos {@code i, i + sliceCount, i + 2 * sliceCount...}.
+     *
+     * @param sliceIndex Índice de la porción, entre 0 y {@code sliceCount} - 1.
+     * @param sliceCount Número total de porciones.
+     * @return Sesiones de la porción (iteración débilmente consistente).
+     */
+    public Iterable<WebSocketSession> slice(int sliceIndex, int sliceCount) {
+        return () -> new Iterator<>() {
+            private int shard = sliceIndex;
+            private Iterator<WebSocketSession> current = shard < shards.length
+                    ? shards[shard].values().iterator()
+                    : Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    shard += sliceCount;
+                    if (shard >= shards.length) {
+                        return false;
+                    }
+                    current = shards[shard].values().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public WebSocketSession next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Itera todas las sesiones fragmento a fragmento, de forma débilmente consistente.
+     *
+     * @return Iterador de sesiones.
+     */
+    @Override
+    public Iterator<WebSocketSession> iterator() {
+        return slice(0, 1).iterator();
+    }
+
+    /**
+     * Fragmento que corresponde a un id de sesión.
+     */
+    private Map<String, WebSocketSession> shardFor(String sessionId) {
+        int hash = sessionId.hashCode();
+        hash ^= (hash >>> 16);
+        return shards[hash & (shards.length - 1)];
+    }
+}
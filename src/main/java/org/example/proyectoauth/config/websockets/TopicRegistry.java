@@ -0,0 +1,99 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice concurrente de suscripciones a salas o temas (topic → sesiones).
+ *
+ * Mantiene también el índice inverso (sesión → topics) para que la limpieza al cerrar
+ * una sesión cueste O(topics de la sesión) y no O(todos los topics).
+ */
+public class TopicRegistry {
+
+    // Sesiones suscritas a cada topic
+    private final Map<String, Set<WebSocketSession>> topics = new ConcurrentHashMap<>();
+
+    // Topics a los que está suscrita cada sesión (por id de sesión)
+    private final Map<String, Set<String>> sessionTopics = new ConcurrentHashMap<>();
+
+    /**
+     * Suscribe una sesión a un topic.
+     *
+     * @param topic   Nombre del topic o sala.
+     * @param session Sesión a suscribir.
+     * @return {@code true} si la sesión no estaba ya suscrita.
+     */
+    public boolean subscribe(String topic, WebSocketSession session) {
+        sessionTopics.computeIfAbsent(session.getId(), id -> ConcurrentHashMap.newKeySet()).add(topic);
+        boolean[] added = new boolean[1];
+        topics.compute(topic, (key, members) -> {
+            Set<WebSocketSession> set = members != null ? members : ConcurrentHashMap.newKeySet();
+            added[0] = set.add(session);
+            return set;
+        });
+        return added[0];
+    }
+
+    /**
+     * Cancela la suscripción de una sesión a un topic.
+     *
+     * @param topic   Nombre del topic o sala.
+     * @param session Sesión a desuscribir.
+     * @return {@code true} si la sesión estaba suscrita.
+     */
+    public boolean unsubscribe(String topic, WebSocketSession session) {
+        Set<String> subscribed = sessionTopics.get(session.getId());
+        if (subscribed != null) {
+            subscribed.remove(topic);
+        }
+        return removeMember(topic, session);
+    }
+
+    /**
+     * Elimina todas las suscripciones de una sesión (al cerrarse).
+     *
+     * @param session Sesión cerrada.
+     */
+    public void unsubscribeAll(WebSocketSession session) {
+        Set<String> subscribed = sessionTopics.remove(session.getId());
+        if (subscribed != null) {
+            subscribed.forEach(topic -> removeMember(topic, session));
+        }
+    }
+
+    /**
+     * Devuelve las sesiones suscritas a un topic (vista concurrente, débilmente consistente).
+     *
+     * @param topic Nombre del topic o sala.
+     * @return Sesiones suscritas, o un conjunto vacío si nadie lo está.
+     */
+    public Set<WebSocketSession> members(String topic) {
+        return topics.getOrDefault(topic, Collections.emptySet());
+    }
+
+    /**
+     * Número de topics con al menos una sesión suscrita.
+     *
+     * @return Topics activos.
+     */
+    public int topicCount() {
+        return topics.size();
+    }
+
+    /**
+     * Quita la sesión del topic y elimina el topic si se queda vacío.
+     */
+    private boolean removeMember(String topic, WebSocketSession session) {
+        boolean[] removed = new boolean[1];
+        topics.computeIfPresent(topic, (key, members) -> {
+            removed[0] = members.remove(session);
+            return members.isEmpty() ? null : members;
+        });
+        return removed[0];
+    }
+}
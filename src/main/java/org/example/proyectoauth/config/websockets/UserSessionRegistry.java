@@ -0,0 +1,69 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice concurrente de las sesiones abiertas de cada usuario autenticado (id de usuario → sesiones).
+ *
+ * Un usuario puede tener varias sesiones (una por dispositivo o pestaña); enviarle un mensaje
+ * cuesta O(sesiones del usuario) en lugar de recorrer todas las sesiones del canal.
+ */
+public class UserSessionRegistry {
+
+    // Sesiones abiertas de cada usuario
+    private final Map<Long, Set<WebSocketSession>> users = new ConcurrentHashMap<>();
+
+    /**
+     * Asocia una sesión a su usuario.
+     *
+     * @param userId  Id del usuario autenticado en el handshake.
+     * @param session Sesión abierta.
+     */
+    public void add(Long userId, WebSocketSession session) {
+        users.compute(userId, (key, sessions) -> {
+            Set<WebSocketSession> set = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            set.add(session);
+            return set;
+        });
+    }
+
+    /**
+     * Elimina una sesión del índice, y al usuario si ya no le quedan sesiones.
+     *
+     * @param userId  Id del usuario.
+     * @param session Sesión cerrada.
+     * @return {@code true} si la sesión estaba registrada.
+     */
+    public boolean remove(Long userId, WebSocketSession session) {
+        boolean[] removed = new boolean[1];
+        users.computeIfPresent(userId, (key, sessions) -> {
+            removed[0] = sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Devuelve las sesiones abiertas de un usuario (vista concurrente, débilmente consistente).
+     *
+     * @param userId Id del usuario.
+     * @return Sesiones del usuario, o un conjunto vacío si no está conectado.
+     */
+    public Set<WebSocketSession> sessions(Long userId) {
+        return users.getOrDefault(userId, Collections.emptySet());
+    }
+
+    /**
+     * Número de usuarios con al menos una sesión abierta.
+     *
+     * @return Usuarios conectados.
+     */
+    public int userCount() {
+        return users.size();
+    }
+}
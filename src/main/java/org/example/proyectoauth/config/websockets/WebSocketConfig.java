@@ -1,12 +1,30 @@
 package org.example.proyectoauth.config.websockets;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.WebSockets.mapper.NotificacionBinaryCodec;
+import org.example.proyectoauth.rest.chat.mapper.ChatMessageMapper;
+import org.example.proyectoauth.rest.chat.services.ChatMessageService;
+import org.example.proyectoauth.rest.chat.services.RecentMessagesCache;
+import org.example.proyectoauth.rest.inbox.services.InboxService;
+import org.example.proyectoauth.rest.presence.services.PresenceService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Configuración para habilitar y registrar canales WebSocket en la aplicación.
  *
@@ -20,6 +38,61 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    // Serializador JSON de la aplicación, usado para las difusiones
+    private final ObjectMapper objectMapper;
+
+    // Codificador del subprotocolo binario de notificaciones
+    private final NotificacionBinaryCodec binaryCodec;
+
+    // Validación del token JWT en el handshake
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    // Persistencia de los mensajes de chat recibidos por el canal
+    private final ChatMessageService chatMessageService;
+    private final ChatMessageMapper chatMessageMapper;
+    private final RecentMessagesCache recentMessages;
+
+    // Bandejas de entrada duraderas por usuario
+    private final InboxService inboxService;
+
+    // Presencia de los usuarios conectados
+    private final PresenceService presenceService;
+
+    // Agrupador de mensajes; solo existe si websocket.batching.enabled=true
+    private final ObjectProvider<MessageBatcher> batcher;
+
+    /**
+     * Constructor que inyecta el serializador JSON configurado por Spring Boot,
+     * el codificador binario de notificaciones, el interceptor de autenticación del handshake
+     * y el servicio de mensajes de chat.
+     *
+     * @param objectMapper            Serializador JSON.
+     * @param binaryCodec             Codificador del subprotocolo binario.
+     * @param jwtHandshakeInterceptor Interceptor que valida el token JWT al abrir la conexión.
+     * @param chatMessageService      Servicio de persistencia de los mensajes de chat.
+     * @param chatMessageMapper       Conversor de mensajes de chat a DTO.
+     * @param recentMessages          Caché de los últimos mensajes de cada sala.
+     * @param inboxService            Bandejas de entrada duraderas por usuario.
+     * @param presenceService         Servicio de presencia.
+     * @param batcher                 Agrupador de mensajes, disponible solo si la agrupación está activada.
+     */
+    @Autowired
+    public WebSocketConfig(ObjectMapper objectMapper, NotificacionBinaryCodec binaryCodec,
+                           JwtHandshakeInterceptor jwtHandshakeInterceptor, ChatMessageService chatMessageService,
+                           ChatMessageMapper chatMessageMapper, RecentMessagesCache recentMessages,
+                           InboxService inboxService, PresenceService presenceService,
+                           ObjectProvider<MessageBatcher> batcher) {
+        this.objectMapper = objectMapper;
+        this.binaryCodec = binaryCodec;
+        this.jwtHandshakeInterceptor = jwtHandshakeInterceptor;
+        this.chatMessageService = chatMessageService;
+        this.chatMessageMapper = chatMessageMapper;
+        this.recentMessages = recentMessages;
+        this.inboxService = inboxService;
+        this.presenceService = presenceService;
+        this.batcher = batcher;
+    }
+
     /**
      * URL del canal WebSocket. Se define en application.properties como:
      * websocket.url=notificaciones
@@ -34,8 +107,174 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Value("${websocket.entity}")
     private String entity;
 
+    /**
+     * Mensajes máximos pendientes en la cola de salida de cada sesión:
+     * websocket.outbound.queue-capacity=256
+     */
+    @Value("${websocket.outbound.queue-capacity:256}")
+    private int outboundQueueCapacity;
+
+    /**
+     * Política cuando la cola de una sesión se llena (DROP_OLDEST, COALESCE,
+     * CLOSE_POLICY_VIOLATION o CLOSE_TRY_AGAIN_LATER):
+     * websocket.outbound.overflow-policy=DROP_OLDEST
+     */
+    @Value("${websocket.outbound.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy;
+
+    /**
+     * Hilos escritores que vacían las colas de salida:
+     * websocket.outbound.writer-threads=4
+     */
+    @Value("${websocket.outbound.writer-threads:4}")
+    private int writerThreads;
+
+    /**
+     * Fragmentos del registro de sesiones (se redondea a potencia de dos):
+     * websocket.sessions.shards=16
+     */
+    @Value("${websocket.sessions.shards:16}")
+    private int sessionShards;
+
+    /**
+     * Porciones en que se divide una difusión global para repartirla en paralelo:
+     * websocket.fanout.shards=8
+     */
+    @Value("${websocket.fanout.shards:8}")
+    private int fanOutShards;
+
+    /**
+     * Hilos del pool dedicado al reparto de difusiones:
+     * websocket.fanout.threads=4
+     */
+    @Value("${websocket.fanout.threads:4}")
+    private int fanOutThreads;
+
+    /**
+     * Porciones pendientes máximas en el pool de reparto; si se llena, reparte el hilo que llama:
+     * websocket.fanout.queue-capacity=1024
+     */
+    @Value("${websocket.fanout.queue-capacity:1024}")
+    private int fanOutQueueCapacity;
+
+    /**
+     * Sesiones mínimas para repartir en paralelo; por debajo se reparte en el hilo que llama:
+     * websocket.fanout.parallel-threshold=1000
+     */
+    @Value("${websocket.fanout.parallel-threshold:1000}")
+    private int fanOutParallelThreshold;
+
+    /**
+     * Intervalo entre pings de keepalive a una misma sesión:
+     * websocket.heartbeat.interval-ms=25000
+     */
+    @Value("${websocket.heartbeat.interval-ms:25000}")
+    private long heartbeatIntervalMillis;
+
+    /**
+     * Duración de un tick de la rueda de tiempo del heartbeat:
+     * websocket.heartbeat.tick-ms=500
+     */
+    @Value("${websocket.heartbeat.tick-ms:500}")
+    private long heartbeatTickMillis;
+
+    /**
+     * Espera máxima de un PONG y PONGs perdidos antes de cerrar la sesión:
+     * websocket.heartbeat.pong-timeout-ms=10000
+     * websocket.heartbeat.max-missed=2
+     */
+    @Value("${websocket.heartbeat.pong-timeout-ms:10000}")
+    private long heartbeatPongTimeoutMillis;
+
+    @Value("${websocket.heartbeat.max-missed:2}")
+    private int heartbeatMaxMissed;
+
+    /**
+     * Compresión del canal. {@code enabled} controla la negociación de permessage-deflate, que el contenedor
+     * aplica a todas las tramas de la sesión. {@code min-size} es el umbral de la trama COMPRIMIDA del
+     * subprotocolo binario, que solo se envía a las sesiones que no negociaron permessage-deflate:
+     * websocket.compression.enabled=true
+     * websocket.compression.min-size=1024
+     */
+    @Value("${websocket.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${websocket.compression.min-size:1024}")
+    private int compressionMinSize;
+
+    /**
+     * Nivel deflate (1 = más rápido, 9 = mejor ratio):
+     * websocket.compression.level=6
+     */
+    @Value("${websocket.compression.level:6}")
+    private int compressionLevel;
+
+    /**
+     * Context takeover de servidor y cliente (conservar el diccionario entre mensajes):
+     * websocket.compression.server-context-takeover=false
+     * websocket.compression.client-context-takeover=true
+     */
+    @Value("${websocket.compression.server-context-takeover:false}")
+    private boolean serverContextTakeover;
+
+    @Value("${websocket.compression.client-context-takeover:true}")
+    private boolean clientContextTakeover;
+
+    /**
+     * Agrupación de mensajes por sesión (retraso máximo de 5 a 20 ms y mensajes por trama).
+     * Si no está activada no se crea el agrupador ni su hilo:
+     * websocket.batching.enabled=false
+     * websocket.batching.max-delay-ms=10
+     * websocket.batching.max-size=32
+     */
+    @Value("${websocket.batching.max-delay-ms:10}")
+    private long batchingMaxDelayMillis;
+
+    @Value("${websocket.batching.max-size:32}")
+    private int batchingMaxSize;
+
+    /**
+     * Mensajes recientes que se reenvían desde memoria al suscribirse a una sala:
+     * chat.recent.join-size=50
+     */
+    @Value("${chat.recent.join-size:50}")
+    private int joinHistorySize;
+
+    /**
+     * Eventos máximos de la bandeja que se reenvían al reanudar una sesión:
+     * inbox.resume-limit=500
+     */
+    @Value("${inbox.resume-limit:500}")
+    private int resumeLimit;
+
+    /**
+     * Carril de eventos efímeros ("escribiendo..." y lecturas): ventana de antirrebote, intervalo mínimo
+     * entre tramas por sala, repetición de "escribiendo", pendientes máximos y cola de salida máxima
+     * de una sesión para seguir recibiéndolos:
+     * websocket.ephemeral.tick-ms=100
+     * websocket.ephemeral.room-interval-ms=250
+     * websocket.ephemeral.typing-ttl-ms=5000
+     * websocket.ephemeral.max-pending=100000
+     * websocket.ephemeral.max-queued=8
+     */
+    @Value("${websocket.ephemeral.tick-ms:100}")
+    private long ephemeralTickMillis;
+
+    @Value("${websocket.ephemeral.room-interval-ms:250}")
+    private long ephemeralRoomIntervalMillis;
+
+    @Value("${websocket.ephemeral.typing-ttl-ms:5000}")
+    private long ephemeralTypingTtlMillis;
+
+    @Value("${websocket.ephemeral.max-pending:100000}")
+    private int ephemeralMaxPending;
+
+    @Value("${websocket.ephemeral.max-queued:8}")
+    private int ephemeralMaxQueued;
+
     /**
      * Registra el canal WebSocket en la ruta especificada.
+     * El token JWT se valida una sola vez en el handshake (ver {@link JwtHandshakeInterceptor}).
      * Permite cualquier origen (solo recomendable para desarrollo).
      *
      * @param registry Registro de manejadores WebSocket.
@@ -43,6 +282,9 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(webSocketHandler(), "/ws/" + urlWebSocket)
+                .setHandshakeHandler(new CompressionHandshakeHandler(compressionEnabled,
+                        serverContextTakeover, clientContextTakeover))
+                .addInterceptors(jwtHandshakeInterceptor)
                 .setAllowedOrigins("*"); // En producción deberías restringirlo a tus dominios
     }
 
@@ -53,6 +295,87 @@ public class WebSocketConfig implements WebSocketConfigurer {
      */
     @Bean
     public WebSocketHandler webSocketHandler() {
-        return new WebSocketHandler(entity);
+        return new WebSocketHandler(entity, outboundQueueCapacity, overflowPolicy, webSocketWriterExecutor(), objectMapper,
+                sessionShards, new FanOutEngine(webSocketFanOutExecutor(), fanOutShards, fanOutParallelThreshold),
+                webSocketHeartbeat(), binaryCodec,
+                new FrameCompressor(compressionEnabled, compressionMinSize, compressionLevel),
+                batcher.getIfAvailable(), chatMessageService, chatMessageMapper,
+                recentMessages, joinHistorySize, inboxService, resumeLimit,
+                webSocketEphemeralLane(), ephemeralMaxQueued, presenceService);
+    }
+
+    /**
+     * Carril de mejor esfuerzo para los eventos efímeros.
+     *
+     * @return Carril de eventos efímeros.
+     */
+    @Bean(destroyMethod = "stop")
+    public EphemeralLane webSocketEphemeralLane() {
+        return new EphemeralLane(objectMapper, ephemeralTickMillis, ephemeralRoomIntervalMillis,
+                ephemeralTypingTtlMillis, ephemeralMaxPending);
+    }
+
+    /**
+     * Agrupador de mensajes por sesión: retrasa el vaciado de las colas hasta la ventana configurada.
+     * Solo se crea si websocket.batching.enabled=true.
+     *
+     * @return Agrupador de mensajes.
+     */
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(name = "websocket.batching.enabled", havingValue = "true")
+    public MessageBatcher webSocketBatcher() {
+        return new MessageBatcher(batchingMaxDelayMillis, batchingMaxSize);
+    }
+
+    /**
+     * Motor de keepalive: pings de protocolo en una rueda de tiempo y cierre de sesiones medio muertas.
+     *
+     * @return Planificador de heartbeat.
+     */
+    @Bean(destroyMethod = "stop")
+    public HeartbeatScheduler webSocketHeartbeat() {
+        return new HeartbeatScheduler(heartbeatIntervalMillis, heartbeatTickMillis,
+                heartbeatPongTimeoutMillis, heartbeatMaxMissed);
+    }
+
+    /**
+     * Pool de escritores compartido por todas las sesiones.
+     * Cada sesión tiene como mucho una tarea de vaciado en cola, por lo que la cola del pool
+     * está acotada en la práctica por el número de sesiones abiertas.
+     *
+     * @return Executor de escritores WebSocket.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService webSocketWriterExecutor() {
+        return new ThreadPoolExecutor(writerThreads, writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), namedThreadFactory("ws-writer-"));
+    }
+
+    /**
+     * Pool dedicado y acotado para repartir las porciones de las difusiones grandes.
+     * Cuando su cola se llena, la porción se reparte en el hilo que llama (contrapresión).
+     *
+     * @return Executor de reparto WebSocket.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService webSocketFanOutExecutor() {
+        return new ThreadPoolExecutor(fanOutThreads, fanOutThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanOutQueueCapacity), namedThreadFactory("ws-fanout-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Crea hilos daemon con un prefijo reconocible en los volcados de hilos.
+     *
+     * @param prefix Prefijo del nombre del hilo.
+     * @return Factoría de hilos.
+     */
+    static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 }
@@ -1,22 +1,48 @@
 package org.example.proyectoauth.config.websockets;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.example.proyectoauth.WebSockets.dto.NotificacionResponseDto;
+import org.example.proyectoauth.WebSockets.dto.WebSocketCommandDto;
+import org.example.proyectoauth.WebSockets.mapper.NotificacionBinaryCodec;
+import org.example.proyectoauth.WebSockets.model.Notificacion;
+import org.example.proyectoauth.rest.chat.dto.ChatMessageDto;
+import org.example.proyectoauth.rest.chat.mapper.ChatMessageMapper;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.example.proyectoauth.rest.chat.services.ChatMessageService;
+import org.example.proyectoauth.rest.chat.services.ChatRoomAccess;
+import org.example.proyectoauth.rest.chat.services.RecentMessagesCache;
+import org.example.proyectoauth.rest.inbox.model.InboxEvent;
+import org.example.proyectoauth.rest.inbox.services.InboxService;
+import org.example.proyectoauth.rest.presence.services.PresenceService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.time.LocalTime;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Manejador WebSocket personalizado que gestiona las conexiones entrantes,
- * envía mensajes a los clientes conectados y permite emitir mensajes periódicos.
+ * Manejador WebSocket personalizado que gestiona las conexiones entrantes
+ * y envía mensajes a los clientes conectados.
+ *
+ * Los envíos no se hacen en el hilo que llama: cada sesión tiene su propia
+ * {@link SessionOutboundQueue} acotada que vacía un escritor del pool compartido.
+ * Las conexiones se mantienen vivas con pings de protocolo del {@link HeartbeatScheduler}.
  *
  * Este manejador está diseñado para ser reutilizado en distintos módulos y proyectos,
  * enviando mensajes relacionados con la entidad definida en su constructor.
@@ -24,19 +50,138 @@ import java.util.concurrent.CopyOnWriteArraySet;
 @Slf4j
 public class WebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable, WebSocketSender {
 
+    // Subprotocolo de texto original (JSON) y subprotocolo binario compacto de notificaciones
+    public static final String TEXT_SUBPROTOCOL = "subprotocol.demo.websocket";
+    public static final String BINARY_SUBPROTOCOL = "subprotocol.notificaciones.binary";
+
     // Nombre de la entidad asociada al canal (útil para logs)
     private final String entity;
 
-    // Lista segura para múltiples hilos de sesiones WebSocket activas
-    private final Set<WebSocketSession> sessions = new CopyOnWriteArraySet<>();
+    // Registro fragmentado de sesiones WebSocket activas (altas y bajas O(1))
+    private final ShardedSessionRegistry sessions;
+
+    // Cola de salida de cada sesión, indexada por el id de la sesión
+    private final Map<String, SessionOutboundQueue> outboundQueues = new ConcurrentHashMap<>();
+
+    // Índice de suscripciones a salas/topics
+    private final TopicRegistry topicRegistry = new TopicRegistry();
+
+    // Índice de sesiones de cada usuario autenticado en el handshake
+    private final UserSessionRegistry userSessions = new UserSessionRegistry();
+
+    // Longitud máxima aceptada para el nombre de un topic y para un mensaje de chat
+    private static final int MAX_TOPIC_LENGTH = 128;
+    private static final int MAX_CHAT_LENGTH = 4000;
+
+    // Configuración de las colas de salida
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor writerExecutor;
+
+    // Motor de reparto paralelo para las difusiones globales
+    private final FanOutEngine fanOutEngine;
+
+    // Keepalive con pings de protocolo y detección de sesiones medio muertas
+    private final HeartbeatScheduler heartbeat;
+
+    // Serializador de los objetos difundidos
+    private final ObjectMapper objectMapper;
+
+    // Codificador del subprotocolo binario de notificaciones
+    private final NotificacionBinaryCodec binaryCodec;
+
+    // Compresión deflate de las tramas binarias y métricas de compresión
+    private final FrameCompressor compressor;
+
+    // Agrupación de los mensajes de cada sesión (null si está desactivada)
+    private final MessageBatcher batcher;
+
+    // Persistencia diferida de los mensajes de chat entrantes
+    private final ChatMessageService chatMessageService;
+    private final ChatMessageMapper chatMessageMapper;
+
+    // Últimos mensajes de cada sala, reenviados desde memoria a quien se une
+    private final RecentMessagesCache recentMessages;
+    private final int joinHistorySize;
+
+    // Bandejas de entrada duraderas: la de cada usuario y la común de difusiones globales
+    private static final String USER_STREAM = "user";
+    private static final String BROADCAST_STREAM = "broadcast";
+    private final InboxService inboxService;
+    private final int resumeLimit;
+
+    // Carril de mejor esfuerzo para "escribiendo..." y confirmaciones de lectura
+    private final EphemeralLane ephemeralLane;
+    private final int ephemeralMaxQueued;
+
+    // Estado de conexión de los usuarios autenticados
+    private final PresenceService presenceService;
+
+    // Contadores de difusión (ver BroadcastStats)
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder framesEncoded = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder recipients = new LongAdder();
+    private final LongAdder fanOutAllocatedBytes = new LongAdder();
+
+    // Permite medir los bytes reservados por el hilo emisor (solo en JVM HotSpot)
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
 
     /**
      * Constructor que define el nombre de la entidad para este canal WebSocket.
      *
-     * @param entity Nombre de la entidad asociada (por ejemplo: "Notificación").
+     * @param entity         Nombre de la entidad asociada (por ejemplo: "Notificación").
+     * @param queueCapacity  Mensajes máximos pendientes por sesión.
+     * @param overflowPolicy Política a aplicar cuando la cola de una sesión se llena.
+     * @param writerExecutor Pool de escritores que vacía las colas de salida.
+     * @param objectMapper   Serializador JSON de los objetos difundidos.
+     * @param sessionShards  Número de fragmentos del registro de sesiones.
+     * @param fanOutEngine   Motor de reparto paralelo para las difusiones globales.
+     * @param heartbeat      Motor de keepalive de las sesiones.
+     * @param binaryCodec    Codificador del subprotocolo binario de notificaciones.
+     * @param compressor     Compresor de las tramas binarias difundidas.
+     * @param batcher        Agrupador de mensajes por sesión, o {@code null} si está desactivado.
+     * @param chatMessageService Servicio de persistencia de los mensajes de chat.
+     * @param chatMessageMapper  Conversor de mensajes de chat a DTO.
+     * @param recentMessages     Caché de los últimos mensajes de cada sala.
+     * @param joinHistorySize    Mensajes recientes que se reenvían al suscribirse a una sala.
+     * @param inboxService       Bandejas de entrada duraderas por usuario y de difusiones globales.
+     * @param resumeLimit        Eventos máximos que se reenvían al reanudar; si faltan más, se pide resincronizar.
+     * @param ephemeralLane      Carril de eventos efímeros.
+     * @param ephemeralMaxQueued Mensajes pendientes en una sesión a partir de los cuales no recibe eventos efímeros.
+     * @param presenceService    Servicio de presencia; sus deltas se publican en el topic {@link PresenceService#TOPIC}.
      */
-    public WebSocketHandler(String entity) {
+    public WebSocketHandler(String entity, int queueCapacity, OverflowPolicy overflowPolicy, Executor writerExecutor,
+                            ObjectMapper objectMapper, int sessionShards, FanOutEngine fanOutEngine,
+                            HeartbeatScheduler heartbeat, NotificacionBinaryCodec binaryCodec,
+                            FrameCompressor compressor, MessageBatcher batcher,
+                            ChatMessageService chatMessageService, ChatMessageMapper chatMessageMapper,
+                            RecentMessagesCache recentMessages, int joinHistorySize,
+                            InboxService inboxService, int resumeLimit,
+                            EphemeralLane ephemeralLane, int ephemeralMaxQueued,
+                            PresenceService presenceService) {
         this.entity = entity;
+        this.sessions = new ShardedSessionRegistry(sessionShards);
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.writerExecutor = writerExecutor;
+        this.objectMapper = objectMapper;
+        this.fanOutEngine = fanOutEngine;
+        this.heartbeat = heartbeat;
+        this.binaryCodec = binaryCodec;
+        this.compressor = compressor;
+        this.batcher = batcher;
+        this.chatMessageService = chatMessageService;
+        this.chatMessageMapper = chatMessageMapper;
+        this.recentMessages = recentMessages;
+        this.joinHistorySize = joinHistorySize;
+        this.inboxService = inboxService;
+        this.resumeLimit = resumeLimit;
+        this.ephemeralLane = ephemeralLane;
+        this.ephemeralMaxQueued = ephemeralMaxQueued;
+        ephemeralLane.setPublisher(this::publishEphemeral);
+        this.presenceService = presenceService;
+        presenceService.setPublisher(this::publishPresence);
     }
 
     /**
@@ -46,16 +191,46 @@ public class WebSocketHandler extends TextWebSocketHandler implements SubProtoco
      */
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        log.info("[WS] Conexión establecida. Sesión: {}", session.getId());
+        boolean binary = BINARY_SUBPROTOCOL.equals(session.getAcceptedProtocol());
+        log.info("[WS] Conexión establecida. Sesión: {} - Subprotocolo: {}", session.getId(), session.getAcceptedProtocol());
+        boolean deflate = session.getExtensions().stream()
+                .anyMatch(extension -> CompressionHandshakeHandler.PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()));
+        SessionOutboundQueue queue = new SessionOutboundQueue(session, queueCapacity, overflowPolicy, writerExecutor, binary,
+                deflate, batcher);
+        outboundQueues.put(session.getId(), queue);
         sessions.add(session);
+        Long userId = JwtHandshakeInterceptor.userId(session);
+        if (userId != null) {
+            userSessions.add(userId, session);
+            presenceService.connected(userId);
+        }
+        heartbeat.register(queue, () -> evict(session));
+        if (deflate) {
+            compressor.sessionNegotiated();
+        }
 
-        try {
-            // Mensaje de bienvenida opcional
-            TextMessage message = new TextMessage("Conectado al WebSocket de: " + entity);
-            session.sendMessage(message);
-            log.info("[WS] Mensaje enviado al cliente: {}", message.getPayload());
-        } catch (IOException e) {
-            log.error("[WS] Error al enviar mensaje inicial: {}", e.getMessage());
+        if (binary) {
+            // Ya registrada: las entidades internadas a partir de ahora le llegarán por difusión
+            byte[] dictionary = binaryCodec.encodeDictionary();
+            if (dictionary.length > 0) {
+                queue.offer(new BinaryMessage(dictionary));
+            }
+        }
+
+        // Mensaje de bienvenida opcional
+        TextMessage message = new TextMessage("Conectado al WebSocket de: " + entity);
+        queue.offer(message);
+        log.info("[WS] Mensaje encolado para el cliente: {}", message.getPayload());
+
+        if (userId != null) {
+            Long resumeFrom = JwtHandshakeInterceptor.resumeFrom(session);
+            if (resumeFrom != null) {
+                replayInbox(session, queue, userId, USER_STREAM, resumeFrom);
+            }
+            Long resumeBroadcastFrom = JwtHandshakeInterceptor.resumeBroadcastFrom(session);
+            if (resumeBroadcastFrom != null) {
+                replayInbox(session, queue, InboxService.BROADCAST, BROADCAST_STREAM, resumeBroadcastFrom);
+            }
         }
     }
 
@@ -67,12 +242,46 @@ public class WebSocketHandler extends TextWebSocketHandler implements SubProtoco
      */
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session);
+        evict(session);
         log.info("[WS] Sesión cerrada: {} - Estado: {}", session.getId(), status);
     }
 
     /**
-     * Envía un mensaje de texto a todos los clientes conectados.
+     * Elimina la sesión de todos los índices. Es idempotente: la invocan el cierre normal, los errores
+     * de transporte y el heartbeat cuando declara muerta una sesión que nunca notificó su cierre.
+     *
+     * @param session Sesión a eliminar.
+     */
+    private void evict(WebSocketSession session) {
+        sessions.remove(session);
+        Long userId = JwtHandshakeInterceptor.userId(session);
+        if (userId != null && userSessions.remove(userId, session)) {
+            // Solo la primera limpieza de la sesión descuenta el dispositivo
+            presenceService.disconnected(userId);
+        }
+        topicRegistry.unsubscribeAll(session);
+        heartbeat.unregister(session);
+        SessionOutboundQueue queue = outboundQueues.remove(session.getId());
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    /**
+     * Recibe el PONG de un ping de keepalive y actualiza el tiempo de ida y vuelta de la sesión.
+     *
+     * @param session Sesión que respondió.
+     * @param message Trama PONG.
+     */
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        heartbeat.pong(session, message.getPayload());
+    }
+
+    /**
+     * Encola un mensaje de texto para todos los clientes conectados.
+     * No espera por la red: el envío real lo hace el escritor de cada sesión.
+     * El mensaje se guarda en la bandeja común de difusiones (ver {@link #broadcastDurably}).
      *
      * @param message El mensaje a enviar.
      * @throws IOException Si ocurre un error al enviar el mensaje.
@@ -80,43 +289,568 @@ public class WebSocketHandler extends TextWebSocketHandler implements SubProtoco
     @Override
     public void sendMessage(String message) throws IOException {
         log.info("[WS] Enviando mensaje para la entidad '{}': {}", entity, message);
-        for (WebSocketSession session : sessions) {
-            if (session.isOpen()) {
-                session.sendMessage(new TextMessage(message));
+        broadcastDurably(objectMapper.writeValueAsString(message), encode(message));
+    }
+
+    /**
+     * Serializa y codifica el objeto una sola vez y comparte la trama con todas las sesiones.
+     *
+     * @param payload Objeto a difundir.
+     * @throws IOException Si el objeto no se puede serializar.
+     */
+    @Override
+    public void broadcast(Object payload) throws IOException {
+        fanOut(sessions, encode(serialize(payload)));
+    }
+
+    /**
+     * Envía un objeto solo a las sesiones suscritas al topic: coste O(miembros de la sala).
+     *
+     * @param topic   Sala o tema destino.
+     * @param payload Objeto a enviar.
+     * @throws IOException Si el objeto no se puede serializar.
+     */
+    @Override
+    public void sendToTopic(String topic, Object payload) throws IOException {
+        Set<WebSocketSession> members = topicRegistry.members(topic);
+        if (members.isEmpty()) {
+            log.debug("[WS] Topic '{}' sin suscriptores, mensaje descartado", topic);
+            return;
+        }
+        fanOut(members, encode(serialize(payload)));
+    }
+
+    /**
+     * Envía un objeto solo a las sesiones del usuario: coste O(dispositivos del usuario).
+     * El evento se numera y se guarda antes en su bandeja de entrada, así que si el usuario no tiene
+     * sesiones abiertas lo recibirá al reconectar con {@code ?resumeFrom=N}. Se entrega como
+     * {@code {"type":"inbox","stream":"user","seq":N,"payload":...}}; un {@link String} se toma como JSON
+     * ya serializado.
+     *
+     * @param userId  Id del usuario destino.
+     * @param payload Objeto a enviar.
+     * @throws IOException Si el objeto no se puede serializar.
+     */
+    @Override
+    public void sendToUser(Long userId, Object payload) throws IOException {
+        inboxService.append(userId, serialize(payload), (seq, json) -> {
+            Set<WebSocketSession> devices = userSessions.sessions(userId);
+            if (devices.isEmpty()) {
+                log.debug("[WS] Usuario {} sin sesiones abiertas, evento {} guardado en su bandeja", userId, seq);
+                return;
             }
+            fanOut(devices, encode(inboxEnvelope(USER_STREAM, seq, json)));
+        });
+    }
+
+    /**
+     * Difunde una notificación: JSON para los clientes de texto y trama binaria compacta para los que
+     * negociaron {@link #BINARY_SUBPROTOCOL}. Todas las variantes se codifican una sola vez; la trama
+     * COMPRIMIDA solo la reciben las sesiones binarias que no negociaron permessage-deflate.
+     * La notificación se guarda en la bandeja común de difusiones (ver {@link #broadcastDurably}).
+     *
+     * @param notificacion Notificación a difundir.
+     * @throws IOException Si la notificación no se puede serializar.
+     */
+    @Override
+    public void sendNotificacion(NotificacionResponseDto notificacion) throws IOException {
+        String json = serialize(notificacion);
+        byte[] binary = binaryCodec.encode(notificacion, this::broadcastDefinition);
+        broadcastDurably(json, encode(json, binary, compress(binary)));
+    }
+
+    /**
+     * Difunde un evento de notificación en formato de texto o binario según la sesión.
+     *
+     * @param notificacion Evento a difundir.
+     * @throws IOException Si el evento no se puede serializar.
+     */
+    @Override
+    public void sendNotificacion(Notificacion<?> notificacion) throws IOException {
+        String json = serialize(notificacion);
+        byte[] binary = binaryCodec.encode(notificacion, this::broadcastDefinition);
+        broadcastDurably(json, encode(json, binary, compress(binary)));
+    }
+
+    /**
+     * Guarda una difusión global en la bandeja común {@link InboxService#BROADCAST} y la reparte a todas las
+     * sesiones dentro de la misma sección que la numera, así que el orden en vivo coincide con el de la secuencia.
+     *
+     * - Las sesiones anónimas reciben la trama habitual (texto, binaria o comprimida); no pueden reanudar.
+     * - Las autenticadas reciben {@code {"type":"inbox","stream":"broadcast","seq":N,"payload":...}} y, si
+     *   se desconectan, recuperan lo perdido al reconectar con {@code ?resumeBroadcastFrom=N}.
+     *
+     * @param json  Difusión en JSON, tal como se guarda y se reenvía.
+     * @param frame Trama ya codificada para las sesiones anónimas.
+     */
+    private void broadcastDurably(String json, BroadcastFrame frame) {
+        try {
+            inboxService.append(InboxService.BROADCAST, json,
+                    (seq, payload) -> fanOut(sessions, frame, encode(inboxEnvelope(BROADCAST_STREAM, seq, payload))));
+        } catch (RuntimeException e) {
+            // Sin bandeja la difusión sigue llegando a los conectados; los desconectados deberán resincronizar
+            log.warn("[WS] No se pudo guardar la difusión en la bandeja común: {}", e.getMessage());
+            fanOut(sessions, frame);
         }
     }
 
     /**
-     * Envía un mensaje automático cada segundo a los clientes conectados.
-     * Ideal para pruebas o mantener conexiones activas.
+     * Comprime la trama binaria una sola vez si supera el umbral configurado. Es la variante para las
+     * sesiones sin permessage-deflate: a las demás ya las comprime el contenedor y no se comprime dos veces.
      *
-     * @param message Contenido del mensaje a enviar.
-     * @throws IOException Si ocurre un error al enviar el mensaje.
+     * @param frames Tramas binarias sin comprimir.
+     * @return Trama COMPRIMIDA, o {@code null} si no compensa comprimir.
+     */
+    private byte[] compress(byte[] frames) {
+        byte[] deflated = compressor.compress(frames);
+        return deflated == null ? null : binaryCodec.encodeCompressed(frames.length, deflated);
+    }
+
+    /**
+     * Devuelve las métricas de compresión del canal.
+     *
+     * @return Instantánea de las estadísticas de compresión.
+     */
+    @Override
+    public CompressionStats getCompressionStats() {
+        return compressor.getStats();
+    }
+
+    /**
+     * Envía a los clientes binarios la definición de una entidad recién internada.
+     * Se reparte en el hilo que llama para que quede encolada antes que la notificación que la usa.
+     *
+     * @param definition Trama DEFINICION.
+     */
+    private void broadcastDefinition(byte[] definition) {
+        deliver(sessions, encodeBinaryOnly(definition));
+    }
+
+    /**
+     * Reenvía a una sesión que reconecta los eventos de una bandeja posteriores a {@code resumeFrom}.
+     * La sesión ya está registrada, así que un evento nuevo puede llegar a la vez en vivo y en el reenvío:
+     * el cliente descarta los números de secuencia ya vistos. Si el hueco supera {@code resumeLimit}
+     * eventos se envía {@code {"type":"resync","stream":...}} para que el cliente recargue su estado.
+     *
+     * @param inboxId Usuario dueño de la bandeja, o {@link InboxService#BROADCAST}.
+     * @param stream  Nombre de la bandeja en los sobres ({@code user} o {@code broadcast}).
+     */
+    private void replayInbox(WebSocketSession session, SessionOutboundQueue queue, long inboxId, String stream,
+                             long resumeFrom) {
+        try {
+            List<InboxEvent> gap = inboxService.findAfter(inboxId, resumeFrom, resumeLimit + 1);
+            if (gap.size() > resumeLimit || !gap.isEmpty() && gap.get(0).getSeq() > resumeFrom + 1) {
+                // Demasiados eventos, o los primeros ya se eliminaron de la bandeja
+                reply(session, Map.of("type", "resync", "stream", stream));
+                return;
+            }
+            for (InboxEvent event : gap) {
+                queue.offer(new TextMessage(inboxEnvelope(stream, event.getSeq(), event.getPayload())));
+            }
+            log.debug("[WS] Reenviados {} eventos de la bandeja {} ({}) desde {}", gap.size(), inboxId, stream, resumeFrom);
+        } catch (Exception e) {
+            log.warn("[WS] No se pudo reanudar la bandeja {} ({}): {}", inboxId, stream, e.getMessage());
+            reply(session, Map.of("type", "resync", "stream", stream));
+        }
+    }
+
+    /**
+     * Envuelve un evento de una bandeja con su nombre y su número de secuencia.
+     */
+    private static String inboxEnvelope(String stream, long seq, String payload) {
+        return "{\"type\":\"inbox\",\"stream\":\"" + stream + "\",\"seq\":" + seq + ",\"payload\":" + payload + "}";
+    }
+
+    /**
+     * Serializa el objeto a JSON; los {@link String} se envían tal cual.
+     */
+    private String serialize(Object payload) throws IOException {
+        return payload instanceof String text ? text : objectMapper.writeValueAsString(payload);
+    }
+
+    /**
+     * Codifica una trama de texto y la cuenta en {@link BroadcastStats#framesEncoded()}.
+     */
+    private BroadcastFrame encode(String payload) {
+        framesEncoded.increment();
+        return BroadcastFrame.of(payload);
+    }
+
+    /**
+     * Codifica una trama con variantes de texto, binaria y binaria comprimida (opcional) y la cuenta
+     * como una sola codificación.
+     */
+    private BroadcastFrame encode(String payload, byte[] binary, byte[] compressed) {
+        framesEncoded.increment();
+        return BroadcastFrame.of(payload, binary, compressed);
+    }
+
+    /**
+     * Codifica una trama solo binaria y la cuenta en {@link BroadcastStats#framesEncoded()}.
+     */
+    private BroadcastFrame encodeBinaryOnly(byte[] binary) {
+        framesEncoded.increment();
+        return BroadcastFrame.binaryOnly(binary);
+    }
+
+    /**
+     * Devuelve los contadores acumulados de difusión.
+     *
+     * @return Instantánea de las estadísticas de difusión.
+     */
+    @Override
+    public BroadcastStats getBroadcastStats() {
+        return new BroadcastStats(broadcasts.sum(), framesEncoded.sum(), encodedBytes.sum(), recipients.sum(),
+                ALLOCATION_BEAN != null ? fanOutAllocatedBytes.sum() : -1);
+    }
+
+    /**
+     * Devuelve los tiempos de finalización de las difusiones globales.
+     *
+     * @return Instantánea de las estadísticas del motor de reparto.
      */
-    @Scheduled(fixedRate = 1000)
     @Override
-    public void sendPeriodicMessage(String message) throws IOException {
-        String periodic = "Mensaje periódico del servidor a las " + LocalTime.now();
-        for (WebSocketSession session : sessions) {
-            if (session.isOpen()) {
-                session.sendMessage(new TextMessage(periodic));
-                log.info("[WS] Periodic: {}", periodic);
+    public FanOutStats getFanOutStats() {
+        return fanOutEngine.getStats();
+    }
+
+    /**
+     * Entrega la misma trama a la cola de salida de cada sesión abierta y actualiza los contadores.
+     *
+     * @param targets Sesiones destino.
+     * @param frame   Trama ya codificada.
+     */
+    private void fanOut(Iterable<WebSocketSession> targets, BroadcastFrame frame) {
+        fanOut(targets, frame, null);
+    }
+
+    /**
+     * Como {@link #fanOut(Iterable, BroadcastFrame)}, pero las sesiones autenticadas reciben
+     * {@code authenticated} en lugar de {@code frame}, si se indica.
+     *
+     * @param targets       Sesiones destino.
+     * @param frame         Trama ya codificada.
+     * @param authenticated Trama para las sesiones autenticadas, o {@code null} para usar {@code frame}.
+     */
+    private void fanOut(Iterable<WebSocketSession> targets, BroadcastFrame frame, BroadcastFrame authenticated) {
+        broadcasts.increment();
+        encodedBytes.add(frame.getEncodedLength());
+        if (authenticated != null) {
+            encodedBytes.add(authenticated.getEncodedLength());
+        }
+        if (targets == sessions) {
+            // Difusión global: el motor reparte las porciones del registro en paralelo
+            fanOutEngine.dispatch(sessions, slice -> deliver(slice, frame, authenticated));
+        } else {
+            deliver(targets, frame, authenticated);
+        }
+    }
+
+    /**
+     * Encola la trama en cada sesión abierta de una porción y acumula los contadores.
+     *
+     * @param targets Sesiones de la porción.
+     * @param frame   Trama ya codificada.
+     */
+    private void deliver(Iterable<WebSocketSession> targets, BroadcastFrame frame) {
+        deliver(targets, frame, null);
+    }
+
+    /**
+     * Encola en cada sesión de una porción la trama que le corresponde según esté autenticada o no.
+     *
+     * @param targets       Sesiones de la porción.
+     * @param frame         Trama ya codificada.
+     * @param authenticated Trama para las sesiones autenticadas, o {@code null} para usar {@code frame}.
+     */
+    private void deliver(Iterable<WebSocketSession> targets, BroadcastFrame frame, BroadcastFrame authenticated) {
+        long allocatedBefore = currentThreadAllocatedBytes();
+        long delivered = 0;
+        for (WebSocketSession session : targets) {
+            SessionOutboundQueue queue = outboundQueues.get(session.getId());
+            if (queue == null || !session.isOpen()) {
+                continue;
             }
+            BroadcastFrame selected = authenticated != null && JwtHandshakeInterceptor.userId(session) != null
+                    ? authenticated : frame;
+            WebSocketMessage<?> message = selected.messageFor(queue.isBinaryProtocol(), queue.isDeflateNegotiated());
+            if (message != null && queue.offer(message)) {
+                delivered++;
+            }
+        }
+        if (allocatedBefore >= 0) {
+            fanOutAllocatedBytes.add(currentThreadAllocatedBytes() - allocatedBefore);
+        }
+        recipients.add(delivered);
+    }
+
+    /**
+     * Bytes de heap reservados hasta ahora por el hilo actual.
+     *
+     * @return Bytes reservados, o -1 si la JVM no lo soporta.
+     */
+    private static long currentThreadAllocatedBytes() {
+        return ALLOCATION_BEAN != null ? ALLOCATION_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Obtiene el bean de hilos de HotSpot con medición de memoria reservada, si está disponible.
+     *
+     * @return Bean de hilos o {@code null} si la JVM no lo soporta.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemorySupported()) {
+            hotspot.setThreadAllocatedMemoryEnabled(true);
+            return hotspot;
         }
+        return null;
     }
 
     /**
-     * Maneja los mensajes recibidos desde el cliente.
-     * En este caso, no se responde a ningún mensaje (modo solo emisión).
+     * Maneja los comandos recibidos desde el cliente.
+     *
+     * Comandos soportados (JSON):
+     * - {@code {"action": "subscribe", "topic": "sala"}}
+     * - {@code {"action": "unsubscribe", "topic": "sala"}}
+     * - {@code {"action": "message", "topic": "sala", "content": "texto", "clientId": "c-1"}}
+     * - {@code {"action": "typing", "topic": "sala", "content": "start" | "stop"}}
+     * - {@code {"action": "read", "topic": "sala", "content": "1234"}} (último seq leído)
+     *
+     * Cada comando se confirma con una respuesta en la cola de salida de la sesión, salvo los
+     * efímeros ("typing" y "read"), que solo responden si son incorrectos.
+     *
+     * Las salas son públicas salvo las conversaciones directas {@code dm:<id>:<id>}, a las que solo
+     * pueden suscribirse y enviar sus participantes (ver {@link ChatRoomAccess}).
      *
      * @param session Sesión desde la que se recibió el mensaje.
      * @param message El mensaje recibido.
      */
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-        // Modo solo-emisor: no se procesan mensajes entrantes.
-        log.debug("[WS] Mensaje recibido (no procesado): {}", message.getPayload());
+        log.debug("[WS] Mensaje recibido de {}: {}", session.getId(), message.getPayload());
+        WebSocketCommandDto command;
+        try {
+            command = objectMapper.readValue(message.getPayload(), WebSocketCommandDto.class);
+        } catch (IOException e) {
+            reply(session, "error", null, "Comando no válido");
+            return;
+        }
+
+        String action = command.action() == null ? "" : command.action().toLowerCase();
+        String topic = command.topic();
+        if (topic == null || topic.isBlank() || topic.length() > MAX_TOPIC_LENGTH) {
+            reply(session, "error", topic, "Topic no válido");
+            return;
+        }
+
+        switch (action) {
+            case "subscribe" -> {
+                if (!ChatRoomAccess.canRead(JwtHandshakeInterceptor.userId(session), topic)) {
+                    reply(session, "error", topic, "Sin acceso a la sala");
+                    return;
+                }
+                topicRegistry.subscribe(topic, session);
+                reply(session, "subscribed", topic, null);
+                replayRecent(session, topic);
+            }
+            case "unsubscribe" -> {
+                topicRegistry.unsubscribe(topic, session);
+                reply(session, "unsubscribed", topic, null);
+            }
+            case "message" -> handleChatMessage(session, command);
+            case "typing" -> handleEphemeral(session, command, EphemeralLane.Kind.TYPING);
+            case "read" -> handleEphemeral(session, command, EphemeralLane.Kind.READ);
+            default -> reply(session, "error", topic, "Acción desconocida: " + command.action());
+        }
+    }
+
+    /**
+     * Encola un mensaje de chat para su persistencia por lotes. Tras el volcado, el remitente recibe
+     * {@code {"type":"ack","topic":...,"clientId":...,"seq":N}} y la sala recibe
+     * {@code {"type":"message","message":{...}}}.
+     *
+     * @param session Sesión remitente (debe estar autenticada).
+     * @param command Comando con la sala y el texto.
+     */
+    private void handleChatMessage(WebSocketSession session, WebSocketCommandDto command) {
+        UserDetails user = JwtHandshakeInterceptor.user(session);
+        Long userId = JwtHandshakeInterceptor.userId(session);
+        if (user == null || userId == null) {
+            reply(session, "error", command.topic(), "Se requiere autenticación para enviar mensajes");
+            return;
+        }
+        if (!ChatRoomAccess.canPost(userId, command.topic())) {
+            reply(session, "error", command.topic(), "Sin acceso a la sala");
+            return;
+        }
+        String content = command.content();
+        if (content == null || content.isBlank() || content.length() > MAX_CHAT_LENGTH) {
+            reply(session, "error", command.topic(), "Mensaje no válido");
+            return;
+        }
+
+        ChatMessage message = ChatMessage.builder()
+                .room(command.topic())
+                .senderId(userId)
+                .senderUsername(user.getUsername())
+                .content(content)
+                .build();
+        chatMessageService.submit(message).whenComplete((saved, error) -> {
+            Map<String, Object> ack = new LinkedHashMap<>();
+            ack.put("type", error == null ? "ack" : "error");
+            ack.put("topic", message.getRoom());
+            if (command.clientId() != null) {
+                ack.put("clientId", command.clientId());
+            }
+            if (error != null) {
+                ack.put("error", (error.getCause() != null ? error.getCause() : error).getMessage());
+                reply(session, ack);
+                return;
+            }
+            ack.put("seq", saved.getId());
+            reply(session, ack);
+
+            ChatMessageDto dto = chatMessageMapper.toDto(saved);
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("type", "message");
+            event.put("message", dto);
+            try {
+                // Se serializa una vez: la misma trama va a la sala y a la caché de mensajes recientes
+                String json = objectMapper.writeValueAsString(event);
+                recentMessages.append(dto, json);
+                sendToTopic(saved.getRoom(), json);
+            } catch (IOException e) {
+                // El mensaje está guardado pero no entró en la caché: se invalida para no servir huecos
+                recentMessages.invalidate(saved.getRoom());
+                log.warn("[WS] No se pudo difundir el mensaje {} a la sala {}: {}", saved.getId(), saved.getRoom(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Pasa un evento efímero al carril de mejor esfuerzo: no se persiste ni se confirma.
+     *
+     * @param session Sesión remitente (debe estar autenticada).
+     * @param command Comando con la sala y el estado.
+     * @param kind    Tipo de evento.
+     */
+    private void handleEphemeral(WebSocketSession session, WebSocketCommandDto command, EphemeralLane.Kind kind) {
+        UserDetails user = JwtHandshakeInterceptor.user(session);
+        Long userId = JwtHandshakeInterceptor.userId(session);
+        if (user == null || userId == null) {
+            reply(session, "error", command.topic(), "Se requiere autenticación");
+            return;
+        }
+        if (!ChatRoomAccess.canPost(userId, command.topic())) {
+            reply(session, "error", command.topic(), "Sin acceso a la sala");
+            return;
+        }
+        String state = command.content();
+        boolean valid = kind == EphemeralLane.Kind.TYPING
+                ? "start".equals(state) || "stop".equals(state)
+                : state != null && state.matches("\\d{1,18}");
+        if (!valid) {
+            reply(session, "error", command.topic(), "Estado no válido");
+            return;
+        }
+        ephemeralLane.submit(command.topic(), userId, user.getUsername(), kind, state);
+    }
+
+    /**
+     * Reparte una trama efímera a los miembros de la sala cuya cola de salida está casi vacía;
+     * en el resto se descarta.
+     *
+     * @param room Sala.
+     * @param json Trama ya serializada.
+     */
+    private void publishEphemeral(String room, String json) {
+        TextMessage frame = new TextMessage(json);
+        long skipped = 0;
+        for (WebSocketSession member : topicRegistry.members(room)) {
+            SessionOutboundQueue queue = outboundQueues.get(member.getId());
+            if (queue == null || !queue.offerIfIdle(frame, ephemeralMaxQueued)) {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            ephemeralLane.recordDropped(skipped);
+        }
+    }
+
+    /**
+     * Publica un delta de presencia a los suscritos al topic de presencia.
+     *
+     * @param delta Delta con los usuarios que se conectaron y desconectaron.
+     */
+    private void publishPresence(Map<String, Object> delta) {
+        try {
+            sendToTopic(PresenceService.TOPIC, delta);
+        } catch (IOException e) {
+            log.warn("[WS] No se pudo publicar el delta de presencia: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reenvía a quien se une a una sala sus últimos mensajes, desde memoria y ya serializados:
+     * {@code {"type":"history","topic":...,"events":[...]}}, del más antiguo al más nuevo.
+     *
+     * @param session Sesión que se acaba de suscribir.
+     * @param topic   Sala.
+     */
+    private void replayRecent(WebSocketSession session, String topic) {
+        List<String> events = recentMessages.recentJson(topic, joinHistorySize);
+        SessionOutboundQueue queue = outboundQueues.get(session.getId());
+        if (events.isEmpty() || queue == null) {
+            return;
+        }
+        try {
+            StringBuilder json = new StringBuilder("{\"type\":\"history\",\"topic\":")
+                    .append(objectMapper.writeValueAsString(topic))
+                    .append(",\"events\":[");
+            json.append(String.join(",", events));
+            queue.offer(new TextMessage(json.append("]}")));
+        } catch (IOException e) {
+            log.warn("[WS] No se pudo reenviar el historial de {} a {}: {}", topic, session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Encola una respuesta de control para una única sesión.
+     *
+     * @param session Sesión destino.
+     * @param type    Tipo de respuesta.
+     * @param topic   Topic afectado (puede ser nulo).
+     * @param error   Mensaje de error (puede ser nulo).
+     */
+    private void reply(WebSocketSession session, String type, String topic, String error) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("type", type);
+        if (topic != null) {
+            body.put("topic", topic);
+        }
+        if (error != null) {
+            body.put("error", error);
+        }
+        reply(session, body);
+    }
+
+    /**
+     * Encola una respuesta de control en JSON para una única sesión.
+     *
+     * @param session Sesión destino.
+     * @param body    Campos de la respuesta.
+     */
+    private void reply(WebSocketSession session, Map<String, Object> body) {
+        SessionOutboundQueue queue = outboundQueues.get(session.getId());
+        if (queue == null) {
+            return;
+        }
+        try {
+            queue.offer(new TextMessage(objectMapper.writeValueAsString(body)));
+        } catch (IOException e) {
+            log.warn("[WS] No se pudo serializar la respuesta para {}: {}", session.getId(), e.getMessage());
+        }
     }
 
     /**
@@ -128,15 +862,18 @@ public class WebSocketHandler extends TextWebSocketHandler implements SubProtoco
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) {
         log.warn("[WS] Error en la sesión {}: {}", session.getId(), exception.getMessage());
+        evict(session);
     }
 
     /**
      * Define los subprotocolos soportados por este canal WebSocket.
+     * Los clientes que negocian {@link #BINARY_SUBPROTOCOL} reciben las notificaciones
+     * como tramas {@link BinaryMessage} compactas (ver {@link NotificacionBinaryCodec}).
      *
      * @return Lista de subprotocolos compatibles.
      */
     @Override
     public List<String> getSubProtocols() {
-        return List.of("subprotocol.demo.websocket");
+        return List.of(TEXT_SUBPROTOCOL, BINARY_SUBPROTOCOL);
     }
 }
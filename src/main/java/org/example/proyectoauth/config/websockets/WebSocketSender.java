@@ -1,13 +1,19 @@
 package org.example.proyectoauth.config.websockets;
 
+import org.example.proyectoauth.WebSockets.dto.NotificacionResponseDto;
+import org.example.proyectoauth.WebSockets.model.Notificacion;
+
 import java.io.IOException;
 
 /**
  * Interfaz funcional para el envío de mensajes a través de WebSocket.
  *
- * Define dos métodos:
+ * Define los métodos:
  * - Uno para enviar mensajes únicos.
- * - Otro para enviar mensajes periódicos (por ejemplo, desde un scheduler).
+ * - Otro para difundir cualquier objeto, serializado y codificado una sola vez.
+ * - Otro para enviar solo a los suscriptores de una sala o topic.
+ * - Otro para enviar solo a los dispositivos de un usuario autenticado.
+ * - Otros para difundir notificaciones en JSON o en el subprotocolo binario compacto.
  *
  * Esta interfaz permite desacoplar el envío de mensajes del manejador,
  * facilitando su reutilización o inyección desde otros componentes.
@@ -16,6 +22,8 @@ public interface WebSocketSender {
 
     /**
      * Envía un mensaje de texto a todos los clientes conectados por WebSocket.
+     * Se guarda en la bandeja común de difusiones: los clientes autenticados que estaban desconectados
+     * lo recuperan al reconectar.
      *
      * @param message El mensaje a enviar.
      * @throws IOException Si ocurre un error al enviar el mensaje.
@@ -23,11 +31,72 @@ public interface WebSocketSender {
     void sendMessage(String message) throws IOException;
 
     /**
-     * Envía un mensaje periódico a los clientes WebSocket.
-     * Este método puede ser utilizado con anotaciones como {@code @Scheduled}.
+     * Difunde un objeto a todos los clientes conectados.
+     *
+     * El objeto se serializa a JSON (los {@link String} se envían tal cual) y se codifica
+     * a UTF-8 una única vez; la misma trama inmutable se comparte entre todas las sesiones.
+     *
+     * @param payload Objeto a difundir.
+     * @throws IOException Si el objeto no se puede serializar.
+     */
+    void broadcast(Object payload) throws IOException;
+
+    /**
+     * Difunde una notificación. Los clientes de texto reciben JSON; los que negociaron el
+     * subprotocolo binario reciben una trama compacta con el nombre de entidad internado.
+     * Se guarda en la bandeja común de difusiones, como {@link #sendMessage(String)}.
+     *
+     * @param notificacion Notificación a difundir.
+     * @throws IOException Si la notificación no se puede serializar.
+     */
+    void sendNotificacion(NotificacionResponseDto notificacion) throws IOException;
+
+    /**
+     * Difunde un evento de notificación (CREATE, UPDATE, DELETE) en formato de texto o binario según la sesión.
+     * Se guarda en la bandeja común de difusiones, como {@link #sendMessage(String)}.
+     *
+     * @param notificacion Evento a difundir.
+     * @throws IOException Si el evento no se puede serializar.
+     */
+    void sendNotificacion(Notificacion<?> notificacion) throws IOException;
+
+    /**
+     * Envía un objeto únicamente a las sesiones suscritas a un topic o sala.
+     *
+     * @param topic   Sala o tema destino.
+     * @param payload Objeto a enviar (los {@link String} se envían tal cual).
+     * @throws IOException Si el objeto no se puede serializar.
+     */
+    void sendToTopic(String topic, Object payload) throws IOException;
+
+    /**
+     * Envía un objeto únicamente a las sesiones abiertas de un usuario (una por dispositivo),
+     * identificado por el token JWT que presentó en el handshake.
+     *
+     * @param userId  Id del usuario destino.
+     * @param payload Objeto a enviar (los {@link String} se consideran JSON ya serializado y se envían tal cual).
+     * @throws IOException Si el objeto no se puede serializar.
+     */
+    void sendToUser(Long userId, Object payload) throws IOException;
+
+    /**
+     * Devuelve los contadores acumulados de difusión.
+     *
+     * @return Instantánea de las estadísticas de difusión.
+     */
+    BroadcastStats getBroadcastStats();
+
+    /**
+     * Devuelve los tiempos de finalización de las difusiones globales (incluido el percentil 99).
+     *
+     * @return Instantánea de las estadísticas de reparto.
+     */
+    FanOutStats getFanOutStats();
+
+    /**
+     * Devuelve las métricas de compresión del canal (ratio y coste de CPU).
      *
-     * @param message El mensaje periódico a enviar.
-     * @throws IOException Si ocurre un error durante el envío.
+     * @return Instantánea de las estadísticas de compresión.
      */
-    void sendPeriodicMessage(String message) throws IOException;
+    CompressionStats getCompressionStats();
 }
@@ -0,0 +1,49 @@
+package org.example.proyectoauth.pageresponse;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Clase inmutable que representa una página obtenida por cursor (paginación por clave o seek).
+ *
+ * A diferencia de {@link PageResponse}, no incluye totales: no requiere una consulta {@code COUNT(*)}
+ * y el coste de pedir cualquier página es el mismo, porque la consulta parte de la última fila
+ * devuelta en lugar de saltar un {@code OFFSET}.
+ *
+ * @param <T> Tipo de contenido que contiene la página.
+ */
+public record CursorPage<T>(
+        List<T> content,          // Lista de elementos en la página actual
+        int pageSize,             // Tamaño de página solicitado
+        String nextCursor,        // Cursor opaco para pedir la página siguiente (null si no hay más)
+        boolean last              // ¿Es la última página?
+) {
+
+    /**
+     * Crea una página a partir de las filas consultadas con {@code size + 1} como límite:
+     * la fila extra solo indica que hay más páginas y no se devuelve.
+     *
+     * @param rows     Filas consultadas (como mucho {@code size + 1}).
+     * @param size     Tamaño de página solicitado.
+     * @param cursorOf Función que obtiene el cursor de un elemento.
+     * @return Una instancia de {@link CursorPage}.
+     * @param <T>      Tipo de contenido de la página.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? List.copyOf(rows.subList(0, size)) : List.copyOf(rows);
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, size, nextCursor, !hasNext);
+    }
+
+    /**
+     * Transforma el contenido de la página conservando el cursor.
+     *
+     * @param mapper Función de conversión de cada elemento.
+     * @return Nueva página con el contenido transformado.
+     * @param <R>    Tipo del contenido resultante.
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(content.stream().map(mapper).toList(), pageSize, nextCursor, last);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.proyectoauth.pageresponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción que se lanza cuando el cursor de paginación recibido no es válido.
+ *
+ * <p>
+ * Esta excepción está anotada con {@code @ResponseStatus(HttpStatus.BAD_REQUEST)},
+ * por lo que al lanzarse devolverá automáticamente una respuesta HTTP 400 (Bad Request).
+ * </p>
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException {
+
+    /**
+     * Constructor que permite indicar el cursor recibido.
+     *
+     * @param cursor Cursor no válido.
+     */
+    public InvalidCursorException(String cursor) {
+        super("Cursor de paginación no válido: " + cursor);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.proyectoauth.pageresponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción que se lanza cuando el campo de ordenación recibido no está soportado.
+ *
+ * <p>
+ * Esta excepción está anotada con {@code @ResponseStatus(HttpStatus.BAD_REQUEST)},
+ * por lo que al lanzarse devolverá automáticamente una respuesta HTTP 400 (Bad Request).
+ * </p>
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSortException extends RuntimeException {
+
+    /**
+     * Constructor que permite indicar el campo recibido.
+     *
+     * @param sortBy Campo de ordenación no válido.
+     */
+    public InvalidSortException(String sortBy) {
+        super("Campo de ordenación no válido: " + sortBy);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.proyectoauth.pageresponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de una paginación por clave: la fecha y el id de la última fila devuelta.
+ *
+ * Se entrega al cliente como un texto opaco (Base64 URL) para que no dependa de su formato.
+ * El id desempata las filas con la misma fecha, de modo que el orden {@code (timestamp, id)} es total.
+ *
+ * @param timestamp Fecha de la última fila (null si se pagina solo por id).
+ * @param id        Id de la última fila.
+ */
+public record SeekCursor(
+        LocalDateTime timestamp,
+        Long id
+) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Codifica el cursor como texto opaco.
+     *
+     * @return Cursor codificado.
+     */
+    public String encode() {
+        String raw = (timestamp == null ? "" : timestamp.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente.
+     *
+     * @param cursor Cursor codificado.
+     * @return Cursor decodificado.
+     * @throws InvalidCursorException Si el cursor no es válido.
+     */
+    public static SeekCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            String timestamp = raw.substring(0, separator);
+            return new SeekCursor(timestamp.isEmpty() ? null : LocalDateTime.parse(timestamp),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package org.example.proyectoauth.rest.auth.controllers;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.example.proyectoauth.rest.auth.dto.JwtAuthResponseDto;
 import org.example.proyectoauth.rest.auth.dto.UserSignInRequest;
 import org.example.proyectoauth.rest.auth.dto.UserSignUpRequest;
+import org.example.proyectoauth.rest.auth.exceptions.AuthSignInInvalid;
+import org.example.proyectoauth.rest.auth.exceptions.AuthSignInStatusException;
+import org.example.proyectoauth.rest.auth.exceptions.LoginThrottled;
+import org.example.proyectoauth.rest.auth.exceptions.PasswordHashingUnavailable;
 import org.example.proyectoauth.rest.auth.services.authentication.AuthenticationService;
+import org.example.proyectoauth.rest.auth.services.users.AuthUserService;
+import org.example.proyectoauth.rest.auth.services.users.UserDetailsCacheStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
@@ -24,6 +33,8 @@ import java.util.Map;
  * - Registrar nuevos usuarios.
  * - Autenticar usuarios existentes.
  *
+ * Y, solo para administradores, las estadísticas de la caché de usuarios de autenticación.
+ *
  * También maneja las excepciones de validación asociadas a las solicitudes.
  */
 @RestController
@@ -33,15 +44,18 @@ import java.util.Map;
 public class AuthRestController {
 
     private final AuthenticationService authenticationService;
+    private final AuthUserService authUserService;
 
     /**
      * Constructor del controlador.
      *
      * @param authenticationService Servicio responsable de manejar la lógica de autenticación.
+     * @param authUserService       Servicio de carga de usuarios, del que se leen las estadísticas de su caché.
      */
     @Autowired
-    public AuthRestController(AuthenticationService authenticationService) {
+    public AuthRestController(AuthenticationService authenticationService, AuthUserService authUserService) {
         this.authenticationService = authenticationService;
+        this.authUserService = authUserService;
     }
 
     /**
@@ -60,12 +74,26 @@ public class AuthRestController {
      * Endpoint para iniciar sesión.
      *
      * @param userSignInRequest Datos de inicio de sesión del usuario.
+     * @param request           Petición HTTP, de la que se toma la IP del cliente.
      * @return Respuesta con el token JWT generado si las credenciales son válidas.
      */
     @PostMapping("/signin")
-    public ResponseEntity<JwtAuthResponseDto> signin(@Valid @RequestBody UserSignInRequest userSignInRequest) {
+    public ResponseEntity<JwtAuthResponseDto> signin(@Valid @RequestBody UserSignInRequest userSignInRequest,
+                                                     HttpServletRequest request) {
         log.info("[AUTH] Signin request: {}", userSignInRequest);
-        return ResponseEntity.ok(authenticationService.signIn(userSignInRequest));
+        return ResponseEntity.ok(authenticationService.signIn(userSignInRequest, request.getRemoteAddr()));
+    }
+
+    /**
+     * Endpoint para consultar las estadísticas de la caché de usuarios de autenticación.
+     *
+     * @return Aciertos, fallos, esperas a cargas en curso, descartes y tamaño de la caché.
+     */
+    @GetMapping("/user-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserDetailsCacheStats> userCacheStats() {
+        log.info("[AUTH] Consulta de estadísticas de la caché de usuarios");
+        return ResponseEntity.ok(authUserService.getCacheStats());
     }
 
     /**
@@ -88,15 +116,15 @@ public class AuthRestController {
     /**
      * Maneja la excepción cuando un usuario intenta iniciar sesión pero su cuenta está desactivada.
      *
-     * Esta excepción es capturada cuando se lanza {@link org.example.proyectoauth.rest.auth.exceptions.AuthSignInStatusException}
+     * Esta excepción es capturada cuando se lanza {@link AuthSignInStatusException}
      * desde el servicio de autenticación. Devuelve un mensaje con código de estado HTTP 403 (Forbidden).
      *
      * @param ex Excepción lanzada al intentar autenticar un usuario desactivado.
      * @return Un mapa con el mensaje de error correspondiente.
      */
     @ResponseStatus(HttpStatus.FORBIDDEN)
-    @ExceptionHandler(org.example.proyectoauth.rest.auth.exceptions.AuthSignInStatusException.class)
-    public Map<String, String> handleDisabledUserException(org.example.proyectoauth.rest.auth.exceptions.AuthSignInStatusException ex) {
+    @ExceptionHandler(AuthSignInStatusException.class)
+    public Map<String, String> handleDisabledUserException(AuthSignInStatusException ex) {
         Map<String, String> error = new HashMap<>();
         error.put("error", ex.getMessage());
         return error;
@@ -105,19 +133,53 @@ public class AuthRestController {
     /**
      * Maneja la excepción cuando un usuario proporciona credenciales incorrectas al intentar iniciar sesión.
      *
-     * Esta excepción es capturada cuando se lanza {@link org.example.proyectoauth.rest.auth.exceptions.AuthSignInInvalid}
+     * Esta excepción es capturada cuando se lanza {@link AuthSignInInvalid}
      * desde el servicio de autenticación. Devuelve un mensaje con código de estado HTTP 401 (Unauthorized).
      *
      * @param ex Excepción lanzada por credenciales inválidas.
      * @return Un mapa con el mensaje de error correspondiente.
      */
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
-    @ExceptionHandler(org.example.proyectoauth.rest.auth.exceptions.AuthSignInInvalid.class)
-    public Map<String, String> handleInvalidCredentialsException(org.example.proyectoauth.rest.auth.exceptions.AuthSignInInvalid ex) {
+    @ExceptionHandler(AuthSignInInvalid.class)
+    public Map<String, String> handleInvalidCredentialsException(AuthSignInInvalid ex) {
         Map<String, String> error = new HashMap<>();
         error.put("error", ex.getMessage());
         return error;
     }
 
+    /**
+     * Maneja el rechazo del pool de cifrado de contraseñas cuando está saturado.
+     *
+     * Esta excepción es capturada cuando se lanza {@link PasswordHashingUnavailable}
+     * durante el registro o el inicio de sesión. Devuelve un mensaje con código de estado HTTP 503 (Service Unavailable).
+     *
+     * @param ex Excepción lanzada por saturación del pool.
+     * @return Un mapa con el mensaje de error correspondiente.
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(PasswordHashingUnavailable.class)
+    public Map<String, String> handlePasswordHashingUnavailable(PasswordHashingUnavailable ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getMessage());
+        return error;
+    }
 
+    /**
+     * Maneja el rechazo de un inicio de sesión que supera el límite de intentos.
+     *
+     * Esta excepción es capturada cuando se lanza {@link LoginThrottled}
+     * desde el servicio de autenticación. Devuelve un mensaje con código de estado HTTP 429 (Too Many Requests)
+     * y la cabecera {@code Retry-After}.
+     *
+     * @param ex Excepción lanzada por exceso de intentos.
+     * @return Respuesta con el mensaje de error correspondiente.
+     */
+    @ExceptionHandler(LoginThrottled.class)
+    public ResponseEntity<Map<String, String>> handleLoginThrottled(LoginThrottled ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
 }
@@ -0,0 +1,34 @@
+package org.example.proyectoauth.rest.auth.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción que se lanza cuando un inicio de sesión supera el límite de intentos de su IP o de su
+ * nombre de usuario.
+ *
+ * <p>
+ * Esta excepción está anotada con {@code @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)},
+ * por lo que al lanzarse devolverá automáticamente una respuesta HTTP 429 (Too Many Requests).
+ * </p>
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LoginThrottled extends AuthException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructor con el mensaje y la espera recomendada.
+     *
+     * @param message           Mensaje descriptivo del rechazo.
+     * @param retryAfterSeconds Segundos hasta que se admita otro intento.
+     */
+    public LoginThrottled(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
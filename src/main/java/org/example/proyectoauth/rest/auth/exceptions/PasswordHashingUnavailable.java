@@ -0,0 +1,26 @@
+package org.example.proyectoauth.rest.auth.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción que se lanza cuando el pool de cifrado de contraseñas está saturado: su cola está llena
+ * o la operación no terminó dentro del tiempo de espera.
+ *
+ * <p>
+ * Esta excepción está anotada con {@code @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)},
+ * por lo que al lanzarse devolverá automáticamente una respuesta HTTP 503 (Service Unavailable).
+ * </p>
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingUnavailable extends AuthException {
+
+    /**
+     * Constructor que permite establecer un mensaje descriptivo sobre el rechazo.
+     *
+     * @param message Motivo por el que no se pudo procesar la contraseña.
+     */
+    public PasswordHashingUnavailable(String message) {
+        super(message);
+    }
+}
@@ -24,7 +24,8 @@ public interface AuthenticationService {
      * Autentica un usuario existente en el sistema.
      *
      * @param signInRequest Objeto con las credenciales del usuario.
+     * @param clientIp      Dirección del cliente, para limitar los intentos por IP.
      * @return {@link JwtAuthResponseDto} que contiene el token JWT generado.
      */
-    JwtAuthResponseDto signIn(UserSignInRequest signInRequest);
+    JwtAuthResponseDto signIn(UserSignInRequest signInRequest, String clientIp);
 }
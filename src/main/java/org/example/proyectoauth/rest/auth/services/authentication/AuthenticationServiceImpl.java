@@ -6,9 +6,12 @@ import org.example.proyectoauth.rest.auth.dto.UserSignInRequest;
 import org.example.proyectoauth.rest.auth.dto.UserSignUpRequest;
 import org.example.proyectoauth.rest.auth.exceptions.AuthSignInInvalid;
 import org.example.proyectoauth.rest.auth.exceptions.AuthSignInStatusException;
+import org.example.proyectoauth.rest.auth.exceptions.LoginThrottled;
+import org.example.proyectoauth.rest.auth.exceptions.PasswordHashingUnavailable;
 import org.example.proyectoauth.rest.auth.exceptions.UserInvalidPasswords;
 import org.example.proyectoauth.rest.auth.repositories.AuthRepository;
 import org.example.proyectoauth.rest.auth.services.jwt.JwtService;
+import org.example.proyectoauth.rest.auth.services.throttle.LoginThrottle;
 import org.example.proyectoauth.rest.users.exceptions.UsernameOrEmailExists;
 import org.example.proyectoauth.rest.users.model.Role;
 import org.example.proyectoauth.rest.users.model.User;
@@ -39,6 +42,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final LoginThrottle loginThrottle;
 
     /**
      * Constructor con inyección de dependencias necesarias para la autenticación.
@@ -47,15 +51,18 @@ public class AuthenticationServiceImpl implements AuthenticationService {
      * @param passwordEncoder Codificador de contraseñas.
      * @param jwtService Servicio para generar tokens JWT.
      * @param authenticationManager Administrador de autenticación de Spring.
+     * @param loginThrottle Limitador de intentos de inicio de sesión por IP y por usuario.
      */
     public AuthenticationServiceImpl(AuthRepository authRepository,
                                      PasswordEncoder passwordEncoder,
                                      JwtService jwtService,
-                                     AuthenticationManager authenticationManager) {
+                                     AuthenticationManager authenticationManager,
+                                     LoginThrottle loginThrottle) {
         this.authRepository = authRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
@@ -103,14 +110,21 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     /**
      * Autentica un usuario existente y genera un token JWT.
      *
+     * Antes de tocar la base de datos o BCrypt se consume un intento del límite de la IP y del usuario.
+     *
      * @param signInRequest Credenciales del usuario.
+     * @param clientIp      Dirección del cliente.
      * @return Token JWT si las credenciales son válidas.
      * @throws AuthSignInInvalid Si las credenciales son incorrectas.
+     * @throws PasswordHashingUnavailable Si el pool de cifrado de contraseñas está saturado.
+     * @throws LoginThrottled Si la IP o el usuario han superado su límite de intentos.
      */
     @Override
-    public JwtAuthResponseDto signIn(UserSignInRequest signInRequest) {
+    public JwtAuthResponseDto signIn(UserSignInRequest signInRequest, String clientIp) {
         log.info("[AUTH] Intento de inicio de sesión para: {}", signInRequest.getUsername());
 
+        loginThrottle.check(clientIp, signInRequest.getUsername());
+
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
@@ -130,7 +144,12 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         } catch (DisabledException e) {
             log.warn("[AUTH] Usuario desactivado: {}", signInRequest.getUsername());
             throw new AuthSignInStatusException("Tu cuenta está desactivada. Contacta con un administrador.", HttpStatus.FORBIDDEN);
+        } catch (PasswordHashingUnavailable e) {
+            throw e;
         } catch (Exception e) {
+            if (e.getCause() instanceof PasswordHashingUnavailable busy) {
+                throw busy;
+            }
             log.warn("[AUTH] Fallo en inicio de sesión para {}: {}", signInRequest.getUsername(), e.getMessage());
             throw new AuthSignInStatusException("Credenciales incorrectas", HttpStatus.UNAUTHORIZED);
         }
@@ -12,6 +12,16 @@ import org.springframework.security.core.userdetails.UserDetails;
  */
 public interface JwtService {
 
+    /**
+     * Verifica la firma y la vigencia del token y devuelve sus claims en una sola pasada.
+     *
+     * @param token Token JWT.
+     * @return Datos del token verificado.
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException Si el token está mal formado, la firma
+     *                                                           no es válida o ha expirado.
+     */
+    VerifiedToken verify(String token);
+
     /**
      * Extrae el nombre de usuario (username) contenido en el token JWT.
      *
@@ -1,27 +1,37 @@
 package org.example.proyectoauth.rest.auth.services.jwt;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.example.proyectoauth.rest.users.model.User;
+import org.example.proyectoauth.rest.users.services.UserSecurityVersions;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
 /**
  * Implementación del servicio {@link JwtService} para la gestión de tokens JWT.
  *
  * Esta clase utiliza la biblioteca Auth0 JWT para:
  * - Generar tokens firmados.
- * - Extraer claims.
+ * - Verificar firma y vigencia y extraer los claims en una sola pasada.
  * - Validar tokens de autenticación.
+ *
+ * El algoritmo y el verificador se crean una vez al arrancar. Los tokens ya verificados se guardan en una
+ * caché acotada (clave: SHA-256 del token; vida: {@code jwt.cache.ttl-seconds} o hasta su expiración),
+ * de modo que las peticiones repetidas con el mismo token no vuelven a comprobar la firma.
  */
 @Service
 @Slf4j
@@ -33,6 +43,70 @@ public class JwtServiceImpl implements JwtService {
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
 
+    /**
+     * Caché de tokens verificados: entradas máximas y vida máxima de cada una:
+     * jwt.cache.max-entries=10000
+     * jwt.cache.ttl-seconds=300
+     */
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${jwt.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    // Claim con la versión de seguridad del usuario al emitir el token
+    private static final String SECURITY_VERSION_CLAIM = "sv";
+
+    private final UserSecurityVersions securityVersions;
+
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+    private VerifiedTokenCache cache;
+
+    /**
+     * Constructor con inyección de las versiones de seguridad de los usuarios.
+     *
+     * @param securityVersions Versiones de seguridad, que se incluyen en cada token emitido.
+     */
+    @Autowired
+    public JwtServiceImpl(UserSecurityVersions securityVersions) {
+        this.securityVersions = securityVersions;
+    }
+
+    /**
+     * Crea el algoritmo de firma, el verificador reutilizable y la caché a partir de la configuración.
+     */
+    @PostConstruct
+    public void init() {
+        algorithm = Algorithm.HMAC512(getSigningKey());
+        // Sin "exp" no se podría acotar la vida del token en la caché
+        verifier = JWT.require(algorithm).withClaimPresence("exp").build();
+        cache = new VerifiedTokenCache(cacheMaxEntries, cacheTtlSeconds);
+    }
+
+    /**
+     * Verifica el token (firma, expiración) y extrae sus claims; si ya se verificó antes y sigue en
+     * la caché, no se repite la verificación.
+     *
+     * @param token Token JWT.
+     * @return Datos del token verificado.
+     */
+    @Override
+    public VerifiedToken verify(String token) {
+        Instant now = Instant.now();
+        VerifiedTokenCache.TokenHash hash = VerifiedTokenCache.hash(token);
+        VerifiedToken cached = cache.get(hash, now);
+        if (cached != null) {
+            return cached;
+        }
+        DecodedJWT decoded = verifier.verify(token);
+        VerifiedToken verified = new VerifiedToken(decoded.getSubject(), decoded.getClaim("id").asLong(),
+                roles(decoded), decoded.getIssuedAtAsInstant(), decoded.getExpiresAtAsInstant(),
+                securityVersion(decoded));
+        cache.put(hash, verified, now);
+        return verified;
+    }
+
     /**
      * Extrae el nombre de usuario (subject) desde un token JWT.
      *
@@ -41,8 +115,7 @@ public class JwtServiceImpl implements JwtService {
      */
     @Override
     public String extractUserName(String token) {
-        log.info("Extracting user name from token");
-        return extractClaim(token, DecodedJWT::getSubject);
+        return verify(token).username();
     }
 
     /**
@@ -66,9 +139,13 @@ public class JwtServiceImpl implements JwtService {
      */
     @Override
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        log.info("Validating token for user: {}", userDetails.getUsername());
-        String username = extractUserName(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        log.debug("Validating token for user: {}", userDetails.getUsername());
+        try {
+            VerifiedToken verified = verify(token);
+            return verified.username().equals(userDetails.getUsername()) && verified.isValidAt(Instant.now());
+        } catch (Exception e) {
+            return false;
+        }
     }
 
     /**
@@ -79,7 +156,6 @@ public class JwtServiceImpl implements JwtService {
      * @return Token JWT generado.
      */
     private String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        Algorithm algorithm = Algorithm.HMAC512(getSigningKey());
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + (1000 * jwtExpiration));
 
@@ -92,42 +168,42 @@ public class JwtServiceImpl implements JwtService {
                 .withExpiresAt(expirationDate)
                 .withClaim("id", ((User) userDetails).getId())
                 .withClaim("Rol", ((User) userDetails).getRoles().toString())// puedes agregar más claims si deseas
+                .withClaim("roles", ((User) userDetails).getRoles().stream().map(Enum::name).toList())
+                .withClaim(SECURITY_VERSION_CLAIM, securityVersions.current(((User) userDetails).getId()))
                 .sign(algorithm);
 
     }
 
     /**
-     * Extrae un claim específico desde un token JWT.
+     * Lee los roles del claim {@code roles}; los tokens anteriores solo tienen {@code Rol} ("[USER, ADMIN]").
      *
-     * @param token Token JWT.
-     * @param claimsResolver Función para extraer el claim deseado.
-     * @param <T> Tipo de dato del claim.
-     * @return Claim extraído.
-     */
-    private <T> T extractClaim(String token, Function<DecodedJWT, T> claimsResolver) {
-        log.info("Extracting claim from token");
-        DecodedJWT decodedJWT = JWT.decode(token);
-        return claimsResolver.apply(decodedJWT);
-    }
-
-    /**
-     * Verifica si el token JWT ha expirado.
-     *
-     * @param token Token JWT.
-     * @return {@code true} si ha expirado.
+     * @param decoded Token decodificado.
+     * @return Nombres de los roles.
      */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private List<String> roles(DecodedJWT decoded) {
+        List<String> roles = decoded.getClaim("roles").asList(String.class);
+        if (roles != null) {
+            return roles;
+        }
+        String legacy = decoded.getClaim("Rol").asString();
+        if (legacy == null) {
+            return List.of();
+        }
+        return Arrays.stream(legacy.replace("[", "").replace("]", "").split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .toList();
     }
 
     /**
-     * Extrae la fecha de expiración desde el token JWT.
+     * Lee la versión de seguridad del claim {@code sv}; los tokens anteriores no lo tienen y cuentan como 0.
      *
-     * @param token Token JWT.
-     * @return Fecha de expiración.
+     * @param decoded Token decodificado.
+     * @return Versión de seguridad del token.
      */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, DecodedJWT::getExpiresAt);
+    private long securityVersion(DecodedJWT decoded) {
+        Long version = decoded.getClaim(SECURITY_VERSION_CLAIM).asLong();
+        return version == null ? 0 : version;
     }
 
     /**
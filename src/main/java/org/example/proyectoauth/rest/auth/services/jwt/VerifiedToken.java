@@ -0,0 +1,35 @@
+package org.example.proyectoauth.rest.auth.services.jwt;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Datos de un token JWT cuya firma y vigencia ya se verificaron.
+ *
+ * @param username  Nombre de usuario (subject).
+ * @param userId    Id del usuario (claim {@code id}), o {@code null} si el token no lo incluye.
+ * @param roles     Nombres de los roles del usuario al emitir el token.
+ * @param issuedAt  Instante de emisión del token.
+ * @param expiresAt Instante de expiración del token.
+ * @param securityVersion Versión de seguridad del usuario al emitir el token (claim {@code sv}),
+ *                        o 0 si el token no la incluye.
+ */
+public record VerifiedToken(
+        String username,
+        Long userId,
+        List<String> roles,
+        Instant issuedAt,
+        Instant expiresAt,
+        long securityVersion
+) {
+
+    /**
+     * Indica si el token sigue vigente en el instante dado.
+     *
+     * @param now Instante de referencia.
+     * @return {@code true} si aún no ha expirado.
+     */
+    public boolean isValidAt(Instant now) {
+        return expiresAt.isAfter(now);
+    }
+}
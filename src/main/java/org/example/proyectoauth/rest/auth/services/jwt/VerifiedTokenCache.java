@@ -0,0 +1,122 @@
+package org.example.proyectoauth.rest.auth.services.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché acotada de tokens JWT ya verificados.
+ *
+ * La clave es el SHA-256 del token, no el token: no se guardan credenciales en memoria y una colisión
+ * es inviable. Cada entrada caduca a los {@code ttl} segundos o al expirar el token, lo que ocurra antes,
+ * así que un token caducado nunca se da por bueno desde la caché.
+ *
+ * Al llenarse se eliminan primero las entradas caducadas y, si no basta, una parte de las demás.
+ */
+class VerifiedTokenCache {
+
+    // Fracción de entradas que se descartan cuando la caché está llena y no hay caducadas
+    private static final int EVICT_DIVISOR = 10;
+
+    private final int maxEntries;
+    private final long ttlSeconds;
+    private final Map<TokenHash, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Crea la caché.
+     *
+     * @param maxEntries Entradas máximas.
+     * @param ttlSeconds Vida máxima de una entrada, en segundos.
+     */
+    VerifiedTokenCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * Devuelve el token verificado si está en la caché y no ha caducado.
+     *
+     * @param hash Hash del token.
+     * @param now  Instante actual.
+     * @return Token verificado, o {@code null}.
+     */
+    VerifiedToken get(TokenHash hash, Instant now) {
+        Entry entry = entries.get(hash);
+        if (entry == null || !entry.expiresAt().isAfter(now)) {
+            if (entry != null) {
+                entries.remove(hash, entry);
+            }
+            return null;
+        }
+        return entry.token();
+    }
+
+    /**
+     * Guarda un token recién verificado.
+     *
+     * @param hash  Hash del token.
+     * @param token Datos verificados.
+     * @param now   Instante actual.
+     */
+    void put(TokenHash hash, VerifiedToken token, Instant now) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evict(now);
+        }
+        Instant ttl = now.plusSeconds(ttlSeconds);
+        entries.put(hash, new Entry(token, token.expiresAt().isBefore(ttl) ? token.expiresAt() : ttl));
+    }
+
+    /**
+     * Número de entradas guardadas, incluidas las caducadas aún no eliminadas.
+     *
+     * @return Entradas en la caché.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private void evict(Instant now) {
+        entries.entrySet().removeIf(entry -> !entry.getValue().expiresAt().isAfter(now));
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / EVICT_DIVISOR);
+        Iterator<TokenHash> keys = entries.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * Calcula el hash de un token.
+     *
+     * @param token Token JWT.
+     * @return Hash SHA-256 del token.
+     */
+    static TokenHash hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            long[] words = new long[4];
+            for (int i = 0; i < digest.length; i++) {
+                words[i / 8] = words[i / 8] << 8 | (digest[i] & 0xFF);
+            }
+            return new TokenHash(words[0], words[1], words[2], words[3]);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * SHA-256 de un token en cuatro {@code long}: compacto y con igualdad por valor.
+     */
+    record TokenHash(long w0, long w1, long w2, long w3) {
+    }
+
+    private record Entry(VerifiedToken token, Instant expiresAt) {
+    }
+}
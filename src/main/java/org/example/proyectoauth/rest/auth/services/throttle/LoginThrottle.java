@@ -0,0 +1,97 @@
+package org.example.proyectoauth.rest.auth.services.throttle;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.rest.auth.exceptions.LoginThrottled;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limita los intentos de inicio de sesión por IP y por nombre de usuario antes de consultar la base de
+ * datos o ejecutar BCrypt, para que una ráfaga de relleno de credenciales no consuma el pool de cifrado.
+ *
+ * Cada criterio usa un {@link TokenBucketLimiter} de memoria fija, así que millones de IPs o nombres
+ * distintos no hacen crecer el heap.
+ */
+@Service
+@Slf4j
+public class LoginThrottle {
+
+    private final TokenBucketLimiter byIp;
+    private final TokenBucketLimiter byUsername;
+
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+
+    /**
+     * Constructor con los límites configurados.
+     *
+     * @param slots                   Cubetas por limitador (auth.throttle.slots; 8 bytes cada una).
+     * @param ipCapacity              Ráfaga de intentos por IP (auth.throttle.ip.capacity).
+     * @param ipRefillPerMinute       Intentos por minuto repuestos por IP (auth.throttle.ip.refill-per-minute).
+     * @param usernameCapacity        Ráfaga de intentos por usuario (auth.throttle.username.capacity).
+     * @param usernameRefillPerMinute Intentos por minuto repuestos por usuario (auth.throttle.username.refill-per-minute).
+     */
+    @Autowired
+    public LoginThrottle(@Value("${auth.throttle.slots:524288}") int slots,
+                         @Value("${auth.throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${auth.throttle.ip.refill-per-minute:30}") double ipRefillPerMinute,
+                         @Value("${auth.throttle.username.capacity:5}") int usernameCapacity,
+                         @Value("${auth.throttle.username.refill-per-minute:5}") double usernameRefillPerMinute) {
+        this.byIp = new TokenBucketLimiter(slots, ipCapacity, ipRefillPerMinute);
+        this.byUsername = new TokenBucketLimiter(slots, usernameCapacity, usernameRefillPerMinute);
+        log.info("[AUTH] Limitador de inicios de sesión: {} KB por criterio", byIp.memoryBytes() / 1024);
+    }
+
+    /**
+     * Consume un intento de la IP y otro del nombre de usuario.
+     *
+     * @param clientIp Dirección del cliente.
+     * @param username Nombre de usuario del intento.
+     * @throws LoginThrottled Si alguno de los dos ha superado su límite.
+     */
+    public void check(String clientIp, String username) {
+        if (clientIp != null) {
+            long waitMillis = byIp.tryAcquire(clientIp);
+            if (waitMillis > 0) {
+                rejectedByIp.increment();
+                throw throttled(waitMillis);
+            }
+        }
+        if (username != null) {
+            long waitMillis = byUsername.tryAcquire(username.trim().toLowerCase(Locale.ROOT));
+            if (waitMillis > 0) {
+                rejectedByUsername.increment();
+                log.warn("[AUTH] Demasiados intentos para el usuario {} desde {}", username, clientIp);
+                throw throttled(waitMillis);
+            }
+        }
+    }
+
+    /**
+     * Intentos rechazados por superar el límite de la IP.
+     *
+     * @return Total acumulado.
+     */
+    public long getRejectedByIp() {
+        return rejectedByIp.sum();
+    }
+
+    /**
+     * Intentos rechazados por superar el límite del nombre de usuario.
+     *
+     * @return Total acumulado.
+     */
+    public long getRejectedByUsername() {
+        return rejectedByUsername.sum();
+    }
+
+    private static LoginThrottled throttled(long waitMillis) {
+        long seconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(Math.min(waitMillis, TimeUnit.HOURS.toMillis(1)) + 999));
+        return new LoginThrottled("Demasiados intentos de inicio de sesión, inténtalo de nuevo más tarde", seconds);
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.proyectoauth.rest.auth.services.throttle;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Limitador de cubetas de fichas con memoria fija, independiente del número de claves distintas.
+ *
+ * No hay un mapa clave → cubeta: cada clave se reparte con un hash con semilla aleatoria en dos de las
+ * {@code slots} cubetas de un {@link AtomicLongArray}. Cada cubeta cabe en un {@code long}:
+ *
+ * - 42 bits: milisegundo de la última actualización (0 = cubeta sin usar, llena).
+ * - 22 bits: fichas disponibles en milésimas.
+ *
+ * Un intento se admite si alguna de sus dos cubetas tiene una ficha y consume de todas las que la tengan.
+ * Así, una clave que comparte cubeta con un atacante conserva casi siempre su otra cubeta llena, mientras
+ * que el atacante agota las dos suyas. Las cubetas no caducan: se rellenan solas con el tiempo y una
+ * cubeta llena equivale a una clave olvidada.
+ */
+class TokenBucketLimiter {
+
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long capacityMilli;
+    // Milésimas de ficha repuestas por milisegundo
+    private final double refillPerMillis;
+    private final long seed = new SecureRandom().nextLong();
+    private final long origin = System.nanoTime();
+
+    /**
+     * Crea el limitador.
+     *
+     * @param slots            Cubetas (se redondea a potencia de dos; 8 bytes cada una).
+     * @param capacity         Fichas máximas por cubeta (ráfaga permitida).
+     * @param refillPerMinute  Fichas repuestas por minuto.
+     */
+    TokenBucketLimiter(int slots, int capacity, double refillPerMinute) {
+        if (capacity <= 0 || capacity * MILLI > TOKEN_MASK) {
+            throw new IllegalArgumentException("Capacidad de cubeta fuera de rango: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacityMilli = capacity * MILLI;
+        this.refillPerMillis = refillPerMinute * MILLI / TimeUnit.MINUTES.toMillis(1);
+    }
+
+    /**
+     * Intenta consumir una ficha para la clave.
+     *
+     * @param key Clave (IP, nombre de usuario...).
+     * @return 0 si se admite; si no, milisegundos hasta que haya una ficha.
+     */
+    long tryAcquire(String key) {
+        long hash = hash(key);
+        int first = (int) hash & mask;
+        int second = (int) (hash >>> 32) & mask;
+        if (second == first) {
+            second = first ^ 1;
+        }
+        long now = nowMillis();
+        // Sin cortocircuito: se consume de las dos cubetas si ambas tienen ficha
+        if (take(first, now) | take(second, now)) {
+            return 0;
+        }
+        long missing = MILLI - Math.max(tokens(slots.get(first), now), tokens(slots.get(second), now));
+        return refillPerMillis <= 0 ? Long.MAX_VALUE : Math.max(1, (long) Math.ceil(missing / refillPerMillis));
+    }
+
+    /**
+     * Memoria ocupada por las cubetas.
+     *
+     * @return Bytes.
+     */
+    long memoryBytes() {
+        return (long) slots.length() * Long.BYTES;
+    }
+
+    private boolean take(int slot, long now) {
+        while (true) {
+            long state = slots.get(slot);
+            long available = tokens(state, now);
+            if (available < MILLI) {
+                return false;
+            }
+            if (slots.compareAndSet(slot, state, now << TOKEN_BITS | (available - MILLI))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Fichas (en milésimas) de una cubeta tras reponer las del tiempo transcurrido.
+     */
+    private long tokens(long state, long now) {
+        if (state == 0) {
+            return capacityMilli;
+        }
+        long elapsed = Math.max(0, now - (state >>> TOKEN_BITS));
+        return Math.min(capacityMilli, (state & TOKEN_MASK) + (long) (elapsed * refillPerMillis));
+    }
+
+    /**
+     * Milisegundos desde la creación, empezando en 1 para no confundirse con una cubeta sin usar.
+     */
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origin) + 1;
+    }
+
+    /**
+     * FNV-1a de 64 bits con semilla y mezcla final: la semilla impide provocar colisiones a propósito.
+     */
+    private long hash(String key) {
+        long h = seed ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.proyectoauth.rest.auth.services.users;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 /**
@@ -8,8 +9,11 @@ import org.springframework.security.core.userdetails.UserDetailsService;
  *
  * Extiende {@link UserDetailsService} de Spring Security y permite implementar
  * lógica específica para la carga de usuarios desde una fuente de datos.
+ *
+ * Extiende también {@link UserDetailsPasswordService} para que Spring Security pueda recifrar la
+ * contraseña tras un inicio de sesión correcto cuando el hash guardado usa un coste obsoleto.
  */
-public interface AuthUserService extends UserDetailsService {
+public interface AuthUserService extends UserDetailsService, UserDetailsPasswordService {
 
     /**
      * Carga los detalles de un usuario a partir de su nombre de usuario.
@@ -19,4 +23,19 @@ public interface AuthUserService extends UserDetailsService {
      */
     @Override
     UserDetails loadUserByUsername(String username);
+
+    /**
+     * Descarta de la caché al usuario, tras cambiar su nombre, roles, credenciales o estado.
+     *
+     * @param userId   Id del usuario modificado.
+     * @param username Nombre que tenía antes del cambio (cubre las cargas aún en curso, que no se indexan por id hasta terminar).
+     */
+    void invalidate(Long userId, String username);
+
+    /**
+     * Devuelve las estadísticas de la caché de usuarios.
+     *
+     * @return Aciertos, fallos, esperas a cargas en curso, descartes y tamaño.
+     */
+    UserDetailsCacheStats getCacheStats();
 }
@@ -1,8 +1,11 @@
 package org.example.proyectoauth.rest.auth.services.users;
 
 import org.example.proyectoauth.rest.auth.repositories.AuthRepository;
+import org.example.proyectoauth.rest.users.model.User;
 import org.example.proyectoauth.rest.users.exceptions.UserNotFound;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
@@ -14,20 +17,30 @@ import org.springframework.stereotype.Service;
  *
  * El nombre del servicio se define como {@code userDetailsService}, lo que permite su uso automático
  * por Spring Security cuando se requiere autenticación basada en nombre de usuario.
+ *
+ * Delante del repositorio hay una caché acotada en tamaño ({@code auth.user-cache.max-entries}) y tiempo
+ * ({@code auth.user-cache.ttl-seconds}); {@code UserServiceImpl} la invalida al modificar o desactivar usuarios.
  */
 @Service("userDetailsService")
+@Slf4j
 public class AuthUserServiceImpl implements AuthUserService {
 
     private final AuthRepository authRepository;
+    private final UserDetailsCache cache;
 
     /**
-     * Constructor con inyección del repositorio de usuarios.
+     * Constructor con inyección del repositorio de usuarios y de los límites de la caché.
      *
      * @param authRepository Repositorio que permite acceder a los usuarios.
+     * @param maxEntries     Usuarios máximos en caché (auth.user-cache.max-entries, 0 la desactiva).
+     * @param ttlSeconds     Vida de cada entrada en segundos (auth.user-cache.ttl-seconds).
      */
     @Autowired
-    public AuthUserServiceImpl(AuthRepository authRepository) {
+    public AuthUserServiceImpl(AuthRepository authRepository,
+                               @Value("${auth.user-cache.max-entries:10000}") int maxEntries,
+                               @Value("${auth.user-cache.ttl-seconds:60}") long ttlSeconds) {
         this.authRepository = authRepository;
+        this.cache = new UserDetailsCache(maxEntries, ttlSeconds);
     }
 
     /**
@@ -41,7 +54,42 @@ public class AuthUserServiceImpl implements AuthUserService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) {
-        return authRepository.findByUsername(username)
-                .orElseThrow(() -> new UserNotFound("El usuario con nombre '" + username + "' no fue encontrado"));
+        return cache.get(username, name -> authRepository.findByUsername(name)
+                .orElseThrow(() -> new UserNotFound("El usuario con nombre '" + name + "' no fue encontrado")));
+    }
+
+    /**
+     * Guarda la contraseña recifrada con el coste actual tras un inicio de sesión correcto.
+     *
+     * Solo cambia el hash, no la contraseña: no se invalidan los tokens emitidos.
+     *
+     * @param user        Usuario autenticado.
+     * @param newPassword Nuevo hash de la misma contraseña.
+     * @return Usuario con el hash actualizado.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        return authRepository.findByUsername(user.getUsername())
+                .map(found -> {
+                    found.setPassword(newPassword);
+                    User saved = authRepository.save(found);
+                    invalidate(saved.getId(), saved.getUsername());
+                    log.info("[AUTH] Contraseña recifrada con el coste actual para: {}", saved.getUsername());
+                    return (UserDetails) saved;
+                })
+                .orElse(user);
+    }
+
+    @Override
+    public void invalidate(Long userId, String username) {
+        cache.invalidate(userId);
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    @Override
+    public UserDetailsCacheStats getCacheStats() {
+        return cache.stats();
     }
 }
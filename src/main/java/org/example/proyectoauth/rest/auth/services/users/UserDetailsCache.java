@@ -0,0 +1,154 @@
+package org.example.proyectoauth.rest.auth.services.users;
+
+import org.example.proyectoauth.rest.users.model.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché acotada en tamaño y tiempo de los usuarios cargados por nombre.
+ *
+ * Cada entrada guarda un futuro: la primera petición de un usuario no cacheado lo carga y las que llegan
+ * mientras tanto esperan a ese mismo futuro, de modo que una cuenta muy usada nunca provoca varias
+ * consultas simultáneas (protección frente a estampidas). Los errores (usuario inexistente) no se guardan.
+ *
+ * Se mantiene un índice id → nombre para invalidar por id aunque el nombre haya cambiado.
+ */
+class UserDetailsCache {
+
+    // Fracción de entradas que se descartan cuando la caché está llena y no hay caducadas
+    private static final int EVICT_DIVISOR = 10;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, String> usernamesById = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Crea la caché.
+     *
+     * @param maxEntries Entradas máximas (0 la desactiva).
+     * @param ttlSeconds Vida de cada entrada, en segundos.
+     */
+    UserDetailsCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Devuelve el usuario de la caché o lo carga, una sola vez aunque lo pidan varios hilos a la vez.
+     *
+     * @param username Nombre de usuario.
+     * @param loader   Carga desde la base de datos.
+     * @return Usuario.
+     */
+    UserDetails get(String username, Function<String, UserDetails> loader) {
+        if (maxEntries <= 0) {
+            misses.increment();
+            return loader.apply(username);
+        }
+        long now = System.nanoTime();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.isFresh(now)) {
+            if (entry.value().isDone()) {
+                hits.increment();
+            } else {
+                coalesced.increment();
+            }
+            return join(entry.value());
+        }
+
+        Entry created = new Entry(new CompletableFuture<>(), now + ttlNanos);
+        Entry winner = entries.compute(username, (key, current) -> current != null && current.isFresh(now) ? current : created);
+        if (winner != created) {
+            coalesced.increment();
+            return join(winner.value());
+        }
+        misses.increment();
+        if (entries.size() > maxEntries) {
+            evict(now);
+        }
+        try {
+            UserDetails user = loader.apply(username);
+            if (user instanceof User loaded && loaded.getId() != null) {
+                usernamesById.put(loaded.getId(), username);
+            }
+            created.value().complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            entries.remove(username, created);
+            created.value().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Elimina al usuario de la caché por su id (con su nombre actual o el anterior).
+     *
+     * @param userId Id del usuario.
+     */
+    void invalidate(Long userId) {
+        String username = usernamesById.remove(userId);
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    /**
+     * Elimina al usuario de la caché por su nombre.
+     *
+     * @param username Nombre de usuario.
+     */
+    void invalidate(String username) {
+        entries.remove(username);
+    }
+
+    UserDetailsCacheStats stats() {
+        return new UserDetailsCacheStats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), entries.size());
+    }
+
+    private void evict(long now) {
+        entries.entrySet().removeIf(entry -> !entry.getValue().isFresh(now));
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / EVICT_DIVISOR);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Espera al futuro y relanza la excepción original de la carga.
+     */
+    private static UserDetails join(CompletableFuture<UserDetails> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry(CompletableFuture<UserDetails> value, long expiresAtNanos) {
+
+        private boolean isFresh(long now) {
+            return expiresAtNanos - now > 0;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.proyectoauth.rest.auth.services.users;
+
+/**
+ * Estadísticas acumuladas de la caché de usuarios de autenticación.
+ *
+ * @param hits      Consultas servidas desde la caché.
+ * @param misses    Consultas que tuvieron que cargar el usuario de la base de datos.
+ * @param coalesced Consultas que esperaron a una carga en curso del mismo usuario en lugar de lanzar otra.
+ * @param evictions Entradas descartadas por tamaño.
+ * @param size      Entradas actuales.
+ */
+public record UserDetailsCacheStats(
+        long hits,
+        long misses,
+        long coalesced,
+        long evictions,
+        int size
+) {
+
+    /**
+     * Proporción de consultas servidas sin ir a la base de datos.
+     *
+     * @return Tasa de acierto entre 0 y 1.
+     */
+    public double hitRatio() {
+        long total = hits + misses + coalesced;
+        return total == 0 ? 0 : (double) (hits + coalesced) / total;
+    }
+}
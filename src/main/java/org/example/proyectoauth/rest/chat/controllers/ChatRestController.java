@@ -0,0 +1,81 @@
+package org.example.proyectoauth.rest.chat.controllers;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.pageresponse.CursorPage;
+import org.example.proyectoauth.pageresponse.PageResponse;
+import org.example.proyectoauth.rest.chat.dto.ChatMessageDto;
+import org.example.proyectoauth.rest.chat.dto.ChatSearchHitDto;
+import org.example.proyectoauth.rest.chat.services.ChatMessageService;
+import org.example.proyectoauth.rest.chat.services.ChatRoomAccess;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import static org.example.proyectoauth.config.security.SecurityUtils.getCurrentUserId;
+import static org.example.proyectoauth.config.security.SecurityUtils.getCurrentUsername;
+
+@RestController
+@Slf4j
+@RequestMapping("${api.version}/chat")
+@PreAuthorize("hasRole('USER')")
+@Tag(name = "Chat", description = "Endpoint para consultar y buscar en el historial de las salas de chat")
+public class ChatRestController {
+
+    // Tamaño máximo de página del historial
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ChatMessageService chatMessageService;
+
+    @Autowired
+    public ChatRestController(ChatMessageService chatMessageService) {
+        this.chatMessageService = chatMessageService;
+    }
+
+    /**
+     * Devuelve el historial de una sala hacia atrás, del mensaje más nuevo al más antiguo.
+     * Para la página siguiente se envía el {@code nextCursor} de la respuesta anterior.
+     * Las salas privadas solo las pueden leer sus participantes (ver {@link ChatRoomAccess}).
+     *
+     * @param room   Sala a consultar.
+     * @param cursor Cursor opaco de la página anterior (vacío para la más reciente).
+     * @param size   Mensajes por página (máximo 100).
+     * @return Página de mensajes sin totales.
+     */
+    @GetMapping("/rooms/{room}/messages")
+    public ResponseEntity<CursorPage<ChatMessageDto>> history(
+            @PathVariable("room") String room,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+
+        log.info("[USER: {}] solicitó el historial de la sala {}", getCurrentUsername(), room);
+        ChatRoomAccess.checkRead(getCurrentUserId(), room);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(chatMessageService.findHistory(room, cursor, pageSize));
+    }
+
+    /**
+     * Busca texto en el historial de una sala. Los resultados se ordenan por relevancia
+     * (sin distinguir mayúsculas ni tildes, y con plurales reducidos en español e inglés).
+     * Las salas privadas solo las pueden consultar sus participantes.
+     *
+     * @param room Sala a consultar.
+     * @param q    Texto de la búsqueda.
+     * @param page Página (empieza en 0).
+     * @param size Resultados por página (máximo 100).
+     * @return Página de resultados con su puntuación.
+     */
+    @GetMapping("/rooms/{room}/search")
+    public ResponseEntity<PageResponse<ChatSearchHitDto>> search(
+            @PathVariable("room") String room,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        log.info("[USER: {}] buscó en la sala {}", getCurrentUsername(), room);
+        ChatRoomAccess.checkRead(getCurrentUserId(), room);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(chatMessageService.search(room, q, Math.max(0, page), pageSize));
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.proyectoauth.rest.chat.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un mensaje de chat ya persistido, tal como se entrega a los clientes.
+ *
+ * @param seq            Número de secuencia asignado al guardar el mensaje.
+ * @param room           Sala del mensaje.
+ * @param senderId       Id del remitente.
+ * @param senderUsername Nombre de usuario del remitente.
+ * @param content        Texto del mensaje.
+ * @param createdAt      Fecha y hora en que se guardó el mensaje.
+ */
+@Builder
+public record ChatMessageDto(
+        Long seq,
+        String room,
+        Long senderId,
+        String senderUsername,
+        String content,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,13 @@
+package org.example.proyectoauth.rest.chat.dto;
+
+/**
+ * Resultado de una búsqueda en el historial: el mensaje y su puntuación de relevancia (BM25).
+ *
+ * @param message Mensaje encontrado.
+ * @param score   Puntuación; mayor es más relevante.
+ */
+public record ChatSearchHitDto(
+        ChatMessageDto message,
+        double score
+) {
+}
@@ -0,0 +1,21 @@
+package org.example.proyectoauth.rest.chat.exceptions;
+
+/**
+ * Clase base abstracta para excepciones relacionadas con el chat.
+ *
+ * <p>
+ * Esta clase extiende {@link RuntimeException}, por lo que es una excepción no verificada (unchecked).
+ * Todas las excepciones personalizadas del chat deben heredar de esta clase.
+ * </p>
+ */
+public abstract class ChatException extends RuntimeException {
+
+    /**
+     * Constructor que permite establecer un mensaje descriptivo para la excepción.
+     *
+     * @param message Mensaje que describe el motivo de la excepción.
+     */
+    public ChatException(String message) {
+        super(message);
+    }
+}
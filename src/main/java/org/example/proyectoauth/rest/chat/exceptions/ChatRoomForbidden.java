@@ -0,0 +1,25 @@
+package org.example.proyectoauth.rest.chat.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción que se lanza cuando el usuario no participa en una sala privada (ver ChatRoomAccess).
+ *
+ * <p>
+ * Esta excepción está anotada con {@code @ResponseStatus(HttpStatus.FORBIDDEN)},
+ * por lo que al lanzarse devolverá automáticamente una respuesta HTTP 403 (Forbidden).
+ * </p>
+ */
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class ChatRoomForbidden extends ChatException {
+
+    /**
+     * Constructor que recibe la sala a la que se intentó acceder.
+     *
+     * @param room Sala sin acceso.
+     */
+    public ChatRoomForbidden(String room) {
+        super("Sin acceso a la sala " + room);
+    }
+}
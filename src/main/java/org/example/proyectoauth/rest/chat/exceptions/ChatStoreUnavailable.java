@@ -0,0 +1,26 @@
+package org.example.proyectoauth.rest.chat.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción que se lanza cuando un mensaje de chat no se puede persistir: la cola de escritura
+ * diferida está llena, el servicio se está deteniendo o falló la inserción del lote.
+ *
+ * <p>
+ * Esta excepción está anotada con {@code @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)},
+ * por lo que al lanzarse devolverá automáticamente una respuesta HTTP 503 (Service Unavailable).
+ * </p>
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ChatStoreUnavailable extends ChatException {
+
+    /**
+     * Constructor que permite establecer un mensaje descriptivo sobre el fallo.
+     *
+     * @param message Motivo por el que no se pudo guardar el mensaje.
+     */
+    public ChatStoreUnavailable(String message) {
+        super(message);
+    }
+}
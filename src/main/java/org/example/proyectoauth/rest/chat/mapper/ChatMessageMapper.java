@@ -0,0 +1,29 @@
+package org.example.proyectoauth.rest.chat.mapper;
+
+import org.example.proyectoauth.rest.chat.dto.ChatMessageDto;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clase encargada de mapear entidades {@link ChatMessage} a {@link ChatMessageDto}.
+ */
+@Component
+public class ChatMessageMapper {
+
+    /**
+     * Convierte un mensaje persistido en su DTO.
+     *
+     * @param message Mensaje con su número de secuencia asignado.
+     * @return DTO del mensaje.
+     */
+    public ChatMessageDto toDto(ChatMessage message) {
+        return ChatMessageDto.builder()
+                .seq(message.getId())
+                .room(message.getRoom())
+                .senderId(message.getSenderId())
+                .senderUsername(message.getSenderUsername())
+                .content(message.getContent())
+                .createdAt(message.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.proyectoauth.rest.chat.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un mensaje de chat enviado a una sala.
+ *
+ * <p>
+ * Los mensajes no se guardan con JPA uno a uno: se insertan por lotes desde
+ * {@link org.example.proyectoauth.rest.chat.repositories.ChatMessageStore}. La entidad define
+ * la tabla para que Hibernate la genere y para las consultas de lectura.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "CHAT_MESSAGES", indexes = {
+        // Historial por sala paginado por clave (createdAt, id)
+        @Index(name = "idx_chat_messages_room_created_id", columnList = "room, createdAt, id")
+})
+public class ChatMessage {
+
+    /**
+     * Número de secuencia del mensaje, asignado por la base de datos al insertarlo.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Sala (topic) a la que se envió el mensaje.
+     */
+    @Column(nullable = false, length = 128)
+    private String room;
+
+    /**
+     * Id del usuario que envió el mensaje.
+     */
+    @Column(nullable = false)
+    private Long senderId;
+
+    /**
+     * Nombre de usuario del remitente en el momento del envío.
+     */
+    @Column(nullable = false)
+    private String senderUsername;
+
+    /**
+     * Texto del mensaje.
+     */
+    @Column(nullable = false, length = 4000)
+    private String content;
+
+    /**
+     * Fecha y hora en que se guardó el mensaje (asignada al volcar su lote).
+     */
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,56 @@
+package org.example.proyectoauth.rest.chat.repositories;
+
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio de lectura del historial de mensajes de chat.
+ *
+ * <p>Las consultas de historial paginan por clave (seek) sobre el índice compuesto
+ * {@code (room, created_at, id)}: devuelven {@link List} para que Spring Data no lance
+ * la consulta de recuento y el {@link Pageable} solo aporta el límite de filas.</p>
+ */
+@Repository
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+
+    /**
+     * Devuelve los mensajes más recientes de una sala, del más nuevo al más antiguo.
+     *
+     * @param room  Sala a consultar.
+     * @param limit Límite de filas (página 0).
+     * @return Mensajes encontrados.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.room = :room ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessage> findLatest(String room, Pageable limit);
+
+    /**
+     * Devuelve los mensajes de una sala anteriores a la posición {@code (createdAt, id)} dada,
+     * del más nuevo al más antiguo.
+     *
+     * @param room      Sala a consultar.
+     * @param createdAt Fecha del último mensaje ya devuelto.
+     * @param id        Id del último mensaje ya devuelto.
+     * @param limit     Límite de filas (página 0).
+     * @return Mensajes encontrados.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.room = :room "
+            + "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) "
+            + "ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessage> findBefore(String room, LocalDateTime createdAt, Long id, Pageable limit);
+
+    /**
+     * Devuelve los mensajes de todas las salas con id mayor que el dado, en orden de id.
+     *
+     * @param id    Último id ya procesado.
+     * @param limit Límite de filas (página 0).
+     * @return Mensajes encontrados.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.id > :id ORDER BY m.id")
+    List<ChatMessage> findAfter(Long id, Pageable limit);
+}
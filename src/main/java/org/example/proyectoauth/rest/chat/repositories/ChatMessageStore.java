@@ -0,0 +1,60 @@
+package org.example.proyectoauth.rest.chat.repositories;
+
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Almacén de mensajes de chat optimizado para escrituras por lotes.
+ *
+ * Lo utiliza el servicio de escritura diferida: los mensajes entrantes se acumulan en memoria
+ * y se persisten juntos en una sola operación.
+ *
+ * Se elige con {@code chat.store.type}: {@code jdbc} (por defecto, tabla CHAT_MESSAGES) o
+ * {@code segment-log} (ficheros locales de solo-añadir, ver {@link SegmentLogChatMessageStore}).
+ */
+public interface ChatMessageStore {
+
+    /**
+     * Persiste un lote de mensajes en el orden recibido y asigna a cada uno su número de secuencia.
+     *
+     * @param messages Mensajes a guardar; al volver, cada uno tiene su {@code id} asignado.
+     */
+    void saveAll(List<ChatMessage> messages);
+
+    /**
+     * Devuelve los mensajes de una sala anteriores a la posición dada, del más nuevo al más antiguo.
+     *
+     * @param room   Sala a consultar.
+     * @param before Posición {@code (createdAt, id)} del último mensaje ya devuelto, o {@code null} para los más recientes.
+     * @param limit  Número máximo de mensajes.
+     * @return Mensajes encontrados.
+     */
+    List<ChatMessage> findBefore(String room, SeekCursor before, int limit);
+
+    /**
+     * Devuelve los mensajes de todas las salas con número de secuencia mayor que el dado, en orden.
+     *
+     * @param afterSeq Último número de secuencia ya procesado.
+     * @param limit    Número máximo de mensajes.
+     * @return Mensajes encontrados.
+     */
+    List<ChatMessage> findAfter(long afterSeq, int limit);
+
+    /**
+     * Devuelve los mensajes con los números de secuencia dados, sin un orden concreto.
+     *
+     * @param seqs Números de secuencia.
+     * @return Mensajes encontrados.
+     */
+    List<ChatMessage> findAllBySeq(Collection<Long> seqs);
+
+    /**
+     * Número de secuencia del último mensaje guardado.
+     *
+     * @return Último número de secuencia, o 0 si no hay mensajes.
+     */
+    long lastSeq();
+}
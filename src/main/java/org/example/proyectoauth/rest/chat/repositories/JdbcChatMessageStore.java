@@ -0,0 +1,130 @@
+package org.example.proyectoauth.rest.chat.repositories;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementación de {@link ChatMessageStore} con inserciones JDBC por lotes.
+ *
+ * Todo el lote viaja en un único {@code executeBatch} dentro de una transacción, y los números
+ * de secuencia se recuperan de las claves generadas, en el mismo orden de inserción.
+ * Las lecturas del historial se delegan en {@link ChatMessageRepository}.
+ */
+@Repository
+@ConditionalOnProperty(name = "chat.store.type", havingValue = "jdbc", matchIfMissing = true)
+@Slf4j
+public class JdbcChatMessageStore implements ChatMessageStore {
+
+    private static final String LAST_SEQ_SQL = "SELECT COALESCE(MAX(id), 0) FROM CHAT_MESSAGES";
+    private static final String INSERT_SQL =
+            "INSERT INTO CHAT_MESSAGES (room, sender_id, sender_username, content, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatMessageRepository repository;
+
+    /**
+     * Constructor con inyección del {@link JdbcTemplate} y del repositorio de lectura.
+     *
+     * @param jdbcTemplate Plantilla JDBC sobre el datasource de la aplicación.
+     * @param repository   Repositorio de lectura del historial.
+     */
+    @Autowired
+    public JdbcChatMessageStore(JdbcTemplate jdbcTemplate, ChatMessageRepository repository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+    }
+
+    /**
+     * Inserta el lote y asigna los ids generados a cada mensaje.
+     *
+     * @param messages Mensajes a guardar.
+     * @throws IncorrectResultSizeDataAccessException Si el driver no devuelve exactamente una clave por mensaje;
+     *                                                el lote se revierte y ningún mensaje recibe id.
+     */
+    @Override
+    @Transactional
+    public void saveAll(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (ChatMessage message : messages) {
+                    statement.setString(1, message.getRoom());
+                    statement.setLong(2, message.getSenderId());
+                    statement.setString(3, message.getSenderUsername());
+                    statement.setString(4, message.getContent());
+                    statement.setTimestamp(5, Timestamp.valueOf(message.getCreatedAt()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                List<Long> ids = new ArrayList<>(messages.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong("id"));
+                    }
+                }
+                if (ids.size() != messages.size()) {
+                    // Sin una clave por mensaje no se puede saber qué id corresponde a cada uno: se revierte el lote
+                    throw new IncorrectResultSizeDataAccessException(
+                            "El lote de mensajes devolvió " + ids.size() + " claves generadas", messages.size(), ids.size());
+                }
+                for (int i = 0; i < messages.size(); i++) {
+                    messages.get(i).setId(ids.get(i));
+                }
+            }
+            return null;
+        });
+        log.debug("[Chat] Lote de {} mensajes insertado", messages.size());
+    }
+
+    /**
+     * Consulta por clave sobre el índice {@code (room, created_at, id)}.
+     *
+     * @param room   Sala a consultar.
+     * @param before Posición del último mensaje ya devuelto, o {@code null}.
+     * @param limit  Número máximo de mensajes.
+     * @return Mensajes encontrados.
+     */
+    @Override
+    public List<ChatMessage> findBefore(String room, SeekCursor before, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        return before == null
+                ? repository.findLatest(room, page)
+                : repository.findBefore(room, before.timestamp(), before.id(), page);
+    }
+
+    @Override
+    public List<ChatMessage> findAfter(long afterSeq, int limit) {
+        return repository.findAfter(afterSeq, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<ChatMessage> findAllBySeq(Collection<Long> seqs) {
+        return repository.findAllById(seqs);
+    }
+
+    @Override
+    public long lastSeq() {
+        Long seq = jdbcTemplate.queryForObject(LAST_SEQ_SQL, Long.class);
+        return seq == null ? 0 : seq;
+    }
+}
@@ -0,0 +1,523 @@
+package org.example.proyectoauth.rest.chat.repositories;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Implementación de {@link ChatMessageStore} sobre ficheros locales de solo-añadir (segmentos)
+ * escritos con {@link MappedByteBuffer}, sin pasar por JDBC ni Hibernate.
+ *
+ * Formato de cada registro: {@code [longitud:int][crc32c:int][cuerpo]}, con el cuerpo
+ * {@code seq, createdAt, posición del anterior de la sala, senderId, sala, usuario, contenido}.
+ * La longitud se escribe la última, así que un registro a medias o con CRC incorrecto marca el final
+ * del log: al arrancar se recorren los segmentos, se descarta la cola dañada y se pone a cero.
+ *
+ * - Cada segmento tiene un índice disperso en memoria (una entrada cada {@code index-interval}
+ *   registros) para localizar un mensaje por su número de secuencia.
+ * - Cada registro apunta al anterior de su sala, de modo que el historial se lee hacia atrás
+ *   siguiendo esos punteros, sin recorrer los mensajes de otras salas.
+ * - Las lecturas usan vistas ({@code slice}) del fichero mapeado: no hay llamadas a read() ni copias
+ *   intermedias; solo se decodifican los textos al construir el mensaje.
+ *
+ * Se activa con {@code chat.store.type=segment-log}. El log es local al nodo: sirve para una única
+ * instancia o para comparar rendimiento con {@link JdbcChatMessageStore}.
+ */
+@Repository
+@ConditionalOnProperty(name = "chat.store.type", havingValue = "segment-log")
+@Slf4j
+public class SegmentLogChatMessageStore implements ChatMessageStore {
+
+    // Cabecera de cada registro: longitud del cuerpo y CRC
+    private static final int HEADER_BYTES = 8;
+    // Campos de tamaño fijo del cuerpo: seq, epochSecond, nano, anterior, senderId y longitudes de los textos
+    private static final int FIXED_BODY_BYTES = 8 + 8 + 4 + 8 + 8 + 2 + 2 + 4;
+    private static final int MIN_SEGMENT_BYTES = 1024 * 1024;
+    private static final long NO_POSITION = -1;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int indexInterval;
+    private final boolean forceOnWrite;
+
+    // Segmentos por identificador; el último es el activo
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    // Posición del último registro de cada sala
+    private final Map<String, Long> roomHeads = new ConcurrentHashMap<>();
+
+    private Segment active;
+    private long lastSeq;
+
+    /**
+     * Crea el almacén.
+     *
+     * @param directory     Directorio de los segmentos (chat.store.segment-log.directory).
+     * @param segmentSizeMb Tamaño de cada segmento en MB (chat.store.segment-log.segment-size-mb).
+     * @param indexInterval Registros entre entradas del índice disperso (chat.store.segment-log.index-interval).
+     * @param forceOnWrite  Si se fuerza a disco cada lote (chat.store.segment-log.force-on-write).
+     */
+    public SegmentLogChatMessageStore(@Value("${chat.store.segment-log.directory:./data/chat-log}") String directory,
+                                      @Value("${chat.store.segment-log.segment-size-mb:64}") int segmentSizeMb,
+                                      @Value("${chat.store.segment-log.index-interval:64}") int indexInterval,
+                                      @Value("${chat.store.segment-log.force-on-write:true}") boolean forceOnWrite) {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_SEGMENT_BYTES, segmentSizeMb * 1024L * 1024L));
+        this.indexInterval = Math.max(1, indexInterval);
+        this.forceOnWrite = forceOnWrite;
+    }
+
+    /**
+     * Abre los segmentos existentes, reconstruye los índices y recupera la cola del último.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Integer> ids;
+        try (Stream<Path> files = Files.list(directory)) {
+            ids = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".log"))
+                    .map(name -> Integer.parseInt(name.substring(0, name.length() - 4)))
+                    .sorted()
+                    .toList();
+        }
+        for (int id : ids) {
+            Segment segment = Segment.map(segmentPath(id), id, segmentBytes);
+            segments.put(id, segment);
+            recover(segment);
+            active = segment;
+        }
+        if (active == null) {
+            active = createSegment(0);
+        }
+        log.info("[Chat] Log de mensajes abierto en {}: {} segmentos, último seq {}", directory, segments.size(), lastSeq);
+    }
+
+    /**
+     * Fuerza a disco el segmento activo y cierra los ficheros.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (active != null) {
+            active.buffer.force();
+        }
+        segments.values().forEach(Segment::close);
+    }
+
+    /**
+     * Añade el lote al final del log y asigna números de secuencia consecutivos.
+     * Lo llama un único hilo de volcado; el método es {@code synchronized} por seguridad.
+     *
+     * @param messages Mensajes a guardar.
+     */
+    @Override
+    public synchronized void saveAll(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Segment first = active;
+        int firstOffset = active.writeOffset;
+        for (ChatMessage message : messages) {
+            append(message);
+        }
+        if (forceOnWrite) {
+            // Si el lote cambió de segmento, el anterior ya se forzó al sellarlo
+            int from = first == active ? firstOffset : 0;
+            active.buffer.force(from, active.writeOffset - from);
+        }
+        log.debug("[Chat] Lote de {} mensajes añadido al log (último seq {})", messages.size(), lastSeq);
+    }
+
+    /**
+     * Recorre hacia atrás la cadena de la sala desde el cursor.
+     *
+     * @param room   Sala a consultar.
+     * @param before Posición del último mensaje ya devuelto, o {@code null}.
+     * @param limit  Número máximo de mensajes.
+     * @return Mensajes encontrados, del más nuevo al más antiguo.
+     */
+    @Override
+    public List<ChatMessage> findBefore(String room, SeekCursor before, int limit) {
+        long position;
+        if (before == null) {
+            position = roomHeads.getOrDefault(room, NO_POSITION);
+        } else {
+            long cursor = locate(before.id());
+            if (cursor == NO_POSITION || !room.equals(readRoom(cursor))) {
+                return List.of();
+            }
+            position = previousInRoom(cursor);
+        }
+        List<ChatMessage> messages = new ArrayList<>(Math.min(limit, 256));
+        while (position != NO_POSITION && messages.size() < limit) {
+            messages.add(read(position));
+            position = previousInRoom(position);
+        }
+        return messages;
+    }
+
+    /**
+     * Lee en orden los mensajes posteriores a {@code afterSeq} recorriendo el log hacia delante.
+     *
+     * @param afterSeq Último número de secuencia ya procesado.
+     * @param limit    Número máximo de mensajes.
+     * @return Mensajes encontrados.
+     */
+    @Override
+    public List<ChatMessage> findAfter(long afterSeq, int limit) {
+        long position = afterSeq <= 0 ? firstPosition() : next(locate(afterSeq));
+        List<ChatMessage> messages = new ArrayList<>(Math.min(limit, 256));
+        while (position != NO_POSITION && messages.size() < limit) {
+            messages.add(read(position));
+            position = next(position);
+        }
+        return messages;
+    }
+
+    /**
+     * Localiza cada mensaje con el índice disperso.
+     *
+     * @param seqs Números de secuencia.
+     * @return Mensajes encontrados.
+     */
+    @Override
+    public List<ChatMessage> findAllBySeq(Collection<Long> seqs) {
+        List<ChatMessage> messages = new ArrayList<>(seqs.size());
+        for (Long seq : seqs) {
+            long position = locate(seq);
+            if (position != NO_POSITION) {
+                messages.add(read(position));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Recorre en orden los mensajes con número de secuencia mayor que {@code afterSeq}, para
+     * reproducir el log completo. El visitante recibe una vista de solo lectura del contenido
+     * (UTF-8) sobre el fichero mapeado, válida solo durante la llamada.
+     *
+     * @param afterSeq Último número de secuencia ya procesado.
+     * @param visitor  Receptor de cada registro.
+     */
+    public void replay(long afterSeq, RecordVisitor visitor) {
+        long position = afterSeq <= 0 ? firstPosition() : locate(afterSeq);
+        if (position == NO_POSITION) {
+            return;
+        }
+        if (afterSeq > 0) {
+            position = next(position);
+        }
+        while (position != NO_POSITION) {
+            Segment segment = segmentOf(position);
+            int offset = offsetOf(position);
+            int body = offset + HEADER_BYTES;
+            int roomLength = Short.toUnsignedInt(segment.buffer.getShort(body + 36));
+            int usernameLength = Short.toUnsignedInt(segment.buffer.getShort(body + 38));
+            int contentLength = segment.buffer.getInt(body + 40);
+            int contentOffset = body + FIXED_BODY_BYTES + roomLength + usernameLength;
+            visitor.visit(segment.buffer.getLong(body),
+                    segment.buffer.slice(contentOffset, contentLength).asReadOnlyBuffer());
+            position = next(position);
+        }
+    }
+
+    /**
+     * Número de secuencia del último mensaje guardado.
+     *
+     * @return Último seq, o 0 si el log está vacío.
+     */
+    @Override
+    public synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Escribe un registro en el segmento activo, sellándolo y abriendo otro si no cabe.
+     */
+    private void append(ChatMessage message) {
+        byte[] room = message.getRoom().getBytes(StandardCharsets.UTF_8);
+        byte[] username = message.getSenderUsername().getBytes(StandardCharsets.UTF_8);
+        byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = FIXED_BODY_BYTES + room.length + username.length + content.length;
+        if (active.writeOffset + HEADER_BYTES + bodyLength > segmentBytes) {
+            roll();
+        }
+
+        long seq = lastSeq + 1;
+        long previous = roomHeads.getOrDefault(message.getRoom(), NO_POSITION);
+        MappedByteBuffer buffer = active.buffer;
+        int offset = active.writeOffset;
+        int body = offset + HEADER_BYTES;
+        buffer.putLong(body, seq);
+        buffer.putLong(body + 8, message.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(body + 16, message.getCreatedAt().getNano());
+        buffer.putLong(body + 20, previous);
+        buffer.putLong(body + 28, message.getSenderId());
+        buffer.putShort(body + 36, (short) room.length);
+        buffer.putShort(body + 38, (short) username.length);
+        buffer.putInt(body + 40, content.length);
+        buffer.put(body + FIXED_BODY_BYTES, room);
+        buffer.put(body + FIXED_BODY_BYTES + room.length, username);
+        buffer.put(body + FIXED_BODY_BYTES + room.length + username.length, content);
+        buffer.putInt(offset + 4, crc(buffer, body, bodyLength));
+        // La longitud se escribe la última: hasta entonces el registro no existe para la recuperación
+        buffer.putInt(offset, bodyLength);
+
+        long position = position(active.id, offset);
+        active.writeOffset = body + bodyLength;
+        active.index(seq, position, indexInterval);
+        // Publicar la cabeza de la sala después de escribir el registro completo
+        roomHeads.put(message.getRoom(), position);
+        lastSeq = seq;
+        message.setId(seq);
+    }
+
+    /**
+     * Sella el segmento activo y abre el siguiente.
+     */
+    private void roll() {
+        active.buffer.force();
+        Segment next = createSegment(active.id + 1);
+        log.info("[Chat] Segmento {} sellado con {} bytes, abierto el segmento {}", active.id, active.writeOffset, next.id);
+        active = next;
+    }
+
+    private Segment createSegment(int id) {
+        try {
+            Segment segment = Segment.map(segmentPath(id), id, segmentBytes);
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el segmento " + id, e);
+        }
+    }
+
+    /**
+     * Recorre un segmento validando cada registro, reconstruye su índice y las cabezas de las salas,
+     * y pone a cero lo que haya tras el último registro válido.
+     */
+    private void recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_BYTES + FIXED_BODY_BYTES <= segmentBytes) {
+            int bodyLength = buffer.getInt(offset);
+            int body = offset + HEADER_BYTES;
+            if (bodyLength < FIXED_BODY_BYTES || body + bodyLength > segmentBytes
+                    || buffer.getInt(offset + 4) != crc(buffer, body, bodyLength)) {
+                break;
+            }
+            long seq = buffer.getLong(body);
+            if (seq != lastSeq + 1) {
+                log.warn("[Chat] Secuencia inesperada {} en el segmento {} (se esperaba {})", seq, segment.id, lastSeq + 1);
+                break;
+            }
+            long position = position(segment.id, offset);
+            segment.index(seq, position, indexInterval);
+            roomHeads.put(readRoom(buffer, body), position);
+            lastSeq = seq;
+            offset = body + bodyLength;
+        }
+        segment.writeOffset = offset;
+        if (offset + HEADER_BYTES <= segmentBytes && buffer.getInt(offset) != 0) {
+            log.warn("[Chat] Cola dañada en el segmento {} a partir del byte {}: se descarta", segment.id, offset);
+            zero(buffer, offset, segmentBytes);
+            buffer.force();
+        }
+    }
+
+    /**
+     * Localiza un registro por su número de secuencia con el índice disperso de su segmento.
+     */
+    private long locate(long seq) {
+        if (seq <= 0) {
+            return NO_POSITION;
+        }
+        for (Segment segment : segments.descendingMap().values()) {
+            Map.Entry<Long, Long> floor = segment.sparseIndex.floorEntry(seq);
+            if (floor == null) {
+                continue;
+            }
+            long position = floor.getValue();
+            while (position != NO_POSITION && segmentOf(position) == segment) {
+                long current = segment.buffer.getLong(offsetOf(position) + HEADER_BYTES);
+                if (current == seq) {
+                    return position;
+                }
+                if (current > seq) {
+                    return NO_POSITION;
+                }
+                position = next(position);
+            }
+            return NO_POSITION;
+        }
+        return NO_POSITION;
+    }
+
+    /**
+     * Posición del registro siguiente, o {@link #NO_POSITION} al final del log.
+     */
+    private long next(long position) {
+        if (position == NO_POSITION) {
+            return NO_POSITION;
+        }
+        Segment segment = segmentOf(position);
+        int offset = offsetOf(position);
+        int next = offset + HEADER_BYTES + segment.buffer.getInt(offset);
+        if (next < segment.writeOffset) {
+            return position(segment.id, next);
+        }
+        Map.Entry<Integer, Segment> following = segments.higherEntry(segment.id);
+        return following == null || following.getValue().writeOffset == 0 ? NO_POSITION : position(following.getKey(), 0);
+    }
+
+    private long firstPosition() {
+        for (Segment segment : segments.values()) {
+            if (segment.writeOffset > 0) {
+                return position(segment.id, 0);
+            }
+        }
+        return NO_POSITION;
+    }
+
+    private long previousInRoom(long position) {
+        return segmentOf(position).buffer.getLong(offsetOf(position) + HEADER_BYTES + 20);
+    }
+
+    private String readRoom(long position) {
+        return readRoom(segmentOf(position).buffer, offsetOf(position) + HEADER_BYTES);
+    }
+
+    private static String readRoom(MappedByteBuffer buffer, int body) {
+        int roomLength = Short.toUnsignedInt(buffer.getShort(body + 36));
+        return decode(buffer, body + FIXED_BODY_BYTES, roomLength);
+    }
+
+    /**
+     * Construye el mensaje a partir del registro en la posición dada.
+     */
+    private ChatMessage read(long position) {
+        MappedByteBuffer buffer = segmentOf(position).buffer;
+        int body = offsetOf(position) + HEADER_BYTES;
+        int roomLength = Short.toUnsignedInt(buffer.getShort(body + 36));
+        int usernameLength = Short.toUnsignedInt(buffer.getShort(body + 38));
+        int contentLength = buffer.getInt(body + 40);
+        int texts = body + FIXED_BODY_BYTES;
+        return ChatMessage.builder()
+                .id(buffer.getLong(body))
+                .createdAt(LocalDateTime.ofEpochSecond(buffer.getLong(body + 8), buffer.getInt(body + 16), ZoneOffset.UTC))
+                .senderId(buffer.getLong(body + 28))
+                .room(decode(buffer, texts, roomLength))
+                .senderUsername(decode(buffer, texts + roomLength, usernameLength))
+                .content(decode(buffer, texts + roomLength + usernameLength, contentLength))
+                .build();
+    }
+
+    private static String decode(MappedByteBuffer buffer, int offset, int length) {
+        return StandardCharsets.UTF_8.decode(buffer.slice(offset, length)).toString();
+    }
+
+    private static int crc(MappedByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static void zero(MappedByteBuffer buffer, int from, int to) {
+        byte[] zeros = new byte[64 * 1024];
+        for (int offset = from; offset < to; offset += zeros.length) {
+            buffer.put(offset, zeros, 0, Math.min(zeros.length, to - offset));
+        }
+    }
+
+    private Segment segmentOf(long position) {
+        return segments.get((int) (position >>> 32));
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Posición global de un registro: identificador del segmento en los 32 bits altos y desplazamiento en los bajos.
+     */
+    private static long position(int segmentId, int offset) {
+        return (long) segmentId << 32 | offset;
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%010d.log", id));
+    }
+
+    /**
+     * Receptor de registros en {@link #replay(long, RecordVisitor)}.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long seq, ByteBuffer content);
+    }
+
+    /**
+     * Fichero de segmento mapeado en memoria con su índice disperso.
+     */
+    private static final class Segment {
+
+        private final int id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // Número de secuencia -> posición, una entrada cada index-interval registros
+        private final ConcurrentSkipListMap<Long, Long> sparseIndex = new ConcurrentSkipListMap<>();
+        private volatile int writeOffset;
+
+        private Segment(int id, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private static Segment map(Path path, int id, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new Segment(id, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        private void index(long seq, long position, int interval) {
+            if (sparseIndex.isEmpty() || seq % interval == 0) {
+                sparseIndex.put(seq, position);
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("[Chat] Error al cerrar el segmento {}: {}", id, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import org.example.proyectoauth.pageresponse.CursorPage;
+import org.example.proyectoauth.pageresponse.PageResponse;
+import org.example.proyectoauth.rest.chat.dto.ChatMessageDto;
+import org.example.proyectoauth.rest.chat.dto.ChatSearchHitDto;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interfaz que define las operaciones del servicio de mensajes de chat.
+ */
+public interface ChatMessageService {
+
+    /**
+     * Encola un mensaje para su persistencia diferida por lotes.
+     *
+     * @param message Mensaje recibido (sin id).
+     * @return Futuro que se completa con el mensaje ya guardado (con su número de secuencia), o
+     *         falla con {@link org.example.proyectoauth.rest.chat.exceptions.ChatStoreUnavailable}.
+     */
+    CompletableFuture<ChatMessage> submit(ChatMessage message);
+
+    /**
+     * Devuelve una página del historial de una sala, del mensaje más nuevo al más antiguo.
+     *
+     * @param room   Sala a consultar.
+     * @param cursor Cursor opaco devuelto por la página anterior, o {@code null} para la más reciente.
+     * @param size   Número de mensajes por página.
+     * @return Página de mensajes con el cursor de la siguiente.
+     */
+    CursorPage<ChatMessageDto> findHistory(String room, String cursor, int size);
+
+    /**
+     * Busca texto en los mensajes de una sala y devuelve los resultados ordenados por relevancia.
+     *
+     * @param room  Sala a consultar.
+     * @param query Texto de la búsqueda.
+     * @param page  Página (empieza en 0).
+     * @param size  Resultados por página.
+     * @return Página de resultados.
+     */
+    PageResponse<ChatSearchHitDto> search(String room, String query, int page, int size);
+}
@@ -0,0 +1,238 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.pageresponse.CursorPage;
+import org.example.proyectoauth.pageresponse.InvalidCursorException;
+import org.example.proyectoauth.pageresponse.PageResponse;
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.chat.dto.ChatMessageDto;
+import org.example.proyectoauth.rest.chat.dto.ChatSearchHitDto;
+import org.example.proyectoauth.rest.chat.exceptions.ChatStoreUnavailable;
+import org.example.proyectoauth.rest.chat.mapper.ChatMessageMapper;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.example.proyectoauth.rest.chat.repositories.ChatMessageStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de {@link ChatMessageService} con escritura diferida (write-behind).
+ *
+ * Los mensajes entrantes solo se encolan en memoria; un hilo dedicado los agrupa y los persiste
+ * con una única inserción por lotes cuando el lote alcanza {@code chat.persistence.batch-size}
+ * mensajes o cuando pasa {@code chat.persistence.flush-interval-ms} desde el primero, lo que ocurra antes.
+ * El futuro de cada mensaje se completa tras el volcado, ya con su número de secuencia.
+ *
+ * La cola está acotada: si se llena, el mensaje se rechaza de inmediato en lugar de acumular memoria.
+ * Cada lote guardado se añade también al índice de búsqueda ({@link ChatSearchIndex}).
+ */
+@Service
+@Slf4j
+public class ChatMessageServiceImpl implements ChatMessageService {
+
+    private final ChatMessageStore store;
+    private final ChatMessageMapper mapper;
+    private final RecentMessagesCache recentMessages;
+    private final ChatSearchIndex searchIndex;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final BlockingQueue<Pending> queue;
+
+    private Thread flusher;
+    private volatile boolean running;
+
+    /**
+     * Constructor con inyección del almacén y de los umbrales de volcado.
+     *
+     * @param store               Almacén de mensajes con inserción por lotes y lectura del historial.
+     * @param mapper              Conversor de mensajes a DTO.
+     * @param recentMessages      Caché de los últimos mensajes de cada sala.
+     * @param searchIndex         Índice de búsqueda de los mensajes.
+     * @param batchSize           Mensajes máximos por lote (chat.persistence.batch-size).
+     * @param flushIntervalMillis Espera máxima desde el primer mensaje del lote (chat.persistence.flush-interval-ms).
+     * @param queueCapacity       Mensajes máximos pendientes de guardar (chat.persistence.queue-capacity).
+     */
+    @Autowired
+    public ChatMessageServiceImpl(ChatMessageStore store, ChatMessageMapper mapper,
+                                  RecentMessagesCache recentMessages, ChatSearchIndex searchIndex,
+                                  @Value("${chat.persistence.batch-size:500}") int batchSize,
+                                  @Value("${chat.persistence.flush-interval-ms:50}") long flushIntervalMillis,
+                                  @Value("${chat.persistence.queue-capacity:50000}") int queueCapacity) {
+        this.store = store;
+        this.mapper = mapper;
+        this.recentMessages = recentMessages;
+        this.searchIndex = searchIndex;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Arranca el hilo de volcado.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "chat-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Detiene la admisión de mensajes y espera a que se vuelquen los pendientes.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Encola el mensaje sin esperar a la base de datos.
+     *
+     * @param message Mensaje recibido.
+     * @return Futuro que se completa con el mensaje ya guardado.
+     */
+    @Override
+    public CompletableFuture<ChatMessage> submit(ChatMessage message) {
+        Pending pending = new Pending(message, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            return CompletableFuture.failedFuture(new ChatStoreUnavailable("Chat saturado, inténtalo de nuevo"));
+        }
+        return pending.result();
+    }
+
+    /**
+     * Consulta el historial por clave: cada página parte del último mensaje de la anterior,
+     * así que su coste no depende de lo atrás que esté. Se pide una fila más para saber si hay más páginas.
+     * Si la caché de mensajes recientes cubre el rango, la página se sirve desde memoria.
+     *
+     * @param room   Sala a consultar.
+     * @param cursor Cursor de la página anterior, o {@code null}.
+     * @param size   Número de mensajes por página.
+     * @return Página de mensajes.
+     */
+    @Override
+    public CursorPage<ChatMessageDto> findHistory(String room, String cursor, int size) {
+        SeekCursor position = null;
+        if (cursor != null && !cursor.isBlank()) {
+            position = SeekCursor.decode(cursor);
+            if (position.timestamp() == null) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+
+        List<ChatMessageDto> rows = recentMessages.before(room, position, size + 1);
+        if (rows == null) {
+            rows = store.findBefore(room, position, size + 1).stream().map(mapper::toDto).toList();
+        }
+        return CursorPage.of(rows, size, dto -> new SeekCursor(dto.createdAt(), dto.seq()).encode());
+    }
+
+    /**
+     * Busca en el índice invertido de la sala y carga del almacén solo los mensajes de la página.
+     *
+     * @param room  Sala a consultar.
+     * @param query Texto de la búsqueda.
+     * @param page  Página (empieza en 0).
+     * @param size  Resultados por página.
+     * @return Página de resultados ordenados por relevancia.
+     */
+    @Override
+    public PageResponse<ChatSearchHitDto> search(String room, String query, int page, int size) {
+        ChatSearchIndex.SearchResult result = searchIndex.search(room, query, page, size);
+        Map<Long, ChatMessage> messages = store.findAllBySeq(
+                        result.hits().stream().map(ChatSearchIndex.Hit::seq).toList())
+                .stream()
+                .collect(Collectors.toMap(ChatMessage::getId, Function.identity()));
+        // Un número de secuencia del índice que ya no es de esta sala no se devuelve nunca
+        List<ChatSearchHitDto> hits = result.hits().stream()
+                .filter(hit -> messages.containsKey(hit.seq()) && room.equals(messages.get(hit.seq()).getRoom()))
+                .map(hit -> new ChatSearchHitDto(mapper.toDto(messages.get(hit.seq())), hit.score()))
+                .toList();
+        return PageResponse.of(new PageImpl<>(hits, PageRequest.of(page, size), result.total()), "score", "DESC");
+    }
+
+    /**
+     * Bucle del hilo de volcado: forma lotes por tamaño o por tiempo y los persiste.
+     */
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("[Chat] Hilo de volcado interrumpido con {} mensajes pendientes", queue.size() + batch.size());
+        }
+    }
+
+    /**
+     * Persiste un lote y completa los futuros de sus mensajes.
+     */
+    private void flush(List<Pending> batch) {
+        // La fecha se asigna aquí, en el único hilo de volcado, para que el orden (createdAt, id) coincida
+        // con el orden de inserción
+        LocalDateTime now = LocalDateTime.now();
+        List<ChatMessage> messages = new ArrayList<>(batch.size());
+        batch.forEach(pending -> {
+            pending.message().setCreatedAt(now);
+            messages.add(pending.message());
+        });
+        try {
+            store.saveAll(messages);
+        } catch (Exception e) {
+            log.error("[Chat] Error al guardar un lote de {} mensajes: {}", batch.size(), e.getMessage());
+            ChatStoreUnavailable failure = new ChatStoreUnavailable("No se pudo guardar el mensaje");
+            batch.forEach(pending -> pending.result().completeExceptionally(failure));
+            return;
+        }
+        try {
+            searchIndex.index(messages);
+        } catch (Exception e) {
+            log.error("[Chat] Error al indexar un lote de {} mensajes: {}", batch.size(), e.getMessage());
+        }
+        batch.forEach(pending -> pending.result().complete(pending.message()));
+    }
+
+    /**
+     * Mensaje pendiente de guardar y el futuro que se completa al volcarlo.
+     */
+    private record Pending(ChatMessage message, CompletableFuture<ChatMessage> result) {
+    }
+}
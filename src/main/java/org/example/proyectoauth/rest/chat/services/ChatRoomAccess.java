@@ -0,0 +1,69 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import org.example.proyectoauth.rest.chat.exceptions.ChatRoomForbidden;
+import org.example.proyectoauth.rest.presence.services.PresenceService;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reglas de acceso a las salas de chat, comunes al canal WebSocket y a la API REST.
+ *
+ * - Las salas normales son públicas por diseño: cualquier usuario autenticado puede publicar en ellas,
+ *   leer su historial y suscribirse (una sesión anónima solo puede suscribirse).
+ * - Las conversaciones directas se nombran {@code dm:<id>:<id>} con los ids de sus dos participantes,
+ *   y solo ellos pueden publicar, leer o suscribirse. Un nombre con el prefijo {@code dm:} que no siga
+ *   ese formato no es accesible para nadie, para que no se puedan crear salas que parezcan privadas.
+ * - El topic de presencia ({@link PresenceService#TOPIC}) está reservado: solo publica el servidor,
+ *   y solo los usuarios autenticados pueden suscribirse, porque revela quién está conectado.
+ */
+public class ChatRoomAccess {
+
+    public static final String DIRECT_PREFIX = "dm:";
+    private static final Pattern DIRECT_ROOM = Pattern.compile("dm:(\\d{1,18}):(\\d{1,18})");
+
+    /**
+     * Indica si el usuario puede leer la sala (historial y suscripción).
+     *
+     * @param userId Id del usuario, o {@code null} si es anónimo.
+     * @param room   Sala.
+     * @return {@code true} si tiene acceso de lectura.
+     */
+    public static boolean canRead(Long userId, String room) {
+        if (PresenceService.TOPIC.equals(room)) {
+            return userId != null;
+        }
+        if (!room.startsWith(DIRECT_PREFIX)) {
+            return true;
+        }
+        Matcher matcher = DIRECT_ROOM.matcher(room);
+        if (userId == null || !matcher.matches()) {
+            return false;
+        }
+        String id = userId.toString();
+        return id.equals(matcher.group(1)) || id.equals(matcher.group(2));
+    }
+
+    /**
+     * Indica si el usuario puede publicar en la sala.
+     *
+     * @param userId Id del usuario, o {@code null} si es anónimo.
+     * @param room   Sala.
+     * @return {@code true} si puede publicar.
+     */
+    public static boolean canPost(Long userId, String room) {
+        return userId != null && !PresenceService.TOPIC.equals(room) && canRead(userId, room);
+    }
+
+    /**
+     * Comprueba el acceso de lectura y lanza {@link ChatRoomForbidden} si no lo tiene.
+     *
+     * @param userId Id del usuario, o {@code null} si es anónimo.
+     * @param room   Sala.
+     */
+    public static void checkRead(Long userId, String room) {
+        if (!canRead(userId, room)) {
+            throw new ChatRoomForbidden(room);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.example.proyectoauth.rest.chat.repositories.ChatMessageStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Índice invertido en memoria de los mensajes de chat, particionado por sala.
+ *
+ * Se actualiza de forma incremental con cada lote que vuelca {@link ChatMessageServiceImpl}, así que
+ * buscar no cuesta un {@code LIKE '%term%'} sobre la tabla. Los textos se analizan con {@link TextAnalyzer}
+ * y los resultados se ordenan por BM25 (más nuevos primero a igual puntuación).
+ *
+ * El índice se guarda periódicamente en disco ({@code chat.search.snapshot-path}) y al parar la aplicación.
+ * Al arrancar se carga la instantánea y solo se indexan los mensajes posteriores a ella; si no existe, está
+ * dañada o llega más lejos que el almacén (por ejemplo, una base de datos en memoria que se recreó), se reindexa
+ * todo el almacén. Indexar un mensaje ya indexado no tiene efecto, por lo que los solapes
+ * entre la instantánea y la recuperación son inocuos.
+ */
+@Component
+@Slf4j
+public class ChatSearchIndex {
+
+    // Parámetros de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int SNAPSHOT_MAGIC = 0x43534958;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int CATCH_UP_BATCH = 1000;
+
+    private final ChatMessageStore store;
+    private final Path snapshotPath;
+    private final long snapshotIntervalSeconds;
+
+    private final Map<String, RoomIndex> rooms = new ConcurrentHashMap<>();
+    private final AtomicLong lastIndexedSeq = new AtomicLong();
+
+    private ScheduledExecutorService snapshots;
+
+    /**
+     * Constructor con inyección del almacén de mensajes y de la configuración de instantáneas.
+     *
+     * @param store                   Almacén del que se recuperan los mensajes no indexados al arrancar.
+     * @param snapshotPath            Fichero de la instantánea (chat.search.snapshot-path).
+     * @param snapshotIntervalSeconds Segundos entre instantáneas (chat.search.snapshot-interval-seconds).
+     */
+    @Autowired
+    public ChatSearchIndex(ChatMessageStore store,
+                           @Value("${chat.search.snapshot-path:./data/chat-search.idx}") String snapshotPath,
+                           @Value("${chat.search.snapshot-interval-seconds:300}") long snapshotIntervalSeconds) {
+        this.store = store;
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+
+    /**
+     * Carga la instantánea, indexa lo que falte y programa las instantáneas periódicas.
+     */
+    @PostConstruct
+    public void start() {
+        load();
+        catchUp();
+        snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-search-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Detiene las instantáneas periódicas y guarda una última.
+     */
+    @PreDestroy
+    public void stop() {
+        snapshots.shutdownNow();
+        snapshotQuietly();
+    }
+
+    /**
+     * Añade al índice los mensajes recién persistidos.
+     *
+     * @param messages Mensajes con su número de secuencia asignado.
+     */
+    public void index(List<ChatMessage> messages) {
+        for (ChatMessage message : messages) {
+            RoomIndex room = rooms.computeIfAbsent(message.getRoom(), name -> new RoomIndex());
+            room.add(message.getId(), TextAnalyzer.analyze(message.getContent()));
+            lastIndexedSeq.accumulateAndGet(message.getId(), Math::max);
+        }
+    }
+
+    /**
+     * Busca en una sala y devuelve una página de resultados ordenados por relevancia.
+     * Un mensaje coincide si contiene al menos uno de los términos; los que contienen más puntúan más.
+     *
+     * @param room  Sala.
+     * @param query Texto de la búsqueda.
+     * @param page  Página (empieza en 0).
+     * @param size  Resultados por página.
+     * @return Resultados de la página y número total de coincidencias.
+     */
+    public SearchResult search(String room, String query, int page, int size) {
+        RoomIndex index = rooms.get(room);
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.analyze(query));
+        if (index == null || terms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+        Map<Long, Double> scores = index.score(terms);
+
+        // Montículo con los (page + 1) * size mejores: el peor queda en la cima
+        int keep = (int) Math.min(((long) page + 1) * size, scores.size());
+        Comparator<Hit> byRelevance = Comparator.comparingDouble(Hit::score).thenComparingLong(Hit::seq);
+        PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(1, keep), byRelevance);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            Hit hit = new Hit(entry.getKey(), entry.getValue());
+            if (top.size() < keep) {
+                top.add(hit);
+            } else if (keep > 0 && byRelevance.compare(hit, top.peek()) > 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(byRelevance.reversed());
+        int from = (int) Math.min((long) page * size, ranked.size());
+        return new SearchResult(ranked.subList(from, ranked.size()), scores.size());
+    }
+
+    /**
+     * Guarda el índice en disco: se escribe en un fichero temporal y se renombra al terminar,
+     * de modo que una caída a mitad no estropea la instantánea anterior.
+     *
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public void snapshot() throws IOException {
+        if (snapshotPath.getParent() != null) {
+            Files.createDirectories(snapshotPath.getParent());
+        }
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        long upTo = lastIndexedSeq.get();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temp))))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(upTo);
+            Map<String, RoomIndex> current = new HashMap<>(rooms);
+            out.writeInt(current.size());
+            for (Map.Entry<String, RoomIndex> room : current.entrySet()) {
+                out.writeUTF(room.getKey());
+                room.getValue().write(out);
+            }
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("[Chat] Instantánea del índice de búsqueda guardada: {} salas, hasta el mensaje {}", rooms.size(), upTo);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.warn("[Chat] No se pudo guardar la instantánea del índice de búsqueda: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Carga la instantánea si existe; si está dañada o es posterior al almacén se descarta y se reindexa todo.
+     */
+    private void load() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshotPath))))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Formato de instantánea desconocido");
+            }
+            long upTo = in.readLong();
+            int roomCount = in.readInt();
+            for (int i = 0; i < roomCount; i++) {
+                rooms.put(in.readUTF(), RoomIndex.read(in));
+            }
+            long storeSeq = store.lastSeq();
+            if (upTo > storeSeq) {
+                // Sus números de secuencia ya no corresponden a los mensajes del almacén
+                throw new IOException("llega hasta el mensaje " + upTo + " y el almacén solo hasta el " + storeSeq);
+            }
+            lastIndexedSeq.set(upTo);
+            log.info("[Chat] Índice de búsqueda cargado: {} salas, hasta el mensaje {}", roomCount, upTo);
+        } catch (Exception e) {
+            log.warn("[Chat] Instantánea del índice de búsqueda no válida ({}), se reindexa todo", e.getMessage());
+            rooms.clear();
+            lastIndexedSeq.set(0);
+        }
+    }
+
+    /**
+     * Indexa por lotes los mensajes del almacén posteriores a la instantánea.
+     */
+    private void catchUp() {
+        long indexed = 0;
+        List<ChatMessage> batch;
+        do {
+            batch = store.findAfter(lastIndexedSeq.get(), CATCH_UP_BATCH);
+            index(batch);
+            indexed += batch.size();
+        } while (batch.size() == CATCH_UP_BATCH);
+        if (indexed > 0) {
+            log.info("[Chat] {} mensajes indexados al arrancar", indexed);
+        }
+    }
+
+    /**
+     * Resultado de una búsqueda: los aciertos de la página y el total de coincidencias.
+     *
+     * @param hits  Aciertos de la página, del más relevante al menos.
+     * @param total Número total de mensajes que coinciden.
+     */
+    public record SearchResult(List<Hit> hits, long total) {
+    }
+
+    /**
+     * Mensaje que coincide con la búsqueda y su puntuación.
+     *
+     * @param seq   Número de secuencia del mensaje.
+     * @param score Puntuación BM25.
+     */
+    public record Hit(long seq, double score) {
+    }
+
+    /**
+     * Índice de una sala: listas de apariciones por término y longitud de cada documento.
+     * Los números de secuencia llegan en orden creciente, así que las listas quedan ordenadas.
+     */
+    private static final class RoomIndex {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Postings> terms = new HashMap<>();
+        private long[] docSeqs = new long[16];
+        private int[] docLengths = new int[16];
+        private int docCount;
+        private long totalLength;
+
+        private void add(long seq, List<String> tokens) {
+            lock.writeLock().lock();
+            try {
+                if (docCount > 0 && seq <= docSeqs[docCount - 1]) {
+                    return;
+                }
+                if (docCount == docSeqs.length) {
+                    docSeqs = Arrays.copyOf(docSeqs, docCount * 2);
+                    docLengths = Arrays.copyOf(docLengths, docCount * 2);
+                }
+                docSeqs[docCount] = seq;
+                docLengths[docCount] = tokens.size();
+                docCount++;
+                totalLength += tokens.size();
+
+                Map<String, Integer> frequencies = new HashMap<>();
+                tokens.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+                frequencies.forEach((term, frequency) ->
+                        terms.computeIfAbsent(term, t -> new Postings()).add(seq, frequency));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private Map<Long, Double> score(Set<String> queryTerms) {
+            lock.readLock().lock();
+            try {
+                Map<Long, Double> scores = new HashMap<>();
+                double averageLength = docCount == 0 ? 1 : Math.max(1.0, (double) totalLength / docCount);
+                for (String term : queryTerms) {
+                    Postings postings = terms.get(term);
+                    if (postings == null) {
+                        continue;
+                    }
+                    double idf = Math.log(1 + (docCount - postings.size + 0.5) / (postings.size + 0.5));
+                    for (int i = 0; i < postings.size; i++) {
+                        long seq = postings.seqs[i];
+                        int length = docLengths[Arrays.binarySearch(docSeqs, 0, docCount, seq)];
+                        double frequency = postings.frequencies[i];
+                        double score = idf * frequency * (K1 + 1)
+                                / (frequency + K1 * (1 - B + B * length / averageLength));
+                        scores.merge(seq, score, Double::sum);
+                    }
+                }
+                return scores;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            lock.readLock().lock();
+            try {
+                out.writeInt(docCount);
+                out.writeLong(totalLength);
+                for (int i = 0; i < docCount; i++) {
+                    out.writeLong(docSeqs[i]);
+                    out.writeInt(docLengths[i]);
+                }
+                out.writeInt(terms.size());
+                for (Map.Entry<String, Postings> term : terms.entrySet()) {
+                    out.writeUTF(term.getKey());
+                    Postings postings = term.getValue();
+                    out.writeInt(postings.size);
+                    for (int i = 0; i < postings.size; i++) {
+                        out.writeLong(postings.seqs[i]);
+                        out.writeInt(postings.frequencies[i]);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private static RoomIndex read(DataInputStream in) throws IOException {
+            RoomIndex index = new RoomIndex();
+            index.docCount = in.readInt();
+            index.totalLength = in.readLong();
+            index.docSeqs = new long[Math.max(16, index.docCount)];
+            index.docLengths = new int[index.docSeqs.length];
+            for (int i = 0; i < index.docCount; i++) {
+                index.docSeqs[i] = in.readLong();
+                index.docLengths[i] = in.readInt();
+            }
+            int termCount = in.readInt();
+            for (int i = 0; i < termCount; i++) {
+                String term = in.readUTF();
+                Postings postings = new Postings();
+                int size = in.readInt();
+                for (int j = 0; j < size; j++) {
+                    postings.add(in.readLong(), in.readInt());
+                }
+                index.terms.put(term, postings);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Lista de apariciones de un término: números de secuencia y frecuencia en cada mensaje.
+     */
+    private static final class Postings {
+
+        private long[] seqs = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        private void add(long seq, int frequency) {
+            if (size == seqs.length) {
+                seqs = Arrays.copyOf(seqs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            seqs[size] = seq;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.chat.dto.ChatMessageDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caché en memoria de los últimos mensajes de cada sala activa.
+ *
+ * Cada sala tiene un buffer circular de tamaño fijo sin bloqueos: el escritor reserva la posición con un
+ * contador atómico y publica la entrada en su hueco; los lectores validan la posición de cada entrada
+ * para descartar las que se sobrescriben mientras leen. Se guarda el mensaje ya serializado, de modo
+ * que al unirse a una sala se reenvía sin volver a serializar ni consultar la base de datos.
+ *
+ * El tamaño total (estimado) de todas las salas está acotado: al superarlo se descartan las salas
+ * menos usadas recientemente (LRU) hasta volver por debajo del presupuesto. Cada sala lleva la cuenta
+ * de los bytes que ha sumado al total y el descarte la cierra con el mismo CAS con que la vacía, de modo
+ * que una escritura concurrente nunca se cuenta dos veces ni se queda sin descontar.
+ */
+@Component
+@Slf4j
+public class RecentMessagesCache {
+
+    // Coste fijo estimado por entrada (objetos, cabeceras y referencias) además de los textos
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final int capacity;
+    private final long memoryBudgetBytes;
+
+    private final Map<String, Ring> rooms = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Crea la caché.
+     *
+     * @param capacity        Mensajes por sala (chat.recent.capacity), redondeado a potencia de dos.
+     * @param memoryBudgetMb  Presupuesto global de memoria en MB (chat.recent.memory-budget-mb).
+     */
+    public RecentMessagesCache(@Value("${chat.recent.capacity:64}") int capacity,
+                               @Value("${chat.recent.memory-budget-mb:64}") long memoryBudgetMb) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.memoryBudgetBytes = memoryBudgetMb * 1024 * 1024;
+    }
+
+    /**
+     * Añade un mensaje recién entregado al buffer de su sala.
+     *
+     * @param message Mensaje persistido.
+     * @param json    Evento ya serializado tal como se envió a la sala.
+     */
+    public void append(ChatMessageDto message, String json) {
+        Ring ring = rooms.computeIfAbsent(message.room(), room -> new Ring(capacity));
+        ring.touch();
+        long delta = ring.append(new Entry(message, json, estimateBytes(message, json)));
+        if (!ring.charge(delta)) {
+            // La sala se descartó mientras se escribía: sus bytes ya no cuentan
+            return;
+        }
+        if (usedBytes.addAndGet(delta) > memoryBudgetBytes) {
+            evictColdRooms();
+        }
+    }
+
+    /**
+     * Descarta el buffer de una sala. Se usa cuando un mensaje persistido no pudo entrar en él
+     * (por ejemplo, si falló su serialización): sin el descarte, el buffer serviría un historial con huecos.
+     *
+     * @param room Sala.
+     */
+    public void invalidate(String room) {
+        Ring ring = rooms.remove(room);
+        if (ring != null) {
+            usedBytes.addAndGet(-ring.release());
+            log.debug("[Chat] Sala {} invalidada en la caché de mensajes recientes", room);
+        }
+    }
+
+    /**
+     * Devuelve los {@code count} mensajes más recientes de la sala anteriores al cursor, del más nuevo
+     * al más antiguo, solo si el buffer cubre todo el rango pedido.
+     *
+     * @param room   Sala.
+     * @param before Posición a partir de la cual leer hacia atrás, o {@code null} para los más recientes.
+     * @param count  Número de mensajes.
+     * @return Mensajes, o {@code null} si el buffer no cubre el rango (hay que ir a la base de datos).
+     */
+    public List<ChatMessageDto> before(String room, SeekCursor before, int count) {
+        List<Entry> entries = entriesBefore(room, before, count);
+        return entries == null ? null : entries.stream().map(Entry::message).toList();
+    }
+
+    /**
+     * Devuelve los eventos serializados de los últimos mensajes de la sala, del más antiguo al más nuevo,
+     * para reenviarlos a quien se une a ella.
+     *
+     * @param room  Sala.
+     * @param count Número máximo de mensajes.
+     * @return Eventos serializados (puede tener menos de {@code count}, o estar vacío).
+     */
+    public List<String> recentJson(String room, int count) {
+        Ring ring = rooms.get(room);
+        if (ring == null) {
+            return List.of();
+        }
+        ring.touch();
+        List<Entry> entries = ring.newestFirst(count);
+        List<String> json = new ArrayList<>(entries.size());
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            json.add(entries.get(i).json());
+        }
+        return json;
+    }
+
+    /**
+     * Bytes estimados que ocupan ahora todas las salas.
+     *
+     * @return Bytes usados.
+     */
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Número de salas en memoria.
+     *
+     * @return Salas cacheadas.
+     */
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Lee hacia atrás desde el cursor; {@code null} si el buffer no contiene el rango completo.
+     */
+    private List<Entry> entriesBefore(String room, SeekCursor before, int count) {
+        Ring ring = rooms.get(room);
+        if (ring == null) {
+            return null;
+        }
+        ring.touch();
+        List<Entry> newest = ring.newestFirst(capacity);
+        int start = 0;
+        if (before != null) {
+            while (start < newest.size() && !isBefore(newest.get(start).message(), before)) {
+                start++;
+            }
+            // El mensaje del cursor debe estar en el buffer; si no, el rango puede tener huecos
+            if (start == 0 || start == newest.size()) {
+                return null;
+            }
+        }
+        if (newest.size() - start < count) {
+            return null;
+        }
+        return newest.subList(start, start + count);
+    }
+
+    /**
+     * Indica si el mensaje va antes que la posición del cursor en el orden (createdAt, id).
+     */
+    private static boolean isBefore(ChatMessageDto message, SeekCursor cursor) {
+        int byTime = message.createdAt().compareTo(cursor.timestamp());
+        return byTime < 0 || byTime == 0 && message.seq() < cursor.id();
+    }
+
+    /**
+     * Descarta las salas menos usadas recientemente hasta volver por debajo del presupuesto.
+     */
+    private void evictColdRooms() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Se ordena por una copia del último acceso: el campo cambia mientras se ordena y
+            // rompería el contrato del comparador
+            List<ColdCandidate> byAccess = new ArrayList<>(rooms.size());
+            rooms.forEach((room, ring) -> byAccess.add(new ColdCandidate(room, ring, ring.lastAccess)));
+            byAccess.sort(Comparator.comparingLong(ColdCandidate::lastAccess));
+            for (ColdCandidate cold : byAccess) {
+                if (usedBytes.get() <= memoryBudgetBytes) {
+                    break;
+                }
+                if (rooms.remove(cold.room(), cold.ring())) {
+                    usedBytes.addAndGet(-cold.ring().release());
+                    log.debug("[Chat] Sala {} descartada de la caché de mensajes recientes", cold.room());
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Sala candidata a descarte con el último acceso leído al empezar la expulsión.
+     */
+    private record ColdCandidate(String room, Ring ring, long lastAccess) {
+    }
+
+    /**
+     * Tamaño aproximado en memoria de una entrada (los String de Java usan hasta 2 bytes por carácter).
+     */
+    private static int estimateBytes(ChatMessageDto message, String json) {
+        int text = json.length() + message.content().length() + message.room().length() + message.senderUsername().length();
+        return ENTRY_OVERHEAD_BYTES + 2 * text;
+    }
+
+    /**
+     * Mensaje cacheado junto con su evento serializado y su tamaño estimado.
+     */
+    private record Entry(ChatMessageDto message, String json, int bytes) {
+    }
+
+    /**
+     * Buffer circular sin bloqueos de una sala.
+     */
+    private static final class Ring {
+
+        private final AtomicReferenceArray<Slot> slots;
+        private final int mask;
+
+        // Posición de la siguiente escritura (número total de mensajes añadidos)
+        private final AtomicLong head = new AtomicLong();
+
+        // Bytes sumados al total de la caché; EVICTED cuando la sala ya se descartó
+        private static final long EVICTED = Long.MIN_VALUE;
+        private final AtomicLong charged = new AtomicLong();
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        /**
+         * Publica la entrada en el siguiente hueco.
+         *
+         * @return Variación de bytes (entrada nueva menos la sobrescrita).
+         */
+        private long append(Entry entry) {
+            long position = head.getAndIncrement();
+            Slot previous = slots.getAndSet((int) (position & mask), new Slot(position, entry));
+            return entry.bytes() - (previous == null ? 0 : previous.entry().bytes());
+        }
+
+        /**
+         * Lee hasta {@code count} entradas, de la más nueva a la más antigua. Se detiene en la primera
+         * posición aún no publicada o ya sobrescrita, para devolver siempre un tramo contiguo.
+         */
+        private List<Entry> newestFirst(int count) {
+            long end = head.get();
+            long start = Math.max(0, end - Math.min(count, slots.length()));
+            List<Entry> entries = new ArrayList<>((int) (end - start));
+            for (long position = end - 1; position >= start; position--) {
+                Slot slot = slots.get((int) (position & mask));
+                if (slot == null || slot.position() != position) {
+                    break;
+                }
+                entries.add(slot.entry());
+            }
+            return entries;
+        }
+
+        /**
+         * Suma la variación de bytes a la cuenta de la sala.
+         *
+         * @return {@code false} si la sala ya se descartó (la variación no debe sumarse al total).
+         */
+        private boolean charge(long delta) {
+            long current;
+            do {
+                current = charged.get();
+                if (current == EVICTED) {
+                    return false;
+                }
+            } while (!charged.compareAndSet(current, current + delta));
+            return true;
+        }
+
+        /**
+         * Marca la sala como descartada.
+         *
+         * @return Bytes que había sumado al total y que hay que descontar.
+         */
+        private long release() {
+            long released = charged.getAndSet(EVICTED);
+            return released == EVICTED ? 0 : released;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * Hueco del buffer: la entrada y la posición absoluta con la que se escribió.
+     */
+    private record Slot(long position, Entry entry) {
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Analizador de texto para la búsqueda de mensajes, pensado para español e inglés.
+ *
+ * Pasos: minúsculas, eliminación de tildes y diéresis (la ñ se conserva), separación por cualquier carácter
+ * que no sea letra o dígito, descarte de palabras vacías de ambos idiomas y una reducción ligera de
+ * plurales ("canciones" y "cancion" dan el mismo término). Se aplica igual al indexar y al buscar.
+ */
+final class TextAnalyzer {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    // Set.copyOf admite repetidos entre las dos listas
+    private static final Set<String> STOP_WORDS = Set.copyOf(List.of(
+            // Español
+            "de", "la", "que", "el", "en", "los", "del", "se", "las", "por", "un", "para", "con", "no", "una",
+            "su", "al", "lo", "como", "mas", "pero", "sus", "le", "ya", "fue", "este", "ha", "si", "porque",
+            "esta", "son", "entre", "cuando", "muy", "sin", "sobre", "ser", "tambien", "me", "hasta", "hay",
+            "donde", "han", "quien", "desde", "todo", "nos", "durante", "uno", "les", "ni", "contra", "otros",
+            "ese", "eso", "te", "mi", "es", "yo", "tu", "ti", "estan", "estoy",
+            // Inglés
+            "the", "and", "of", "to", "in", "is", "it", "that", "for", "on", "was", "with", "as", "at", "be",
+            "by", "this", "are", "or", "an", "from", "but", "not", "have", "has", "had", "you", "we", "they",
+            "he", "she", "his", "her", "its", "our", "their", "my", "me", "do", "does", "did", "so", "if",
+            "than", "then", "there", "what", "which", "who", "will", "would", "can", "could", "just", "am"));
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Divide el texto en términos normalizados, en el orden en que aparecen (con repeticiones).
+     *
+     * @param text Texto a analizar.
+     * @return Términos resultantes.
+     */
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String normalized = foldAccents(text.toLowerCase(Locale.ROOT));
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= normalized.length(); i++) {
+            char c = i < normalized.length() ? normalized.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (!token.isEmpty()) {
+                addTerm(terms, token.toString());
+                token.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String token) {
+        if (token.length() < MIN_TOKEN_LENGTH || token.length() > MAX_TOKEN_LENGTH || STOP_WORDS.contains(token)) {
+            return;
+        }
+        terms.add(stem(token));
+    }
+
+    /**
+     * Quita tildes y diéresis descomponiendo el texto (NFD) y eliminando las marcas, salvo la de la ñ.
+     */
+    private static String foldAccents(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (c == '\u0303' && i > 0 && decomposed.charAt(i - 1) == 'n') {
+                folded.setCharAt(folded.length() - 1, 'ñ');
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Reducción ligera de plurales en español e inglés; los términos cortos o numéricos no se tocan.
+     */
+    private static String stem(String token) {
+        if (token.length() <= 4 || Character.isDigit(token.charAt(token.length() - 1))) {
+            return token;
+        }
+        if (token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.endsWith("ces")) {
+            // luces -> luz
+            return token.substring(0, token.length() - 3) + "z";
+        }
+        if (token.endsWith("iones") || token.endsWith("ores") || token.endsWith("ales") || token.endsWith("eles")) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us") && !token.endsWith("is")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.proyectoauth.rest.inbox.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un evento entregable guardado en la bandeja de entrada de un usuario.
+ *
+ * <p>
+ * Cada usuario tiene su propia secuencia monótona ({@code seq}); al reconectar, el cliente indica el último
+ * número recibido y solo se le reenvían los posteriores. Las filas se escriben y leen con
+ * {@link org.example.proyectoauth.rest.inbox.repositories.InboxStore}; la entidad define la tabla.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "USER_INBOX", indexes = {
+        // Reanudación: eventos de un usuario posteriores a un número de secuencia
+        @Index(name = "idx_user_inbox_user_seq", columnList = "userId, seq", unique = true)
+})
+public class InboxEvent {
+
+    /**
+     * Identificador interno de la fila.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Usuario destinatario.
+     */
+    @Column(nullable = false)
+    private Long userId;
+
+    /**
+     * Número de secuencia del evento dentro de la bandeja del usuario.
+     */
+    @Column(nullable = false)
+    private Long seq;
+
+    /**
+     * Contenido del evento en JSON.
+     */
+    @Column(nullable = false, length = 8000)
+    private String payload;
+
+    /**
+     * Fecha y hora en que se guardó el evento.
+     */
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,44 @@
+package org.example.proyectoauth.rest.inbox.repositories;
+
+import org.example.proyectoauth.rest.inbox.model.InboxEvent;
+
+import java.util.List;
+
+/**
+ * Almacén de las bandejas de entrada de los usuarios.
+ */
+public interface InboxStore {
+
+    /**
+     * Guarda un evento ya numerado.
+     *
+     * @param event Evento con usuario, secuencia y contenido.
+     */
+    void append(InboxEvent event);
+
+    /**
+     * Devuelve los eventos de un usuario posteriores a una secuencia, en orden.
+     *
+     * @param userId   Usuario.
+     * @param afterSeq Último número de secuencia recibido por el cliente.
+     * @param limit    Número máximo de eventos.
+     * @return Eventos encontrados.
+     */
+    List<InboxEvent> findAfter(Long userId, long afterSeq, int limit);
+
+    /**
+     * Último número de secuencia usado para un usuario.
+     *
+     * @param userId Usuario.
+     * @return Última secuencia, o 0 si la bandeja está vacía.
+     */
+    long maxSeq(Long userId);
+
+    /**
+     * Elimina los eventos de un usuario con secuencia menor o igual que la indicada.
+     *
+     * @param userId Usuario.
+     * @param upToSeq Última secuencia a eliminar.
+     */
+    void deleteUpTo(Long userId, long upToSeq);
+}
@@ -0,0 +1,63 @@
+package org.example.proyectoauth.rest.inbox.repositories;
+
+import org.example.proyectoauth.rest.inbox.model.InboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Implementación de {@link InboxStore} con JDBC sobre la tabla {@code USER_INBOX}.
+ */
+@Repository
+public class JdbcInboxStore implements InboxStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor con inyección del {@link JdbcTemplate}.
+     *
+     * @param jdbcTemplate Plantilla JDBC sobre el datasource de la aplicación.
+     */
+    @Autowired
+    public JdbcInboxStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void append(InboxEvent event) {
+        jdbcTemplate.update("INSERT INTO USER_INBOX (user_id, seq, payload, created_at) VALUES (?, ?, ?, ?)",
+                event.getUserId(), event.getSeq(), event.getPayload(), Timestamp.valueOf(event.getCreatedAt()));
+    }
+
+    @Override
+    public List<InboxEvent> findAfter(Long userId, long afterSeq, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, user_id, seq, payload, created_at FROM USER_INBOX WHERE user_id = ? AND seq > ? ORDER BY seq",
+                statement -> {
+                    statement.setLong(1, userId);
+                    statement.setLong(2, afterSeq);
+                    statement.setMaxRows(limit);
+                },
+                (rs, rowNum) -> InboxEvent.builder()
+                        .id(rs.getLong("id"))
+                        .userId(rs.getLong("user_id"))
+                        .seq(rs.getLong("seq"))
+                        .payload(rs.getString("payload"))
+                        .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                        .build());
+    }
+
+    @Override
+    public long maxSeq(Long userId) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM USER_INBOX WHERE user_id = ?", Long.class, userId);
+        return max == null ? 0 : max;
+    }
+
+    @Override
+    public void deleteUpTo(Long userId, long upToSeq) {
+        jdbcTemplate.update("DELETE FROM USER_INBOX WHERE user_id = ? AND seq <= ?", userId, upToSeq);
+    }
+}
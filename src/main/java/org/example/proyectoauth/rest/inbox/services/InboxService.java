@@ -0,0 +1,48 @@
+package org.example.proyectoauth.rest.inbox.services;
+
+import org.example.proyectoauth.rest.inbox.model.InboxEvent;
+
+import java.util.List;
+
+/**
+ * Servicio de bandejas de entrada duraderas por usuario.
+ *
+ * Además de la bandeja de cada usuario hay una común, {@link #BROADCAST}, con las difusiones globales:
+ * se guardan una sola vez, con su propia numeración, en lugar de copiarse en la bandeja de cada usuario.
+ */
+public interface InboxService {
+
+    /**
+     * Bandeja común de las difusiones globales. Los ids de usuario empiezan en 1.
+     */
+    long BROADCAST = 0L;
+
+    /**
+     * Asigna el siguiente número de secuencia del usuario al evento, lo guarda y lo entrega.
+     * La numeración, el guardado y la entrega se hacen en orden para cada usuario.
+     *
+     * @param userId   Usuario destinatario.
+     * @param payload  Contenido del evento en JSON.
+     * @param delivery Entrega en vivo del evento ya numerado.
+     * @return Número de secuencia asignado.
+     */
+    long append(Long userId, String payload, Delivery delivery);
+
+    /**
+     * Devuelve los eventos guardados posteriores a la secuencia indicada.
+     *
+     * @param userId   Usuario.
+     * @param afterSeq Último número de secuencia recibido por el cliente.
+     * @param limit    Número máximo de eventos.
+     * @return Eventos del hueco, en orden.
+     */
+    List<InboxEvent> findAfter(Long userId, long afterSeq, int limit);
+
+    /**
+     * Entrega en vivo de un evento ya numerado.
+     */
+    @FunctionalInterface
+    interface Delivery {
+        void deliver(long seq, String payload);
+    }
+}
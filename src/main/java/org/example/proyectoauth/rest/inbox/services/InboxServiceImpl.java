@@ -0,0 +1,84 @@
+package org.example.proyectoauth.rest.inbox.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.rest.inbox.model.InboxEvent;
+import org.example.proyectoauth.rest.inbox.repositories.InboxStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación de {@link InboxService}.
+ *
+ * El siguiente número de secuencia de cada usuario se mantiene en memoria y se inicializa con el máximo
+ * guardado la primera vez que se usa, así que solo se consulta la base de datos una vez por usuario.
+ * Cada bandeja conserva como máximo {@code inbox.max-per-user} eventos: cada cierto número de inserciones
+ * se eliminan los más antiguos, de modo que un cliente que vuelva tras mucho tiempo debe resincronizar.
+ */
+@Service
+@Slf4j
+public class InboxServiceImpl implements InboxService {
+
+    private final InboxStore store;
+    private final int maxPerUser;
+    private final int pruneEvery;
+
+    private final Map<Long, Sequence> sequences = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor con inyección del almacén y de la retención.
+     *
+     * @param store      Almacén de las bandejas.
+     * @param maxPerUser Eventos conservados por usuario (inbox.max-per-user).
+     */
+    @Autowired
+    public InboxServiceImpl(InboxStore store, @Value("${inbox.max-per-user:1000}") int maxPerUser) {
+        this.store = store;
+        this.maxPerUser = maxPerUser;
+        this.pruneEvery = Math.max(1, maxPerUser / 10);
+    }
+
+    @Override
+    public long append(Long userId, String payload, Delivery delivery) {
+        Sequence sequence = sequences.computeIfAbsent(userId, id -> new Sequence(store.maxSeq(id)));
+        // Bloqueo por usuario: el orden de entrega en vivo coincide con el de la secuencia
+        synchronized (sequence) {
+            // La secuencia solo avanza si el evento se guardó, para no dejar huecos en la bandeja
+            long seq = sequence.last + 1;
+            store.append(InboxEvent.builder()
+                    .userId(userId)
+                    .seq(seq)
+                    .payload(payload)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            sequence.last = seq;
+            if (seq % pruneEvery == 0 && seq > maxPerUser) {
+                store.deleteUpTo(userId, seq - maxPerUser);
+            }
+            delivery.deliver(seq, payload);
+            return seq;
+        }
+    }
+
+    @Override
+    public List<InboxEvent> findAfter(Long userId, long afterSeq, int limit) {
+        return store.findAfter(userId, afterSeq, limit);
+    }
+
+    /**
+     * Último número de secuencia usado por un usuario.
+     */
+    private static final class Sequence {
+
+        private long last;
+
+        private Sequence(long last) {
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.proyectoauth.rest.presence.controllers;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.rest.presence.dto.PresenceResponseDto;
+import org.example.proyectoauth.rest.presence.exceptions.PresenceQueryTooLarge;
+import org.example.proyectoauth.rest.presence.services.PresenceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static org.example.proyectoauth.config.security.SecurityUtils.getCurrentUsername;
+
+@RestController
+@Slf4j
+@RequestMapping("${api.version}/presence")
+@PreAuthorize("hasRole('USER')")
+@Tag(name = "Presence", description = "Endpoint para consultar qué usuarios están conectados")
+public class PresenceRestController {
+
+    // Ids máximos por consulta
+    private static final int MAX_IDS = 1000;
+
+    private final PresenceService presenceService;
+
+    @Autowired
+    public PresenceRestController(PresenceService presenceService) {
+        this.presenceService = presenceService;
+    }
+
+    /**
+     * Devuelve cuáles de los usuarios indicados están conectados.
+     * Los cambios posteriores llegan por WebSocket suscribiéndose al topic {@code presence}.
+     *
+     * @param ids Ids de usuario a consultar (máximo 1000), por ejemplo {@code ?ids=1,2,3}.
+     * @return Ids conectados.
+     */
+    @GetMapping
+    public ResponseEntity<PresenceResponseDto> online(@RequestParam List<Long> ids) {
+        log.info("[USER: {}] consultó la presencia de {} usuarios", getCurrentUsername(), ids.size());
+        if (ids.size() > MAX_IDS) {
+            throw new PresenceQueryTooLarge(MAX_IDS);
+        }
+        return ResponseEntity.ok(new PresenceResponseDto(presenceService.onlineAmong(ids)));
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.proyectoauth.rest.presence.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de una consulta de presencia: de los ids consultados, los que están conectados.
+ *
+ * @param online Ids conectados, en el orden de la consulta.
+ */
+public record PresenceResponseDto(
+        List<Long> online
+) {
+}
@@ -0,0 +1,20 @@
+package org.example.proyectoauth.rest.presence.exceptions;
+
+/**
+ * Clase base abstracta para las excepciones del servicio de presencia.
+ *
+ * <p>
+ * Extiende {@link RuntimeException}; todas las excepciones de presencia deben heredar de esta clase.
+ * </p>
+ */
+public abstract class PresenceException extends RuntimeException {
+
+    /**
+     * Constructor que permite establecer un mensaje descriptivo para la excepción.
+     *
+     * @param message Mensaje que describe el motivo de la excepción.
+     */
+    public PresenceException(String message) {
+        super(message);
+    }
+}
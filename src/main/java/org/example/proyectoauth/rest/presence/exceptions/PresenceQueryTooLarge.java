@@ -0,0 +1,24 @@
+package org.example.proyectoauth.rest.presence.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción que se lanza cuando una consulta de presencia pide más usuarios de los permitidos.
+ *
+ * <p>
+ * Está anotada con {@code @ResponseStatus(HttpStatus.BAD_REQUEST)}, por lo que devuelve un 400.
+ * </p>
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class PresenceQueryTooLarge extends PresenceException {
+
+    /**
+     * Constructor con el número máximo de ids admitidos.
+     *
+     * @param max Máximo de ids por consulta.
+     */
+    public PresenceQueryTooLarge(int max) {
+        super("Se pueden consultar como máximo " + max + " usuarios a la vez");
+    }
+}
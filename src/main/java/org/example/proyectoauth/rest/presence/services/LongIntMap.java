@@ -0,0 +1,192 @@
+package org.example.proyectoauth.rest.presence.services;
+
+/**
+ * Mapa {@code long -> int} de direccionamiento abierto (sondeo lineal) sin objetos por entrada:
+ * claves y valores viven en dos arrays primitivos, sin boxing de {@code Long}/{@code Integer}.
+ *
+ * El valor 0 marca un hueco libre, así que solo admite valores distintos de 0. Los borrados desplazan
+ * hacia atrás las entradas siguientes del mismo tramo, de modo que no quedan lápidas. No es seguro
+ * para hilos: lo protege el cerrojo de {@link PresenceService}.
+ */
+class LongIntMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Crea el mapa con espacio para {@code expected} entradas sin redimensionar.
+     *
+     * @param expected Número de entradas esperado.
+     */
+    LongIntMap(int expected) {
+        allocate(Integer.highestOneBit(Math.max(4, (int) (expected / LOAD_FACTOR)) - 1) << 1);
+    }
+
+    /**
+     * Devuelve el valor de la clave.
+     *
+     * @param key Clave.
+     * @return Valor, o 0 si la clave no está.
+     */
+    int get(long key) {
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            if (values[i] == 0) {
+                return 0;
+            }
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+    }
+
+    /**
+     * Suma uno al valor de la clave, insertándola con 1 si no estaba.
+     *
+     * @param key Clave.
+     * @return Nuevo valor.
+     */
+    int increment(long key) {
+        int i = index(key);
+        while (values[i] != 0) {
+            if (keys[i] == key) {
+                return ++values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        insertAt(i, key, 1);
+        return 1;
+    }
+
+    /**
+     * Resta uno al valor de la clave y la elimina si llega a 0.
+     *
+     * @param key Clave.
+     * @return Nuevo valor (0 si se eliminó), o -1 si la clave no estaba.
+     */
+    int decrement(long key) {
+        for (int i = index(key); values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                int updated = values[i] - 1;
+                if (updated == 0) {
+                    removeAt(i);
+                } else {
+                    values[i] = updated;
+                }
+                return updated;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Inserta la clave solo si no estaba.
+     *
+     * @param key   Clave.
+     * @param value Valor (distinto de 0).
+     * @return {@code true} si se insertó.
+     */
+    boolean putIfAbsent(long key, int value) {
+        int i = index(key);
+        while (values[i] != 0) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        insertAt(i, key, value);
+        return true;
+    }
+
+    /**
+     * Recorre todas las entradas, sin orden definido.
+     *
+     * @param visitor Receptor de cada entrada.
+     */
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != 0) {
+                visitor.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Número de entradas.
+     *
+     * @return Entradas del mapa.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Receptor de las entradas de {@link #forEach}.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        void accept(long key, int value);
+    }
+
+    private void insertAt(int i, long key, int value) {
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            resize();
+        }
+    }
+
+    /**
+     * Elimina la entrada del hueco {@code hole} y adelanta las siguientes del tramo cuyo hueco ideal
+     * no está entre el hueco libre y su posición actual.
+     */
+    private void removeAt(int hole) {
+        values[hole] = 0;
+        size--;
+        for (int j = (hole + 1) & mask; values[j] != 0; j = (j + 1) & mask) {
+            int ideal = index(keys[j]);
+            boolean staysInPlace = hole <= j ? hole < ideal && ideal <= j : hole < ideal || ideal <= j;
+            if (!staysInPlace) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                values[j] = 0;
+                hole = j;
+            }
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldValues.length << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int j = index(oldKeys[i]);
+                while (values[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Hueco ideal de la clave; el multiplicador reparte los ids consecutivos por toda la tabla.
+     */
+    private int index(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,211 @@
+package org.example.proyectoauth.rest.presence.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Servicio de presencia: qué usuarios tienen al menos una sesión WebSocket abierta.
+ *
+ * El estado es un contador de dispositivos por usuario conectado, en un mapa primitivo {@code long -> int}
+ * de direccionamiento abierto ({@link LongIntMap}): un usuario pasa a desconectado solo cuando cierra
+ * su última sesión. Consultar un id cuesta un sondeo en dos arrays primitivos, sin boxing, y la memoria
+ * es proporcional a los usuarios conectados (no al mayor id, como lo sería un mapa de bits).
+ *
+ * Los cambios no se publican uno a uno: en cada tick se envía un único delta
+ * {@code {"type":"presence","online":[...],"offline":[...]}} con los usuarios cuyo estado final difiere
+ * del publicado en el tick anterior (conectar y desconectar dentro del mismo tick no genera nada).
+ * Nunca se envía el estado completo: quien lo necesite lo consulta por REST.
+ */
+@Service
+@Slf4j
+public class PresenceService {
+
+    /**
+     * Topic WebSocket al que se suscriben los observadores de presencia.
+     */
+    public static final String TOPIC = "presence";
+
+    // Estado publicado de un usuario en changedSince (el 0 está reservado para los huecos libres)
+    private static final int WAS_OFFLINE = 1;
+    private static final int WAS_ONLINE = 2;
+
+    private final long tickMillis;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Sesiones abiertas por usuario conectado
+    private final LongIntMap devices = new LongIntMap(1024);
+    // Estado publicado (WAS_ONLINE / WAS_OFFLINE) de los usuarios que cambiaron desde el último tick
+    private LongIntMap changedSince = new LongIntMap(64);
+
+    private volatile Consumer<Map<String, Object>> publisher;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Crea el servicio.
+     *
+     * @param tickMillis Intervalo de publicación de deltas (presence.tick-ms).
+     */
+    public PresenceService(@Value("${presence.tick-ms:1000}") long tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Arranca el tick de publicación.
+     */
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presence-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene el tick de publicación.
+     */
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Fija el destino de los deltas (normalmente, el topic {@link #TOPIC} del canal WebSocket).
+     *
+     * @param publisher Receptor de cada delta.
+     */
+    public void setPublisher(Consumer<Map<String, Object>> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Anota una sesión abierta del usuario.
+     *
+     * @param userId Id del usuario.
+     */
+    public void connected(Long userId) {
+        lock.writeLock().lock();
+        try {
+            if (devices.increment(userId) == 1) {
+                changedSince.putIfAbsent(userId, WAS_OFFLINE);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Anota una sesión cerrada del usuario.
+     *
+     * @param userId Id del usuario.
+     */
+    public void disconnected(Long userId) {
+        lock.writeLock().lock();
+        try {
+            // -1 si el usuario no estaba conectado: no hay nada que descontar
+            if (devices.decrement(userId) == 0) {
+                changedSince.putIfAbsent(userId, WAS_ONLINE);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si un usuario está conectado.
+     *
+     * @param userId Id del usuario.
+     * @return {@code true} si tiene alguna sesión abierta.
+     */
+    public boolean isOnline(Long userId) {
+        lock.readLock().lock();
+        try {
+            return devices.get(userId) > 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve cuáles de los ids dados están conectados, con una sola toma del cerrojo.
+     *
+     * @param userIds Ids a consultar.
+     * @return Ids conectados, en el orden recibido.
+     */
+    public List<Long> onlineAmong(List<Long> userIds) {
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long userId : userIds) {
+                if (userId != null && devices.get(userId) > 0) {
+                    result.add(userId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Número de usuarios conectados.
+     *
+     * @return Usuarios con alguna sesión abierta.
+     */
+    public int onlineCount() {
+        lock.readLock().lock();
+        try {
+            return devices.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Publica el delta acumulado desde el tick anterior.
+     */
+    private void tick() {
+        try {
+            List<Long> nowOnline = new ArrayList<>();
+            List<Long> nowOffline = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                LongIntMap changed = changedSince;
+                changedSince = new LongIntMap(64);
+                changed.forEach((userId, published) -> {
+                    boolean current = devices.get(userId) > 0;
+                    if (current != (published == WAS_ONLINE)) {
+                        (current ? nowOnline : nowOffline).add(userId);
+                    }
+                });
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Consumer<Map<String, Object>> target = publisher;
+            if (target == null || nowOnline.isEmpty() && nowOffline.isEmpty()) {
+                return;
+            }
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("type", "presence");
+            delta.put("online", nowOnline);
+            delta.put("offline", nowOffline);
+            target.accept(delta);
+        } catch (RuntimeException e) {
+            log.error("[WS] Error al publicar el delta de presencia: {}", e.getMessage());
+        }
+    }
+}
@@ -4,18 +4,23 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.example.proyectoauth.config.security.SecurityUtils;
+import org.example.proyectoauth.pageresponse.CursorPage;
 import org.example.proyectoauth.pageresponse.PageResponse;
+import org.example.proyectoauth.rest.users.dto.UserImportReportDto;
 import org.example.proyectoauth.rest.users.dto.UserInfoResponseDto;
 import org.example.proyectoauth.rest.users.dto.UserProfileUpdateDto;
 import org.example.proyectoauth.rest.users.dto.UserRequestDto;
 import org.example.proyectoauth.rest.users.dto.UserResponseDto;
 import org.example.proyectoauth.rest.users.model.User;
+import org.example.proyectoauth.rest.users.services.UserImportService;
 import org.example.proyectoauth.rest.users.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -23,6 +28,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -37,10 +43,12 @@ import static org.example.proyectoauth.config.security.SecurityUtils.getCurrentU
 public class UserRestController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
 
     @Autowired
-    public UserRestController(UserService userService) {
+    public UserRestController(UserService userService, UserImportService userImportService) {
         this.userService = userService;
+        this.userImportService = userImportService;
     }
 
     @GetMapping
@@ -64,6 +72,24 @@ public class UserRestController {
         return ResponseEntity.ok(PageResponse.of(pageResult, sortBy, direction));
     }
 
+    @GetMapping(params = "mode=cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<UserResponseDto>> findAllByCursor(
+            @RequestParam(required = false) Optional<String> username,
+            @RequestParam(required = false) Optional<String> email,
+            @RequestParam(required = false) Optional<Boolean> isActive,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "ASC") String direction) {
+
+        log.info("[ADMIN: {}] solicitó usuarios por cursor con filtros", getCurrentUsername());
+
+        boolean ascending = direction.equalsIgnoreCase(Sort.Direction.ASC.name());
+        int pageSize = Math.max(1, Math.min(size, 100));
+        return ResponseEntity.ok(userService.findAllByCursor(username, email, isActive, sortBy, ascending, cursor, pageSize));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<UserInfoResponseDto> getById(@PathVariable("id") Long id) {
@@ -78,6 +104,21 @@ public class UserRestController {
         return ResponseEntity.status(HttpStatus.CREATED).body(userService.save(user));
     }
 
+    /**
+     * Importación masiva de usuarios desde NDJSON o CSV (según el Content-Type), leída en streaming.
+     * Devuelve los totales y el detalle de las filas que no se crearon.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserImportReportDto> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                           InputStream body) {
+        UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        log.info("[ADMIN: {}] inició una importación masiva de usuarios ({})", getCurrentUsername(), format);
+        return ResponseEntity.ok(userImportService.importUsers(body, format));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<UserResponseDto> putUser(@PathVariable("id") Long id, @RequestBody UserRequestDto user) {
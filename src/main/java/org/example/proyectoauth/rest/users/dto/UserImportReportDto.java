@@ -0,0 +1,23 @@
+package org.example.proyectoauth.rest.users.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de usuarios.
+ *
+ * @param total      Filas leídas.
+ * @param created    Usuarios creados.
+ * @param duplicates Filas descartadas por nombre de usuario o correo repetido.
+ * @param invalid    Filas que no se pudieron leer o validar.
+ * @param failed     Filas que fallaron al cifrar o insertar.
+ * @param errors     Detalle de cada fila no creada, en orden de aparición.
+ */
+public record UserImportReportDto(
+        long total,
+        long created,
+        long duplicates,
+        long invalid,
+        long failed,
+        List<UserImportRowResultDto> errors
+) {
+}
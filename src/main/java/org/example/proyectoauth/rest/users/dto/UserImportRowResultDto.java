@@ -0,0 +1,29 @@
+package org.example.proyectoauth.rest.users.dto;
+
+/**
+ * Fila de una importación masiva que no se pudo crear.
+ *
+ * @param line     Línea del fichero (la cabecera CSV es la línea 1).
+ * @param username Nombre de usuario de la fila, si se pudo leer.
+ * @param status   Motivo del rechazo.
+ * @param message  Detalle del error.
+ */
+public record UserImportRowResultDto(
+        long line,
+        String username,
+        Status status,
+        String message
+) {
+
+    /**
+     * Motivos por los que una fila no se crea.
+     */
+    public enum Status {
+        /** La fila no se pudo leer o no supera las validaciones. */
+        INVALID,
+        /** El nombre de usuario o el correo ya existen, en la base de datos o antes en el mismo fichero. */
+        DUPLICATE,
+        /** Error al cifrar o insertar. */
+        FAILED
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.proyectoauth.rest.users.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción que se lanza cuando el fichero de una importación masiva no se puede procesar en su conjunto:
+ * falta la cabecera CSV, faltan columnas obligatorias o no se puede leer el cuerpo de la petición.
+ *
+ * <p>
+ * Esta excepción está anotada con {@code @ResponseStatus(HttpStatus.BAD_REQUEST)},
+ * por lo que al lanzarse devolverá automáticamente una respuesta HTTP 400 (Bad Request).
+ * </p>
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UserImportFormatInvalid extends UserException {
+
+    /**
+     * Constructor que permite establecer un mensaje descriptivo sobre el error de formato.
+     *
+     * @param message Motivo por el que no se puede procesar el fichero.
+     */
+    public UserImportFormatInvalid(String message) {
+        super(message);
+    }
+}
@@ -33,7 +33,10 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "USERS")
+@Table(name = "USERS", indexes = {
+        // Paginación por clave ordenada por fecha de alta
+        @Index(name = "idx_users_created_id", columnList = "createdAt, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class User implements UserDetails {
 
@@ -99,6 +102,14 @@ public class User implements UserDetails {
     @Column(nullable = false, columnDefinition = "BOOLEAN DEFAULT TRUE")
     private Boolean isActive = true;
 
+    /**
+     * Versión de seguridad del usuario (claim {@code sv} de sus tokens). Solo la escribe
+     * {@code UserSecurityVersions} con una actualización directa, nunca al guardar la entidad.
+     */
+    @Builder.Default
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long securityVersion = 0L;
+
     /**
      * Conjunto de roles asignados al usuario.
      */
@@ -0,0 +1,152 @@
+package org.example.proyectoauth.rest.users.repositories;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.rest.users.model.Role;
+import org.example.proyectoauth.rest.users.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Acceso JDBC para la importación masiva de usuarios.
+ *
+ * - Duplicados: una sola consulta por bloque con todos los nombres y correos del bloque.
+ * - Ids: se reservan todos los del bloque en un único viaje a {@code users_seq}, en lugar de uno por fila.
+ * - Inserción: {@code USERS} y {@code user_roles} en dos {@code executeBatch} dentro de una transacción.
+ */
+@Repository
+@Slf4j
+public class JdbcUserImportRepository {
+
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO USERS (id, name, username, email, password, is_active, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ROLE_SQL = "INSERT INTO user_roles (user_id, roles) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String allocateIdsSql;
+
+    /**
+     * Constructor con inyección del {@link JdbcTemplate}.
+     *
+     * @param jdbcTemplate Plantilla JDBC sobre el datasource de la aplicación.
+     */
+    @Autowired
+    public JdbcUserImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Nombres de usuario y correos ya registrados, en minúsculas.
+     *
+     * @param usernames Nombres de usuario existentes.
+     * @param emails    Correos existentes.
+     */
+    public record ExistingKeys(Set<String> usernames, Set<String> emails) {
+    }
+
+    /**
+     * Busca cuáles de los nombres de usuario y correos del bloque ya existen, sin distinguir mayúsculas
+     * (igual que {@link UserRepository#findByUsernameIgnoreCaseOrEmailIgnoreCase}).
+     *
+     * @param usernames Nombres de usuario del bloque, en minúsculas.
+     * @param emails    Correos del bloque, en minúsculas.
+     * @return Valores del bloque ya registrados.
+     */
+    public ExistingKeys findExisting(Collection<String> usernames, Collection<String> emails) {
+        if (usernames.isEmpty() && emails.isEmpty()) {
+            return new ExistingKeys(Collections.emptySet(), Collections.emptySet());
+        }
+        String sql = "SELECT LOWER(username), LOWER(email) FROM USERS WHERE LOWER(username) IN (" + placeholders(usernames.size())
+                + ") OR LOWER(email) IN (" + placeholders(emails.size()) + ")";
+        List<Object> args = new ArrayList<>(usernames.size() + emails.size());
+        args.addAll(usernames);
+        args.addAll(emails);
+        ExistingKeys existing = new ExistingKeys(new HashSet<>(), new HashSet<>());
+        jdbcTemplate.query(sql, rs -> {
+            existing.usernames().add(rs.getString(1));
+            existing.emails().add(rs.getString(2));
+        }, args.toArray());
+        return existing;
+    }
+
+    /**
+     * Reserva {@code count} ids de la secuencia {@code users_seq} en un solo viaje.
+     *
+     * @param count Número de ids.
+     * @return Ids reservados.
+     */
+    public List<Long> allocateIds(int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(allocateIdsSql(), Long.class, count);
+    }
+
+    /**
+     * Inserta los usuarios (ya con id y contraseña cifrada) y sus roles en una transacción.
+     *
+     * @param users Usuarios a insertar.
+     */
+    @Transactional
+    public void insertAll(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER_SQL, users, users.size(), (statement, user) -> {
+            Timestamp createdAt = Timestamp.valueOf(user.getCreatedAt());
+            statement.setLong(1, user.getId());
+            statement.setString(2, user.getName());
+            statement.setString(3, user.getUsername());
+            statement.setString(4, user.getEmail());
+            statement.setString(5, user.getPassword());
+            statement.setBoolean(6, Boolean.TRUE.equals(user.getIsActive()));
+            statement.setTimestamp(7, createdAt);
+            statement.setTimestamp(8, createdAt);
+        });
+        List<Object[]> roles = new ArrayList<>(users.size());
+        for (User user : users) {
+            for (Role role : user.getRoles()) {
+                roles.add(new Object[]{user.getId(), role.name()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ROLE_SQL, roles);
+        log.debug("Lote de {} usuarios importado", users.size());
+    }
+
+    /**
+     * Elige la consulta de reserva de ids según la base de datos (PostgreSQL en producción, H2 en desarrollo).
+     */
+    private String allocateIdsSql() {
+        String sql = allocateIdsSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            String name = product == null ? "" : product.toLowerCase(Locale.ROOT);
+            if (name.contains("postgres")) {
+                sql = "SELECT nextval('users_seq') FROM generate_series(1, ?)";
+            } else if (name.contains("h2")) {
+                sql = "SELECT NEXT VALUE FOR users_seq FROM SYSTEM_RANGE(1, ?)";
+            } else {
+                throw new IllegalStateException("Reserva de ids no soportada para la base de datos " + product);
+            }
+            allocateIdsSql = sql;
+        }
+        return sql;
+    }
+
+    private static String placeholders(int count) {
+        // IN () no es SQL válido: con la lista vacía se compara con NULL, que nunca coincide
+        return count == 0 ? "NULL" : String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
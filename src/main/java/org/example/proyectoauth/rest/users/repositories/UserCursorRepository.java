@@ -0,0 +1,28 @@
+package org.example.proyectoauth.rest.users.repositories;
+
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.users.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Fragmento de repositorio con la consulta de usuarios paginada por clave (seek).
+ *
+ * <p>Combina los filtros dinámicos ({@link Specification}) con la condición de posición del cursor
+ * y un límite de filas, sin consulta de recuento ni {@code OFFSET}.</p>
+ */
+public interface UserCursorRepository {
+
+    /**
+     * Devuelve los usuarios que cumplen el filtro y van después del cursor en el orden indicado.
+     *
+     * @param spec      Filtros dinámicos.
+     * @param byCreated {@code true} para ordenar por {@code (createdAt, id)}; {@code false} para ordenar por id.
+     * @param ascending Dirección de la ordenación.
+     * @param after     Último usuario de la página anterior, o {@code null} para la primera.
+     * @param limit     Número máximo de filas.
+     * @return Usuarios encontrados.
+     */
+    List<User> findAllAfter(Specification<User> spec, boolean byCreated, boolean ascending, SeekCursor after, int limit);
+}
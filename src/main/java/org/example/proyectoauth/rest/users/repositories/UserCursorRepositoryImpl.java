@@ -0,0 +1,64 @@
+package org.example.proyectoauth.rest.users.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.users.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación de {@link UserCursorRepository} con la API Criteria de JPA.
+ *
+ * <p>La condición de posición es {@code (createdAt, id) > (cursor)} (o {@code <} en orden descendente),
+ * escrita como {@code createdAt > c OR (createdAt = c AND id > i)} para que la use el índice
+ * {@code (created_at, id)}.</p>
+ */
+public class UserCursorRepositoryImpl implements UserCursorRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<User> findAllAfter(Specification<User> spec, boolean byCreated, boolean ascending, SeekCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<User> query = cb.createQuery(User.class);
+        Root<User> root = query.from(User.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filter = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (filter != null) {
+            predicates.add(filter);
+        }
+
+        Path<Long> id = root.get("id");
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        if (after != null) {
+            Predicate idAfter = ascending ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id());
+            if (byCreated) {
+                Predicate createdAfter = ascending
+                        ? cb.greaterThan(createdAt, after.timestamp())
+                        : cb.lessThan(createdAt, after.timestamp());
+                predicates.add(cb.or(createdAfter, cb.and(cb.equal(createdAt, after.timestamp()), idAfter)));
+            } else {
+                predicates.add(idAfter);
+            }
+        }
+
+        query.select(root).where(predicates.toArray(Predicate[]::new));
+        if (byCreated) {
+            query.orderBy(ascending ? cb.asc(createdAt) : cb.desc(createdAt), ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
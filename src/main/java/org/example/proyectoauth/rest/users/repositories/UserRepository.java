@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,10 +15,11 @@ import java.util.Optional;
  * Repositorio para la gestión de la entidad {@link User}.
  *
  * <p>Proporciona métodos personalizados para consultas específicas además de los métodos
- * estándar de {@link JpaRepository} y soporte para criterios dinámicos con {@link JpaSpecificationExecutor}.</p>
+ * estándar de {@link JpaRepository}, soporte para criterios dinámicos con {@link JpaSpecificationExecutor}
+ * y paginación por clave con {@link UserCursorRepository}.</p>
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>, UserCursorRepository {
 
     /**
      * Busca un usuario por su nombre de usuario, sin distinguir entre mayúsculas y minúsculas.
@@ -61,4 +63,40 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     @Modifying
     @Query("UPDATE User p SET p.isActive = false WHERE p.id = :id")
     void updateIsActiveToFalseById(Long id);
+
+    /**
+     * Devuelve los ids de los usuarios inactivos.
+     *
+     * @return Ids de los usuarios con {@code isActive = false}.
+     */
+    @Query("SELECT u.id FROM User u WHERE u.isActive = false")
+    List<Long> findInactiveIds();
+
+    /**
+     * Devuelve la versión de seguridad de un usuario.
+     *
+     * @param id ID del usuario.
+     * @return Versión guardada, o vacío si el usuario no existe.
+     */
+    @Query("SELECT u.securityVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findSecurityVersionById(Long id);
+
+    /**
+     * Devuelve la mayor versión de seguridad guardada.
+     *
+     * @return Versión máxima, o 0 si no hay usuarios.
+     */
+    @Query("SELECT COALESCE(MAX(u.securityVersion), 0) FROM User u")
+    long findMaxSecurityVersion();
+
+    /**
+     * Sube la versión de seguridad de un usuario; nunca la hace retroceder.
+     *
+     * @param id      ID del usuario.
+     * @param version Nueva versión.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.securityVersion = :version WHERE u.id = :id AND u.securityVersion < :version")
+    void raiseSecurityVersion(Long id, long version);
 }
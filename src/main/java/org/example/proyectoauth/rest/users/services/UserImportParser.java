@@ -0,0 +1,168 @@
+package org.example.proyectoauth.rest.users.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.rest.users.dto.UserRequestDto;
+import org.example.proyectoauth.rest.users.exceptions.UserImportFormatInvalid;
+import org.example.proyectoauth.rest.users.model.Role;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lector en streaming de las filas de una importación: una línea cada vez, sin cargar el fichero entero.
+ *
+ * - NDJSON: un objeto {@link UserRequestDto} por línea.
+ * - CSV: primera línea de cabecera con {@code name}, {@code username}, {@code email} y {@code password},
+ *   y opcionalmente {@code roles} (separados por {@code |}) e {@code isActive}. Admite campos entre comillas
+ *   dobles con {@code ""} como comilla escapada, pero no saltos de línea dentro de un campo.
+ *
+ * Las líneas vacías se ignoran. Un error en una fila no detiene la lectura.
+ */
+class UserImportParser {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "username", "email", "password");
+
+    private final BufferedReader reader;
+    private final UserImportService.Format format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> columns;
+    private long line;
+
+    /**
+     * Fila leída: el DTO o el error que impidió construirlo.
+     *
+     * @param line     Línea del fichero.
+     * @param user     Datos de la fila, o {@code null} si no se pudo leer.
+     * @param username Nombre de usuario, si se llegó a leer.
+     * @param error    Error de lectura, o {@code null}.
+     */
+    record Row(long line, UserRequestDto user, String username, String error) {
+    }
+
+    UserImportParser(BufferedReader reader, UserImportService.Format format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Lee la siguiente fila no vacía.
+     *
+     * @return Fila, o {@code null} al final del fichero.
+     */
+    Row next() {
+        String text;
+        try {
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text != null && format == UserImportService.Format.CSV && columns == null) {
+                columns = parseHeader(text);
+                return next();
+            }
+        } catch (IOException e) {
+            throw new UserImportFormatInvalid("No se pudo leer el fichero a partir de la línea " + line + ": " + e.getMessage());
+        }
+        if (text == null) {
+            return null;
+        }
+        return format == UserImportService.Format.CSV ? parseCsv(text) : parseJson(text);
+    }
+
+    private Row parseJson(String text) {
+        try {
+            UserRequestDto user = objectMapper.readValue(text, UserRequestDto.class);
+            return new Row(line, user, user.getUsername(), null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, null, "JSON no válido: " + e.getOriginalMessage());
+        }
+    }
+
+    private Row parseCsv(String text) {
+        List<String> fields = splitCsv(text);
+        String username = field(fields, "username");
+        UserRequestDto user = new UserRequestDto();
+        user.setName(field(fields, "name"));
+        user.setUsername(username);
+        user.setEmail(field(fields, "email"));
+        user.setPassword(field(fields, "password"));
+        try {
+            String roles = field(fields, "roles");
+            if (roles != null && !roles.isBlank()) {
+                Set<Role> parsed = new LinkedHashSet<>();
+                for (String role : roles.split("\\|")) {
+                    if (!role.isBlank()) {
+                        parsed.add(Role.valueOf(role.trim().toUpperCase(Locale.ROOT)));
+                    }
+                }
+                user.setRoles(parsed);
+            }
+        } catch (IllegalArgumentException e) {
+            return new Row(line, null, username, "Rol desconocido en: " + field(fields, "roles"));
+        }
+        String active = field(fields, "isactive");
+        if (active != null && !active.isBlank()) {
+            user.setIsActive("true".equalsIgnoreCase(active.trim()) || "1".equals(active.trim()));
+        }
+        return new Row(line, user, username, null);
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    private static Map<String, Integer> parseHeader(String text) {
+        // Algunas hojas de cálculo anteponen la marca de orden de bytes de UTF-8
+        List<String> names = splitCsv(!text.isEmpty() && text.charAt(0) == '\uFEFF' ? text.substring(1) : text);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "").replace("-", ""), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new UserImportFormatInvalid("Faltan columnas obligatorias en la cabecera CSV: " + missing);
+        }
+        return columns;
+    }
+
+    /**
+     * Separa una línea CSV por comas respetando los campos entre comillas.
+     */
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.proyectoauth.rest.users.services;
+
+import org.example.proyectoauth.rest.users.dto.UserImportReportDto;
+
+import java.io.InputStream;
+
+/**
+ * Interfaz del servicio de importación masiva de usuarios.
+ */
+public interface UserImportService {
+
+    /**
+     * Formatos de fichero admitidos.
+     */
+    enum Format {
+        /** Un objeto JSON por línea ({@code application/x-ndjson}). */
+        NDJSON,
+        /** CSV con cabecera ({@code text/csv}). */
+        CSV
+    }
+
+    /**
+     * Crea los usuarios del fichero por bloques, leyéndolo en streaming.
+     *
+     * Cada bloque se confirma por separado: si la importación se interrumpe, los bloques anteriores quedan creados.
+     *
+     * @param body   Contenido del fichero en UTF-8.
+     * @param format Formato del fichero.
+     * @return Totales y detalle de las filas no creadas.
+     */
+    UserImportReportDto importUsers(InputStream body, Format format);
+}
@@ -0,0 +1,217 @@
+package org.example.proyectoauth.rest.users.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.config.auth.OffloadingPasswordEncoder;
+import org.example.proyectoauth.rest.auth.exceptions.PasswordHashingUnavailable;
+import org.example.proyectoauth.rest.users.dto.UserImportReportDto;
+import org.example.proyectoauth.rest.users.dto.UserImportRowResultDto;
+import org.example.proyectoauth.rest.users.dto.UserImportRowResultDto.Status;
+import org.example.proyectoauth.rest.users.dto.UserRequestDto;
+import org.example.proyectoauth.rest.users.exceptions.UserImportFormatInvalid;
+import org.example.proyectoauth.rest.users.model.Role;
+import org.example.proyectoauth.rest.users.model.User;
+import org.example.proyectoauth.rest.users.repositories.JdbcUserImportRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de {@link UserImportService}.
+ *
+ * El fichero se procesa en bloques de {@code users.import.chunk-size} filas. Por cada bloque:
+ *
+ * 1. Se validan las filas y se descartan los nombres y correos ya vistos antes en el fichero.
+ * 2. Una sola consulta descarta los que ya existen en la base de datos.
+ * 3. Las contraseñas se cifran en paralelo en el pool de cifrado, sin ocuparlo entero.
+ * 4. Los ids del bloque se reservan en un solo viaje a la secuencia y el bloque se inserta por lotes
+ *    en una transacción. Si el lote falla (p. ej. un alta concurrente con el mismo nombre), se reintenta
+ *    fila a fila para aislar la que falla.
+ */
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private final JdbcUserImportRepository repository;
+    private final OffloadingPasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    /**
+     * Constructor de UserImportServiceImpl.
+     *
+     * @param repository      Acceso JDBC para la importación.
+     * @param passwordEncoder Codificador con pool propio, para cifrar cada bloque en paralelo.
+     * @param validator       Validador de los DTOs de usuario.
+     * @param objectMapper    Lector de las líneas NDJSON.
+     * @param chunkSize       Filas por bloque (users.import.chunk-size).
+     */
+    @Autowired
+    public UserImportServiceImpl(JdbcUserImportRepository repository, OffloadingPasswordEncoder passwordEncoder,
+                                 Validator validator, ObjectMapper objectMapper,
+                                 @Value("${users.import.chunk-size:500}") int chunkSize) {
+        this.repository = repository;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Override
+    public UserImportReportDto importUsers(InputStream body, Format format) {
+        Progress progress = new Progress();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            UserImportParser parser = new UserImportParser(reader, format, objectMapper);
+            List<UserImportParser.Row> chunk = new ArrayList<>(chunkSize);
+            UserImportParser.Row row;
+            while ((row = parser.next()) != null) {
+                progress.total++;
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            importChunk(chunk, progress);
+        } catch (IOException e) {
+            throw new UserImportFormatInvalid("No se pudo leer el fichero: " + e.getMessage());
+        }
+        log.info("Importación de usuarios: {} filas, {} creados, {} duplicados, {} no válidos, {} fallidos",
+                progress.total, progress.created, progress.duplicates, progress.invalid, progress.failed);
+        return new UserImportReportDto(progress.total, progress.created, progress.duplicates, progress.invalid,
+                progress.failed, progress.errors);
+    }
+
+    private void importChunk(List<UserImportParser.Row> rows, Progress progress) {
+        List<UserImportParser.Row> candidates = new ArrayList<>(rows.size());
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (UserImportParser.Row row : rows) {
+            if (row.error() != null) {
+                progress.reject(row, Status.INVALID, row.error());
+                continue;
+            }
+            Set<ConstraintViolation<UserRequestDto>> violations = validator.validate(row.user());
+            if (!violations.isEmpty()) {
+                progress.reject(row, Status.INVALID, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            String username = lower(row.user().getUsername());
+            String email = lower(row.user().getEmail());
+            if (progress.seenUsernames.contains(username) || progress.seenEmails.contains(email)) {
+                progress.reject(row, Status.DUPLICATE, "Nombre de usuario o correo repetido en el fichero");
+                continue;
+            }
+            progress.seenUsernames.add(username);
+            progress.seenEmails.add(email);
+            usernames.add(username);
+            emails.add(email);
+            candidates.add(row);
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        JdbcUserImportRepository.ExistingKeys existing = repository.findExisting(usernames, emails);
+        List<UserImportParser.Row> accepted = new ArrayList<>(candidates.size());
+        for (UserImportParser.Row row : candidates) {
+            if (existing.usernames().contains(lower(row.user().getUsername()))
+                    || existing.emails().contains(lower(row.user().getEmail()))) {
+                progress.reject(row, Status.DUPLICATE, "El nombre de usuario o el correo ya existen");
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes;
+        try {
+            hashes = passwordEncoder.encodeAll(accepted.stream().map(row -> row.user().getPassword()).toList());
+        } catch (PasswordHashingUnavailable e) {
+            accepted.forEach(row -> progress.reject(row, Status.FAILED, e.getMessage()));
+            return;
+        }
+        List<Long> ids = repository.allocateIds(accepted.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            UserRequestDto dto = accepted.get(i).user();
+            users.add(User.builder()
+                    .id(ids.get(i))
+                    .name(dto.getName())
+                    .username(dto.getUsername())
+                    .email(dto.getEmail())
+                    .password(hashes.get(i))
+                    .roles(dto.getRoles().isEmpty() ? Set.of(Role.USER) : dto.getRoles())
+                    .isActive(dto.getIsActive())
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+
+        try {
+            repository.insertAll(users);
+            progress.created += users.size();
+        } catch (DataAccessException e) {
+            log.warn("Fallo al insertar un bloque de {} usuarios, se reintenta fila a fila: {}", users.size(),
+                    e.getMostSpecificCause().getMessage());
+            for (int i = 0; i < users.size(); i++) {
+                try {
+                    repository.insertAll(List.of(users.get(i)));
+                    progress.created++;
+                } catch (DataAccessException rowError) {
+                    progress.reject(accepted.get(i), Status.FAILED, rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Totales y errores acumulados de una importación, y los valores ya vistos en el fichero.
+     */
+    private static final class Progress {
+        private final Set<String> seenUsernames = new HashSet<>();
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<UserImportRowResultDto> errors = new ArrayList<>();
+        private long total;
+        private long created;
+        private long duplicates;
+        private long invalid;
+        private long failed;
+
+        private void reject(UserImportParser.Row row, Status status, String message) {
+            switch (status) {
+                case INVALID -> invalid++;
+                case DUPLICATE -> duplicates++;
+                case FAILED -> failed++;
+            }
+            errors.add(new UserImportRowResultDto(row.line(), row.username(), status, message));
+        }
+    }
+}
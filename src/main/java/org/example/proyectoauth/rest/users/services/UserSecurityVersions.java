@@ -0,0 +1,108 @@
+package org.example.proyectoauth.rest.users.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.rest.users.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "Versión de seguridad" de cada usuario, para invalidar tokens sin cargar el usuario en cada petición.
+ *
+ * La versión es un número monotónico que avanza con cada cambio que afecta a la seguridad del usuario
+ * (desactivación, cambio de roles, de nombre de usuario o de contraseña). Cada token lleva en el claim
+ * {@code sv} la versión vigente al emitirlo, y deja de valer en cuanto la versión del usuario la supera
+ * (cuando el principal se construye a partir de los claims, {@code jwt.principal.mode=claims}). A diferencia
+ * de comparar con {@code iat}, que solo tiene precisión de segundos, no hay ventana en la que un token
+ * emitido antes del cambio, en el mismo segundo, siga valiendo.
+ *
+ * La versión se guarda en la fila del usuario ({@code USERS.security_version}), así que un reinicio no
+ * rehabilita tokens revocados. En memoria se guarda la última conocida de cada usuario: se lee de la base de
+ * datos la primera vez que se consulta y se actualiza con cada cambio hecho en esta instancia.
+ *
+ * Las versiones salen de un contador común que arranca en el instante de inicio (en microsegundos) o en la
+ * mayor versión guardada si es superior, de modo que siempre superan a las de tokens ya emitidos.
+ * Al arrancar se marcan además los usuarios inactivos, por si se desactivaron sin pasar por la aplicación.
+ * Los cambios hechos en otra instancia solo se ven aquí tras un reinicio: con varias instancias hay que usar
+ * el modo {@code database}.
+ */
+@Component
+@Slf4j
+public class UserSecurityVersions {
+
+    private final UserRepository userRepository;
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    /**
+     * Constructor con inyección del repositorio de usuarios.
+     *
+     * @param userRepository Repositorio de usuarios.
+     */
+    @Autowired
+    public UserSecurityVersions(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Ajusta el contador a las versiones guardadas y marca los usuarios inactivos al terminar el arranque
+     * (tras la carga de datos inicial).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInactiveUsers() {
+        sequence.accumulateAndGet(userRepository.findMaxSecurityVersion(), Math::max);
+        List<Long> inactive = userRepository.findInactiveIds();
+        // Una versión común basta: ningún token emitido antes del arranque la alcanza
+        long version = sequence.incrementAndGet();
+        inactive.forEach(id -> versions.merge(id, version, Math::max));
+        log.info("Versiones de seguridad inicializadas: {} usuarios inactivos", inactive.size());
+    }
+
+    /**
+     * Invalida los tokens del usuario emitidos hasta ahora y guarda la nueva versión.
+     *
+     * @param userId Id del usuario.
+     */
+    public void bump(Long userId) {
+        long version = sequence.incrementAndGet();
+        // Primero en memoria: desde este momento los tokens anteriores ya no valen en esta instancia
+        versions.merge(userId, version, Math::max);
+        userRepository.raiseSecurityVersion(userId, version);
+    }
+
+    /**
+     * Versión de seguridad vigente del usuario, para el claim {@code sv} de los tokens que se emiten.
+     *
+     * @param userId Id del usuario.
+     * @return Versión vigente, o 0 si el usuario no ha tenido cambios de seguridad.
+     */
+    public long current(Long userId) {
+        if (userId == null) {
+            return 0;
+        }
+        Long known = versions.get(userId);
+        if (known != null) {
+            return known;
+        }
+        // Fuera del mapa para no bloquear otras claves durante la consulta; un bump concurrente gana por el máximo
+        long stored = userRepository.findSecurityVersionById(userId).orElse(0L);
+        return versions.merge(userId, stored, Math::max);
+    }
+
+    /**
+     * Indica si un token del usuario emitido con la versión {@code tokenVersion} sigue vigente.
+     *
+     * @param userId       Id del usuario.
+     * @param tokenVersion Versión del claim {@code sv} del token (0 si no lo incluye).
+     * @return {@code true} si no ha habido cambios de seguridad posteriores a la emisión.
+     */
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        return tokenVersion >= current(userId);
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.proyectoauth.rest.users.services;
 
+import org.example.proyectoauth.pageresponse.CursorPage;
 import org.example.proyectoauth.rest.users.dto.UserInfoResponseDto;
 import org.example.proyectoauth.rest.users.dto.UserProfileUpdateDto;
 import org.example.proyectoauth.rest.users.dto.UserRequestDto;
@@ -28,6 +29,21 @@ public interface UserService {
      */
     Page<UserResponseDto> findAll(Optional<String> username, Optional<String> email, Optional<Boolean> isActive, Pageable pageable);
 
+    /**
+     * Obtiene una página de usuarios por cursor, con los mismos filtros que {@link #findAll}, sin consulta de recuento.
+     *
+     * @param username  Nombre de usuario opcional para filtrar (parcial o completo).
+     * @param email     Email opcional para filtrar.
+     * @param isActive  Estado de activación opcional para filtrar (true o false).
+     * @param sortBy    Campo de ordenación: "id" o "createdAt".
+     * @param ascending Dirección de la ordenación.
+     * @param cursor    Cursor opaco de la página anterior, o {@code null} para la primera.
+     * @param size      Número de usuarios por página.
+     * @return Página de usuarios con el cursor de la siguiente.
+     */
+    CursorPage<UserResponseDto> findAllByCursor(Optional<String> username, Optional<String> email, Optional<Boolean> isActive,
+                                                String sortBy, boolean ascending, String cursor, int size);
+
     /**
      * Busca y devuelve los detalles completos de un usuario a partir de su ID.
      *
@@ -1,6 +1,11 @@
 package org.example.proyectoauth.rest.users.services;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.proyectoauth.pageresponse.CursorPage;
+import org.example.proyectoauth.pageresponse.InvalidCursorException;
+import org.example.proyectoauth.pageresponse.InvalidSortException;
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.auth.services.users.AuthUserService;
 import org.example.proyectoauth.rest.users.dto.UserInfoResponseDto;
 import org.example.proyectoauth.rest.users.dto.UserProfileUpdateDto;
 import org.example.proyectoauth.rest.users.dto.UserRequestDto;
@@ -32,17 +37,24 @@ public class UserServiceImpl implements UserService{
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UserSecurityVersions securityVersions;
+    private final AuthUserService authUserService;
     /**
      * Constructor de UserServiceImpl.
      *
      * @param userRepository     Repositorio de usuarios.
      * @param userMapper         Mapper para convertir entre DTOs y entidades de usuario.
+     * @param securityVersions   Versiones de seguridad, para invalidar los tokens tras cambios sensibles.
+     * @param authUserService    Servicio de autenticación, para descartar su caché de usuarios tras cada cambio.
      */
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, PasswordEncoder passwordEncoder,
+                           UserSecurityVersions securityVersions, AuthUserService authUserService) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
+        this.securityVersions = securityVersions;
+        this.authUserService = authUserService;
     }
 
     /**
@@ -56,6 +68,47 @@ public class UserServiceImpl implements UserService{
      */
     @Override
     public Page<UserResponseDto> findAll(Optional<String> username, Optional<String> email, Optional<Boolean> isActive, Pageable pageable) {
+        return userRepository.findAll(filters(username, email, isActive), pageable).map(userMapper::toUserResponse);
+    }
+
+    /**
+     * Obtiene una página de usuarios por cursor: la consulta parte del último usuario de la página anterior
+     * en lugar de saltar un OFFSET, y se pide una fila más para saber si hay más páginas.
+     *
+     * @param username  Nombre de usuario opcional para filtrar.
+     * @param email     Dirección de correo electrónico opcional para filtrar.
+     * @param isActive  Estado de activación opcional para filtrar.
+     * @param sortBy    Campo de ordenación: "id" o "createdAt".
+     * @param ascending Dirección de la ordenación.
+     * @param cursor    Cursor de la página anterior, o {@code null}.
+     * @param size      Número de usuarios por página.
+     * @return Página de UserResponseDto con el cursor de la siguiente.
+     * @throws InvalidSortException   Si el campo de ordenación no es "id" ni "createdAt".
+     * @throws InvalidCursorException Si el cursor no es válido para esa ordenación.
+     */
+    @Override
+    public CursorPage<UserResponseDto> findAllByCursor(Optional<String> username, Optional<String> email, Optional<Boolean> isActive,
+                                                       String sortBy, boolean ascending, String cursor, int size) {
+        if (!"id".equals(sortBy) && !"createdAt".equals(sortBy)) {
+            throw new InvalidSortException(sortBy);
+        }
+        boolean byCreated = "createdAt".equals(sortBy);
+        SeekCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = SeekCursor.decode(cursor);
+            if (byCreated && after.timestamp() == null) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+        var rows = userRepository.findAllAfter(filters(username, email, isActive), byCreated, ascending, after, size + 1);
+        return CursorPage.of(rows, size, user -> new SeekCursor(byCreated ? user.getCreatedAt() : null, user.getId()).encode())
+                .map(userMapper::toUserResponse);
+    }
+
+    /**
+     * Construye los filtros opcionales por nombre de usuario, correo electrónico y estado de activación.
+     */
+    private Specification<User> filters(Optional<String> username, Optional<String> email, Optional<Boolean> isActive) {
         Specification<User> specUsername = ((root, query, criteriaBuilder) ->
                 username.map(us -> criteriaBuilder.like(criteriaBuilder.lower(root.get("username")), "%" + us.toLowerCase() + "%"))
                         .orElseGet(() -> criteriaBuilder.isTrue(criteriaBuilder.literal(true))));
@@ -65,11 +118,9 @@ public class UserServiceImpl implements UserService{
         Specification<User> specIsActive = ((root, query, criteriaBuilder) ->
                 isActive.map(is -> criteriaBuilder.equal(root.get("isActive"), is))
                         .orElseGet(() -> criteriaBuilder.isTrue(criteriaBuilder.literal(true))));
-        Specification<User> criterial = Specification.where(specUsername)
+        return Specification.where(specUsername)
                 .and(specEmail)
                 .and(specIsActive);
-
-        return userRepository.findAll(criterial,pageable).map(userMapper::toUserResponse);
     }
 
     /**
@@ -125,6 +176,7 @@ public class UserServiceImpl implements UserService{
     public UserResponseDto update(Long id, UserRequestDto userRequestDto) {
         log.info("Actualizando usuario: " + userRequestDto);
         var userfound = userRepository.findById(id).orElseThrow(() -> new UserNotFound("id " + id));
+        String previousUsername = userfound.getUsername();
 
         userRepository.findByUsernameIgnoreCaseOrEmailIgnoreCase(userRequestDto.getUsername(), userRequestDto.getEmail())
                 .ifPresent(user -> {
@@ -132,7 +184,11 @@ public class UserServiceImpl implements UserService{
                         throw new UsernameOrEmailExists(user.getUsername() + "-" + user.getEmail());
                     }
                 });
-        return userMapper.toUserResponse(userRepository.save(userMapper.toUser(userfound,userRequestDto,id)));
+        var saved = userRepository.save(userMapper.toUser(userfound,userRequestDto,id));
+        // Puede cambiar roles, estado o credenciales: los tokens anteriores dejan de valer
+        securityVersions.bump(id);
+        authUserService.invalidate(id, previousUsername);
+        return userMapper.toUserResponse(saved);
     }
     /**
      * Actualiza el perfil de un usuario existente por su identificador único.
@@ -155,14 +211,18 @@ public class UserServiceImpl implements UserService{
                     }
                 });
 
+        String previousUsername = user.getUsername();
+
         // Actualiza solo los campos permitidos
         user.setName(dto.getName());
         user.setUsername(dto.getUsername());
         user.setEmail(dto.getEmail());
         user.setPassword(passwordEncoder.encode(dto.getPassword()));
 
-
-        return userMapper.toUserResponse(userRepository.save(user));
+        var saved = userRepository.save(user);
+        securityVersions.bump(id);
+        authUserService.invalidate(id, previousUsername);
+        return userMapper.toUserResponse(saved);
     }
 
 
@@ -180,5 +240,7 @@ public class UserServiceImpl implements UserService{
 
         user.setIsActive(false);
         userRepository.save(user); //desactivamos el usuario de forma lógica, digamos que lo baneamos
+        securityVersions.bump(id);
+        authUserService.invalidate(id, user.getUsername());
     }
 }
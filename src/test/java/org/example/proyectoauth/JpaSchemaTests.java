@@ -0,0 +1,44 @@
+package org.example.proyectoauth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arranca JPA sobre H2 con todas las entidades: falla si Hibernate no puede generar el esquema
+ * (por ejemplo, un {@code @Index} que nombra una columna que no existe) y comprueba los índices declarados.
+ */
+@DataJpaTest
+class JpaSchemaTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void chatMessagesHistoryIndexExists() {
+        assertIndex("CHAT_MESSAGES", "IDX_CHAT_MESSAGES_ROOM_CREATED_ID");
+    }
+
+    @Test
+    void usersCursorIndexExists() {
+        assertIndex("USERS", "IDX_USERS_CREATED_ID");
+    }
+
+    @Test
+    void inboxResumeIndexExists() {
+        assertIndex("USER_INBOX", "IDX_USER_INBOX_USER_SEQ");
+    }
+
+    /**
+     * Los índices únicos se crean como restricción y H2 añade un sufijo al nombre de su índice.
+     */
+    private void assertIndex(String table, String index) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE UPPER(TABLE_NAME) = ? AND UPPER(INDEX_NAME) LIKE ?",
+                Integer.class, table, index + "%");
+        assertTrue(count != null && count > 0, "índice " + index + " en " + table);
+    }
+}
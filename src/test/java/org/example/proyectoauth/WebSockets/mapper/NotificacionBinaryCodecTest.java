@@ -0,0 +1,86 @@
+package org.example.proyectoauth.WebSockets.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.WebSockets.dto.NotificacionResponseDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificacionBinaryCodecTest {
+
+    private final NotificacionBinaryCodec codec = new NotificacionBinaryCodec(new ObjectMapper());
+
+    @Test
+    void entityIsDefinedOnlyOnce() {
+        List<byte[]> definitions = new ArrayList<>();
+
+        byte[] first = codec.encode(new NotificacionResponseDto("producto", "1"), definitions::add);
+        byte[] second = codec.encode(new NotificacionResponseDto("producto", "2"), definitions::add);
+
+        assertEquals(1, definitions.size());
+        assertEquals(NotificacionBinaryCodec.FRAME_DEFINITION, definitions.get(0)[1]);
+        // Misma entidad: mismo id tras el tipo de trama
+        assertEquals(first[2], second[2]);
+        assertArrayEquals(definitions.get(0), codec.encodeDictionary());
+    }
+
+    @Test
+    void concurrentEncodeWaitsUntilTheDefinitionIsQueued() throws Exception {
+        CountDownLatch defining = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> queued = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<byte[]> creator = CompletableFuture.supplyAsync(() ->
+                codec.encode(new NotificacionResponseDto("pedido", "1"), definition -> {
+                    defining.countDown();
+                    await(release);
+                    queued.add("DEFINICION");
+                }));
+        assertTrue(defining.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<byte[]> other = CompletableFuture.supplyAsync(() -> {
+            byte[] frame = codec.encode(new NotificacionResponseDto("pedido", "2"), definition -> queued.add("DUPLICADA"));
+            queued.add("EVENTO");
+            return frame;
+        });
+
+        // Mientras la DEFINICION no está encolada, el otro hilo no puede usar el id
+        Thread.sleep(100);
+        assertFalse(other.isDone());
+        assertTrue(queued.isEmpty());
+
+        release.countDown();
+        creator.get(5, TimeUnit.SECONDS);
+        other.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("DEFINICION", "EVENTO"), queued);
+    }
+
+    @Test
+    void failedDefinitionIsRetried() {
+        assertThrows(IllegalStateException.class, () -> codec.encode(new NotificacionResponseDto("cliente", "1"),
+                definition -> {
+                    throw new IllegalStateException("fallo simulado");
+                }));
+        assertEquals(0, codec.encodeDictionary().length);
+
+        List<byte[]> definitions = new ArrayList<>();
+        codec.encode(new NotificacionResponseDto("cliente", "2"), definitions::add);
+        assertEquals(1, definitions.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.proyectoauth.config.auth;
+
+import org.example.proyectoauth.rest.auth.exceptions.PasswordHashingUnavailable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OffloadingPasswordEncoderTest {
+
+    // Comprobar este hash ocupa un hilo del pool durante cientos de milisegundos: el coste va en el propio hash
+    private static String slowHash;
+
+    private OffloadingPasswordEncoder encoder;
+
+    @BeforeAll
+    static void createSlowHash() {
+        slowHash = new BCryptPasswordEncoder(12).encode("lenta");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void encodesAndMatchesInThePool() {
+        encoder = new OffloadingPasswordEncoder(4, 4, 1, 2, 4, 5_000);
+
+        String hash = encoder.encode("secreta");
+
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("secreta", hash));
+        assertFalse(encoder.matches("otra", hash));
+    }
+
+    @Test
+    void calibrationStaysWithinTheConfiguredBounds() {
+        encoder = new OffloadingPasswordEncoder(4, 6, 60_000, 1, 1, 5_000);
+        assertEquals(6, encoder.getStrength(), "un objetivo holgado sube hasta el máximo");
+        encoder.shutdown();
+
+        encoder = new OffloadingPasswordEncoder(6, 10, 0, 1, 1, 5_000);
+        assertEquals(6, encoder.getStrength(), "un objetivo imposible no baja del mínimo");
+        encoder.shutdown();
+
+        encoder = new OffloadingPasswordEncoder(5, 5, 1, 1, 1, 5_000);
+        assertEquals(5, encoder.getStrength());
+    }
+
+    @Test
+    void saturatedPoolRejectsImmediately() throws Exception {
+        encoder = new OffloadingPasswordEncoder(4, 4, 1, 1, 1, 30_000);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("lenta", slowHash));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("lenta", slowHash));
+        waitUntil(() -> encoder.getQueueDepth() == 1);
+
+        long start = System.nanoTime();
+        assertThrows(PasswordHashingUnavailable.class, () -> encoder.encode("otra"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "el rechazo no espera al pool");
+
+        assertTrue(running.get(30, TimeUnit.SECONDS));
+        assertTrue(queued.get(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slowOperationTimesOut() {
+        encoder = new OffloadingPasswordEncoder(4, 4, 1, 1, 1, 50);
+
+        assertThrows(PasswordHashingUnavailable.class, () -> encoder.matches("lenta", slowHash));
+    }
+
+    @Test
+    void encodeAllKeepsTheOrder() {
+        encoder = new OffloadingPasswordEncoder(4, 4, 1, 3, 1, 5_000);
+
+        List<String> hashes = encoder.encodeAll(List.of("a", "b", "c", "d", "e"));
+
+        assertEquals(5, hashes.size());
+        assertTrue(encoder.matches("a", hashes.get(0)));
+        assertTrue(encoder.matches("e", hashes.get(4)));
+    }
+
+    @Test
+    void onlyHashesBelowTheCalibratedCostNeedAnUpgrade() {
+        encoder = new OffloadingPasswordEncoder(5, 5, 1, 1, 1, 5_000);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("x")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("x")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("x")));
+    }
+
+    @Test
+    void successfulLoginRehashesWeakerPasswords() {
+        encoder = new OffloadingPasswordEncoder(5, 5, 1, 1, 1, 5_000);
+        UserDetails user = User.withUsername("ana").password(new BCryptPasswordEncoder(4).encode("secreta"))
+                .roles("USER").build();
+        UserDetailsService users = username -> user;
+        UserDetailsPasswordService passwords = mock(UserDetailsPasswordService.class);
+        when(passwords.updatePassword(any(), anyString())).thenAnswer(invocation -> user);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(users);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService(passwords);
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("ana", "secreta"));
+
+        verify(passwords).updatePassword(eq(user), argThat(hash -> hash.startsWith("$2a$05$")
+                && encoder.matches("secreta", hash)));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "la condición no se cumplió a tiempo");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BroadcastFrameTest {
+
+    private static final byte[] BINARY = {1, 2, 3};
+    private static final byte[] COMPRESSED = {9};
+
+    @Test
+    void textSessionsReceiveTheTextVariant() {
+        BroadcastFrame frame = BroadcastFrame.of("{}", BINARY, COMPRESSED);
+
+        assertInstanceOf(TextMessage.class, frame.messageFor(false, false));
+        assertInstanceOf(TextMessage.class, frame.messageFor(false, true));
+    }
+
+    @Test
+    void compressedVariantOnlyForSessionsWithoutPermessageDeflate() {
+        BroadcastFrame frame = BroadcastFrame.of("{}", BINARY, COMPRESSED);
+
+        assertArrayEquals(COMPRESSED, bytes(frame.messageFor(true, false)));
+        assertArrayEquals(BINARY, bytes(frame.messageFor(true, true)));
+    }
+
+    @Test
+    void uncompressedBinaryWhenCompressionDidNotPayOff() {
+        BroadcastFrame frame = BroadcastFrame.of("{}", BINARY, null);
+
+        assertArrayEquals(BINARY, bytes(frame.messageFor(true, false)));
+        assertEquals(2 + BINARY.length, frame.getEncodedLength());
+    }
+
+    @Test
+    void binaryOnlyFramesSkipTextSessions() {
+        BroadcastFrame frame = BroadcastFrame.binaryOnly(BINARY);
+
+        assertNull(frame.messageFor(false, false));
+        assertArrayEquals(BINARY, bytes(frame.messageFor(true, false)));
+    }
+
+    private static byte[] bytes(Object message) {
+        ByteBuffer payload = ((BinaryMessage) message).getPayload().duplicate();
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return bytes;
+    }
+}
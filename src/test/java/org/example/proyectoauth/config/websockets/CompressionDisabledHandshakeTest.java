@@ -0,0 +1,34 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Con {@code websocket.compression.enabled=false} el contenedor no debe negociar permessage-deflate
+ * aunque el cliente lo ofrezca.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "websocket.compression.enabled=false")
+class CompressionDisabledHandshakeTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${websocket.url}")
+    private String path;
+
+    @Test
+    void deflateOfferIsIgnored() throws Exception {
+        Map<String, String> headers = CompressionHandshakeTest.handshake(port, "/ws/" + path,
+                "permessage-deflate; client_max_window_bits");
+
+        assertEquals("101", headers.get(":status"));
+        assertNull(headers.get("sec-websocket-extensions"));
+    }
+}
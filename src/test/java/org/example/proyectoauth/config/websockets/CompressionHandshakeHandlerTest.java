@@ -0,0 +1,34 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionHandshakeHandlerTest {
+
+    @Test
+    void disabledCompressionRemovesTheDeflateOffer() {
+        CompressionHandshakeHandler handler = new CompressionHandshakeHandler(false, true, true);
+
+        assertNull(handler.rewriteExtensions("permessage-deflate; client_max_window_bits"));
+        assertEquals("x-otra", handler.rewriteExtensions("permessage-deflate, x-otra"));
+    }
+
+    @Test
+    void contextTakeoverSettingsAreAddedToTheOffer() {
+        CompressionHandshakeHandler handler = new CompressionHandshakeHandler(true, false, false);
+
+        assertEquals("permessage-deflate; client_max_window_bits; server_no_context_takeover; client_no_context_takeover",
+                handler.rewriteExtensions("permessage-deflate; client_max_window_bits"));
+    }
+
+    @Test
+    void parametersAlreadyOfferedAreNotRepeated() {
+        CompressionHandshakeHandler handler = new CompressionHandshakeHandler(true, false, true);
+
+        assertEquals("permessage-deflate; server_no_context_takeover",
+                handler.rewriteExtensions(" permessage-deflate; server_no_context_takeover "));
+        assertEquals("permessage-deflate", new CompressionHandshakeHandler(true, true, true)
+                .rewriteExtensions("permessage-deflate"));
+    }
+}
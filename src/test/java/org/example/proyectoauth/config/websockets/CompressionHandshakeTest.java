@@ -0,0 +1,86 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Handshake real contra Tomcat: comprueba la extensión que negocia el contenedor con la configuración por defecto
+ * (compresión activada y sin context takeover del servidor).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CompressionHandshakeTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${websocket.url}")
+    private String path;
+
+    @Test
+    void deflateIsNegotiatedWithoutServerContextTakeover() throws Exception {
+        Map<String, String> headers = handshake(port, "/ws/" + path, "permessage-deflate; client_max_window_bits");
+
+        assertEquals("101", headers.get(":status"));
+        String extensions = headers.get("sec-websocket-extensions");
+        assertNotNull(extensions, "se negocia permessage-deflate");
+        assertTrue(extensions.startsWith(CompressionHandshakeHandler.PERMESSAGE_DEFLATE));
+        assertTrue(extensions.contains("server_no_context_takeover"), extensions);
+        assertFalse(extensions.contains("client_no_context_takeover"), extensions);
+    }
+
+    @Test
+    void clientWithoutOfferGetsNoExtension() throws Exception {
+        Map<String, String> headers = handshake(port, "/ws/" + path, null);
+
+        assertEquals("101", headers.get(":status"));
+        assertNull(headers.get("sec-websocket-extensions"));
+    }
+
+    /**
+     * Envía un upgrade WebSocket mínimo y devuelve las cabeceras de la respuesta en minúsculas;
+     * el código de estado va en {@code :status}.
+     */
+    static Map<String, String> handshake(int port, String path, String extensions) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5000);
+            StringBuilder request = new StringBuilder()
+                    .append("GET ").append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: localhost:").append(port).append("\r\n")
+                    .append("Upgrade: websocket\r\n")
+                    .append("Connection: Upgrade\r\n")
+                    .append("Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n")
+                    .append("Sec-WebSocket-Version: 13\r\n");
+            if (extensions != null) {
+                request.append("Sec-WebSocket-Extensions: ").append(extensions).append("\r\n");
+            }
+            request.append("\r\n");
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Map<String, String> headers = new HashMap<>();
+            headers.put(":status", in.readLine().split(" ")[1]);
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.proyectoauth.config.websockets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.WebSockets.mapper.NotificacionBinaryCodec;
+import org.example.proyectoauth.rest.chat.mapper.ChatMessageMapper;
+import org.example.proyectoauth.rest.chat.services.ChatMessageService;
+import org.example.proyectoauth.rest.chat.services.RecentMessagesCache;
+import org.example.proyectoauth.rest.inbox.repositories.InboxStore;
+import org.example.proyectoauth.rest.inbox.services.InboxServiceImpl;
+import org.example.proyectoauth.rest.presence.services.PresenceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class EphemeralLaneTest {
+
+    // El tick automático no llega a ejecutarse: los tests lo fuerzan con tick()
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String[]> published = new ArrayList<>();
+    private EphemeralLane lane;
+
+    @AfterEach
+    void tearDown() {
+        lane.stop();
+    }
+
+    @Test
+    void onlyTheLatestPendingStateOfEachKeyIsPublished() throws Exception {
+        lane = lane(0, 10);
+
+        lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "start");
+        lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "stop");
+        lane.tick();
+
+        List<JsonNode> events = events("general");
+        assertEquals(1, events.size(), "el estado intermedio se descarta");
+        assertEquals("stop", events.get(0).get("state").asText());
+    }
+
+    @Test
+    void eventsOfARoomTravelInASingleFrame() throws Exception {
+        lane = lane(0, 10);
+
+        lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "start");
+        lane.submit("general", 2L, "luis", EphemeralLane.Kind.READ, "42");
+        lane.submit("otra", 3L, "eva", EphemeralLane.Kind.TYPING, "start");
+        lane.tick();
+
+        assertEquals(2, published.size(), "una trama por sala");
+        assertEquals(2, events("general").size());
+        assertEquals(1, events("otra").size());
+    }
+
+    @Test
+    void repeatedStatesAreCollapsed() {
+        lane = lane(0, 10);
+
+        lane.submit("general", 1L, "ana", EphemeralLane.Kind.READ, "10");
+        lane.tick();
+        assertFalse(lane.submit("general", 1L, "ana", EphemeralLane.Kind.READ, "10"));
+        assertFalse(lane.submit("general", 1L, "ana", EphemeralLane.Kind.READ, "9"), "una lectura solo avanza");
+        assertTrue(lane.submit("general", 1L, "ana", EphemeralLane.Kind.READ, "11"));
+
+        lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "start");
+        lane.tick();
+        assertFalse(lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "start"));
+
+        assertEquals(3, lane.getCollapsed());
+    }
+
+    @Test
+    void pendingEventsAreBoundedWithoutBlockingUpdates() {
+        lane = lane(0, 2);
+
+        assertTrue(lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "start"));
+        assertTrue(lane.submit("general", 2L, "luis", EphemeralLane.Kind.TYPING, "start"));
+        assertFalse(lane.submit("general", 3L, "eva", EphemeralLane.Kind.TYPING, "start"), "lleno: se descarta el nuevo");
+        assertTrue(lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "stop"), "una clave ya pendiente se actualiza");
+
+        assertEquals(1, lane.getDropped());
+    }
+
+    @Test
+    void roomIntervalDefersTheNextFrame() throws Exception {
+        lane = lane(NEVER, 10);
+
+        lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "start");
+        lane.tick();
+        lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "stop");
+        lane.tick();
+
+        assertEquals(1, published.size(), "la sala está limitada hasta el siguiente intervalo");
+    }
+
+    @Test
+    void busySessionsSkipEphemeralFramesWithoutDisplacingMessages() throws Exception {
+        lane = new EphemeralLane(objectMapper, NEVER, 0, NEVER, 10);
+        List<Runnable> writerTasks = new ArrayList<>();
+        WebSocketHandler handler = new WebSocketHandler("Test", 4, OverflowPolicy.DROP_OLDEST, writerTasks::add,
+                objectMapper, 16, new FanOutEngine(Runnable::run, 4, 1), mock(HeartbeatScheduler.class),
+                mock(NotificacionBinaryCodec.class), new FrameCompressor(false, 1024, 6), null,
+                mock(ChatMessageService.class), mock(ChatMessageMapper.class), mock(RecentMessagesCache.class), 0,
+                new InboxServiceImpl(mock(InboxStore.class), 1000), 100, lane, 1, mock(PresenceService.class));
+        List<String> idle = new ArrayList<>();
+        List<String> busy = new ArrayList<>();
+        join(handler, "idle", 1L, idle);
+        join(handler, "busy", 2L, busy);
+        runAll(writerTasks);
+        idle.clear();
+        busy.clear();
+
+        // Un mensaje real pendiente en la sesión ocupada
+        handler.sendToUser(2L, "{\"text\":\"hola\"}");
+        lane.submit("general", 1L, "ana", EphemeralLane.Kind.TYPING, "start");
+        lane.tick();
+        runAll(writerTasks);
+
+        assertEquals(1, idle.size());
+        assertEquals("ephemeral", objectMapper.readTree(idle.get(0)).get("type").asText());
+        assertEquals(List.of("{\"type\":\"inbox\",\"stream\":\"user\",\"seq\":1,\"payload\":{\"text\":\"hola\"}}"), busy,
+                "el evento efímero no desplaza al mensaje real");
+        assertEquals(1, lane.getDropped());
+    }
+
+    private EphemeralLane lane(long roomIntervalMillis, int maxPending) {
+        EphemeralLane created = new EphemeralLane(objectMapper, NEVER, roomIntervalMillis, NEVER, maxPending);
+        created.setPublisher((room, json) -> published.add(new String[]{room, json}));
+        return created;
+    }
+
+    private List<JsonNode> events(String room) throws Exception {
+        List<JsonNode> events = new ArrayList<>();
+        for (String[] frame : published) {
+            if (frame[0].equals(room)) {
+                JsonNode body = objectMapper.readTree(frame[1]);
+                assertEquals("ephemeral", body.get("type").asText());
+                assertEquals(room, body.get("topic").asText());
+                body.get("events").forEach(events::add);
+            }
+        }
+        return events;
+    }
+
+    private static void join(WebSocketHandler handler, String sessionId, Long userId, List<String> received)
+            throws Exception {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE, userId);
+        WebSocketSession session = WebSocketHandlerBroadcastTest.connectRecording(handler, sessionId, attributes, received);
+        handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"topic\":\"general\"}"));
+    }
+
+    private static void runAll(List<Runnable> writerTasks) {
+        while (!writerTasks.isEmpty()) {
+            writerTasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FanOutEngineTest {
+
+    private static final int SESSIONS = 400;
+    private static final int BROADCASTS = 200;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void consecutiveBroadcastsKeepTheirOrderInEverySession() {
+        FanOutEngine engine = new FanOutEngine(pool, 8, 1);
+        ShardedSessionRegistry registry = registry(SESSIONS);
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+
+        for (int n = 0; n < BROADCASTS; n++) {
+            int broadcast = n;
+            engine.dispatch(registry, slice -> {
+                for (WebSocketSession session : slice) {
+                    received.computeIfAbsent(session.getId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(broadcast);
+                }
+            });
+        }
+
+        assertEquals(SESSIONS, received.size());
+        List<Integer> expected = new ArrayList<>();
+        for (int n = 0; n < BROADCASTS; n++) {
+            expected.add(n);
+        }
+        received.forEach((id, order) -> assertEquals(expected, order, "orden de la sesión " + id));
+        assertEquals(BROADCASTS, engine.getStats().parallel());
+    }
+
+    @Test
+    void dispatchReturnsOnlyAfterEverySliceIsWritten() {
+        FanOutEngine engine = new FanOutEngine(pool, 8, 1);
+        ShardedSessionRegistry registry = registry(SESSIONS);
+        List<WebSocketSession> written = Collections.synchronizedList(new ArrayList<>());
+
+        engine.dispatch(registry, slice -> slice.forEach(written::add));
+
+        assertEquals(SESSIONS, written.size());
+        assertEquals(1, engine.getStats().broadcasts());
+    }
+
+    @Test
+    void smallRegistryIsWrittenInTheCallingThread() {
+        FanOutEngine engine = new FanOutEngine(pool, 8, 1_000);
+        ShardedSessionRegistry registry = registry(10);
+        Thread caller = Thread.currentThread();
+        List<Thread> threads = new ArrayList<>();
+
+        engine.dispatch(registry, slice -> threads.add(Thread.currentThread()));
+
+        assertEquals(List.of(caller), threads);
+        assertEquals(0, engine.getStats().parallel());
+    }
+
+    @Test
+    void failingSliceDoesNotStopTheOthers() {
+        FanOutEngine engine = new FanOutEngine(pool, 4, 1);
+        ShardedSessionRegistry registry = registry(SESSIONS);
+        List<WebSocketSession> written = Collections.synchronizedList(new ArrayList<>());
+        Iterable<WebSocketSession> failing = registry.slice(1, 4);
+
+        engine.dispatch(registry, slice -> {
+            if (slice.iterator().hasNext() && slice.iterator().next() == failing.iterator().next()) {
+                throw new IllegalStateException("fallo simulado");
+            }
+            slice.forEach(written::add);
+        });
+
+        assertTrue(written.size() < SESSIONS);
+        assertFalse(written.isEmpty());
+        assertEquals(1, engine.getStats().broadcasts());
+    }
+
+    private static ShardedSessionRegistry registry(int count) {
+        ShardedSessionRegistry registry = new ShardedSessionRegistry(16);
+        for (int i = 0; i < count; i++) {
+            WebSocketSession session = mock(WebSocketSession.class);
+            when(session.getId()).thenReturn("s-" + i);
+            registry.add(session);
+        }
+        return registry;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameCompressorTest {
+
+    private static final byte[] REPETITIVE = "notificacion ".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void payloadsBelowTheThresholdAreNotCompressed() {
+        FrameCompressor compressor = new FrameCompressor(true, 4096, 6);
+
+        assertNull(compressor.compress(REPETITIVE));
+        assertEquals(1, compressor.getStats().skippedFrames());
+        assertEquals(0, compressor.getStats().compressedFrames());
+    }
+
+    @Test
+    void disabledCompressorNeverCompresses() {
+        FrameCompressor compressor = new FrameCompressor(false, 0, 6);
+
+        assertNull(compressor.compress(REPETITIVE));
+    }
+
+    @Test
+    void compressedPayloadInflatesBackToTheOriginal() throws Exception {
+        FrameCompressor compressor = new FrameCompressor(true, 1024, 6);
+
+        byte[] deflated = compressor.compress(REPETITIVE);
+
+        assertNotNull(deflated);
+        assertTrue(deflated.length < REPETITIVE.length);
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(deflated);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!inflater.finished()) {
+            int read = inflater.inflate(buffer);
+            if (read == 0 && inflater.needsInput()) {
+                break;
+            }
+            out.write(buffer, 0, read);
+        }
+        assertArrayEquals(REPETITIVE, out.toByteArray());
+        CompressionStats stats = compressor.getStats();
+        assertEquals(1, stats.compressedFrames());
+        assertTrue(stats.ratio() < 1);
+    }
+
+    @Test
+    void incompressiblePayloadIsSkipped() {
+        FrameCompressor compressor = new FrameCompressor(true, 16, 6);
+        byte[] random = new byte[2048];
+        new Random(42).nextBytes(random);
+
+        assertNull(compressor.compress(random));
+        assertEquals(1, compressor.getStats().skippedFrames());
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HeartbeatSchedulerTest {
+
+    // Ping cada 20 ms (dos ranuras de 10 ms), 10 ms de espera de PONG y dos PONG perdidos para cerrar
+    private final HeartbeatScheduler heartbeat = new HeartbeatScheduler(20, 10, 10, 2);
+
+    @AfterEach
+    void tearDown() {
+        heartbeat.stop();
+    }
+
+    @Test
+    void silentSessionIsExpiredAfterMissedPongs() throws Exception {
+        WebSocketSession session = session("s-1", true);
+        SessionOutboundQueue queue = queue(session);
+        CountDownLatch dead = new CountDownLatch(1);
+
+        heartbeat.register(queue, dead::countDown);
+
+        assertTrue(dead.await(5, TimeUnit.SECONDS));
+        verify(queue, atLeast(2)).offer(any(PingMessage.class));
+        verify(queue).requestClose(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(-1, heartbeat.roundTripMillis("s-1"), "la sesión ya no está registrada");
+    }
+
+    @Test
+    void respondingSessionIsKeptAndMeasured() throws Exception {
+        WebSocketSession session = session("s-2", true);
+        SessionOutboundQueue queue = queue(session);
+        AtomicInteger pings = new AtomicInteger();
+        when(queue.offer(any())).thenAnswer(invocation -> {
+            PingMessage ping = invocation.getArgument(0);
+            pings.incrementAndGet();
+            heartbeat.pong(session, ping.getPayload());
+            return true;
+        });
+        CountDownLatch dead = new CountDownLatch(1);
+
+        heartbeat.register(queue, dead::countDown);
+
+        assertFalse(dead.await(300, TimeUnit.MILLISECONDS));
+        assertTrue(pings.get() >= 3);
+        assertTrue(heartbeat.roundTripMillis("s-2") >= 0);
+        verify(queue, never()).requestClose(any());
+    }
+
+    @Test
+    void pongTimeoutShorterThanTheIntervalExpiresBeforeTheNextPing() throws Exception {
+        // Ping cada segundo, pero el PONG debe llegar en 50 ms y basta con perder uno
+        HeartbeatScheduler fast = new HeartbeatScheduler(1000, 10, 50, 1);
+        try {
+            WebSocketSession session = session("s-5", true);
+            SessionOutboundQueue queue = queue(session);
+            AtomicLong pingSentAt = new AtomicLong();
+            when(queue.offer(any())).thenAnswer(invocation -> {
+                pingSentAt.compareAndSet(0, System.nanoTime());
+                return true;
+            });
+            CountDownLatch dead = new CountDownLatch(1);
+
+            fast.register(queue, dead::countDown);
+
+            assertTrue(dead.await(5, TimeUnit.SECONDS));
+            long afterPing = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pingSentAt.get());
+            assertTrue(afterPing < 500, "cerrada " + afterPing + " ms después del ping, no al siguiente intervalo");
+            verify(queue, times(1)).offer(any(PingMessage.class));
+        } finally {
+            fast.stop();
+        }
+    }
+
+    @Test
+    void closedSessionIsReapedWithoutWaitingForPongs() throws Exception {
+        WebSocketSession session = session("s-3", false);
+        SessionOutboundQueue queue = queue(session);
+        CountDownLatch dead = new CountDownLatch(1);
+
+        heartbeat.register(queue, dead::countDown);
+
+        assertTrue(dead.await(5, TimeUnit.SECONDS));
+        verify(queue, never()).offer(any());
+    }
+
+    @Test
+    void unregisteredSessionIsNoLongerPinged() throws Exception {
+        WebSocketSession session = session("s-4", true);
+        SessionOutboundQueue queue = queue(session);
+        Runnable onDead = mock(Runnable.class);
+
+        heartbeat.register(queue, onDead);
+        heartbeat.unregister(session);
+        Thread.sleep(100);
+
+        verify(queue, never()).offer(any());
+        verify(onDead, never()).run();
+    }
+
+    private static WebSocketSession session(String id, boolean open) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(open);
+        return session;
+    }
+
+    private static SessionOutboundQueue queue(WebSocketSession session) {
+        SessionOutboundQueue queue = mock(SessionOutboundQueue.class);
+        when(queue.getSession()).thenReturn(session);
+        when(queue.offer(any())).thenReturn(true);
+        return queue;
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.proyectoauth.config.websockets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MessageBatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Runnable> writerTasks = Collections.synchronizedList(new ArrayList<>());
+    private final List<WebSocketMessage<?>> sent = Collections.synchronizedList(new ArrayList<>());
+    private MessageBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.stop();
+        }
+    }
+
+    @Test
+    void textEventsArePackedAsJsonStrings() throws Exception {
+        batcher = new MessageBatcher(10, 8);
+
+        WebSocketMessage<?> packed = batcher.pack(List.of(
+                new TextMessage("{\"type\":\"ping\"}"),
+                new TextMessage("texto \"con\" comillas\n")));
+
+        JsonNode body = objectMapper.readTree(((TextMessage) packed).getPayload());
+        assertEquals("batch", body.get("type").asText());
+        JsonNode events = body.get("events");
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).isTextual(), "cada evento llega como string JSON");
+        assertEquals("{\"type\":\"ping\"}", events.get(0).asText());
+        assertEquals("ping", objectMapper.readTree(events.get(0).asText()).get("type").asText());
+        assertEquals("texto \"con\" comillas\n", events.get(1).asText());
+    }
+
+    @Test
+    void binaryFramesAreConcatenated() {
+        batcher = new MessageBatcher(10, 8);
+
+        WebSocketMessage<?> packed = batcher.pack(List.of(
+                new BinaryMessage(new byte[]{1, 2}),
+                new BinaryMessage(new byte[]{3})));
+
+        ByteBuffer payload = ((BinaryMessage) packed).getPayload();
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        assertArrayEquals(new byte[]{1, 2, 3}, bytes);
+    }
+
+    @Test
+    void controlFramesAreNotBatchable() {
+        batcher = new MessageBatcher(10, 8);
+
+        assertTrue(batcher.isBatchable(new TextMessage("a")));
+        assertTrue(batcher.isBatchable(new BinaryMessage(new byte[]{1})));
+        assertFalse(batcher.isBatchable(new PingMessage()));
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTheTimer() throws Exception {
+        batcher = new MessageBatcher(TimeUnit.MINUTES.toMillis(1), 3);
+        SessionOutboundQueue queue = queue();
+
+        queue.offer(new TextMessage("m1"));
+        queue.offer(new TextMessage("m2"));
+        assertTrue(writerTasks.isEmpty(), "por debajo del umbral se espera a la ventana");
+
+        queue.offer(new TextMessage("m3"));
+        assertEquals(1, writerTasks.size(), "el lote completo se vacía de inmediato");
+        runWriter();
+
+        assertEquals(List.of("m1", "m2", "m3"), events(sent.get(0)));
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void batchLargerThanTheMaximumIsSplit() throws Exception {
+        batcher = new MessageBatcher(TimeUnit.MINUTES.toMillis(1), 2);
+        SessionOutboundQueue queue = queue();
+
+        for (String payload : List.of("m1", "m2", "m3")) {
+            queue.offer(new TextMessage(payload));
+        }
+        runWriter();
+
+        assertEquals(2, sent.size());
+        assertEquals(List.of("m1", "m2"), events(sent.get(0)));
+        assertEquals("m3", ((TextMessage) sent.get(1)).getPayload(), "un mensaje solo va sin envoltorio");
+    }
+
+    @Test
+    void partialBatchIsFlushedByTheTimer() throws Exception {
+        batcher = new MessageBatcher(20, 100);
+        CountDownLatch submitted = new CountDownLatch(1);
+        SessionOutboundQueue queue = new SessionOutboundQueue(session(), 100, OverflowPolicy.DROP_OLDEST, task -> {
+            writerTasks.add(task);
+            submitted.countDown();
+        }, false, false, batcher);
+
+        queue.offer(new TextMessage("m1"));
+        queue.offer(new TextMessage("m2"));
+
+        assertTrue(submitted.await(5, TimeUnit.SECONDS), "el temporizador lanza el vaciado");
+        runWriter();
+        assertEquals(List.of("m1", "m2"), events(sent.get(0)));
+    }
+
+    @Test
+    void controlFramesPassThroughAndSplitBatches() throws Exception {
+        batcher = new MessageBatcher(TimeUnit.MINUTES.toMillis(1), 4);
+        SessionOutboundQueue queue = queue();
+
+        queue.offer(new TextMessage("m1"));
+        queue.offer(new TextMessage("m2"));
+        queue.offer(new PingMessage());
+        queue.offer(new TextMessage("m3"));
+        runWriter();
+
+        assertEquals(3, sent.size());
+        assertEquals(List.of("m1", "m2"), events(sent.get(0)));
+        assertInstanceOf(PingMessage.class, sent.get(1));
+        assertEquals("m3", ((TextMessage) sent.get(2)).getPayload());
+    }
+
+    private SessionOutboundQueue queue() throws Exception {
+        return new SessionOutboundQueue(session(), 100, OverflowPolicy.DROP_OLDEST, writerTasks::add, false, false, batcher);
+    }
+
+    private WebSocketSession session() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s-1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> sent.add(invocation.getArgument(0))).when(session).sendMessage(any());
+        return session;
+    }
+
+    private List<String> events(WebSocketMessage<?> message) throws Exception {
+        JsonNode body = objectMapper.readTree(((TextMessage) message).getPayload());
+        List<String> events = new ArrayList<>();
+        body.get("events").forEach(event -> events.add(event.asText()));
+        return events;
+    }
+
+    private void runWriter() {
+        while (!writerTasks.isEmpty()) {
+            writerTasks.remove(0).run();
+        }
+    }
+}
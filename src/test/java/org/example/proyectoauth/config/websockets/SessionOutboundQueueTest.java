@@ -0,0 +1,161 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SessionOutboundQueueTest {
+
+    // Escritor manual: las tareas de vaciado solo se ejecutan al llamar a runWriter()
+    private final List<Runnable> writerTasks = new ArrayList<>();
+    private final List<String> sent = new ArrayList<>();
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s-1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            sent.add(((TextMessage) message).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+    }
+
+    @Test
+    void drainsMessagesInOrder() {
+        SessionOutboundQueue queue = queue(10, OverflowPolicy.DROP_OLDEST);
+        offer(queue, "m1", "m2", "m3");
+
+        assertEquals(1, writerTasks.size(), "una sola tarea de vaciado por sesión");
+        runWriter();
+
+        assertEquals(List.of("m1", "m2", "m3"), sent);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void dropOldestKeepsTheNewestMessages() {
+        SessionOutboundQueue queue = queue(3, OverflowPolicy.DROP_OLDEST);
+        offer(queue, "m1", "m2", "m3", "m4", "m5");
+
+        assertEquals(3, queue.size());
+        runWriter();
+        assertEquals(List.of("m3", "m4", "m5"), sent);
+    }
+
+    @Test
+    void coalesceReplacesOnlyThePendingMessageWithTheSameKey() {
+        SessionOutboundQueue queue = queue(3, OverflowPolicy.COALESCE);
+        assertTrue(queue.offer(new TextMessage("a1"), "a"));
+        assertTrue(queue.offer(new TextMessage("b1"), "b"));
+        assertTrue(queue.offer(new TextMessage("c1"), "c"));
+
+        assertTrue(queue.offer(new TextMessage("b2"), "b"));
+        assertTrue(queue.offer(new TextMessage("a2"), "a"));
+
+        assertEquals(3, queue.size());
+        runWriter();
+        assertEquals(List.of("c1", "b2", "a2"), sent, "las otras claves se conservan");
+    }
+
+    @Test
+    void coalesceWithoutAMatchingKeyDropsTheOldest() {
+        SessionOutboundQueue queue = queue(2, OverflowPolicy.COALESCE);
+        assertTrue(queue.offer(new TextMessage("a1"), "a"));
+        assertTrue(queue.offer(new TextMessage("m1")));
+
+        assertTrue(queue.offer(new TextMessage("b1"), "b"));
+        assertTrue(queue.offer(new TextMessage("m2")));
+
+        assertEquals(2, queue.size());
+        runWriter();
+        assertEquals(List.of("b1", "m2"), sent);
+    }
+
+    @Test
+    void closePolicyClosesTheSessionFromTheWriter() throws Exception {
+        SessionOutboundQueue queue = queue(2, OverflowPolicy.CLOSE_POLICY_VIOLATION);
+        assertTrue(queue.offer(new TextMessage("m1")));
+        assertTrue(queue.offer(new TextMessage("m2")));
+        assertFalse(queue.offer(new TextMessage("m3")));
+        assertFalse(queue.offer(new TextMessage("m4")), "tras pedir el cierre no se encola nada");
+
+        runWriter();
+
+        assertTrue(sent.isEmpty(), "los pendientes se descartan al cerrar");
+        verify(session).close(CloseStatus.POLICY_VIOLATION);
+    }
+
+    @Test
+    void tryAgainLaterUsesCode1013() throws Exception {
+        SessionOutboundQueue queue = queue(1, OverflowPolicy.CLOSE_TRY_AGAIN_LATER);
+        offer(queue, "m1", "m2");
+        runWriter();
+
+        verify(session).close(CloseStatus.SERVICE_OVERLOAD);
+        assertEquals(1013, CloseStatus.SERVICE_OVERLOAD.getCode());
+    }
+
+    @Test
+    void offerIfIdleNeverDisplacesMessages() {
+        SessionOutboundQueue queue = queue(3, OverflowPolicy.DROP_OLDEST);
+        assertTrue(queue.offerIfIdle(new TextMessage("e1"), 1));
+        assertFalse(queue.offerIfIdle(new TextMessage("e2"), 1));
+        offer(queue, "m1", "m2");
+        assertFalse(queue.offerIfIdle(new TextMessage("e3"), 10), "la cola está llena");
+
+        runWriter();
+        assertEquals(List.of("e1", "m1", "m2"), sent);
+    }
+
+    @Test
+    void closedQueueRejectsMessages() {
+        SessionOutboundQueue queue = queue(3, OverflowPolicy.DROP_OLDEST);
+        offer(queue, "m1");
+        queue.close();
+
+        assertFalse(queue.offer(new TextMessage("m2")));
+        runWriter();
+        assertTrue(sent.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void stopsSendingWhenTheSessionIsNoLongerOpen() {
+        SessionOutboundQueue queue = queue(3, OverflowPolicy.DROP_OLDEST);
+        offer(queue, "m1", "m2");
+        when(session.isOpen()).thenReturn(false);
+
+        runWriter();
+        assertTrue(sent.isEmpty());
+        assertFalse(queue.offer(new TextMessage("m3")));
+    }
+
+    private SessionOutboundQueue queue(int capacity, OverflowPolicy policy) {
+        return new SessionOutboundQueue(session, capacity, policy, writerTasks::add, false, false, null);
+    }
+
+    private static void offer(SessionOutboundQueue queue, String... payloads) {
+        for (String payload : payloads) {
+            queue.offer(new TextMessage(payload));
+        }
+    }
+
+    private void runWriter() {
+        while (!writerTasks.isEmpty()) {
+            writerTasks.remove(0).run();
+        }
+    }
+}
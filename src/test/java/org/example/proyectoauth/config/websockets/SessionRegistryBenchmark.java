@@ -0,0 +1,107 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de altas y bajas de sesiones (churn) que compara el antiguo {@link CopyOnWriteArraySet}
+ * con {@link ShardedSessionRegistry} para 1k, 10k y 100k sesiones.
+ *
+ * Simula una tormenta de reconexiones: se conectan N sesiones y después se desconectan todas.
+ * Tarda varios segundos (el conjunto copy-on-write es O(n²)), así que no forma parte de la suite normal:
+ * mvn test -Dtest=SessionRegistryBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SessionRegistryBenchmark {
+
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+    private static final int WARMUP_ROUNDS = 2;
+
+    @Test
+    void churn() {
+        System.out.printf("%-10s %22s %22s%n", "sesiones", "CopyOnWriteArraySet ms", "ShardedRegistry ms");
+        for (int size : SIZES) {
+            WebSocketSession[] sessions = createSessions(size);
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                churnShardedRegistry(sessions);
+                if (size <= 10_000) {
+                    churnCopyOnWrite(sessions);
+                }
+            }
+            long copyOnWrite = churnCopyOnWrite(sessions);
+            long sharded = churnShardedRegistry(sessions);
+            System.out.printf("%-10d %22.1f %22.1f%n", size, copyOnWrite / 1e6, sharded / 1e6);
+            if (size >= 10_000) {
+                // A partir de 10k el coste cuadrático de copiar el array domina con mucho margen
+                assertTrue(sharded < copyOnWrite,
+                        "el registro fragmentado debe ser más rápido con " + size + " sesiones");
+            }
+        }
+    }
+
+    /**
+     * Conecta y desconecta todas las sesiones usando el registro anterior.
+     *
+     * @return Nanosegundos empleados.
+     */
+    private static long churnCopyOnWrite(WebSocketSession[] sessions) {
+        Set<WebSocketSession> set = new CopyOnWriteArraySet<>();
+        long start = System.nanoTime();
+        for (WebSocketSession session : sessions) {
+            set.add(session);
+        }
+        for (WebSocketSession session : sessions) {
+            set.remove(session);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(set.isEmpty());
+        return elapsed;
+    }
+
+    /**
+     * Conecta y desconecta todas las sesiones usando el registro fragmentado.
+     *
+     * @return Nanosegundos empleados.
+     */
+    private static long churnShardedRegistry(WebSocketSession[] sessions) {
+        ShardedSessionRegistry registry = new ShardedSessionRegistry(16);
+        long start = System.nanoTime();
+        for (WebSocketSession session : sessions) {
+            registry.add(session);
+        }
+        for (WebSocketSession session : sessions) {
+            registry.remove(session);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, registry.size());
+        return elapsed;
+    }
+
+    /**
+     * Crea sesiones falsas que solo responden a {@code getId()} (igualdad por identidad).
+     */
+    private static WebSocketSession[] createSessions(int size) {
+        WebSocketSession[] sessions = new WebSocketSession[size];
+        for (int i = 0; i < size; i++) {
+            String id = Integer.toHexString(i);
+            sessions[i] = (WebSocketSession) Proxy.newProxyInstance(
+                    WebSocketSession.class.getClassLoader(),
+                    new Class<?>[]{WebSocketSession.class},
+                    (proxy, method, methodArgs) -> switch (method.getName()) {
+                        case "getId" -> id;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == methodArgs[0];
+                        case "toString" -> "session-" + id;
+                        default -> null;
+                    });
+        }
+        return sessions;
+    }
+}
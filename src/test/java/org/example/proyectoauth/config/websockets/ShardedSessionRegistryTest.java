@@ -0,0 +1,135 @@
+package org.example.proyectoauth.config.websockets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShardedSessionRegistryTest {
+
+    @Test
+    void shardCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new ShardedSessionRegistry(0).shardCount());
+        assertEquals(1, new ShardedSessionRegistry(1).shardCount());
+        assertEquals(8, new ShardedSessionRegistry(5).shardCount());
+        assertEquals(16, new ShardedSessionRegistry(16).shardCount());
+    }
+
+    @Test
+    void addAndRemoveAreIdempotent() {
+        ShardedSessionRegistry registry = new ShardedSessionRegistry(4);
+        WebSocketSession session = session("s-1");
+
+        assertTrue(registry.add(session));
+        assertFalse(registry.add(session));
+        assertEquals(1, registry.size());
+        assertSame(session, registry.get("s-1"));
+
+        assertTrue(registry.remove(session));
+        assertFalse(registry.remove(session));
+        assertEquals(0, registry.size());
+        assertNull(registry.get("s-1"));
+    }
+
+    @Test
+    void removeIgnoresADifferentSessionWithTheSameId() {
+        ShardedSessionRegistry registry = new ShardedSessionRegistry(4);
+        WebSocketSession original = session("s-1");
+        registry.add(original);
+
+        assertFalse(registry.remove(session("s-1")));
+        assertSame(original, registry.get("s-1"));
+    }
+
+    @Test
+    void slicesAreDisjointAndCoverEverySession() {
+        ShardedSessionRegistry registry = new ShardedSessionRegistry(16);
+        Set<WebSocketSession> expected = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            WebSocketSession session = session("s-" + i);
+            registry.add(session);
+            expected.add(session);
+        }
+
+        for (int sliceCount : new int[]{1, 3, 4, 16, 32}) {
+            Set<WebSocketSession> seen = new HashSet<>();
+            int total = 0;
+            for (int i = 0; i < sliceCount; i++) {
+                for (WebSocketSession session : registry.slice(i, sliceCount)) {
+                    seen.add(session);
+                    total++;
+                }
+            }
+            assertEquals(expected, seen, "porciones: " + sliceCount);
+            assertEquals(expected.size(), total, "sesiones repetidas con porciones: " + sliceCount);
+        }
+    }
+
+    @Test
+    void iteratorVisitsEveryShard() {
+        ShardedSessionRegistry registry = new ShardedSessionRegistry(8);
+        List<WebSocketSession> added = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            WebSocketSession session = session("s-" + i);
+            registry.add(session);
+            added.add(session);
+        }
+        Set<WebSocketSession> seen = new HashSet<>();
+        registry.forEach(seen::add);
+        assertEquals(new HashSet<>(added), seen);
+    }
+
+    @Test
+    void concurrentChurnKeepsSizeConsistent() throws InterruptedException {
+        ShardedSessionRegistry registry = new ShardedSessionRegistry(16);
+        int threads = 8;
+        int perThread = 1_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            pool.execute(() -> {
+                try {
+                    List<WebSocketSession> mine = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        WebSocketSession session = session("s-" + (offset + i));
+                        registry.add(session);
+                        mine.add(session);
+                    }
+                    // Mientras otros hilos siguen dando altas, se da de baja la mitad
+                    for (int i = 0; i < perThread; i += 2) {
+                        registry.remove(mine.get(i));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(threads * perThread / 2, registry.size());
+        int iterated = 0;
+        for (WebSocketSession ignored : registry) {
+            iterated++;
+        }
+        assertEquals(registry.size(), iterated);
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.proyectoauth.config.websockets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.WebSockets.mapper.NotificacionBinaryCodec;
+import org.example.proyectoauth.rest.chat.mapper.ChatMessageMapper;
+import org.example.proyectoauth.rest.chat.services.ChatMessageService;
+import org.example.proyectoauth.rest.chat.services.RecentMessagesCache;
+import org.example.proyectoauth.rest.inbox.repositories.InboxStore;
+import org.example.proyectoauth.rest.inbox.services.InboxService;
+import org.example.proyectoauth.rest.inbox.services.InboxServiceImpl;
+import org.example.proyectoauth.rest.presence.services.PresenceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WebSocketHandlerBroadcastTest {
+
+    private static final int SESSIONS = 50;
+
+    @Test
+    void broadcastEncodesOnceForAllSessions() throws Exception {
+        WebSocketHandler handler = handler(new FanOutEngine(Runnable::run, 4, 1));
+        List<List<String>> received = connect(handler, SESSIONS);
+
+        handler.broadcast(Map.of("type", "ping"));
+
+        BroadcastStats stats = handler.getBroadcastStats();
+        assertEquals(1, stats.broadcasts());
+        assertEquals(1, stats.framesEncoded(), "una sola codificación por difusión");
+        assertEquals(SESSIONS, stats.recipients());
+        for (List<String> payloads : received) {
+            assertEquals("{\"type\":\"ping\"}", payloads.get(payloads.size() - 1));
+        }
+    }
+
+    @Test
+    void framesEncodedCountsEachBroadcast() throws Exception {
+        WebSocketHandler handler = handler(new FanOutEngine(Runnable::run, 4, 1));
+        connect(handler, SESSIONS);
+
+        handler.sendMessage("a");
+        handler.sendMessage("b");
+        handler.broadcast("c");
+
+        BroadcastStats stats = handler.getBroadcastStats();
+        // sendMessage codifica además el sobre de la bandeja común para las sesiones autenticadas
+        assertEquals(5, stats.framesEncoded());
+        assertEquals(3, stats.broadcasts());
+        assertEquals(3L * SESSIONS, stats.recipients());
+    }
+
+    @Test
+    void consecutiveGlobalBroadcastsArriveInOrder() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            WebSocketHandler handler = handler(new FanOutEngine(pool, 8, 1));
+            List<List<String>> received = connect(handler, SESSIONS);
+
+            for (int i = 0; i < 100; i++) {
+                handler.sendMessage("CREATE-" + i);
+                handler.sendMessage("DELETE-" + i);
+            }
+
+            for (List<String> payloads : received) {
+                assertEquals(200, payloads.size());
+                for (int i = 0; i < 100; i++) {
+                    assertEquals("CREATE-" + i, payloads.get(2 * i));
+                    assertEquals("DELETE-" + i, payloads.get(2 * i + 1));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void sendToUserKeepsStringPayloadsAsIs() throws Exception {
+        InboxService inbox = mock(InboxService.class);
+        when(inbox.append(eq(7L), any(), any())).thenAnswer(invocation -> {
+            InboxService.Delivery delivery = invocation.getArgument(2);
+            delivery.deliver(3, invocation.getArgument(1));
+            return 3L;
+        });
+        WebSocketHandler handler = handler(new FanOutEngine(Runnable::run, 4, 1), inbox);
+        List<String> received = connectUser(handler, "u-1", 7L);
+
+        handler.sendToUser(7L, "{\"text\":\"hola\"}");
+        handler.sendToUser(7L, Map.of("text", "adios"));
+
+        verify(inbox).append(eq(7L), eq("{\"text\":\"hola\"}"), any());
+        verify(inbox).append(eq(7L), eq("{\"text\":\"adios\"}"), any());
+        assertEquals(List.of(
+                "{\"type\":\"inbox\",\"stream\":\"user\",\"seq\":3,\"payload\":{\"text\":\"hola\"}}",
+                "{\"type\":\"inbox\",\"stream\":\"user\",\"seq\":3,\"payload\":{\"text\":\"adios\"}}"), received);
+    }
+
+    /**
+     * Crea el manejador con escritores en el hilo que llama y dependencias simuladas; la bandeja
+     * numera y entrega de verdad sobre un almacén simulado.
+     */
+    static WebSocketHandler handler(FanOutEngine fanOutEngine) {
+        return handler(fanOutEngine, new InboxServiceImpl(mock(InboxStore.class), 1000));
+    }
+
+    /**
+     * Crea el manejador con la bandeja de entrada indicada.
+     */
+    static WebSocketHandler handler(FanOutEngine fanOutEngine, InboxService inbox) {
+        return new WebSocketHandler("Test", 1024, OverflowPolicy.DROP_OLDEST, Runnable::run, new ObjectMapper(), 16,
+                fanOutEngine, mock(HeartbeatScheduler.class), mock(NotificacionBinaryCodec.class),
+                new FrameCompressor(false, 1024, 6), null,
+                mock(ChatMessageService.class), mock(ChatMessageMapper.class), mock(RecentMessagesCache.class), 0,
+                inbox, 100, mock(EphemeralLane.class), 64, mock(PresenceService.class));
+    }
+
+    /**
+     * Conecta {@code count} sesiones simuladas y devuelve, por sesión, los textos que reciben después
+     * del mensaje de bienvenida.
+     */
+    static List<List<String>> connect(WebSocketHandler handler, int count) throws Exception {
+        List<List<String>> received = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            received.add(connect(handler, "s-" + i, new HashMap<>()));
+        }
+        return received;
+    }
+
+    /**
+     * Conecta una sesión autenticada como el usuario indicado.
+     */
+    static List<String> connectUser(WebSocketHandler handler, String sessionId, Long userId) throws Exception {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE, userId);
+        return connect(handler, sessionId, attributes);
+    }
+
+    /**
+     * Conecta una sesión con los atributos de handshake indicados y devuelve los textos que recibe
+     * después del mensaje de bienvenida.
+     */
+    static List<String> connect(WebSocketHandler handler, String sessionId, Map<String, Object> attributes)
+            throws Exception {
+        List<String> payloads = Collections.synchronizedList(new ArrayList<>());
+        connectRecording(handler, sessionId, attributes, payloads);
+        payloads.clear();
+        return payloads;
+    }
+
+    /**
+     * Conecta una sesión que anota en {@code payloads} todos los textos que recibe, bienvenida incluida.
+     *
+     * @return Sesión simulada ya conectada.
+     */
+    static WebSocketSession connectRecording(WebSocketHandler handler, String sessionId, Map<String, Object> attributes,
+                                 List<String> payloads) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(sessionId);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(attributes);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            payloads.add(((TextMessage) message).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.proyectoauth.config.websockets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.rest.inbox.model.InboxEvent;
+import org.example.proyectoauth.rest.inbox.repositories.InboxStore;
+import org.example.proyectoauth.rest.inbox.services.InboxService;
+import org.example.proyectoauth.rest.inbox.services.InboxServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WebSocketHandlerInboxTest {
+
+    private static final int RESUME_LIMIT = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InboxStore store = mock(InboxStore.class);
+    private final WebSocketHandler handler =
+            WebSocketHandlerBroadcastTest.handler(new FanOutEngine(Runnable::run, 4, 1), new InboxServiceImpl(store, 1000));
+
+    @Test
+    void broadcastIsAppendedToTheSharedInboxAndDeliveredWithItsSequence() throws Exception {
+        List<String> anonymous = WebSocketHandlerBroadcastTest.connect(handler, 1).get(0);
+        List<String> user = WebSocketHandlerBroadcastTest.connectUser(handler, "u-1", 7L);
+
+        handler.sendMessage("hola");
+        handler.sendMessage("adios");
+
+        ArgumentCaptor<InboxEvent> stored = ArgumentCaptor.forClass(InboxEvent.class);
+        verify(store, times(2)).append(stored.capture());
+        assertEquals(InboxService.BROADCAST, stored.getValue().getUserId());
+        assertEquals("\"adios\"", stored.getValue().getPayload(), "se guarda como literal JSON");
+        assertEquals(List.of("hola", "adios"), anonymous, "las sesiones anónimas reciben la trama de siempre");
+        assertEquals(List.of(
+                "{\"type\":\"inbox\",\"stream\":\"broadcast\",\"seq\":1,\"payload\":\"hola\"}",
+                "{\"type\":\"inbox\",\"stream\":\"broadcast\",\"seq\":2,\"payload\":\"adios\"}"), user);
+    }
+
+    @Test
+    void broadcastStillReachesConnectedSessionsWhenTheInboxFails() throws Exception {
+        doThrow(new IllegalStateException("caída")).when(store).append(any());
+        List<String> anonymous = WebSocketHandlerBroadcastTest.connect(handler, 1).get(0);
+        List<String> user = WebSocketHandlerBroadcastTest.connectUser(handler, "u-1", 7L);
+
+        handler.sendMessage("hola");
+
+        assertEquals(List.of("hola"), anonymous);
+        assertEquals(List.of("hola"), user);
+    }
+
+    @Test
+    void reconnectReplaysTheMissedBroadcasts() throws Exception {
+        when(store.findAfter(InboxService.BROADCAST, 2, RESUME_LIMIT + 1))
+                .thenReturn(List.of(event(3, "\"c\""), event(4, "\"d\"")));
+
+        List<String> received = reconnect(Map.of(JwtHandshakeInterceptor.RESUME_BROADCAST_FROM_ATTRIBUTE, 2L));
+
+        assertEquals(List.of(
+                "{\"type\":\"inbox\",\"stream\":\"broadcast\",\"seq\":3,\"payload\":\"c\"}",
+                "{\"type\":\"inbox\",\"stream\":\"broadcast\",\"seq\":4,\"payload\":\"d\"}"), received);
+    }
+
+    @Test
+    void reconnectReplaysTheUserInbox() throws Exception {
+        when(store.findAfter(7L, 10, RESUME_LIMIT + 1)).thenReturn(List.of(event(11, "{\"n\":11}")));
+
+        List<String> received = reconnect(Map.of(JwtHandshakeInterceptor.RESUME_FROM_ATTRIBUTE, 10L));
+
+        assertEquals(List.of("{\"type\":\"inbox\",\"stream\":\"user\",\"seq\":11,\"payload\":{\"n\":11}}"), received);
+        verify(store, never()).findAfter(eq(InboxService.BROADCAST), anyLong(), anyInt());
+    }
+
+    @Test
+    void resumingFromTheLastAcknowledgedSequenceSendsNothing() throws Exception {
+        when(store.findAfter(anyLong(), anyLong(), anyInt())).thenReturn(List.of());
+
+        List<String> received = reconnect(Map.of(
+                JwtHandshakeInterceptor.RESUME_FROM_ATTRIBUTE, 11L,
+                JwtHandshakeInterceptor.RESUME_BROADCAST_FROM_ATTRIBUTE, 4L));
+
+        assertEquals(List.of(), received);
+        verify(store).findAfter(7L, 11, RESUME_LIMIT + 1);
+        verify(store).findAfter(InboxService.BROADCAST, 4, RESUME_LIMIT + 1);
+    }
+
+    @Test
+    void prunedGapRequestsResyncOfThatStream() throws Exception {
+        when(store.findAfter(InboxService.BROADCAST, 2, RESUME_LIMIT + 1)).thenReturn(List.of(event(9, "\"x\"")));
+
+        List<String> received = reconnect(Map.of(JwtHandshakeInterceptor.RESUME_BROADCAST_FROM_ATTRIBUTE, 2L));
+
+        assertEquals(1, received.size());
+        assertResync(received.get(0), "broadcast");
+    }
+
+    @Test
+    void gapLargerThanTheResumeLimitRequestsResync() throws Exception {
+        when(store.findAfter(7L, 0, RESUME_LIMIT + 1)).thenReturn(
+                LongStream.rangeClosed(1, RESUME_LIMIT + 1).mapToObj(seq -> event(seq, "{}")).toList());
+
+        List<String> received = reconnect(Map.of(JwtHandshakeInterceptor.RESUME_FROM_ATTRIBUTE, 0L));
+
+        assertEquals(1, received.size());
+        assertResync(received.get(0), "user");
+    }
+
+    @Test
+    void anonymousSessionsCannotResume() throws Exception {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.RESUME_BROADCAST_FROM_ATTRIBUTE, 2L);
+
+        WebSocketHandlerBroadcastTest.connect(handler, "anon", attributes);
+
+        verify(store, never()).findAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    /**
+     * Conecta al usuario 7 con los atributos de reanudación indicados y devuelve lo que recibe tras la bienvenida.
+     */
+    private List<String> reconnect(Map<String, Object> resume) throws Exception {
+        Map<String, Object> attributes = new HashMap<>(resume);
+        attributes.put(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE, 7L);
+        List<String> received = new ArrayList<>();
+        WebSocketHandlerBroadcastTest.connectRecording(handler, "u-7", attributes, received);
+        return received.subList(1, received.size());
+    }
+
+    private void assertResync(String payload, String stream) throws Exception {
+        JsonNode body = objectMapper.readTree(payload);
+        assertEquals("resync", body.get("type").asText());
+        assertEquals(stream, body.get("stream").asText());
+    }
+
+    private static InboxEvent event(long seq, String payload) {
+        return InboxEvent.builder().userId(7L).seq(seq).payload(payload).build();
+    }
+}
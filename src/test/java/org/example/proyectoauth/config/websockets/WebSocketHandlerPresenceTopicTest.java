@@ -0,0 +1,76 @@
+package org.example.proyectoauth.config.websockets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.rest.presence.services.PresenceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketHandlerPresenceTopicTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WebSocketHandler handler =
+            WebSocketHandlerBroadcastTest.handler(new FanOutEngine(Runnable::run, 4, 1));
+
+    @Test
+    void anonymousSessionsCannotSubscribeToPresence() throws Exception {
+        List<String> received = new ArrayList<>();
+        WebSocketSession session = WebSocketHandlerBroadcastTest.connectRecording(handler, "anon", new HashMap<>(), received);
+        received.clear();
+
+        send(session, "{\"action\":\"subscribe\",\"topic\":\"" + PresenceService.TOPIC + "\"}");
+
+        assertReply(received, "error");
+    }
+
+    @Test
+    void authenticatedSessionsCanSubscribeToPresence() throws Exception {
+        List<String> received = new ArrayList<>();
+        WebSocketSession session = connectUser(received);
+
+        send(session, "{\"action\":\"subscribe\",\"topic\":\"" + PresenceService.TOPIC + "\"}");
+
+        assertReply(received, "subscribed");
+    }
+
+    @Test
+    void clientsCannotPostToThePresenceTopic() throws Exception {
+        List<String> received = new ArrayList<>();
+        WebSocketSession session = connectUser(received);
+
+        for (String action : List.of("message", "typing", "read")) {
+            received.clear();
+            send(session, "{\"action\":\"" + action + "\",\"topic\":\"" + PresenceService.TOPIC + "\",\"content\":\"start\"}");
+            assertReply(received, "error");
+        }
+    }
+
+    private WebSocketSession connectUser(List<String> received) throws Exception {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.USER_ATTRIBUTE, User.withUsername("ana").password("x").build());
+        attributes.put(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE, 7L);
+        WebSocketSession session = WebSocketHandlerBroadcastTest.connectRecording(handler, "u-7", attributes, received);
+        received.clear();
+        return session;
+    }
+
+    private void send(WebSocketSession session, String command) throws Exception {
+        handler.handleTextMessage(session, new TextMessage(command));
+    }
+
+    private void assertReply(List<String> received, String type) throws Exception {
+        assertEquals(1, received.size(), "una sola respuesta de control");
+        JsonNode reply = objectMapper.readTree(received.get(0));
+        assertEquals(type, reply.get("type").asText());
+        assertEquals(PresenceService.TOPIC, reply.get("topic").asText());
+    }
+}
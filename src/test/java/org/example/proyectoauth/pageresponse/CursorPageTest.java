@@ -0,0 +1,47 @@
+package org.example.proyectoauth.pageresponse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageTest {
+
+    @Test
+    void extraRowMeansThereIsANextPage() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2, 3, 4), 3, id -> "c" + id);
+
+        assertEquals(List.of(1, 2, 3), page.content());
+        assertEquals("c3", page.nextCursor(), "cursor de la última fila devuelta");
+        assertFalse(page.last());
+        assertEquals(3, page.pageSize());
+    }
+
+    @Test
+    void withoutExtraRowItIsTheLastPage() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2), 3, id -> "c" + id);
+
+        assertEquals(List.of(1, 2), page.content());
+        assertNull(page.nextCursor());
+        assertTrue(page.last());
+    }
+
+    @Test
+    void emptyResultIsTheLastPage() {
+        CursorPage<Integer> page = CursorPage.of(List.of(), 3, id -> "c" + id);
+
+        assertTrue(page.content().isEmpty());
+        assertNull(page.nextCursor());
+        assertTrue(page.last());
+    }
+
+    @Test
+    void mapKeepsTheCursor() {
+        CursorPage<String> page = CursorPage.of(List.of(1, 2, 3), 2, id -> "c" + id).map(id -> "u" + id);
+
+        assertEquals(List.of("u1", "u2"), page.content());
+        assertEquals("c2", page.nextCursor());
+        assertFalse(page.last());
+    }
+}
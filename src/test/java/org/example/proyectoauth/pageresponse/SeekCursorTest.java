@@ -0,0 +1,45 @@
+package org.example.proyectoauth.pageresponse;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeekCursorTest {
+
+    @Test
+    void roundTripsTimestampAndId() {
+        SeekCursor cursor = new SeekCursor(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_000_000), 42L);
+
+        assertEquals(cursor, SeekCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsIdOnlyCursor() {
+        SeekCursor cursor = new SeekCursor(null, 7L);
+
+        assertEquals(cursor, SeekCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = new SeekCursor(LocalDateTime.of(2024, 1, 1, 0, 0), Long.MAX_VALUE).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(InvalidCursorException.class, () -> SeekCursor.decode("%%%"));
+        assertThrows(InvalidCursorException.class, () -> SeekCursor.decode(encode("sin-separador")));
+        assertThrows(InvalidCursorException.class, () -> SeekCursor.decode(encode("2024-13-45T00:00|1")));
+        assertThrows(InvalidCursorException.class, () -> SeekCursor.decode(encode("|no-es-un-id")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.proyectoauth.rest.auth.services.jwt;
+
+import org.example.proyectoauth.rest.users.repositories.UserRepository;
+import org.example.proyectoauth.rest.users.services.UserSecurityVersions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class VerifiedTokenCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Test
+    void cachedTokenIsReturnedUntilTheTtl() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60);
+        VerifiedTokenCache.TokenHash hash = VerifiedTokenCache.hash("token-a");
+        VerifiedToken token = token(NOW.plusSeconds(3600), 0);
+
+        cache.put(hash, token, NOW);
+
+        assertSame(token, cache.get(hash, NOW.plusSeconds(59)));
+        assertNull(cache.get(hash, NOW.plusSeconds(60)), "la entrada caduca a los ttl segundos");
+        assertEquals(0, cache.size(), "la entrada caducada se elimina al leerla");
+    }
+
+    @Test
+    void entryNeverOutlivesTheToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 3600);
+        VerifiedTokenCache.TokenHash hash = VerifiedTokenCache.hash("token-a");
+
+        cache.put(hash, token(NOW.plusSeconds(5), 0), NOW);
+
+        assertNotNull(cache.get(hash, NOW.plusSeconds(4)));
+        assertNull(cache.get(hash, NOW.plusSeconds(5)), "un token caducado nunca se da por bueno");
+    }
+
+    @Test
+    void hashIdentifiesTheTokenByValue() {
+        assertEquals(VerifiedTokenCache.hash("token-a"), VerifiedTokenCache.hash("token-a"));
+        assertNotEquals(VerifiedTokenCache.hash("token-a"), VerifiedTokenCache.hash("token-b"));
+    }
+
+    @Test
+    void cachedTokensOfRevokedSessionsAreRejected() {
+        UserSecurityVersions versions = new UserSecurityVersions(mock(UserRepository.class));
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60);
+        VerifiedTokenCache.TokenHash hash = VerifiedTokenCache.hash("token-a");
+        cache.put(hash, token(NOW.plusSeconds(3600), versions.current(7L)), NOW);
+
+        versions.bump(7L);
+
+        // La caché no sabe de revocaciones: guarda la versión del token y la comprobación se hace en cada uso
+        VerifiedToken cached = cache.get(hash, NOW);
+        assertNotNull(cached);
+        assertFalse(versions.isCurrent(cached.userId(), cached.securityVersion()));
+    }
+
+    @Test
+    void expiredEntriesAreEvictedFirstWhenFull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(4, 3600);
+        cache.put(VerifiedTokenCache.hash("short-1"), token(NOW.plusSeconds(1), 0), NOW);
+        cache.put(VerifiedTokenCache.hash("short-2"), token(NOW.plusSeconds(1), 0), NOW);
+        cache.put(VerifiedTokenCache.hash("long-1"), token(NOW.plusSeconds(3600), 0), NOW);
+        cache.put(VerifiedTokenCache.hash("long-2"), token(NOW.plusSeconds(3600), 0), NOW);
+
+        Instant later = NOW.plusSeconds(10);
+        cache.put(VerifiedTokenCache.hash("long-3"), token(NOW.plusSeconds(3600), 0), later);
+
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get(VerifiedTokenCache.hash("long-1"), later));
+        assertNotNull(cache.get(VerifiedTokenCache.hash("long-2"), later));
+        assertNotNull(cache.get(VerifiedTokenCache.hash("long-3"), later));
+    }
+
+    @Test
+    void sizeStaysBoundedWhenNothingHasExpired() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(20, 3600);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(VerifiedTokenCache.hash("token-" + i), token(NOW.plusSeconds(3600), 0), NOW);
+            assertTrue(cache.size() <= 20, "nunca supera la capacidad");
+        }
+        assertNotNull(cache.get(VerifiedTokenCache.hash("token-99"), NOW), "el último token siempre se guarda");
+    }
+
+    @Test
+    void zeroCapacityDisablesTheCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0, 3600);
+        VerifiedTokenCache.TokenHash hash = VerifiedTokenCache.hash("token-a");
+
+        cache.put(hash, token(NOW.plusSeconds(3600), 0), NOW);
+
+        assertNull(cache.get(hash, NOW));
+        assertEquals(0, cache.size());
+    }
+
+    private static VerifiedToken token(Instant expiresAt, long securityVersion) {
+        return new VerifiedToken("ana", 7L, List.of("USER"), NOW, expiresAt, securityVersion);
+    }
+}
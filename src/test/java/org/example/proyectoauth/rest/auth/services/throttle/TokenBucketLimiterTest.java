@@ -0,0 +1,112 @@
+package org.example.proyectoauth.rest.auth.services.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void burstUpToCapacityThenRefuses() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1024, 5, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"), "intento " + i);
+        }
+        long retryAfter = limiter.tryAcquire("10.0.0.1");
+        assertTrue(retryAfter > 0, "el sexto intento se rechaza");
+        // Una ficha por minuto: como mucho un minuto de espera
+        assertTrue(retryAfter <= TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @Test
+    void withoutRefillTheWaitIsUnbounded() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1024, 1, 0);
+
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertEquals(Long.MAX_VALUE, limiter.tryAcquire("ana"));
+    }
+
+    @Test
+    void tokensAreRefilledOverTime() throws Exception {
+        // Una ficha por milisegundo
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1024, 2, 60_000);
+        limiter.tryAcquire("ana");
+        limiter.tryAcquire("ana");
+
+        Thread.sleep(20);
+
+        assertEquals(0, limiter.tryAcquire("ana"));
+    }
+
+    @Test
+    void exhaustedKeyDoesNotBlockMostOtherKeys() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(4096, 3, 0);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("atacante");
+        }
+
+        int admitted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.tryAcquire("usuario-" + i) == 0) {
+                admitted++;
+            }
+        }
+        // Una clave solo se bloquea si sus dos cubetas están agotadas por otras claves
+        assertTrue(admitted > 990, "admitidos: " + admitted);
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedBothBuckets() throws Exception {
+        int capacity = 50;
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1024, capacity, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        if (limiter.tryAcquire("ana") == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Cada intento admitido consume al menos una ficha de una de las dos cubetas de la clave
+        assertTrue(admitted.get() >= capacity, "admitidos: " + admitted.get());
+        assertTrue(admitted.get() <= 2 * capacity, "admitidos: " + admitted.get());
+    }
+
+    @Test
+    void memoryIsFixedAndRoundedToPowerOfTwo() {
+        assertEquals(1024L * Long.BYTES, new TokenBucketLimiter(1000, 5, 1).memoryBytes());
+        assertEquals(1024L * Long.BYTES, new TokenBucketLimiter(1024, 5, 1).memoryBytes());
+    }
+
+    @Test
+    void rejectsCapacityOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1024, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1024, 5_000, 1));
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.proyectoauth.rest.auth.services.users;
+
+import org.example.proyectoauth.rest.users.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDetailsCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void userIsLoadedOnceWithinTheTtl() {
+        UserDetailsCache cache = new UserDetailsCache(10, 60);
+
+        UserDetails first = cache.get("ana", loader(1L));
+        UserDetails second = cache.get("ana", loader(1L));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        UserDetailsCacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRatio());
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        UserDetailsCache cache = new UserDetailsCache(10, 0);
+
+        cache.get("ana", loader(1L));
+        cache.get("ana", loader(1L));
+
+        assertEquals(2, loads.get(), "con ttl 0 las entradas caducan al instante");
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void invalidateByIdCoversRenamedUsers() {
+        UserDetailsCache cache = new UserDetailsCache(10, 60);
+        cache.get("ana", loader(1L));
+
+        // Tras un cambio de nombre el servicio solo conoce el id
+        cache.invalidate(1L);
+        cache.get("ana", loader(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateByUsername() {
+        UserDetailsCache cache = new UserDetailsCache(10, 60);
+        cache.get("ana", loader(1L));
+
+        cache.invalidate("ana");
+        cache.get("ana", loader(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedLoadsAreNotCached() {
+        UserDetailsCache cache = new UserDetailsCache(10, 60);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("ana", name -> {
+            throw new IllegalStateException("no existe");
+        }));
+        cache.get("ana", loader(1L));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().size());
+    }
+
+    @Test
+    void concurrentMissesShareASingleLoad() throws Exception {
+        UserDetailsCache cache = new UserDetailsCache(10, 60);
+        int threads = 8;
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, UserDetails> slowLoader = name -> {
+            loading.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loader(1L).apply(name);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<UserDetails>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get("ana", slowLoader)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                results.add(pool.submit(() -> cache.get("ana", slowLoader)));
+            }
+            // Deja que los demás hilos lleguen a la carga en curso antes de completarla
+            Thread.sleep(100);
+            release.countDown();
+
+            UserDetails loaded = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<UserDetails> result : results) {
+                assertSame(loaded, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loads.get(), "una sola consulta para todos los hilos");
+        UserDetailsCacheStats stats = cache.stats();
+        assertEquals(1, stats.misses());
+        assertEquals(threads - 1, stats.hits() + stats.coalesced());
+    }
+
+    @Test
+    void sizeIsBounded() {
+        UserDetailsCache cache = new UserDetailsCache(10, 60);
+
+        for (long id = 1; id <= 50; id++) {
+            cache.get("user-" + id, loader(id));
+        }
+
+        assertTrue(cache.stats().size() <= 10);
+        assertTrue(cache.stats().evictions() >= 40);
+    }
+
+    @Test
+    void zeroCapacityDisablesTheCache() {
+        UserDetailsCache cache = new UserDetailsCache(0, 60);
+
+        cache.get("ana", loader(1L));
+        cache.get("ana", loader(1L));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    private Function<String, UserDetails> loader(Long id) {
+        return name -> {
+            loads.incrementAndGet();
+            return User.builder().id(id).username(name).password("x").build();
+        };
+    }
+}
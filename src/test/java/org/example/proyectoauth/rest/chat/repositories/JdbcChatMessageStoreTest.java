@@ -0,0 +1,88 @@
+package org.example.proyectoauth.rest.chat.repositories;
+
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JdbcChatMessageStoreTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private final ResultSet keys = mock(ResultSet.class);
+    private final JdbcChatMessageStore store = new JdbcChatMessageStore(jdbcTemplate, mock(ChatMessageRepository.class));
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(statement);
+        when(statement.getGeneratedKeys()).thenReturn(keys);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(connection));
+    }
+
+    @Test
+    void generatedKeysAreAssignedInInsertionOrder() throws Exception {
+        List<ChatMessage> messages = messages(3);
+        when(keys.next()).thenReturn(true, true, true, false);
+        when(keys.getLong("id")).thenReturn(10L, 11L, 12L);
+
+        store.saveAll(messages);
+
+        assertEquals(List.of(10L, 11L, 12L), messages.stream().map(ChatMessage::getId).toList());
+        verify(statement, times(3)).addBatch();
+        verify(statement).executeBatch();
+    }
+
+    @Test
+    void missingGeneratedKeysFailTheWholeBatch() throws Exception {
+        List<ChatMessage> messages = messages(3);
+        when(keys.next()).thenReturn(true, true, false);
+        when(keys.getLong("id")).thenReturn(10L, 11L);
+
+        IncorrectResultSizeDataAccessException error =
+                assertThrows(IncorrectResultSizeDataAccessException.class, () -> store.saveAll(messages));
+
+        assertEquals(3, error.getExpectedSize());
+        assertEquals(2, error.getActualSize());
+        assertTrue(messages.stream().allMatch(message -> message.getId() == null), "ningún mensaje recibe id");
+    }
+
+    @Test
+    void extraGeneratedKeysFailTheWholeBatch() throws Exception {
+        List<ChatMessage> messages = messages(1);
+        when(keys.next()).thenReturn(true, true, false);
+        when(keys.getLong("id")).thenReturn(10L, 11L);
+
+        assertThrows(IncorrectResultSizeDataAccessException.class, () -> store.saveAll(messages));
+        assertNull(messages.get(0).getId());
+    }
+
+    private static List<ChatMessage> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> ChatMessage.builder()
+                        .room("general")
+                        .senderId(1L)
+                        .senderUsername("ana")
+                        .content("hola " + i)
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .toList();
+    }
+}
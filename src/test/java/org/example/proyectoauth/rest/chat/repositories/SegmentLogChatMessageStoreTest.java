@@ -0,0 +1,158 @@
+package org.example.proyectoauth.rest.chat.repositories;
+
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentLogChatMessageStoreTest {
+
+    // Cabecera de cada registro: longitud y CRC
+    private static final int HEADER_BYTES = 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenRecoversSequenceAndRoomChains() throws Exception {
+        SegmentLogChatMessageStore store = open();
+        store.saveAll(List.of(message("general", "a"), message("otra", "b"), message("general", "c")));
+        store.close();
+
+        SegmentLogChatMessageStore reopened = open();
+        try {
+            assertEquals(3, reopened.lastSeq());
+            assertEquals(List.of("a", "b", "c"), contents(reopened.findAfter(0, 10)));
+            assertEquals(List.of("c", "a"), contents(reopened.findBefore("general", null, 10)));
+            assertEquals(List.of("a"), contents(reopened.findBefore("general", new SeekCursor(null, 3L), 10)));
+
+            // Tras reabrir se sigue añadiendo a continuación
+            reopened.saveAll(List.of(message("otra", "d")));
+            assertEquals(4, reopened.lastSeq());
+            assertEquals(List.of("d", "b"), contents(reopened.findBefore("otra", null, 10)));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void corruptedRecordTruncatesTheLog() throws Exception {
+        SegmentLogChatMessageStore store = open();
+        store.saveAll(List.of(message("general", "a"), message("general", "b"), message("general", "c")));
+        store.close();
+
+        // Se altera un byte del cuerpo del tercer registro: su CRC deja de coincidir
+        int third = recordOffset(2);
+        try (FileChannel channel = channel()) {
+            int length = readInt(channel, third);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0x7f}), third + HEADER_BYTES + length - 1);
+        }
+
+        SegmentLogChatMessageStore reopened = open();
+        try {
+            assertEquals(2, reopened.lastSeq());
+            assertEquals(List.of("b", "a"), contents(reopened.findBefore("general", null, 10)));
+
+            reopened.saveAll(List.of(message("general", "d")));
+            assertEquals(3, reopened.lastSeq());
+            assertEquals(List.of("a", "b", "d"), contents(reopened.findAfter(0, 10)));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void tornTailIsDiscardedAndZeroed() throws Exception {
+        SegmentLogChatMessageStore store = open();
+        store.saveAll(List.of(message("general", "a"), message("general", "b")));
+        store.close();
+
+        // Simula un registro a medias: longitud escrita pero sin cuerpo ni CRC válidos
+        int tail = recordOffset(2);
+        try (FileChannel channel = channel()) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 100), tail);
+        }
+
+        SegmentLogChatMessageStore reopened = open();
+        try {
+            assertEquals(2, reopened.lastSeq());
+            assertEquals(List.of("a", "b"), contents(reopened.findAfter(0, 10)));
+        } finally {
+            reopened.close();
+        }
+        try (FileChannel channel = channel()) {
+            assertEquals(0, readInt(channel, tail), "la cola dañada se pone a cero");
+        }
+    }
+
+    @Test
+    void replayVisitsRecordsAfterTheGivenSequence() throws Exception {
+        SegmentLogChatMessageStore store = open();
+        try {
+            store.saveAll(List.of(message("general", "a"), message("general", "b"), message("general", "c")));
+            StringBuilder visited = new StringBuilder();
+
+            store.replay(1, (seq, content) -> visited.append(seq).append(':')
+                    .append(StandardCharsets.UTF_8.decode(content)).append(' '));
+
+            assertEquals("2:b 3:c ", visited.toString());
+        } finally {
+            store.close();
+        }
+    }
+
+    private SegmentLogChatMessageStore open() throws IOException {
+        SegmentLogChatMessageStore store = new SegmentLogChatMessageStore(directory.toString(), 1, 2, true);
+        store.open();
+        return store;
+    }
+
+    private FileChannel channel() throws IOException {
+        return FileChannel.open(directory.resolve(String.format("%010d.log", 0)),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Desplazamiento del registro {@code index} (desde 0) en el primer segmento, siguiendo las longitudes.
+     */
+    private int recordOffset(int index) throws IOException {
+        try (FileChannel channel = channel()) {
+            int offset = 0;
+            for (int i = 0; i < index; i++) {
+                offset += HEADER_BYTES + readInt(channel, offset);
+            }
+            return offset;
+        }
+    }
+
+    private static int readInt(FileChannel channel, int offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        channel.read(buffer, offset);
+        return buffer.getInt(0);
+    }
+
+    private static ChatMessage message(String room, String content) {
+        return ChatMessage.builder()
+                .room(room)
+                .senderId(1L)
+                .senderUsername("ana")
+                .content(content)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+
+    private static List<String> contents(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getContent).toList();
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import org.example.proyectoauth.pageresponse.PageResponse;
+import org.example.proyectoauth.rest.chat.dto.ChatSearchHitDto;
+import org.example.proyectoauth.rest.chat.mapper.ChatMessageMapper;
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.example.proyectoauth.rest.chat.repositories.ChatMessageStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ChatMessageServiceImplTest {
+
+    private final ChatMessageStore store = mock(ChatMessageStore.class);
+    private final ChatSearchIndex searchIndex = mock(ChatSearchIndex.class);
+    private final ChatMessageServiceImpl service = new ChatMessageServiceImpl(store, new ChatMessageMapper(),
+            mock(RecentMessagesCache.class), searchIndex, 10, 10, 100);
+
+    @Test
+    void searchNeverReturnsMessagesFromAnotherRoom() {
+        when(searchIndex.search("general", "hola", 0, 10)).thenReturn(new ChatSearchIndex.SearchResult(
+                List.of(new ChatSearchIndex.Hit(1, 2.0), new ChatSearchIndex.Hit(2, 1.0)), 2));
+        // El seq 2 del índice ya pertenece a otra sala en el almacén
+        when(store.findAllBySeq(any())).thenReturn(List.of(message(1, "general"), message(2, "dm:1:2")));
+
+        PageResponse<ChatSearchHitDto> page = service.search("general", "hola", 0, 10);
+
+        assertEquals(1, page.content().size());
+        assertEquals(1L, page.content().get(0).message().seq());
+        assertEquals("general", page.content().get(0).message().room());
+    }
+
+    private static ChatMessage message(long seq, String room) {
+        return ChatMessage.builder()
+                .id(seq)
+                .room(room)
+                .senderId(1L)
+                .senderUsername("ana")
+                .content("hola")
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+}
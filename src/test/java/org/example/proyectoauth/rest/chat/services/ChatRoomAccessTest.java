@@ -0,0 +1,51 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import org.example.proyectoauth.rest.chat.exceptions.ChatRoomForbidden;
+import org.example.proyectoauth.rest.presence.services.PresenceService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatRoomAccessTest {
+
+    @Test
+    void publicRoomsAreOpenToEveryAuthenticatedUser() {
+        assertTrue(ChatRoomAccess.canRead(1L, "general"));
+        assertTrue(ChatRoomAccess.canPost(1L, "general"));
+    }
+
+    @Test
+    void anonymousSessionsCanReadButNotPostInPublicRooms() {
+        assertTrue(ChatRoomAccess.canRead(null, "general"));
+        assertFalse(ChatRoomAccess.canPost(null, "general"));
+    }
+
+    @Test
+    void directRoomsAreLimitedToTheirParticipants() {
+        assertTrue(ChatRoomAccess.canRead(12L, "dm:12:34"));
+        assertTrue(ChatRoomAccess.canPost(34L, "dm:12:34"));
+        assertFalse(ChatRoomAccess.canRead(5L, "dm:12:34"));
+        assertFalse(ChatRoomAccess.canPost(5L, "dm:12:34"));
+        assertFalse(ChatRoomAccess.canRead(null, "dm:12:34"));
+    }
+
+    @Test
+    void malformedDirectRoomsAreNotAccessible() {
+        assertFalse(ChatRoomAccess.canRead(12L, "dm:12"));
+        assertFalse(ChatRoomAccess.canRead(12L, "dm:12:34:56"));
+        assertFalse(ChatRoomAccess.canRead(12L, "dm:abc:12"));
+    }
+
+    @Test
+    void presenceTopicIsReservedForTheServer() {
+        assertTrue(ChatRoomAccess.canRead(1L, PresenceService.TOPIC));
+        assertFalse(ChatRoomAccess.canRead(null, PresenceService.TOPIC), "la presencia exige autenticación");
+        assertFalse(ChatRoomAccess.canPost(1L, PresenceService.TOPIC), "nadie publica en el topic de presencia");
+    }
+
+    @Test
+    void checkReadThrowsForbidden() {
+        assertThrows(ChatRoomForbidden.class, () -> ChatRoomAccess.checkRead(5L, "dm:12:34"));
+        assertDoesNotThrow(() -> ChatRoomAccess.checkRead(12L, "dm:12:34"));
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import org.example.proyectoauth.rest.chat.model.ChatMessage;
+import org.example.proyectoauth.rest.chat.repositories.ChatMessageStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChatSearchIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private final ChatMessageStore store = mock(ChatMessageStore.class);
+
+    @Test
+    void searchRanksByRelevanceWithinTheRoom() {
+        ChatSearchIndex index = start();
+        try {
+            index.index(List.of(
+                    message(1, "general", "reunión del equipo mañana"),
+                    message(2, "general", "reunión reunión de presupuesto"),
+                    message(3, "otra", "reunión secreta"),
+                    message(4, "general", "comida en la terraza")));
+
+            ChatSearchIndex.SearchResult result = index.search("general", "reuniones", 0, 10);
+
+            assertEquals(2, result.total());
+            assertEquals(List.of(2L, 1L), seqs(result));
+            assertEquals(0, index.search("general", "secreta", 0, 10).total(), "las salas no se mezclan");
+            assertEquals(0, index.search("vacia", "reunión", 0, 10).total());
+            assertEquals(0, index.search("general", "de la", 0, 10).total(), "solo palabras vacías");
+        } finally {
+            index.stop();
+        }
+    }
+
+    @Test
+    void pagesAreSlicesOfTheRanking() {
+        ChatSearchIndex index = start();
+        try {
+            for (int i = 1; i <= 5; i++) {
+                index.index(List.of(message(i, "general", "hola " + "hola ".repeat(i))));
+            }
+
+            assertEquals(List.of(5L, 4L), seqs(index.search("general", "hola", 0, 2)));
+            assertEquals(List.of(3L, 2L), seqs(index.search("general", "hola", 1, 2)));
+            assertEquals(List.of(1L), seqs(index.search("general", "hola", 2, 2)));
+        } finally {
+            index.stop();
+        }
+    }
+
+    @Test
+    void hugePageNumberDoesNotOverflow() {
+        ChatSearchIndex index = start();
+        try {
+            index.index(List.of(message(1, "general", "hola")));
+
+            ChatSearchIndex.SearchResult result = index.search("general", "hola", Integer.MAX_VALUE, 100);
+
+            assertTrue(result.hits().isEmpty());
+            assertEquals(1, result.total());
+        } finally {
+            index.stop();
+        }
+    }
+
+    @Test
+    void reindexingAnIndexedMessageHasNoEffect() {
+        ChatSearchIndex index = start();
+        try {
+            index.index(List.of(message(1, "general", "hola"), message(2, "general", "hola")));
+            index.index(List.of(message(1, "general", "hola")));
+
+            assertEquals(2, index.search("general", "hola", 0, 10).total());
+        } finally {
+            index.stop();
+        }
+    }
+
+    @Test
+    void snapshotIsReloadedAndOnlyNewerMessagesAreIndexed() throws Exception {
+        ChatSearchIndex first = start();
+        first.index(List.of(message(1, "general", "hola"), message(2, "general", "adios")));
+        first.stop();
+
+        when(store.lastSeq()).thenReturn(3L);
+        when(store.findAfter(eq(2L), anyInt())).thenReturn(List.of(message(3, "general", "hola de nuevo")));
+        ChatSearchIndex second = start();
+        try {
+            assertEquals(Set.of(1L, 3L), Set.copyOf(seqs(second.search("general", "hola", 0, 10))));
+            assertEquals(1, second.search("general", "adios", 0, 10).total());
+            verify(store).findAfter(eq(2L), anyInt());
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void snapshotAheadOfTheStoreIsDiscarded() {
+        ChatSearchIndex first = start();
+        first.index(List.of(message(1, "general", "hola"), message(2, "dm:1:2", "hola privado")));
+        first.stop();
+
+        // El almacén se recreó: sus números de secuencia vuelven a empezar por debajo de la instantánea
+        when(store.lastSeq()).thenReturn(1L);
+        when(store.findAfter(eq(0L), anyInt())).thenReturn(List.of(message(1, "general", "nuevo")));
+        ChatSearchIndex second = start();
+        try {
+            assertEquals(0, second.search("dm:1:2", "hola", 0, 10).total());
+            assertEquals(0, second.search("general", "hola", 0, 10).total());
+            assertEquals(List.of(1L), seqs(second.search("general", "nuevo", 0, 10)));
+
+            // Los mensajes nuevos se siguen indexando
+            second.index(List.of(message(2, "general", "hola otra vez")));
+            assertEquals(List.of(2L), seqs(second.search("general", "hola", 0, 10)));
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void corruptedSnapshotIsDiscarded() throws Exception {
+        Files.writeString(directory.resolve("search.idx"), "no es una instantánea");
+        when(store.findAfter(anyLong(), anyInt())).thenReturn(List.of());
+
+        ChatSearchIndex index = start();
+        try {
+            assertEquals(0, index.search("general", "hola", 0, 10).total());
+            verify(store).findAfter(eq(0L), anyInt());
+        } finally {
+            index.stop();
+        }
+    }
+
+    private ChatSearchIndex start() {
+        ChatSearchIndex index = new ChatSearchIndex(store, directory.resolve("search.idx").toString(), 3600);
+        index.start();
+        return index;
+    }
+
+    private static ChatMessage message(long seq, String room, String content) {
+        return ChatMessage.builder()
+                .id(seq)
+                .room(room)
+                .senderId(1L)
+                .senderUsername("ana")
+                .content(content)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+
+    private static List<Long> seqs(ChatSearchIndex.SearchResult result) {
+        return result.hits().stream().map(ChatSearchIndex.Hit::seq).toList();
+    }
+}
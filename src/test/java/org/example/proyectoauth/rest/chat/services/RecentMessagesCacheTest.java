@@ -0,0 +1,145 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import org.example.proyectoauth.pageresponse.SeekCursor;
+import org.example.proyectoauth.rest.chat.dto.ChatMessageDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMessagesCacheTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final AtomicLong seq = new AtomicLong();
+
+    @Test
+    void capacityIsRoundedToPowerOfTwo() {
+        RecentMessagesCache cache = new RecentMessagesCache(5, 64);
+        append(cache, "general", 20);
+
+        // 5 se redondea a 8
+        assertEquals(8, cache.recentJson("general", 100).size());
+    }
+
+    @Test
+    void recentJsonReturnsOldestFirstAndWrapsAround() {
+        RecentMessagesCache cache = new RecentMessagesCache(4, 64);
+        append(cache, "general", 6);
+
+        assertEquals(List.of("json-3", "json-4", "json-5", "json-6"), cache.recentJson("general", 4));
+        assertEquals(List.of("json-5", "json-6"), cache.recentJson("general", 2));
+        assertTrue(cache.recentJson("otra", 4).isEmpty());
+    }
+
+    @Test
+    void beforeReadsBackwardsFromTheCursor() {
+        RecentMessagesCache cache = new RecentMessagesCache(16, 64);
+        List<ChatMessageDto> messages = append(cache, "general", 10);
+
+        List<ChatMessageDto> newest = cache.before("general", null, 3);
+        assertEquals(List.of(10L, 9L, 8L), newest.stream().map(ChatMessageDto::seq).toList());
+
+        ChatMessageDto last = newest.get(2);
+        List<ChatMessageDto> page = cache.before("general", new SeekCursor(last.createdAt(), last.seq()), 3);
+        assertEquals(List.of(7L, 6L, 5L), page.stream().map(ChatMessageDto::seq).toList());
+        assertEquals(messages.get(4), page.get(2));
+    }
+
+    @Test
+    void beforeReturnsNullWhenTheBufferDoesNotCoverTheRange() {
+        RecentMessagesCache cache = new RecentMessagesCache(4, 64);
+        append(cache, "general", 6);
+
+        assertNull(cache.before("general", null, 5), "más mensajes de los que caben en el buffer");
+        assertNull(cache.before("general", new SeekCursor(T0.plusSeconds(1), 1L), 1), "cursor ya sobrescrito");
+        assertNull(cache.before("otra", null, 1));
+    }
+
+    @Test
+    void invalidateDropsTheRoomAndItsBytes() {
+        RecentMessagesCache cache = new RecentMessagesCache(8, 64);
+        append(cache, "general", 5);
+        assertTrue(cache.usedBytes() > 0);
+
+        cache.invalidate("general");
+
+        assertEquals(0, cache.usedBytes());
+        assertEquals(0, cache.roomCount());
+        assertNull(cache.before("general", null, 1));
+        cache.invalidate("general");
+        assertEquals(0, cache.usedBytes());
+    }
+
+    @Test
+    void evictsColdRoomsOverBudget() {
+        // 1 MB de presupuesto y ~25 KB por sala llena: no caben todas
+        RecentMessagesCache cache = new RecentMessagesCache(64, 1);
+        for (int room = 0; room < 100; room++) {
+            append(cache, "sala-" + room, 64);
+        }
+
+        assertTrue(cache.roomCount() < 100);
+        assertTrue(cache.usedBytes() <= 1024 * 1024);
+        // La sala más reciente se conserva
+        assertEquals(64, cache.recentJson("sala-99", 64).size());
+    }
+
+    @Test
+    void usedBytesStaysConsistentUnderConcurrentEviction() throws Exception {
+        RecentMessagesCache cache = new RecentMessagesCache(64, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        String room = "sala-" + ((i + thread) % 60);
+                        cache.append(message(room), "json-" + i);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int room = 0; room < 60; room++) {
+            cache.invalidate("sala-" + room);
+        }
+        assertEquals(0, cache.roomCount());
+        assertEquals(0, cache.usedBytes(), "los bytes contados deben volver a cero al vaciar la caché");
+    }
+
+    private List<ChatMessageDto> append(RecentMessagesCache cache, String room, int count) {
+        List<ChatMessageDto> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatMessageDto message = message(room);
+            cache.append(message, "json-" + message.seq());
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private ChatMessageDto message(String room) {
+        long id = seq.incrementAndGet();
+        return ChatMessageDto.builder()
+                .seq(id)
+                .room(room)
+                .senderId(1L)
+                .senderUsername("ana")
+                .content("mensaje " + id)
+                .createdAt(T0.plusSeconds(id))
+                .build();
+    }
+}
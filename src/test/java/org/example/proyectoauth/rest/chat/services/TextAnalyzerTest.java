@@ -0,0 +1,38 @@
+package org.example.proyectoauth.rest.chat.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextAnalyzerTest {
+
+    @Test
+    void lowercasesFoldsAccentsAndKeepsEnye() {
+        assertEquals(List.of("cancion", "año", "pinguino"), TextAnalyzer.analyze("Canción, AÑO; pingüino"));
+    }
+
+    @Test
+    void dropsStopWordsAndTokensOutOfRange() {
+        assertEquals(List.of("gato", "casa"), TextAnalyzer.analyze("El gato de la casa y x"));
+        assertEquals(List.of(), TextAnalyzer.analyze("the and of " + "a".repeat(41)));
+        assertEquals(List.of(), TextAnalyzer.analyze(null));
+        assertEquals(List.of(), TextAnalyzer.analyze(""));
+    }
+
+    @Test
+    void reducesPluralsToTheSameTerm() {
+        assertEquals(TextAnalyzer.analyze("canción"), TextAnalyzer.analyze("canciones"));
+        assertEquals(TextAnalyzer.analyze("luz"), List.of("luz"));
+        assertEquals(List.of("luz"), TextAnalyzer.analyze("luces"));
+        assertEquals(List.of("party"), TextAnalyzer.analyze("parties"));
+        assertEquals(List.of("mensaje"), TextAnalyzer.analyze("mensajes"));
+        assertEquals(List.of("class", "virus", "crisis"), TextAnalyzer.analyze("class virus crisis"));
+    }
+
+    @Test
+    void numbersAndRepeatsAreKept() {
+        assertEquals(List.of("2024", "hola", "hola"), TextAnalyzer.analyze("2024 hola-hola"));
+    }
+}
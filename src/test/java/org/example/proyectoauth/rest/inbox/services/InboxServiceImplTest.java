@@ -0,0 +1,89 @@
+package org.example.proyectoauth.rest.inbox.services;
+
+import org.example.proyectoauth.rest.inbox.model.InboxEvent;
+import org.example.proyectoauth.rest.inbox.repositories.InboxStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class InboxServiceImplTest {
+
+    private final InboxStore store = mock(InboxStore.class);
+
+    @Test
+    void appendNumbersEventsPerInboxAfterTheStoredMaximum() {
+        when(store.maxSeq(7L)).thenReturn(41L);
+        InboxServiceImpl inbox = new InboxServiceImpl(store, 1000);
+
+        assertEquals(42, inbox.append(7L, "{\"n\":1}", (seq, payload) -> { }));
+        assertEquals(43, inbox.append(7L, "{\"n\":2}", (seq, payload) -> { }));
+        assertEquals(1, inbox.append(InboxService.BROADCAST, "\"hola\"", (seq, payload) -> { }));
+
+        ArgumentCaptor<InboxEvent> stored = ArgumentCaptor.forClass(InboxEvent.class);
+        verify(store, times(3)).append(stored.capture());
+        assertEquals(List.of(42L, 43L, 1L), stored.getAllValues().stream().map(InboxEvent::getSeq).toList());
+        assertEquals("{\"n\":2}", stored.getAllValues().get(1).getPayload());
+        assertEquals(InboxService.BROADCAST, stored.getAllValues().get(2).getUserId());
+        verify(store, times(1)).maxSeq(7L);
+    }
+
+    @Test
+    void deliveryRunsAfterTheEventIsStored() {
+        InboxServiceImpl inbox = new InboxServiceImpl(store, 1000);
+        List<String> delivered = new ArrayList<>();
+
+        inbox.append(3L, "{}", (seq, payload) -> {
+            verify(store).append(any());
+            delivered.add(seq + ":" + payload);
+        });
+
+        assertEquals(List.of("1:{}"), delivered);
+    }
+
+    @Test
+    void failedStoreDoesNotAdvanceTheSequenceNorDeliver() {
+        InboxServiceImpl inbox = new InboxServiceImpl(store, 1000);
+        doThrow(new IllegalStateException("caída")).doNothing().when(store).append(any());
+        List<Long> delivered = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> inbox.append(3L, "{}", (seq, payload) -> delivered.add(seq)));
+        long seq = inbox.append(3L, "{}", (s, payload) -> delivered.add(s));
+
+        assertEquals(1, seq, "sin huecos en la bandeja");
+        assertEquals(List.of(1L), delivered);
+    }
+
+    @Test
+    void oldEventsArePrunedBeyondTheRetention() {
+        // Retención de 20 eventos: se poda cada 2 inserciones una vez superada
+        InboxServiceImpl inbox = new InboxServiceImpl(store, 20);
+
+        for (int i = 0; i < 20; i++) {
+            inbox.append(5L, "{}", (seq, payload) -> { });
+        }
+        verify(store, never()).deleteUpTo(anyLong(), anyLong());
+
+        for (int i = 0; i < 10; i++) {
+            inbox.append(5L, "{}", (seq, payload) -> { });
+        }
+        verify(store, times(5)).deleteUpTo(eq(5L), anyLong());
+        verify(store).deleteUpTo(5L, 10L);
+    }
+
+    @Test
+    void findAfterReadsTheStore() {
+        InboxServiceImpl inbox = new InboxServiceImpl(store, 1000);
+        List<InboxEvent> events = List.of(InboxEvent.builder().userId(2L).seq(5L).payload("{}").build());
+        when(store.findAfter(2L, 4L, 10)).thenReturn(events);
+
+        assertSame(events, inbox.findAfter(2L, 4L, 10));
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.proyectoauth.rest.presence.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntMapTest {
+
+    @Test
+    void incrementAndDecrementCountPerKey() {
+        LongIntMap map = new LongIntMap(4);
+
+        assertEquals(1, map.increment(7));
+        assertEquals(2, map.increment(7));
+        assertEquals(1, map.decrement(7));
+        assertEquals(0, map.decrement(7));
+        assertEquals(-1, map.decrement(7), "clave ausente");
+        assertEquals(0, map.get(7));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void supportsAnyLongKey() {
+        LongIntMap map = new LongIntMap(4);
+        long[] keys = {0, -1, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE + 1L};
+        for (long key : keys) {
+            map.increment(key);
+        }
+        for (long key : keys) {
+            assertEquals(1, map.get(key));
+        }
+        assertEquals(keys.length, map.size());
+    }
+
+    @Test
+    void putIfAbsentKeepsTheFirstValue() {
+        LongIntMap map = new LongIntMap(4);
+
+        assertTrue(map.putIfAbsent(3, 1));
+        assertFalse(map.putIfAbsent(3, 2));
+        assertEquals(1, map.get(3));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        LongIntMap map = new LongIntMap(4);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            // Pocas claves para forzar colisiones, borrados y reinserciones en los mismos tramos
+            long key = random.nextInt(2_000) * 1024L;
+            if (random.nextBoolean()) {
+                assertEquals(reference.merge(key, 1, Integer::sum), map.increment(key));
+            } else {
+                Integer count = reference.get(key);
+                int expected = count == null ? -1 : count - 1;
+                if (count != null) {
+                    if (expected == 0) {
+                        reference.remove(key);
+                    } else {
+                        reference.put(key, expected);
+                    }
+                }
+                assertEquals(expected, map.decrement(key));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, count) -> assertEquals(count, map.get(key)));
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(reference, visited);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.proyectoauth.rest.presence.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceServiceTest {
+
+    private final PresenceService presence = new PresenceService(20);
+
+    @Test
+    void userStaysOnlineUntilTheLastDeviceDisconnects() {
+        presence.connected(1L);
+        presence.connected(1L);
+        presence.disconnected(1L);
+        assertTrue(presence.isOnline(1L));
+
+        presence.disconnected(1L);
+        assertFalse(presence.isOnline(1L));
+        assertEquals(0, presence.onlineCount());
+    }
+
+    @Test
+    void extraDisconnectIsIgnored() {
+        presence.disconnected(5L);
+        presence.connected(5L);
+
+        assertTrue(presence.isOnline(5L));
+        assertEquals(1, presence.onlineCount());
+    }
+
+    @Test
+    void onlineAmongKeepsRequestOrder() {
+        presence.connected(3L);
+        presence.connected(1L);
+        presence.connected(Long.MAX_VALUE);
+
+        assertEquals(List.of(1L, 3L, Long.MAX_VALUE),
+                presence.onlineAmong(Arrays.asList(1L, 2L, null, 3L, Long.MAX_VALUE)));
+        assertEquals(3, presence.onlineCount());
+    }
+
+    @Test
+    void tickPublishesOnlyNetChanges() throws Exception {
+        BlockingQueue<Map<String, Object>> deltas = new LinkedBlockingQueue<>();
+        presence.setPublisher(deltas::add);
+        // Antes del primer tick: conectar y desconectar al usuario 2 no genera nada
+        presence.connected(1L);
+        presence.connected(2L);
+        presence.disconnected(2L);
+        presence.start();
+        try {
+            assertDeltas(deltas);
+        } finally {
+            presence.stop();
+        }
+    }
+
+    private void assertDeltas(BlockingQueue<Map<String, Object>> deltas) throws Exception {
+        Map<String, Object> delta = deltas.poll(5, TimeUnit.SECONDS);
+        assertNotNull(delta);
+        assertEquals("presence", delta.get("type"));
+        assertEquals(List.of(1L), delta.get("online"));
+        assertEquals(List.of(), delta.get("offline"));
+
+        presence.disconnected(1L);
+        delta = deltas.poll(5, TimeUnit.SECONDS);
+        assertNotNull(delta);
+        assertEquals(List.of(), delta.get("online"));
+        assertEquals(List.of(1L), delta.get("offline"));
+    }
+}
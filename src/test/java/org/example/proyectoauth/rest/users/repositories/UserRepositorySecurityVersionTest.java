@@ -0,0 +1,59 @@
+package org.example.proyectoauth.rest.users.repositories;
+
+import jakarta.persistence.EntityManager;
+import org.example.proyectoauth.rest.users.model.Role;
+import org.example.proyectoauth.rest.users.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserRepositorySecurityVersionTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void securityVersionOnlyMovesForward() {
+        Long id = newUser("ana");
+
+        assertEquals(0L, userRepository.findSecurityVersionById(id).orElseThrow());
+        userRepository.raiseSecurityVersion(id, 10);
+        userRepository.raiseSecurityVersion(id, 5);
+
+        assertEquals(10L, userRepository.findSecurityVersionById(id).orElseThrow());
+        assertTrue(userRepository.findMaxSecurityVersion() >= 10);
+    }
+
+    @Test
+    void savingTheEntityDoesNotOverwriteTheVersion() {
+        Long id = newUser("luis");
+        User loaded = userRepository.findById(id).orElseThrow();
+
+        userRepository.raiseSecurityVersion(id, 42);
+        loaded.setName("Luis Cambiado");
+        userRepository.saveAndFlush(loaded);
+        entityManager.clear();
+
+        assertEquals(42L, userRepository.findSecurityVersionById(id).orElseThrow());
+    }
+
+    private Long newUser(String username) {
+        User user = userRepository.saveAndFlush(User.builder()
+                .name(username)
+                .username(username)
+                .email(username + "@example.com")
+                .password("secreto123")
+                .roles(Set.of(Role.USER))
+                .build());
+        entityManager.clear();
+        return user.getId();
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.proyectoauth.rest.users.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.proyectoauth.rest.users.exceptions.UserImportFormatInvalid;
+import org.example.proyectoauth.rest.users.model.Role;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportParserTest {
+
+    @Test
+    void splitCsvHandlesQuotesAndEscapedQuotes() {
+        assertEquals(List.of("a", "b,c", "d\"e", ""), UserImportParser.splitCsv("a,\"b,c\",\"d\"\"e\","));
+        assertEquals(List.of(""), UserImportParser.splitCsv(""));
+    }
+
+    @Test
+    void csvRowsAreMappedByHeaderSkippingBlankLines() {
+        UserImportParser parser = parser(UserImportService.Format.CSV,
+                "\uFEFFUsername,name,email,password,roles,is_active\n"
+                        + "\n"
+                        + "ana,\"Ana, la primera\",ana@example.com,secreto123,user|admin,true\n"
+                        + "luis,Luis,luis@example.com,secreto123,,0\n");
+
+        UserImportParser.Row first = parser.next();
+        assertEquals(3, first.line());
+        assertNull(first.error());
+        assertEquals("ana", first.username());
+        assertEquals("Ana, la primera", first.user().getName());
+        assertEquals(Set.of(Role.USER, Role.ADMIN), first.user().getRoles());
+        assertTrue(first.user().getIsActive());
+
+        UserImportParser.Row second = parser.next();
+        assertEquals(4, second.line());
+        assertEquals("luis", second.username());
+        assertFalse(second.user().getIsActive());
+
+        assertNull(parser.next(), "fin del fichero");
+    }
+
+    @Test
+    void unknownRoleIsReportedAndReadingContinues() {
+        UserImportParser parser = parser(UserImportService.Format.CSV,
+                "name,username,email,password,roles\n"
+                        + "Ana,ana,ana@example.com,secreto123,superuser\n"
+                        + "Luis,luis,luis@example.com,secreto123,user\n");
+
+        UserImportParser.Row bad = parser.next();
+        assertNull(bad.user());
+        assertEquals("ana", bad.username());
+        assertTrue(bad.error().contains("superuser"));
+
+        UserImportParser.Row good = parser.next();
+        assertNull(good.error());
+        assertEquals(Set.of(Role.USER), good.user().getRoles());
+    }
+
+    @Test
+    void missingRequiredColumnsFailOnTheHeader() {
+        UserImportParser parser = parser(UserImportService.Format.CSV, "name,username,email\nAna,ana,ana@example.com\n");
+
+        UserImportFormatInvalid error = assertThrows(UserImportFormatInvalid.class, parser::next);
+        assertTrue(error.getMessage().contains("password"));
+    }
+
+    @Test
+    void ndjsonInvalidLineDoesNotStopTheReading() {
+        UserImportParser parser = parser(UserImportService.Format.NDJSON,
+                "{\"name\":\"Ana\",\"username\":\"ana\",\"email\":\"ana@example.com\",\"password\":\"secreto123\"}\n"
+                        + "{no es json\n"
+                        + "\n"
+                        + "{\"name\":\"Luis\",\"username\":\"luis\",\"email\":\"luis@example.com\",\"password\":\"secreto123\"}\n");
+
+        assertEquals("ana", parser.next().username());
+        UserImportParser.Row invalid = parser.next();
+        assertEquals(2, invalid.line());
+        assertNull(invalid.user());
+        assertTrue(invalid.error().startsWith("JSON no válido"));
+        UserImportParser.Row last = parser.next();
+        assertEquals(4, last.line());
+        assertEquals("luis", last.username());
+        assertNull(parser.next());
+    }
+
+    private static UserImportParser parser(UserImportService.Format format, String content) {
+        return new UserImportParser(new BufferedReader(new StringReader(content)), format, new ObjectMapper());
+    }
+}
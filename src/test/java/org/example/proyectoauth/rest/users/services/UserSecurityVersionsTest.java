@@ -0,0 +1,108 @@
+package org.example.proyectoauth.rest.users.services;
+
+import org.example.proyectoauth.rest.users.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserSecurityVersionsTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserSecurityVersions versions = new UserSecurityVersions(userRepository);
+
+    @Test
+    void tokensOfUnchangedUsersAreCurrent() {
+        assertEquals(0, versions.current(1L));
+        assertTrue(versions.isCurrent(1L, 0));
+        assertTrue(versions.isCurrent(null, 0));
+    }
+
+    @Test
+    void bumpRevokesTokensIssuedJustBefore() {
+        long issued = versions.current(1L);
+
+        versions.bump(1L);
+
+        // Sin depender del reloj: el token emitido en el mismo segundo, antes del cambio, ya no vale
+        assertFalse(versions.isCurrent(1L, issued));
+        assertTrue(versions.isCurrent(1L, versions.current(1L)));
+    }
+
+    @Test
+    void tokenIssuedAfterBumpStaysValidUntilTheNextOne() {
+        versions.bump(1L);
+        long issued = versions.current(1L);
+
+        assertTrue(versions.isCurrent(1L, issued));
+        versions.bump(1L);
+        assertFalse(versions.isCurrent(1L, issued));
+    }
+
+    @Test
+    void bumpOnlyAffectsThatUser() {
+        versions.bump(1L);
+
+        assertTrue(versions.isCurrent(2L, 0));
+        assertFalse(versions.isCurrent(1L, 0));
+    }
+
+    @Test
+    void inactiveUsersAreRevokedAtStartup() {
+        when(userRepository.findInactiveIds()).thenReturn(List.of(3L, 4L));
+
+        versions.loadInactiveUsers();
+
+        assertFalse(versions.isCurrent(3L, 0));
+        assertFalse(versions.isCurrent(4L, 0));
+        assertTrue(versions.isCurrent(5L, 0));
+    }
+
+    @Test
+    void versionsOfANewRunExceedThoseOfEarlierTokens() throws Exception {
+        versions.bump(1L);
+        long fromEarlierRun = versions.current(1L);
+        Thread.sleep(2);
+
+        UserSecurityVersions restarted = new UserSecurityVersions(userRepository);
+        restarted.bump(1L);
+
+        assertTrue(restarted.current(1L) > fromEarlierRun);
+        assertFalse(restarted.isCurrent(1L, fromEarlierRun));
+    }
+
+    @Test
+    void bumpIsPersistedOnTheUserRow() {
+        versions.bump(1L);
+
+        verify(userRepository).raiseSecurityVersion(1L, versions.current(1L));
+    }
+
+    @Test
+    void revocationSurvivesARestart() {
+        // Versión guardada por una ejecución anterior al cambiar los roles del usuario
+        when(userRepository.findSecurityVersionById(1L)).thenReturn(Optional.of(500L));
+
+        assertEquals(500, versions.current(1L));
+        assertFalse(versions.isCurrent(1L, 499), "token emitido antes del cambio");
+        assertTrue(versions.isCurrent(1L, 500));
+        // Solo se consulta la primera vez
+        versions.current(1L);
+        verify(userRepository, times(1)).findSecurityVersionById(1L);
+    }
+
+    @Test
+    void startupSequenceNeverFallsBelowStoredVersions() {
+        long future = System.currentTimeMillis() * 1000 + 1_000_000_000L;
+        when(userRepository.findMaxSecurityVersion()).thenReturn(future);
+        when(userRepository.findInactiveIds()).thenReturn(List.of());
+
+        versions.loadInactiveUsers();
+        versions.bump(1L);
+
+        assertTrue(versions.current(1L) > future);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.proyectoauth.rest.users.services;
+
+import org.example.proyectoauth.pageresponse.InvalidSortException;
+import org.example.proyectoauth.rest.auth.services.users.AuthUserService;
+import org.example.proyectoauth.rest.users.dto.UserProfileUpdateDto;
+import org.example.proyectoauth.rest.users.dto.UserRequestDto;
+import org.example.proyectoauth.rest.users.mapper.UserMapper;
+import org.example.proyectoauth.rest.users.model.User;
+import org.example.proyectoauth.rest.users.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class UserServiceImplTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserMapper userMapper = mock(UserMapper.class);
+    private final AuthUserService authUserService = mock(AuthUserService.class);
+    private final UserSecurityVersions securityVersions = mock(UserSecurityVersions.class);
+    private final UserServiceImpl service = new UserServiceImpl(userRepository, userMapper, mock(PasswordEncoder.class),
+            securityVersions, authUserService);
+
+    private User stored;
+
+    @BeforeEach
+    void setUp() {
+        stored = User.builder().id(1L).username("ana").email("ana@example.com").password("x").isActive(true).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(userRepository.findByUsernameIgnoreCaseOrEmailIgnoreCase(anyString(), anyString())).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void updateInvalidatesTheCachedUserByItsPreviousName() {
+        UserRequestDto request = UserRequestDto.builder().username("ana2").email("ana@example.com").build();
+        when(userMapper.toUser(eq(stored), eq(request), eq(1L)))
+                .thenReturn(User.builder().id(1L).username("ana2").build());
+
+        service.update(1L, request);
+
+        verify(securityVersions).bump(1L);
+        verify(authUserService).invalidate(1L, "ana");
+    }
+
+    @Test
+    void updateProfileInvalidatesTheCachedUserByItsPreviousName() {
+        UserProfileUpdateDto request = UserProfileUpdateDto.builder()
+                .name("Ana").username("ana2").email("ana@example.com").password("nueva").build();
+
+        service.updateProfile(1L, request);
+
+        verify(securityVersions).bump(1L);
+        verify(authUserService).invalidate(1L, "ana");
+    }
+
+    @Test
+    void deactivationInvalidatesTheCachedUser() {
+        service.deleteById(1L);
+
+        verify(securityVersions).bump(1L);
+        verify(authUserService).invalidate(1L, "ana");
+    }
+
+    @Test
+    void cursorPageRejectsAnUnknownSortField() {
+        assertThrows(InvalidSortException.class, () -> service.findAllByCursor(Optional.empty(), Optional.empty(),
+                Optional.empty(), "password", true, null, 10));
+
+        verify(userRepository, never()).findAllAfter(any(), anyBoolean(), anyBoolean(), any(), anyInt());
+    }
+
+    @Test
+    void cursorPageAcceptsTheSupportedSortFields() {
+        when(userRepository.findAllAfter(any(), anyBoolean(), anyBoolean(), any(), anyInt())).thenReturn(List.of());
+
+        service.findAllByCursor(Optional.empty(), Optional.empty(), Optional.empty(), "id", true, null, 10);
+        service.findAllByCursor(Optional.empty(), Optional.empty(), Optional.empty(), "createdAt", false, null, 10);
+
+        verify(userRepository).findAllAfter(any(), eq(false), eq(true), isNull(), eq(11));
+        verify(userRepository).findAllAfter(any(), eq(true), eq(false), isNull(), eq(11));
+    }
+}